@@ -19,6 +19,7 @@ package org.b3log.solo;
 
 import eu.bitwalker.useragentutils.BrowserType;
 import eu.bitwalker.useragentutils.UserAgent;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
@@ -37,7 +38,11 @@ import org.b3log.solo.event.*;
 import org.b3log.solo.model.Option;
 import org.b3log.solo.model.Skin;
 import org.b3log.solo.repository.OptionRepository;
+import org.b3log.solo.repository.RequestLoader;
 import org.b3log.solo.service.*;
+import org.b3log.solo.util.BeanIndexProcessor;
+import org.b3log.solo.util.Markdowns;
+import org.b3log.solo.util.Metrics;
 import org.b3log.solo.util.Skins;
 import org.b3log.solo.util.Solos;
 import org.json.JSONObject;
@@ -46,12 +51,16 @@ import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletRequestEvent;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSessionEvent;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * Solo Servlet listener.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.10.0.5, Nov 15, 2018
+ * @version 1.10.12.4, Nov 21, 2018
  * @since 0.3.1
  */
 public final class SoloServletListener extends AbstractServletListener {
@@ -66,6 +75,37 @@ public final class SoloServletListener extends AbstractServletListener {
      */
     public static final String VERSION = "2.9.6";
 
+    /**
+     * Scan path of the classpath scanning startup mode.
+     */
+    private static final String SCAN_PATH = "org.b3log.solo";
+
+    /**
+     * Max count of classified user agents to cache.
+     */
+    private static final int MAX_BROWSER_TYPES = 1024;
+
+    /**
+     * Classified user agents, &lt;userAgent, browserType&gt;, least recently used evicted.
+     */
+    private static final Map<String, BrowserType> BROWSER_TYPES = Collections.synchronizedMap(new LinkedHashMap<String, BrowserType>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, BrowserType> eldest) {
+            return size() > MAX_BROWSER_TYPES;
+        }
+    });
+
+    /**
+     * User agent pattern of mobile browsers.
+     */
+    private static final Pattern MOBILE_UA = Pattern.compile("mobile|MQQBrowser|iphone|MicroMessenger|CFNetwork|Android",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * User agent pattern of bots.
+     */
+    private static final Pattern BOT_UA = Pattern.compile("Iframely|Google|BUbiNG|ltx71|py", Pattern.CASE_INSENSITIVE);
+
     /**
      * Bean manager.
      */
@@ -74,8 +114,12 @@ public final class SoloServletListener extends AbstractServletListener {
     @Override
     public void contextInitialized(final ServletContextEvent servletContextEvent) {
         Latkes.USER_AGENT = Solos.USER_AGENT;
-        Latkes.setScanPath("org.b3log.solo");
+        final String scanPath = getScanPath();
+        Latkes.setScanPath(scanPath);
+        final long startBeans = System.currentTimeMillis();
         super.contextInitialized(servletContextEvent);
+        LOGGER.log(Level.INFO, "Started beans [mode={0}, elapsed={1}ms]",
+                SCAN_PATH.equals(scanPath) ? "scan" : "index", System.currentTimeMillis() - startBeans);
         Stopwatchs.start("Context Initialized");
 
         validateSkin();
@@ -105,6 +149,26 @@ public final class SoloServletListener extends AbstractServletListener {
                     transaction.rollback();
                 }
             }
+
+            final SuggestionQueryService suggestionQueryService = beanManager.getReference(SuggestionQueryService.class);
+            suggestionQueryService.loadSuggestions();
+            final TagQueryService tagQueryService = beanManager.getReference(TagQueryService.class);
+            tagQueryService.loadTags();
+
+            final StatisticQueryService statisticQueryService = beanManager.getReference(StatisticQueryService.class);
+            try {
+                statisticQueryService.loadStatistic();
+            } catch (final Exception e) {
+                LOGGER.log(Level.ERROR, "Loads statistic failed", e);
+            }
+
+            final MailMgmtService mailMgmtService = beanManager.getReference(MailMgmtService.class);
+            mailMgmtService.start();
+            final SyncMgmtService syncMgmtService = beanManager.getReference(SyncMgmtService.class);
+            syncMgmtService.start();
+
+            final WarmUpService warmUpService = beanManager.getReference(WarmUpService.class);
+            warmUpService.warmUp();
         }
 
         registerEventHandlers();
@@ -122,6 +186,18 @@ public final class SoloServletListener extends AbstractServletListener {
 
     @Override
     public void contextDestroyed(final ServletContextEvent servletContextEvent) {
+        final MailMgmtService mailMgmtService = beanManager.getReference(MailMgmtService.class);
+        mailMgmtService.stop();
+        final SyncMgmtService syncMgmtService = beanManager.getReference(SyncMgmtService.class);
+        syncMgmtService.stop();
+        final EventDispatcher eventDispatcher = beanManager.getReference(EventDispatcher.class);
+        eventDispatcher.shutdown();
+        final MigrationService migrationService = beanManager.getReference(MigrationService.class);
+        migrationService.stop();
+        final ArticleQueryService articleQueryService = beanManager.getReference(ArticleQueryService.class);
+        articleQueryService.shutdown();
+        Markdowns.shutdown();
+
         super.contextDestroyed(servletContextEvent);
 
         LOGGER.info("Destroyed the context");
@@ -143,6 +219,8 @@ public final class SoloServletListener extends AbstractServletListener {
 
         final String requestURI = httpServletRequest.getRequestURI();
         Stopwatchs.start("Request Initialized [requestURI=" + requestURI + "]");
+        Metrics.startRequest();
+        RequestLoader.start();
         fillBotAttrs(httpServletRequest);
         if (!Solos.isBot(httpServletRequest)) {
             final StatisticMgmtService statisticMgmtService = beanManager.getReference(StatisticMgmtService.class);
@@ -154,9 +232,18 @@ public final class SoloServletListener extends AbstractServletListener {
 
     @Override
     public void requestDestroyed(final ServletRequestEvent servletRequestEvent) {
+        final EventDispatcher eventDispatcher = beanManager.getReference(EventDispatcher.class);
+        eventDispatcher.discard();
+        final StatisticMgmtService statisticMgmtService = beanManager.getReference(StatisticMgmtService.class);
+        statisticMgmtService.discard();
+
+        final JSONObject loaderStat = RequestLoader.end();
+        Metrics.endRequest((HttpServletRequest) servletRequestEvent.getServletRequest());
         Stopwatchs.end();
 
         LOGGER.log(Level.DEBUG, "Stopwatch: {0}{1}", Strings.LINE_SEPARATOR, Stopwatchs.getTimingStat());
+        LOGGER.log(Level.DEBUG, "Request loader [requestURI={0}, stat={1}]",
+                ((HttpServletRequest) servletRequestEvent.getServletRequest()).getRequestURI(), loaderStat);
         Stopwatchs.release();
 
         super.requestDestroyed(servletRequestEvent);
@@ -202,19 +289,22 @@ public final class SoloServletListener extends AbstractServletListener {
 
         try {
             final EventManager eventManager = beanManager.getReference(EventManager.class);
-            final ArticleCommentReplyNotifier articleCommentReplyNotifier = beanManager.getReference(ArticleCommentReplyNotifier.class);
-            eventManager.registerListener(articleCommentReplyNotifier);
-            final PageCommentReplyNotifier pageCommentReplyNotifier = beanManager.getReference(PageCommentReplyNotifier.class);
-            eventManager.registerListener(pageCommentReplyNotifier);
             final PluginRefresher pluginRefresher = beanManager.getReference(PluginRefresher.class);
             eventManager.registerListener(pluginRefresher);
             eventManager.registerListener(new ViewLoadEventHandler());
+
+            // Write side listeners queue outbox rows in the transaction firing the event
+            final EventDispatcher eventDispatcher = beanManager.getReference(EventDispatcher.class);
+            final ArticleCommentReplyNotifier articleCommentReplyNotifier = beanManager.getReference(ArticleCommentReplyNotifier.class);
+            eventDispatcher.register(articleCommentReplyNotifier);
+            final PageCommentReplyNotifier pageCommentReplyNotifier = beanManager.getReference(PageCommentReplyNotifier.class);
+            eventDispatcher.register(pageCommentReplyNotifier);
             final B3ArticleSender articleSender = beanManager.getReference(B3ArticleSender.class);
-            eventManager.registerListener(articleSender);
+            eventDispatcher.register(articleSender);
             final B3ArticleUpdater articleUpdater = beanManager.getReference(B3ArticleUpdater.class);
-            eventManager.registerListener(articleUpdater);
+            eventDispatcher.register(articleUpdater);
             final B3CommentSender commentSender = beanManager.getReference(B3CommentSender.class);
-            eventManager.registerListener(commentSender);
+            eventDispatcher.register(commentSender);
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, "Register event handlers failed", e);
 
@@ -257,30 +347,125 @@ public final class SoloServletListener extends AbstractServletListener {
         httpServletRequest.setAttribute(Keys.TEMAPLTE_DIR_NAME, skin);
     }
 
+    /**
+     * Fills the bot and mobile attributes of the specified request, classifies its user agent through
+     * {@link #BROWSER_TYPES}.
+     *
+     * @param request the specified request
+     */
     private static void fillBotAttrs(final HttpServletRequest request) {
         final String userAgentStr = request.getHeader("User-Agent");
-        final UserAgent userAgent = UserAgent.parseUserAgentString(userAgentStr);
-        BrowserType browserType = userAgent.getBrowser().getBrowserType();
-
-        if (StringUtils.containsIgnoreCase(userAgentStr, "mobile")
-                || StringUtils.containsIgnoreCase(userAgentStr, "MQQBrowser")
-                || StringUtils.containsIgnoreCase(userAgentStr, "iphone")
-                || StringUtils.containsIgnoreCase(userAgentStr, "MicroMessenger")
-                || StringUtils.containsIgnoreCase(userAgentStr, "CFNetwork")
-                || StringUtils.containsIgnoreCase(userAgentStr, "Android")) {
-            browserType = BrowserType.MOBILE_BROWSER;
-        } else if (StringUtils.containsIgnoreCase(userAgentStr, "Iframely")
-                || StringUtils.containsIgnoreCase(userAgentStr, "Google")
-                || StringUtils.containsIgnoreCase(userAgentStr, "BUbiNG")
-                || StringUtils.containsIgnoreCase(userAgentStr, "ltx71")
-                || StringUtils.containsIgnoreCase(userAgentStr, "py")) {
-            browserType = BrowserType.ROBOT;
+        BrowserType browserType = BROWSER_TYPES.get(userAgentStr);
+        if (null == browserType) {
+            browserType = getBrowserType(userAgentStr);
+            BROWSER_TYPES.put(userAgentStr, browserType);
         }
 
         request.setAttribute(Keys.HttpRequest.IS_SEARCH_ENGINE_BOT, BrowserType.ROBOT == browserType);
         request.setAttribute(Keys.HttpRequest.IS_MOBILE_BOT, BrowserType.MOBILE_BROWSER == browserType);
     }
 
+    /**
+     * Classifies the specified user agent.
+     *
+     * @param userAgentStr the specified user agent
+     * @return browser type
+     */
+    private static BrowserType getBrowserType(final String userAgentStr) {
+        if (null != userAgentStr) {
+            if (MOBILE_UA.matcher(userAgentStr).find()) {
+                return BrowserType.MOBILE_BROWSER;
+            }
+
+            if (BOT_UA.matcher(userAgentStr).find()) {
+                return BrowserType.ROBOT;
+            }
+        }
+
+        return UserAgent.parseUserAgentString(userAgentStr).getBrowser().getBrowserType();
+    }
+
+    /**
+     * Gets the scan path for bean discovery.
+     * <p>
+     * If the latke property {@code beanIndex} is {@code true} (off by default) and the bean index generated by
+     * {@link BeanIndexProcessor} at build time is found, narrows the scan path to the bean classes' own packages (no
+     * subpackages), otherwise falls back to scanning the whole {@value #SCAN_PATH} package tree. Falls back as well if
+     * any indexed class is missing or no longer a bean, which means the index is left by an outdated build.
+     * </p>
+     * <p>
+     * Enable it only for builds which run the annotation processor over all sources, such as the Maven build of a
+     * release.
+     * </p>
+     *
+     * @return scan path
+     */
+    private static String getScanPath() {
+        if (!Boolean.valueOf(Latkes.getLatkeProperty("beanIndex"))) {
+            return SCAN_PATH;
+        }
+
+        final Set<String> packages = new TreeSet<>();
+        try (final InputStream inputStream = SoloServletListener.class.getClassLoader().getResourceAsStream(BeanIndexProcessor.INDEX)) {
+            if (null == inputStream) {
+                LOGGER.log(Level.WARN, "Not found bean index [" + BeanIndexProcessor.INDEX + "], scans classpath instead");
+
+                return SCAN_PATH;
+            }
+
+            for (final String bean : IOUtils.readLines(inputStream, "UTF-8")) {
+                if (StringUtils.isBlank(bean)) {
+                    continue;
+                }
+
+                if (!isBean(bean.trim())) {
+                    LOGGER.log(Level.WARN, "Bean index [" + BeanIndexProcessor.INDEX + "] is stale [" + bean.trim()
+                            + " is not a bean], scans classpath instead");
+
+                    return SCAN_PATH;
+                }
+
+                packages.add(StringUtils.substringBeforeLast(bean.trim(), "."));
+            }
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Reads bean index failed, scans classpath instead", e);
+
+            return SCAN_PATH;
+        }
+
+        if (packages.isEmpty()) {
+            return SCAN_PATH;
+        }
+
+        final List<String> paths = new ArrayList<>();
+        for (final String pkg : packages) {
+            paths.add(pkg.replace('.', '/') + "/*.class");
+        }
+
+        return StringUtils.join(paths, ",");
+    }
+
+    /**
+     * Determines whether the class specified by the given name exists and is annotated as a bean.
+     *
+     * @param className the given class name
+     * @return {@code true} if it is, returns {@code false} otherwise
+     */
+    private static boolean isBean(final String className) {
+        try {
+            final Class<?> clazz = Class.forName(className, false, SoloServletListener.class.getClassLoader());
+            for (final Annotation annotation : clazz.getDeclaredAnnotations()) {
+                if (BeanIndexProcessor.BEAN_ANNOTATIONS.contains(annotation.annotationType().getName())) {
+                    return true;
+                }
+            }
+        } catch (final ClassNotFoundException | LinkageError e) {
+            LOGGER.log(Level.DEBUG, "Loads class [" + className + "] failed: " + e.getMessage());
+        }
+
+        return false;
+    }
+
     /**
      * Validates the default skin.
      *
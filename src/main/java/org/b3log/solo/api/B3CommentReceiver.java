@@ -21,7 +21,6 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.time.DateFormatUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.event.Event;
-import org.b3log.latke.event.EventManager;
 import org.b3log.latke.ioc.Inject;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
@@ -31,6 +30,7 @@ import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.servlet.annotation.RequestProcessing;
 import org.b3log.latke.servlet.annotation.RequestProcessor;
 import org.b3log.latke.servlet.renderer.JSONRenderer;
+import org.b3log.solo.event.EventDispatcher;
 import org.b3log.solo.event.EventTypes;
 import org.b3log.solo.model.Article;
 import org.b3log.solo.model.Comment;
@@ -52,7 +52,7 @@ import java.util.Date;
  * Comment receiver from B3log Symphony.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.1.19, Nov 6, 2018
+ * @version 1.1.2.4, Nov 21, 2018
  * @since 0.5.5
  */
 @RequestProcessor
@@ -94,10 +94,10 @@ public class B3CommentReceiver {
     private ArticleRepository articleRepository;
 
     /**
-     * Event manager.
+     * Event dispatcher.
      */
     @Inject
-    private static EventManager eventManager;
+    private static EventDispatcher eventDispatcher;
 
     /**
      * Statistic management service.
@@ -244,9 +244,9 @@ public class B3CommentReceiver {
 
             eventData.put(Comment.COMMENT, comment);
             eventData.put(Article.ARTICLE, article);
-            eventManager.fireEventSynchronously(new Event<>(EventTypes.ADD_COMMENT_TO_ARTICLE_FROM_SYMPHONY, eventData));
+            eventDispatcher.fire(new Event<>(EventTypes.ADD_COMMENT_TO_ARTICLE_FROM_SYMPHONY, eventData), articleId);
 
-            transaction.commit();
+            statisticMgmtService.commit(transaction);
             ret.put(Keys.STATUS_CODE, true);
             ret.put(Keys.OBJECT_ID, commentId);
 
@@ -256,6 +256,7 @@ public class B3CommentReceiver {
 
             renderer.setJSONObject(ret);
         } catch (final Exception e) {
+            statisticMgmtService.rollback(transaction);
             LOGGER.log(Level.ERROR, e.getMessage(), e);
 
             final JSONObject jsonObject = new JSONObject().put(Keys.STATUS_CODE, false);
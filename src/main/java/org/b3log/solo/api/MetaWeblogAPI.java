@@ -68,7 +68,7 @@ import java.util.List;
  * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.19, Oct 19, 2018
+ * @version 1.0.0.23, Nov 21, 2018
  * @since 0.4.0
  */
 @RequestProcessor
@@ -190,6 +190,12 @@ public class MetaWeblogAPI {
     @Inject
     private UserQueryService userQueryService;
 
+    /**
+     * Statistic management service.
+     */
+    @Inject
+    private StatisticMgmtService statisticMgmtService;
+
     /**
      * MetaWeblog requests processing.
      *
@@ -309,11 +315,9 @@ public class MetaWeblogAPI {
         final Transaction transaction = articleRepository.beginTransaction();
         try {
             articleMgmtService.addArticleInternal(article);
-            transaction.commit();
+            statisticMgmtService.commit(transaction);
         } catch (final ServiceException e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            statisticMgmtService.rollback(transaction);
 
             throw e;
         }
@@ -23,14 +23,15 @@ import org.b3log.solo.model.Article;
 import org.b3log.solo.util.Solos;
 import org.json.JSONObject;
 
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Article cache.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.2.0.1, Sep 25, 2018
+ * @version 1.3.0.0, Nov 21, 2018
  * @since 2.3.0
  */
 @Singleton
@@ -46,6 +47,21 @@ public class ArticleCache {
      */
     private final Map<String, JSONObject> permalinkCache = new ConcurrentHashMap<>();
 
+    /**
+     * Published article ids, for random sampling.
+     */
+    private final List<String> publishedIds = new ArrayList<>();
+
+    /**
+     * Indexes of published article ids, &lt;articleId, index in {@link #publishedIds}&gt;.
+     */
+    private final Map<String, Integer> publishedIdIndexes = new HashMap<>();
+
+    /**
+     * Whether the published article ids have been loaded.
+     */
+    private volatile boolean publishedIdsLoaded;
+
     /**
      * Gets an article by the specified article id.
      *
@@ -82,8 +98,15 @@ public class ArticleCache {
      * @param article the specified article
      */
     public void putArticle(final JSONObject article) {
-        idCache.put(article.optString(Keys.OBJECT_ID), Solos.clone(article));
+        final String id = article.optString(Keys.OBJECT_ID);
+        idCache.put(id, Solos.clone(article));
         permalinkCache.put(article.optString(Article.ARTICLE_PERMALINK), Solos.clone(article));
+
+        if (article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
+            addPublishedId(id);
+        } else {
+            removePublishedId(id);
+        }
     }
 
     /**
@@ -93,13 +116,106 @@ public class ArticleCache {
      */
     public void removeArticle(final String id) {
         idCache.remove(id);
+        removePublishedId(id);
+    }
+
+    /**
+     * Determines whether the published article ids have been loaded.
+     *
+     * @return {@code true} if loaded, returns {@code false} otherwise
+     */
+    public boolean isPublishedIdsLoaded() {
+        return publishedIdsLoaded;
+    }
+
+    /**
+     * Loads the specified published article ids.
+     *
+     * @param ids the specified published article ids
+     */
+    public synchronized void loadPublishedIds(final Collection<String> ids) {
+        for (final String id : ids) {
+            addPublishedId(id);
+        }
+
+        publishedIdsLoaded = true;
+    }
+
+    /**
+     * Gets published article ids randomly with the specified fetch size.
+     * <p>
+     * Samples with Floyd's algorithm, costs O(fetchSize) regardless of the count of published articles.
+     * </p>
+     *
+     * @param fetchSize the specified fetch size
+     * @return a list of article ids, its size less or equal to the specified fetch size
+     */
+    public synchronized List<String> getRandomPublishedIds(final int fetchSize) {
+        final int size = publishedIds.size();
+        if (fetchSize >= size) {
+            final List<String> ret = new ArrayList<>(publishedIds);
+            Collections.shuffle(ret, ThreadLocalRandom.current());
+
+            return ret;
+        }
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final Set<Integer> indexes = new HashSet<>();
+        final List<String> ret = new ArrayList<>(fetchSize);
+        for (int i = size - fetchSize; i < size; i++) {
+            int index = random.nextInt(i + 1);
+            if (!indexes.add(index)) {
+                index = i;
+                indexes.add(index);
+            }
+
+            ret.add(publishedIds.get(index));
+        }
+        Collections.shuffle(ret, random);
+
+        return ret;
     }
 
     /**
      * Clears all cached data.
      */
-    public void clear() {
+    public synchronized void clear() {
         idCache.clear();
         permalinkCache.clear();
+        publishedIds.clear();
+        publishedIdIndexes.clear();
+        publishedIdsLoaded = false;
+    }
+
+    /**
+     * Adds the specified published article id.
+     *
+     * @param id the specified article id
+     */
+    public synchronized void addPublishedId(final String id) {
+        if (publishedIdIndexes.containsKey(id)) {
+            return;
+        }
+
+        publishedIdIndexes.put(id, publishedIds.size());
+        publishedIds.add(id);
+    }
+
+    /**
+     * Removes the specified published article id, moves the last id into its slot.
+     *
+     * @param id the specified article id
+     */
+    private synchronized void removePublishedId(final String id) {
+        final Integer index = publishedIdIndexes.remove(id);
+        if (null == index) {
+            return;
+        }
+
+        final String last = publishedIds.remove(publishedIds.size() - 1);
+        if (index < publishedIds.size()) {
+            publishedIds.set(index, last);
+            publishedIdIndexes.put(last, index);
+        }
     }
 }
\ No newline at end of file
@@ -22,6 +22,8 @@ import org.b3log.latke.ioc.Singleton;
 import org.b3log.solo.util.Solos;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -29,7 +31,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * Comment cache.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.1, Sep 25, 2018
+ * @version 1.2.0.0, Nov 21, 2018
  * @since 2.3.0
  */
 @Singleton
@@ -40,6 +42,16 @@ public class CommentCache {
      */
     private final Map<String, JSONObject> cache = new ConcurrentHashMap<>();
 
+    /**
+     * Sanitized comment content HTML cache, &lt;commentId, contentHTML&gt;.
+     */
+    private final Map<String, String> contentHTMLCache = new ConcurrentHashMap<>();
+
+    /**
+     * Rendered comment list cache, &lt;onId, comments&gt;.
+     */
+    private final Map<String, List<JSONObject>> onCommentsCache = new ConcurrentHashMap<>();
+
     /**
      * Gets a comment by the specified comment id.
      *
@@ -71,6 +83,71 @@ public class CommentCache {
      */
     public void removeComment(final String id) {
         cache.remove(id);
+        contentHTMLCache.remove(id);
+    }
+
+    /**
+     * Gets the sanitized content HTML of a comment specified by the given comment id.
+     *
+     * @param id the specified comment id
+     * @return content HTML, returns {@code null} if not found
+     */
+    public String getContentHTML(final String id) {
+        return contentHTMLCache.get(id);
+    }
+
+    /**
+     * Adds or updates the sanitized content HTML of a comment specified by the given comment id.
+     *
+     * @param id          the specified comment id
+     * @param contentHTML the specified content HTML
+     */
+    public void putContentHTML(final String id, final String contentHTML) {
+        contentHTMLCache.put(id, contentHTML);
+    }
+
+    /**
+     * Gets rendered comments of an article or page specified by the given on id.
+     *
+     * @param onId the specified on id
+     * @return comments, returns {@code null} if not found
+     */
+    public List<JSONObject> getOnComments(final String onId) {
+        final List<JSONObject> comments = onCommentsCache.get(onId);
+        if (null == comments) {
+            return null;
+        }
+
+        final List<JSONObject> ret = new ArrayList<>(comments.size());
+        for (final JSONObject comment : comments) {
+            ret.add(Solos.clone(comment));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Adds or updates rendered comments of an article or page specified by the given on id.
+     *
+     * @param onId     the specified on id
+     * @param comments the specified comments
+     */
+    public void putOnComments(final String onId, final List<JSONObject> comments) {
+        final List<JSONObject> value = new ArrayList<>(comments.size());
+        for (final JSONObject comment : comments) {
+            value.add(Solos.clone(comment));
+        }
+
+        onCommentsCache.put(onId, value);
+    }
+
+    /**
+     * Removes rendered comments of an article or page specified by the given on id.
+     *
+     * @param onId the specified on id
+     */
+    public void removeOnComments(final String onId) {
+        onCommentsCache.remove(onId);
     }
 
     /**
@@ -78,5 +155,7 @@ public class CommentCache {
      */
     public void clear() {
         cache.clear();
+        contentHTMLCache.clear();
+        onCommentsCache.clear();
     }
 }
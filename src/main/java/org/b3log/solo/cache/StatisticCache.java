@@ -21,46 +21,213 @@ import org.b3log.latke.ioc.Singleton;
 import org.b3log.solo.model.Option;
 import org.json.JSONObject;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Statistic cache.
+ * Statistic cache, holds the blog statistics as in-memory counters.
+ * <p>
+ * Changes are deltas held per thread until {@link #reserve()}, which hands them to be added to the persisted
+ * statistics in the transaction, and get into the counters only by {@link #apply()} after the transaction committed.
+ * {@link #discard()} on rollback releases them, so a rolled back transaction never leaks into the counters. The
+ * changing thread reads its own changes.
+ * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.1, Sep 25, 2018
+ * @version 2.2.0.0, Nov 21, 2018
  * @since 2.4.0
  */
 @Singleton
 public class StatisticCache {
 
     /**
-     * Statistic cache.
+     * Statistic ids.
      */
-    private final Map<String, JSONObject> cache = new ConcurrentHashMap<>();
+    public static final String[] IDS = {
+            Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT,
+            Option.ID_C_STATISTIC_PUBLISHED_ARTICLE_COUNT,
+            Option.ID_C_STATISTIC_BLOG_COMMENT_COUNT,
+            Option.ID_C_STATISTIC_PUBLISHED_BLOG_COMMENT_COUNT,
+            Option.ID_C_STATISTIC_BLOG_VIEW_COUNT
+    };
 
     /**
-     * Get the statistic.
+     * Pending deltas of the current thread, &lt;statisticId, delta&gt;.
+     */
+    private static final ThreadLocal<Map<String, Long>> PENDING = new ThreadLocal<>();
+
+    /**
+     * Reserved deltas of the current thread, waiting for the transaction to commit, &lt;statisticId, delta&gt;.
+     */
+    private static final ThreadLocal<Map<String, Long>> RESERVED = new ThreadLocal<>();
+
+    /**
+     * Counters of committed changes, &lt;statisticId, count&gt;.
+     */
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Determines whether the counters have been loaded.
+     *
+     * @return {@code true} if loaded, returns {@code false} otherwise
+     */
+    public boolean isLoaded() {
+        return !counters.isEmpty();
+    }
+
+    /**
+     * Loads the counters with the specified statistic.
+     *
+     * @param statistic the specified statistic, for example,
+     *                  <pre>
+     *                  {
+     *                      "statisticBlogArticleCount": int,
+     *                      ....
+     *                  }
+     *                  </pre>
+     */
+    public synchronized void load(final JSONObject statistic) {
+        for (final String id : IDS) {
+            counters.put(id, new AtomicLong(statistic.optLong(id)));
+        }
+    }
+
+    /**
+     * Gets the statistic value of the specified statistic id, with the reserved and pending changes of the current
+     * thread.
+     *
+     * @param id the specified statistic id
+     * @return statistic value
+     */
+    public long get(final String id) {
+        final AtomicLong counter = counters.get(id);
+        long ret = null == counter ? 0 : counter.get();
+        final Map<String, Long> reserved = RESERVED.get();
+        if (null != reserved) {
+            ret += reserved.getOrDefault(id, 0L);
+        }
+
+        final Map<String, Long> pending = PENDING.get();
+        if (null != pending) {
+            ret += pending.getOrDefault(id, 0L);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the statistic.
      *
-     * @return statistic
+     * @return statistic, for example,
+     * <pre>
+     * {
+     *     "statisticBlogArticleCount": long,
+     *     ....
+     * }
+     * </pre>
      */
     public JSONObject getStatistic() {
-        return cache.get(Option.CATEGORY_C_STATISTIC);
+        final JSONObject ret = new JSONObject();
+        for (final String id : IDS) {
+            ret.put(id, get(id));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Adds the specified delta to the statistic specified by the given statistic id, holds the change in the current
+     * thread.
+     *
+     * @param id    the given statistic id
+     * @param delta the specified delta
+     */
+    public void add(final String id, final long delta) {
+        Map<String, Long> pending = PENDING.get();
+        if (null == pending) {
+            pending = new HashMap<>();
+            PENDING.set(pending);
+        }
+
+        pending.merge(id, delta, Long::sum);
+    }
+
+    /**
+     * Determines whether the current thread has pending changes.
+     *
+     * @return {@code true} if it has, returns {@code false} otherwise
+     */
+    public boolean hasPending() {
+        final Map<String, Long> pending = PENDING.get();
+
+        return null != pending && !pending.isEmpty();
     }
 
     /**
-     * Adds or updates the specified statistic.
+     * Reserves the pending changes of the current thread, should be invoked in the transaction of the changes. The
+     * reserved changes get into the counters by {@link #apply()}.
      *
-     * @param statistic the specified statistic
+     * @return deltas to persist, &lt;statisticId, delta&gt;, zero deltas are skipped
+     */
+    public Map<String, Long> reserve() {
+        final Map<String, Long> ret = new HashMap<>();
+        final Map<String, Long> pending = PENDING.get();
+        PENDING.remove();
+        if (null == pending) {
+            return ret;
+        }
+
+        Map<String, Long> reserved = RESERVED.get();
+        if (null == reserved) {
+            reserved = new HashMap<>();
+            RESERVED.set(reserved);
+        }
+
+        for (final Map.Entry<String, Long> entry : pending.entrySet()) {
+            if (0 == entry.getValue()) {
+                continue;
+            }
+
+            reserved.merge(entry.getKey(), entry.getValue(), Long::sum);
+            ret.put(entry.getKey(), entry.getValue());
+        }
+
+        return ret;
+    }
+
+    /**
+     * Applies the reserved changes of the current thread to the counters, should be invoked after the transaction
+     * committed.
+     */
+    public void apply() {
+        final Map<String, Long> reserved = RESERVED.get();
+        RESERVED.remove();
+        if (null == reserved) {
+            return;
+        }
+
+        for (final Map.Entry<String, Long> entry : reserved.entrySet()) {
+            counters.computeIfAbsent(entry.getKey(), key -> new AtomicLong()).addAndGet(entry.getValue());
+        }
+    }
+
+    /**
+     * Discards the pending and reserved changes of the current thread, should be invoked when the transaction rolls
+     * back.
      */
-    public void putStatistic(final JSONObject statistic) {
-        cache.put(Option.CATEGORY_C_STATISTIC, statistic);
+    public void discard() {
+        PENDING.remove();
+        RESERVED.remove();
     }
 
     /**
      * Clears all cached data.
      */
-    public void clear() {
-        cache.clear();
+    public synchronized void clear() {
+        counters.clear();
+        PENDING.remove();
+        RESERVED.remove();
     }
 }
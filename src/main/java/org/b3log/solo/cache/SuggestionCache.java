@@ -0,0 +1,149 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.cache;
+
+import org.b3log.latke.Keys;
+import org.b3log.latke.ioc.Singleton;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.model.Tag;
+import org.b3log.solo.util.SuggestionTrie;
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Search suggestion cache, indexes titles of published articles (weighted by view count) and tags (weighted by
+ * published reference count).
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 20, 2018
+ * @since 2.9.7
+ */
+@Singleton
+public class SuggestionCache {
+
+    /**
+     * Suggestion trie.
+     */
+    private final SuggestionTrie trie = new SuggestionTrie();
+
+    /**
+     * Indexed texts, &lt;suggestionId, text&gt;.
+     */
+    private final Map<String, String> texts = new ConcurrentHashMap<>();
+
+    /**
+     * Gets suggestions by the specified prefix and fetch size.
+     *
+     * @param prefix    the specified prefix
+     * @param fetchSize the specified fetch size
+     * @return suggestion texts, returns an empty list if not found
+     */
+    public List<String> getSuggestions(final String prefix, final int fetchSize) {
+        return trie.suggest(prefix, fetchSize);
+    }
+
+    /**
+     * Adds or updates the specified article. Removes it if it is not published.
+     *
+     * @param article the specified article
+     */
+    public void putArticle(final JSONObject article) {
+        final String id = Article.ARTICLE + "_" + article.optString(Keys.OBJECT_ID);
+        if (!article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
+            remove(id);
+
+            return;
+        }
+
+        put(id, article.optString(Article.ARTICLE_TITLE), article.optLong(Article.ARTICLE_VIEW_COUNT));
+    }
+
+    /**
+     * Removes an article by the specified article id.
+     *
+     * @param id the specified article id
+     */
+    public void removeArticle(final String id) {
+        remove(Article.ARTICLE + "_" + id);
+    }
+
+    /**
+     * Adds or updates the specified tag. Removes it if it has no published reference.
+     *
+     * @param tag the specified tag
+     */
+    public void putTag(final JSONObject tag) {
+        final String id = Tag.TAG + "_" + tag.optString(Keys.OBJECT_ID);
+        final int publishedRefCnt = tag.optInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT);
+        if (1 > publishedRefCnt) {
+            remove(id);
+
+            return;
+        }
+
+        put(id, tag.optString(Tag.TAG_TITLE), publishedRefCnt);
+    }
+
+    /**
+     * Removes a tag by the specified tag id.
+     *
+     * @param id the specified tag id
+     */
+    public void removeTag(final String id) {
+        remove(Tag.TAG + "_" + id);
+    }
+
+    /**
+     * Clears all cached data.
+     */
+    public synchronized void clear() {
+        trie.clear();
+        texts.clear();
+    }
+
+    /**
+     * Adds or updates a suggestion with the specified suggestion id, text and weight.
+     *
+     * @param id     the specified suggestion id
+     * @param text   the specified text
+     * @param weight the specified weight
+     */
+    private synchronized void put(final String id, final String text, final long weight) {
+        final String old = texts.put(id, text);
+        if (null != old && !old.equals(text)) {
+            trie.remove(old, id);
+        }
+
+        trie.put(text, id, weight);
+    }
+
+    /**
+     * Removes a suggestion by the specified suggestion id.
+     *
+     * @param id the specified suggestion id
+     */
+    private synchronized void remove(final String id) {
+        final String old = texts.remove(id);
+        if (null != old) {
+            trie.remove(old, id);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.cache;
+
+import org.b3log.latke.Keys;
+import org.b3log.latke.ioc.Singleton;
+import org.b3log.solo.model.Tag;
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tag cache, a dictionary of tag title to tag id.
+ * <p>
+ * Only ids are cached, reference counts are always read from the datastore as they are written back on article
+ * writes.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@Singleton
+public class TagCache {
+
+    /**
+     * Title, Id.
+     */
+    private final Map<String, String> titleIds = new ConcurrentHashMap<>();
+
+    /**
+     * Id, Title.
+     */
+    private final Map<String, String> idTitles = new ConcurrentHashMap<>();
+
+    /**
+     * Whether all tags have been loaded.
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Determines whether all tags have been loaded.
+     *
+     * @return {@code true} if loaded, returns {@code false} otherwise
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Loads the specified tags.
+     *
+     * @param tags the specified tags
+     */
+    public synchronized void load(final List<JSONObject> tags) {
+        titleIds.clear();
+        idTitles.clear();
+        for (final JSONObject tag : tags) {
+            putTag(tag);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Gets a tag id by the specified tag title.
+     *
+     * @param title the specified tag title
+     * @return tag id, returns {@code null} if not found
+     */
+    public String getId(final String title) {
+        return titleIds.get(title);
+    }
+
+    /**
+     * Adds or updates the specified tag.
+     *
+     * @param tag the specified tag
+     */
+    public void putTag(final JSONObject tag) {
+        final String id = tag.optString(Keys.OBJECT_ID);
+        final String title = tag.optString(Tag.TAG_TITLE);
+        final String old = idTitles.put(id, title);
+        if (null != old && !old.equals(title)) {
+            titleIds.remove(old, id);
+        }
+        titleIds.put(title, id);
+    }
+
+    /**
+     * Removes a tag by the specified tag id.
+     *
+     * @param id the specified tag id
+     */
+    public void removeTag(final String id) {
+        final String title = idTitles.remove(id);
+        if (null != title) {
+            titleIds.remove(title, id);
+        }
+    }
+
+    /**
+     * Clears all cached data.
+     */
+    public synchronized void clear() {
+        titleIds.clear();
+        idTitles.clear();
+        loaded = false;
+    }
+}
@@ -31,7 +31,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * User cache.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.1, Sep 25, 2018
+ * @version 1.2.0.0, Nov 21, 2018
  * @since 2.3.0
  */
 @Singleton
@@ -52,6 +52,11 @@ public class UserCache {
      */
     private final Map<String, JSONObject> adminCache = new ConcurrentHashMap<>();
 
+    /**
+     * Id, Author card.
+     */
+    private final Map<String, JSONObject> authorCardCache = new ConcurrentHashMap<>();
+
     /**
      * Gets the admin user.
      *
@@ -70,6 +75,30 @@ public class UserCache {
         adminCache.put(Role.ADMIN_ROLE, admin);
     }
 
+    /**
+     * Gets an author card by the specified user id.
+     *
+     * @param userId the specified user id
+     * @return author card, returns {@code null} if not found
+     */
+    public JSONObject getAuthorCard(final String userId) {
+        final JSONObject card = authorCardCache.get(userId);
+        if (null == card) {
+            return null;
+        }
+
+        return Solos.clone(card);
+    }
+
+    /**
+     * Adds or updates the specified author card.
+     *
+     * @param card the specified author card
+     */
+    public void putAuthorCard(final JSONObject card) {
+        authorCardCache.put(card.optString(Keys.OBJECT_ID), Solos.clone(card));
+    }
+
     /**
      * Gets a user by the specified user id.
      *
@@ -106,6 +135,7 @@ public class UserCache {
      * @param user the specified user
      */
     public void putUser(final JSONObject user) {
+        authorCardCache.remove(user.optString(Keys.OBJECT_ID));
         idCache.put(user.optString(Keys.OBJECT_ID), Solos.clone(user));
         emailCache.put(user.optString(User.USER_EMAIL), Solos.clone(user));
     }
@@ -116,6 +146,8 @@ public class UserCache {
      * @param id the specified user id
      */
     public void removeUser(final String id) {
+        authorCardCache.remove(id);
+
         final JSONObject user = idCache.get(id);
         if (null == user) {
             return;
@@ -134,5 +166,6 @@ public class UserCache {
         idCache.clear();
         emailCache.clear();
         adminCache.clear();
+        authorCardCache.clear();
     }
 }
@@ -26,14 +26,13 @@ import org.b3log.latke.ioc.BeanManager;
 import org.b3log.latke.ioc.Singleton;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
-import org.b3log.latke.mail.MailService;
 import org.b3log.latke.mail.MailService.Message;
-import org.b3log.latke.mail.MailServiceFactory;
 import org.b3log.latke.util.Strings;
 import org.b3log.solo.model.Article;
 import org.b3log.solo.model.Comment;
 import org.b3log.solo.model.Option;
 import org.b3log.solo.repository.CommentRepository;
+import org.b3log.solo.service.MailMgmtService;
 import org.b3log.solo.service.PreferenceQueryService;
 import org.b3log.solo.util.Solos;
 import org.json.JSONObject;
@@ -43,7 +42,7 @@ import org.json.JSONObject;
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
  * @author <a href="http://www.wanglay.com">Lei Wang</a>
- * @version 1.2.2.12, Oct 23, 2018
+ * @version 1.2.3.0, Nov 21, 2018
  * @since 0.3.1
  */
 @Singleton
@@ -54,11 +53,6 @@ public class ArticleCommentReplyNotifier extends AbstractEventListener<JSONObjec
      */
     private static final Logger LOGGER = Logger.getLogger(ArticleCommentReplyNotifier.class);
 
-    /**
-     * Mail service.
-     */
-    private MailService mailService = MailServiceFactory.getMailService();
-
     @Override
     public void action(final Event<JSONObject> event) {
         final JSONObject eventData = event.getData();
@@ -87,6 +81,7 @@ public class ArticleCommentReplyNotifier extends AbstractEventListener<JSONObjec
         final BeanManager beanManager = BeanManager.getInstance();
         final PreferenceQueryService preferenceQueryService = beanManager.getReference(PreferenceQueryService.class);
         final CommentRepository commentRepository = beanManager.getReference(CommentRepository.class);
+        final MailMgmtService mailMgmtService = beanManager.getReference(MailMgmtService.class);
 
         try {
             final String commentEmail = comment.getString(Comment.COMMENT_EMAIL);
@@ -149,10 +144,10 @@ public class ArticleCommentReplyNotifier extends AbstractEventListener<JSONObjec
                     replace("${servePath}", Latkes.getServePath());
 
             message.setHtmlBody(mailBody);
-            LOGGER.log(Level.DEBUG, "Sending a mail [mailSubject={0}, mailBody=[{1}] to [{2}]",
+            LOGGER.log(Level.DEBUG, "Queuing a mail [mailSubject={0}, mailBody=[{1}] to [{2}]",
                     mailSubject, mailBody, originalCommentEmail);
 
-            mailService.send(message);
+            mailMgmtService.queue("reply_" + comment.optString(Keys.OBJECT_ID), message);
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, e.getMessage(), e);
         }
@@ -17,7 +17,6 @@
  */
 package org.b3log.solo.event;
 
-import jodd.http.HttpRequest;
 import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
@@ -35,6 +34,7 @@ import org.b3log.solo.model.Common;
 import org.b3log.solo.model.Option;
 import org.b3log.solo.service.ArticleQueryService;
 import org.b3log.solo.service.PreferenceQueryService;
+import org.b3log.solo.service.SyncMgmtService;
 import org.b3log.solo.util.Solos;
 import org.json.JSONObject;
 
@@ -42,11 +42,12 @@ import org.json.JSONObject;
  * This listener is responsible for sending article to B3log Rhythm. Sees <a href="https://hacpai.com/b3log">B3log 构思</a> for more details.
  * <p>
  * The B3log Rhythm article update interface: http://rhythm.b3log.org/article (POST).
+ * The request is queued and pushed by {@link org.b3log.solo.service.SyncMgmtService} in background.
  * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
  * @author ArmstrongCN
- * @version 1.0.2.15, Sep 25, 2018
+ * @version 1.0.3.0, Nov 21, 2018
  * @since 0.3.1
  */
 @Singleton
@@ -125,13 +126,13 @@ public class B3ArticleSender extends AbstractEventListener<JSONObject> {
             requestJSONObject.put("clientAdminEmail", preference.optString(Option.ID_C_ADMIN_EMAIL));
             requestJSONObject.put("clientRuntimeEnv", "LOCAL");
 
-            HttpRequest.post(ADD_ARTICLE_URL).bodyText(requestJSONObject.toString()).
-                    contentTypeJson().header("User-Agent", Solos.USER_AGENT).sendAsync();
+            final SyncMgmtService syncMgmtService = beanManager.getReference(SyncMgmtService.class);
+            syncMgmtService.queue(Article.ARTICLE + "_" + article.getString(Keys.OBJECT_ID), "POST", ADD_ARTICLE_URL, requestJSONObject);
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, "Sends an article to Rhythm error: {0}", e.getMessage());
         }
 
-        LOGGER.log(Level.DEBUG, "Sent an article to Rhythm");
+        LOGGER.log(Level.DEBUG, "Queued an article to Rhythm");
     }
 
     /**
@@ -17,7 +17,6 @@
  */
 package org.b3log.solo.event;
 
-import jodd.http.HttpRequest;
 import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.event.AbstractEventListener;
@@ -31,14 +30,18 @@ import org.b3log.solo.SoloServletListener;
 import org.b3log.solo.model.Comment;
 import org.b3log.solo.model.Option;
 import org.b3log.solo.service.PreferenceQueryService;
+import org.b3log.solo.service.SyncMgmtService;
 import org.b3log.solo.util.Solos;
 import org.json.JSONObject;
 
 /**
  * This listener is responsible for sending comment to B3log Symphony. Sees <a href="https://hacpai.com/b3log">B3log 构思</a> for more details.
+ * <p>
+ * The request is queued and pushed by {@link org.b3log.solo.service.SyncMgmtService} in background.
+ * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.1.3, Sep 25, 2018
+ * @version 1.0.2.0, Nov 21, 2018
  * @since 0.5.5
  */
 @Singleton
@@ -96,13 +99,13 @@ public class B3CommentSender extends AbstractEventListener<JSONObject> {
             requestJSONObject.put("clientAdminEmail", preference.optString(Option.ID_C_ADMIN_EMAIL));
             requestJSONObject.put("userB3Key", preference.optString(Option.ID_C_KEY_OF_SOLO));
 
-            HttpRequest.post(ADD_COMMENT_URL).bodyText(requestJSONObject.toString()).
-                    header("User-Agent", Solos.USER_AGENT).contentTypeJson().sendAsync();
+            final SyncMgmtService syncMgmtService = beanManager.getReference(SyncMgmtService.class);
+            syncMgmtService.queue(Comment.COMMENT + "_" + comment.getString("commentId"), "POST", ADD_COMMENT_URL, requestJSONObject);
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, "Sends a comment to Symphony error: {0}", e.getMessage());
         }
 
-        LOGGER.log(Level.DEBUG, "Sent a comment to Symphony");
+        LOGGER.log(Level.DEBUG, "Queued a comment to Symphony");
     }
 
     /**
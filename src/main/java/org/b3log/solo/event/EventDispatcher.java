@@ -0,0 +1,394 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.event;
+
+import org.b3log.latke.event.AbstractEventListener;
+import org.b3log.latke.event.Event;
+import org.b3log.latke.event.EventManager;
+import org.b3log.latke.ioc.Inject;
+import org.b3log.latke.ioc.Singleton;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.repository.jdbc.JdbcRepository;
+import org.b3log.latke.util.Stopwatchs;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Event dispatcher of write side events (articles and comments added or updated).
+ * <ul>
+ * <li>Transactional: registered listeners (notifiers, B3 senders) run on the firing thread, in its transaction if
+ * there is one. They only queue outbox rows ({@link org.b3log.solo.service.MailMgmtService#queue},
+ * {@link org.b3log.solo.service.SyncMgmtService#queue}) which are committed or rolled back with the business data,
+ * the sending is done by the outbox services in background</li>
+ * <li>Post-commit: plugin listeners (registered in the event manager) are held until the transaction is committed by
+ * {@link #commit(Transaction)}, are discarded on {@link #rollback(Transaction)}, and then run off the request
+ * thread</li>
+ * <li>Ordered: plugin dispatches of the same aggregate (article or page) run on the same worker one by one, so an add
+ * is always handled before the following updates</li>
+ * <li>Isolated: listeners get a snapshot of the event data, a failing listener does not fail the firing</li>
+ * <li>Measured: latency and failures are counted per listener, see {@link #getStat()} (served at
+ * {@code /console/event/stat})</li>
+ * </ul>
+ * View-load events (such as {@link EventTypes#BEFORE_RENDER_ARTICLE}) mutate the data model being rendered, so they
+ * are fired synchronously by {@link #fireSynchronously(Event)}.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@Singleton
+public class EventDispatcher {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(EventDispatcher.class);
+
+    /**
+     * Worker count.
+     */
+    private static final int WORKER_CNT = 4;
+
+    /**
+     * Plugin events held until the transaction of the current thread is committed.
+     */
+    private static final ThreadLocal<List<Object[]>> DEFERRED = new ThreadLocal<>();
+
+    /**
+     * Event manager, dispatches to listeners registered by plugins.
+     */
+    @Inject
+    private EventManager eventManager;
+
+    /**
+     * Listeners, &lt;eventType, listeners&gt;.
+     */
+    private final Map<String, List<AbstractEventListener<JSONObject>>> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * Listener stats, &lt;listenerName, stat&gt;.
+     */
+    private final Map<String, Stat> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Pending plugin event count.
+     */
+    private final AtomicLong pending = new AtomicLong();
+
+    /**
+     * Workers, each one dispatches plugin events one by one.
+     */
+    private final ExecutorService[] workers = new ExecutorService[WORKER_CNT];
+
+    /**
+     * Constructs an event dispatcher.
+     */
+    public EventDispatcher() {
+        for (int i = 0; i < WORKER_CNT; i++) {
+            final String name = "EventDispatcher-" + i;
+            workers[i] = Executors.newSingleThreadExecutor(r -> {
+                final Thread ret = new Thread(r, name);
+                ret.setDaemon(true);
+
+                return ret;
+            });
+        }
+    }
+
+    /**
+     * Registers the specified listener.
+     *
+     * @param listener the specified listener
+     */
+    public void register(final AbstractEventListener<JSONObject> listener) {
+        listeners.computeIfAbsent(listener.getEventType(), type -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Fires the specified event of the specified aggregate. Registered listeners handle it at once in the transaction
+     * of the current thread, plugin listeners handle it asynchronously after the transaction is committed.
+     *
+     * @param event       the specified event
+     * @param aggregateId the specified aggregate id, plugin dispatches of the same aggregate are in order
+     */
+    public void fire(final Event<JSONObject> event, final String aggregateId) {
+        final Event<JSONObject> snapshot = snapshot(event);
+        final List<AbstractEventListener<JSONObject>> eventListeners = listeners.getOrDefault(event.getType(), Collections.emptyList());
+        for (final AbstractEventListener<JSONObject> listener : eventListeners) {
+            final long start = System.nanoTime();
+            boolean succ = false;
+            try {
+                listener.action(snapshot);
+                succ = true;
+            } catch (final Exception e) {
+                LOGGER.log(Level.ERROR, "Listener [" + listener.getClass().getName() + "] handles event ["
+                        + event.getType() + "] failed", e);
+            } finally {
+                getStat(listener.getClass().getSimpleName()).record(System.nanoTime() - start, succ);
+            }
+        }
+
+        final Event<JSONObject> pluginEvent = snapshot(event);
+        final Transaction transaction = JdbcRepository.TX.get();
+        if (null == transaction || !transaction.isActive()) {
+            dispatch(pluginEvent, aggregateId);
+
+            return;
+        }
+
+        List<Object[]> deferred = DEFERRED.get();
+        if (null == deferred) {
+            deferred = new ArrayList<>();
+            DEFERRED.set(deferred);
+        }
+        deferred.add(new Object[]{pluginEvent, aggregateId});
+    }
+
+    /**
+     * Commits the specified transaction and dispatches the plugin events held by it.
+     *
+     * @param transaction the specified transaction
+     */
+    @SuppressWarnings("unchecked")
+    public void commit(final Transaction transaction) {
+        final List<Object[]> deferred = DEFERRED.get();
+        DEFERRED.remove();
+        transaction.commit();
+        if (null == deferred) {
+            return;
+        }
+
+        for (final Object[] item : deferred) {
+            dispatch((Event<JSONObject>) item[0], (String) item[1]);
+        }
+    }
+
+    /**
+     * Rolls back the specified transaction if it is active and discards the plugin events held by it.
+     *
+     * @param transaction the specified transaction
+     */
+    public void rollback(final Transaction transaction) {
+        DEFERRED.remove();
+        if (transaction.isActive()) {
+            transaction.rollback();
+        }
+    }
+
+    /**
+     * Discards the plugin events held by the current thread, such as a transaction committed or rolled back without this
+     * dispatcher.
+     */
+    public void discard() {
+        final List<Object[]> deferred = DEFERRED.get();
+        DEFERRED.remove();
+        if (null != deferred && !deferred.isEmpty()) {
+            LOGGER.log(Level.WARN, "Discarded [" + deferred.size() + "] events held by an unfinished transaction");
+        }
+    }
+
+    /**
+     * Fires the specified event synchronously, for view-load events which mutate the data model being rendered.
+     *
+     * @param event the specified event
+     */
+    public void fireSynchronously(final Event<?> event) {
+        fireToEventManager(event, "sync:" + event.getType());
+    }
+
+    /**
+     * Gets the dispatch stat.
+     *
+     * @return for example,
+     * <pre>
+     * {
+     *     "pending": long,
+     *     "listeners": {
+     *         "B3ArticleSender": {
+     *             "count": long,
+     *             "failures": long,
+     *             "avgMillis": double,
+     *             "maxMillis": double
+     *         }, ....
+     *     }
+     * }
+     * </pre>
+     */
+    public JSONObject getStat() {
+        final JSONObject ret = new JSONObject();
+        ret.put("pending", pending.get());
+        final JSONObject listenerStats = new JSONObject();
+        for (final Map.Entry<String, Stat> entry : stats.entrySet()) {
+            listenerStats.put(entry.getKey(), entry.getValue().toJSONObject());
+        }
+        ret.put("listeners", listenerStats);
+
+        return ret;
+    }
+
+    /**
+     * Shuts down, waits a while for the pending plugin events.
+     */
+    public void shutdown() {
+        for (final ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+
+        try {
+            for (final ExecutorService worker : workers) {
+                worker.awaitTermination(3, TimeUnit.SECONDS);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (0 < pending.get()) {
+            LOGGER.log(Level.WARN, "Dropped [" + pending.get() + "] pending events on shutdown");
+        }
+    }
+
+    /**
+     * Dispatches the specified event to plugin listeners on the worker of the specified aggregate.
+     *
+     * @param event       the specified event
+     * @param aggregateId the specified aggregate id
+     */
+    private void dispatch(final Event<JSONObject> event, final String aggregateId) {
+        final int index = null == aggregateId ? 0 : (aggregateId.hashCode() & Integer.MAX_VALUE) % WORKER_CNT;
+        pending.incrementAndGet();
+        try {
+            workers[index].execute(() -> {
+                try {
+                    fireToEventManager(event, "plugins:" + event.getType());
+                } catch (final Exception e) {
+                    LOGGER.log(Level.ERROR, "Plugin listeners handle event [" + event.getType() + "] failed", e);
+                } finally {
+                    pending.decrementAndGet();
+                    Stopwatchs.release();
+                }
+            });
+        } catch (final Exception e) {
+            pending.decrementAndGet();
+            LOGGER.log(Level.ERROR, "Dispatches event [" + event.getType() + "] failed", e);
+        }
+    }
+
+    /**
+     * Gets a snapshot of the specified event.
+     *
+     * @param event the specified event
+     * @return snapshot
+     */
+    private static Event<JSONObject> snapshot(final Event<JSONObject> event) {
+        return new Event<>(event.getType(), new JSONObject(event.getData().toString()));
+    }
+
+    /**
+     * Fires the specified event to the listeners registered in the event manager (view-load handlers and plugin
+     * listeners), records the latency under the specified stat name.
+     *
+     * @param event    the specified event
+     * @param statName the specified stat name
+     */
+    private void fireToEventManager(final Event<?> event, final String statName) {
+        final long start = System.nanoTime();
+        boolean succ = false;
+        try {
+            eventManager.fireEventSynchronously(event);
+            succ = true;
+        } finally {
+            getStat(statName).record(System.nanoTime() - start, succ);
+        }
+    }
+
+    /**
+     * Gets the stat of the specified name, creates it if not found.
+     *
+     * @param name the specified name
+     * @return stat
+     */
+    private Stat getStat(final String name) {
+        return stats.computeIfAbsent(name, key -> new Stat());
+    }
+
+    /**
+     * Latency and failure stat of a listener.
+     */
+    private static final class Stat {
+
+        /**
+         * Handled count.
+         */
+        private final AtomicLong count = new AtomicLong();
+
+        /**
+         * Failed count.
+         */
+        private final AtomicLong failures = new AtomicLong();
+
+        /**
+         * Total latency in nanoseconds.
+         */
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        /**
+         * Max latency in nanoseconds.
+         */
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        /**
+         * Records a handling with the specified latency and result.
+         *
+         * @param nanos the specified latency in nanoseconds
+         * @param succ  the specified result
+         */
+        private void record(final long nanos, final boolean succ) {
+            count.incrementAndGet();
+            if (!succ) {
+                failures.incrementAndGet();
+            }
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * Converts this stat to a json object.
+         *
+         * @return json object
+         */
+        private JSONObject toJSONObject() {
+            final long cnt = count.get();
+
+            return new JSONObject().put("count", cnt).put("failures", failures.get()).
+                    put("avgMillis", 0 == cnt ? 0D : totalNanos.get() / 1000000D / cnt).
+                    put("maxMillis", maxNanos.get() / 1000000D);
+        }
+    }
+}
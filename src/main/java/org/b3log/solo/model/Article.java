@@ -18,14 +18,12 @@
 package org.b3log.solo.model;
 
 import org.b3log.solo.util.Markdowns;
-import org.jsoup.Jsoup;
-import org.jsoup.safety.Whitelist;
 
 /**
  * This class defines all article model relevant keys.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.2.0.0, Sep 16, 2018
+ * @version 1.2.1.0, Nov 21, 2018
  * @since 0.3.1
  */
 public final class Article {
@@ -180,7 +178,7 @@ public final class Article {
      * @return the abstract
      */
     public static String getAbstract(final String content) {
-        final String plainTextContent = Jsoup.clean(Markdowns.toHTML(content), Whitelist.none());
+        final String plainTextContent = Markdowns.toPlainText(content, ARTICLE_ABSTRACT_LENGTH);
         if (plainTextContent.length() > ARTICLE_ABSTRACT_LENGTH) {
             return plainTextContent.substring(0, ARTICLE_ABSTRACT_LENGTH) + "....";
         }
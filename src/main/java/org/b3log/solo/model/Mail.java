@@ -0,0 +1,106 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.model;
+
+/**
+ * This class defines all outbound mail model relevant keys.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class Mail {
+
+    /**
+     * Mail.
+     */
+    public static final String MAIL = "mail";
+
+    /**
+     * Mails.
+     */
+    public static final String MAILS = "mails";
+
+    /**
+     * Key of key, de-duplicates mails of the same notification.
+     */
+    public static final String MAIL_KEY = "mailKey";
+
+    /**
+     * Key of from.
+     */
+    public static final String MAIL_FROM = "mailFrom";
+
+    /**
+     * Key of recipients, separated by comma.
+     */
+    public static final String MAIL_TO = "mailTo";
+
+    /**
+     * Key of subject.
+     */
+    public static final String MAIL_SUBJECT = "mailSubject";
+
+    /**
+     * Key of HTML body.
+     */
+    public static final String MAIL_BODY = "mailBody";
+
+    /**
+     * Key of status.
+     */
+    public static final String MAIL_STATUS = "mailStatus";
+
+    /**
+     * Key of retry count.
+     */
+    public static final String MAIL_RETRIES = "mailRetries";
+
+    /**
+     * Key of next sending time.
+     */
+    public static final String MAIL_NEXT_TIME = "mailNextTime";
+
+    /**
+     * Key of created time.
+     */
+    public static final String MAIL_CREATED = "mailCreated";
+
+    //// Status constants
+
+    /**
+     * Mail status - pending.
+     */
+    public static final int MAIL_STATUS_C_PENDING = 0;
+
+    /**
+     * Mail status - sent.
+     */
+    public static final int MAIL_STATUS_C_SENT = 1;
+
+    /**
+     * Mail status - failed, gave up retrying.
+     */
+    public static final int MAIL_STATUS_C_FAILED = 2;
+
+    /**
+     * Private constructor.
+     */
+    private Mail() {
+    }
+}
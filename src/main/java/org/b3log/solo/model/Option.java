@@ -29,7 +29,7 @@ import java.util.Set;
  * This class defines option model relevant keys.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.3.0.11, Oct 16, 2018
+ * @version 1.4.0.0, Nov 21, 2018
  * @since 0.6.0
  */
 public final class Option {
@@ -313,6 +313,11 @@ public final class Option {
      */
     public static final String ID_C_OAUTH_GITHUB = "oauthGitHub";
 
+    /**
+     * Key prefix of migration checkpoints, a checkpoint is keyed by this prefix + migration id.
+     */
+    public static final String ID_C_MIGRATION_CHECKPOINT_PREFIX = "migration_";
+
     // Category constants
     /**
      * Broadcast.
@@ -339,6 +344,11 @@ public final class Option {
      */
     public static final String CATEGORY_C_OAUTH = "oauth";
 
+    /**
+     * Migration.
+     */
+    public static final String CATEGORY_C_MIGRATION = "migration";
+
     public static String getOAuthPair(final Set<String> oauthPairs, final String openIdOrUserId) {
         for (final String pair : oauthPairs) {
             if (StringUtils.containsIgnoreCase(pair, openIdOrUserId)) {
@@ -0,0 +1,84 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.model;
+
+/**
+ * This class defines all B3 sync (pending push to the B3log community) model relevant keys.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class Sync {
+
+    /**
+     * Sync.
+     */
+    public static final String SYNC = "sync";
+
+    /**
+     * Syncs.
+     */
+    public static final String SYNCS = "syncs";
+
+    /**
+     * Key of key, coalesces pushes of the same article or comment.
+     */
+    public static final String SYNC_KEY = "syncKey";
+
+    /**
+     * Key of HTTP method.
+     */
+    public static final String SYNC_METHOD = "syncMethod";
+
+    /**
+     * Key of URL.
+     */
+    public static final String SYNC_URL = "syncURL";
+
+    /**
+     * Key of JSON body.
+     */
+    public static final String SYNC_BODY = "syncBody";
+
+    /**
+     * Key of version, increased every time a later push is coalesced into this one.
+     */
+    public static final String SYNC_VERSION = "syncVersion";
+
+    /**
+     * Key of retry count.
+     */
+    public static final String SYNC_RETRIES = "syncRetries";
+
+    /**
+     * Key of next pushing time.
+     */
+    public static final String SYNC_NEXT_TIME = "syncNextTime";
+
+    /**
+     * Key of created time.
+     */
+    public static final String SYNC_CREATED = "syncCreated";
+
+    /**
+     * Private constructor.
+     */
+    private Sync() {
+    }
+}
@@ -17,11 +17,14 @@
  */
 package org.b3log.solo.plugin.list;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.event.AbstractEventListener;
 import org.b3log.latke.event.Event;
+import org.b3log.latke.ioc.BeanManager;
 import org.b3log.latke.logging.Logger;
+import org.b3log.latke.service.LangPropsService;
 import org.b3log.solo.event.EventTypes;
 import org.b3log.solo.model.Article;
 import org.json.JSONObject;
@@ -31,12 +34,16 @@ import org.jsoup.nodes.Element;
 import org.jsoup.parser.Parser;
 import org.jsoup.select.Elements;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * List (table of contents of an article) handler.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
  * @author <a href="http://www.annpeter.cn">Ann Peter</a>
- * @version 1.0.2.1, Oct 24, 2018
+ * @version 1.1.2.0, Nov 21, 2018
  * @since 0.6.7
  */
 public class ListHandler extends AbstractEventListener<JSONObject> {
@@ -51,18 +58,62 @@ public class ListHandler extends AbstractEventListener<JSONObject> {
         return EventTypes.BEFORE_RENDER_ARTICLE;
     }
 
+    /**
+     * Max size of {@link #TOC_CACHE}.
+     */
+    private static final int MAX_TOC_CACHE_SIZE = 256;
+
+    /**
+     * ToC cache, &lt;hash, ToC'ed content&gt;, least recently used evicted.
+     * <p>
+     * The hash is the md5 of the rendered article content the ToC'ed content produced from, a changed content (article
+     * updated, serve path changed etc.) misses the cache and will be processed again, the stale entry is evicted as
+     * least recently used.
+     * </p>
+     */
+    private static final Map<String, String> TOC_CACHE = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+            return size() > MAX_TOC_CACHE_SIZE;
+        }
+    });
+
     @Override
     public void action(final Event<JSONObject> event) {
         final JSONObject data = event.getData();
         final JSONObject article = data.optJSONObject(Article.ARTICLE);
-        String content = article.optString(Article.ARTICLE_CONTENT);
+        final String content = article.optString(Article.ARTICLE_CONTENT);
         if (StringUtils.containsIgnoreCase(content, "plugins/list/style.css")) {
 //            LOGGER.log(Level.WARN, "ToC hit twice, please report this \"ghosty\" issue to developer team: https://github.com/b3log/solo/issues/new");
 
             return;
         }
 
+        final String hash = DigestUtils.md5Hex(Latkes.getStaticServePath() + content);
+        final String cached = TOC_CACHE.get(hash);
+        if (null != cached) {
+            article.put(Article.ARTICLE_CONTENT, cached);
+
+            return;
+        }
+
+        final String ret = toc(content);
+        article.put(Article.ARTICLE_CONTENT, ret);
 
+        // Does not cache a failed rendering (such as a markdown timeout), it will be rendered again
+        final LangPropsService langPropsService = BeanManager.getInstance().getReference(LangPropsService.class);
+        if (!StringUtils.contains(content, langPropsService.get("contentRenderFailedLabel"))) {
+            TOC_CACHE.put(hash, ret);
+        }
+    }
+
+    /**
+     * Generates the ToC for the specified rendered article content, adds anchors before headings.
+     *
+     * @param content the specified rendered article content
+     * @return ToC list and anchored content
+     */
+    private static String toc(final String content) {
         final Document doc = Jsoup.parse(content, StringUtils.EMPTY, Parser.htmlParser());
         doc.outputSettings().prettyPrint(false);
 
@@ -84,7 +135,7 @@ public class ListHandler extends AbstractEventListener<JSONObject> {
         listBuilder.append("</ul>");
 
         final Element body = doc.getElementsByTag("body").get(0);
-        content = listBuilder.toString() + body.html();
-        article.put(Article.ARTICLE_CONTENT, content);
+
+        return listBuilder.toString() + body.html();
     }
 }
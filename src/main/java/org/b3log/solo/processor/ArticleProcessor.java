@@ -22,7 +22,6 @@ import org.apache.commons.lang.time.DateFormatUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.event.Event;
-import org.b3log.latke.event.EventManager;
 import org.b3log.latke.ioc.Inject;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
@@ -40,6 +39,7 @@ import org.b3log.latke.servlet.renderer.JSONRenderer;
 import org.b3log.latke.servlet.renderer.TextHTMLRenderer;
 import org.b3log.latke.util.*;
 import org.b3log.solo.SoloServletListener;
+import org.b3log.solo.event.EventDispatcher;
 import org.b3log.solo.event.EventTypes;
 import org.b3log.solo.model.*;
 import org.b3log.solo.processor.console.ConsoleRenderer;
@@ -61,7 +61,7 @@ import java.util.*;
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
  * @author <a href="http://zephyr.b3log.org">Zephyr</a>
- * @version 1.4.5.0, Oct 23, 2018
+ * @version 1.4.6.0, Nov 21, 2018
  * @since 0.3.1
  */
 @RequestProcessor
@@ -133,10 +133,10 @@ public class ArticleProcessor {
     private StatisticMgmtService statisticMgmtService;
 
     /**
-     * Event manager.
+     * Event dispatcher.
      */
     @Inject
-    private EventManager eventManager;
+    private EventDispatcher eventDispatcher;
 
     /**
      * Shows the article view password form.
@@ -785,7 +785,7 @@ public class ArticleProcessor {
             // Fire [Before Render Article] event
             final JSONObject eventData = new JSONObject();
             eventData.put(Article.ARTICLE, article);
-            eventManager.fireEventSynchronously(new Event<>(EventTypes.BEFORE_RENDER_ARTICLE, eventData));
+            eventDispatcher.fireSynchronously(new Event<>(EventTypes.BEFORE_RENDER_ARTICLE, eventData));
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, e.getMessage(), e);
 
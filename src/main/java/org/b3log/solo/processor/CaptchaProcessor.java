@@ -25,31 +25,17 @@ import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.servlet.annotation.RequestProcessing;
 import org.b3log.latke.servlet.annotation.RequestProcessor;
 import org.b3log.latke.servlet.renderer.PNGRenderer;
-import org.b3log.latke.util.Strings;
-import org.patchca.color.GradientColorFactory;
-import org.patchca.color.RandomColorFactory;
-import org.patchca.filter.predefined.CurvesRippleFilterFactory;
-import org.patchca.font.RandomFontFactory;
-import org.patchca.service.Captcha;
-import org.patchca.service.ConfigurableCaptchaService;
-import org.patchca.word.RandomWordFactory;
+import org.b3log.latke.util.Requests;
+import org.b3log.solo.util.Captchas;
 
-import javax.imageio.ImageIO;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.swing.*;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
 
 /**
  * Captcha processor.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 2.0.0.5, Sep 21, 2018
+ * @version 2.1.0.0, Nov 21, 2018
  * @since 0.3.1
  */
 @RequestProcessor
@@ -65,26 +51,11 @@ public class CaptchaProcessor {
      */
     public static final String CAPTCHA = "captcha";
 
-    /**
-     * Captchas.
-     */
-    private static final Set<String> CAPTCHAS = new HashSet<>();
-
-    /**
-     * Captcha length.
-     */
-    private static final int CAPTCHA_LENGTH = 4;
-
     /**
      * Flag of captcha is enabled.
      */
     public static boolean CAPTCHA_ON = true;
 
-    /**
-     * Captcha chars.
-     */
-    private static final String CHARS = "acdefhijklmnprstuvwxy234578";
-
     /**
      * Gets captcha.
      *
@@ -96,80 +67,36 @@ public class CaptchaProcessor {
         context.setRenderer(renderer);
 
         try {
-            final ConfigurableCaptchaService cs = new ConfigurableCaptchaService();
-            if (0.5 < Math.random()) {
-                cs.setColorFactory(new GradientColorFactory());
-            } else {
-                cs.setColorFactory(new RandomColorFactory());
-            }
-            cs.setFilterFactory(new CurvesRippleFilterFactory(cs.getColorFactory()));
-            final RandomWordFactory randomWordFactory = new RandomWordFactory();
-            randomWordFactory.setCharacters(CHARS);
-            randomWordFactory.setMinLength(CAPTCHA_LENGTH);
-            randomWordFactory.setMaxLength(CAPTCHA_LENGTH);
-            cs.setWordFactory(randomWordFactory);
-            cs.setFontFactory(new RandomFontFactory(getAvaialbeFonts()));
-            final Captcha captcha = cs.getCaptcha();
-            final String challenge = captcha.getChallenge();
-            final BufferedImage bufferedImage = captcha.getImage();
-
-            if (CAPTCHAS.size() > 64) {
-                CAPTCHAS.clear();
-            }
-
-            CAPTCHAS.add(challenge);
+            final Captchas.Image captcha = Captchas.take();
+            Captchas.issue(Requests.getRemoteAddr(context.getRequest()), captcha.getChallenge());
 
             final HttpServletResponse response = context.getResponse();
             response.setHeader("Pragma", "no-cache");
             response.setHeader("Cache-Control", "no-cache");
             response.setDateHeader("Expires", 0);
 
-            try (final ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-                ImageIO.write(bufferedImage, "png", baos);
-                renderer.setImage(baos.toByteArray());
-            }
+            renderer.setImage(captcha.getPNG());
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, e.getMessage(), e);
         }
     }
 
     /**
-     * Checks whether the specified captcha is invalid.
+     * Checks whether the specified captcha is invalid for the client of the specified request.
      *
+     * @param request the specified request
      * @param captcha the specified captcha
      * @return {@code true} if it is invalid, returns {@code false} otherwise
      */
-    public static boolean invalidCaptcha(final String captcha) {
+    public static boolean invalidCaptcha(final HttpServletRequest request, final String captcha) {
         if (!CAPTCHA_ON) {
             return false;
         }
 
-        if (StringUtils.isBlank(captcha) || captcha.length() != CAPTCHA_LENGTH) {
+        if (StringUtils.isBlank(captcha) || captcha.length() != Captchas.CAPTCHA_LENGTH) {
             return true;
         }
 
-        boolean ret = !CaptchaProcessor.CAPTCHAS.contains(captcha);
-        if (!ret) {
-            CaptchaProcessor.CAPTCHAS.remove(captcha);
-        }
-
-        return ret;
-    }
-
-    private static List<String> getAvaialbeFonts() {
-        final List<String> ret = new ArrayList<>();
-
-        final GraphicsEnvironment e = GraphicsEnvironment.getLocalGraphicsEnvironment();
-        final Font[] fonts = e.getAllFonts();
-        for (final Font f : fonts) {
-            if (Strings.contains(f.getFontName(), new String[]{"Verdana", "DejaVu Sans Mono", "Tahoma"})) {
-                ret.add(f.getFontName());
-            }
-        }
-
-        final String defaultFontName = new JLabel().getFont().getFontName();
-        ret.add(defaultFontName);
-
-        return ret;
+        return !Captchas.verify(Requests.getRemoteAddr(request), captcha);
     }
 }
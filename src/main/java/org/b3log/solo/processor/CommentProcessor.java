@@ -50,7 +50,7 @@ import java.util.Map;
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
  * @author ArmstrongCN
- * @version 1.3.3.3, Oct 7, 2018
+ * @version 1.3.3.4, Nov 21, 2018
  * @since 0.3.1
  */
 @RequestProcessor
@@ -138,7 +138,7 @@ public class CommentProcessor {
 
         if (!Solos.isLoggedIn(httpServletRequest, httpServletResponse)) {
             final String captcha = requestJSONObject.optString(CaptchaProcessor.CAPTCHA);
-            if (CaptchaProcessor.invalidCaptcha(captcha)) {
+            if (CaptchaProcessor.invalidCaptcha(httpServletRequest, captcha)) {
                 jsonObject.put(Keys.STATUS_CODE, false);
                 jsonObject.put(Keys.MSG, langPropsService.get("captchaErrorLabel"));
 
@@ -234,7 +234,7 @@ public class CommentProcessor {
 
         if (!Solos.isLoggedIn(httpServletRequest, httpServletResponse)) {
             final String captcha = requestJSONObject.optString(CaptchaProcessor.CAPTCHA);
-            if (CaptchaProcessor.invalidCaptcha(captcha)) {
+            if (CaptchaProcessor.invalidCaptcha(httpServletRequest, captcha)) {
                 jsonObject.put(Keys.STATUS_CODE, false);
                 jsonObject.put(Keys.MSG, langPropsService.get("captchaErrorLabel"));
 
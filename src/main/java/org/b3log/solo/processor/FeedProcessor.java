@@ -31,6 +31,7 @@ import org.b3log.latke.servlet.annotation.RequestProcessing;
 import org.b3log.latke.servlet.annotation.RequestProcessor;
 import org.b3log.latke.servlet.renderer.AtomRenderer;
 import org.b3log.latke.servlet.renderer.RssRenderer;
+import org.b3log.latke.util.CollectionUtils;
 import org.b3log.latke.util.Locales;
 import org.b3log.solo.SoloServletListener;
 import org.b3log.solo.model.Article;
@@ -52,6 +53,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Feed (Atom/RSS) processor.
@@ -59,7 +61,7 @@ import java.util.List;
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
  * @author <a href="https://github.com/feroozkhanchintu">feroozkhanchintu</a>
  * @author <a href="https://github.com/nanolikeyou">nanolikeyou</a>
- * @version 2.0.0.0, Sep 26, 2018
+ * @version 2.0.1.0, Nov 21, 2018
  * @since 0.3.1
  */
 @RequestProcessor
@@ -121,8 +123,9 @@ public class FeedProcessor {
             final JSONObject articleResult = articleRepository.get(query);
             final JSONArray articles = articleResult.getJSONArray(Keys.RESULTS);
             final boolean isFullContent = "fullContent".equals(preference.getString(Option.ID_C_FEED_OUTPUT_MODE));
+            final Map<String, JSONObject> authors = articleQueryService.getAuthors(CollectionUtils.jsonArrayToList(articles));
             for (int i = 0; i < articles.length(); i++) {
-                final Entry entry = getEntry(articles, isFullContent, i);
+                final Entry entry = getEntry(articles, authors, isFullContent, i);
                 feed.addEntry(entry);
             }
 
@@ -134,7 +137,7 @@ public class FeedProcessor {
         }
     }
 
-    private Entry getEntry(final JSONArray articles, final boolean isFullContent, int i)
+    private Entry getEntry(final JSONArray articles, final Map<String, JSONObject> authors, final boolean isFullContent, int i)
             throws JSONException, ServiceException {
         final JSONObject article = articles.getJSONObject(i);
         final Entry ret = new Entry();
@@ -148,7 +151,7 @@ public class FeedProcessor {
         final String link = Latkes.getServePath() + article.getString(Article.ARTICLE_PERMALINK);
         ret.setLink(link);
         ret.setId(link);
-        final String authorName = articleQueryService.getAuthor(article).getString(User.USER_NAME);
+        final String authorName = authors.get(article.optString(Article.ARTICLE_AUTHOR_ID)).getString(User.USER_NAME);
         ret.setAuthor(authorName);
         final String tagsString = article.getString(Article.ARTICLE_TAGS_REF);
         final String[] tagStrings = tagsString.split(",");
@@ -211,8 +214,9 @@ public class FeedProcessor {
 
             final boolean isFullContent = "fullContent".equals(preference.getString(Option.ID_C_FEED_OUTPUT_MODE));
 
+            final Map<String, JSONObject> authors = articleQueryService.getAuthors(CollectionUtils.jsonArrayToList(articles));
             for (int i = 0; i < articles.length(); i++) {
-                final Item item = getItem(articles, isFullContent, i);
+                final Item item = getItem(articles, authors, isFullContent, i);
                 channel.addItem(item);
             }
 
@@ -224,7 +228,7 @@ public class FeedProcessor {
         }
     }
 
-    private Item getItem(final JSONArray articles, final boolean isFullContent, int i)
+    private Item getItem(final JSONArray articles, final Map<String, JSONObject> authors, final boolean isFullContent, int i)
             throws JSONException, ServiceException {
         final JSONObject article = articles.getJSONObject(i);
         final Item ret = new Item();
@@ -241,7 +245,7 @@ public class FeedProcessor {
         final String link = Latkes.getServePath() + article.getString(Article.ARTICLE_PERMALINK);
         ret.setLink(link);
         ret.setGUID(link);
-        final String authorName = articleQueryService.getAuthor(article).getString(User.USER_NAME);
+        final String authorName = authors.get(article.optString(Article.ARTICLE_AUTHOR_ID)).getString(User.USER_NAME);
         ret.setAuthor(authorName);
         final String tagsString = article.getString(Article.ARTICLE_TAGS_REF);
         final String[] tagStrings = tagsString.split(",");
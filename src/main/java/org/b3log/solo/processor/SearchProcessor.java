@@ -39,14 +39,18 @@ import org.b3log.solo.processor.console.ConsoleRenderer;
 import org.b3log.solo.service.ArticleQueryService;
 import org.b3log.solo.service.DataModelService;
 import org.b3log.solo.service.PreferenceQueryService;
+import org.b3log.solo.service.SuggestionQueryService;
 import org.b3log.solo.service.UserQueryService;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.jsoup.Jsoup;
 import org.jsoup.safety.Whitelist;
 import org.owasp.encoder.Encode;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.InputStream;
+import java.io.PrintWriter;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -56,7 +60,7 @@ import java.util.Map;
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
  * @author <a href="http://vanessa.b3log.org">Liyuan Li</a>
- * @version 1.1.1.0, Oct 13, 2018
+ * @version 1.2.0.0, Nov 20, 2018
  * @since 2.4.0
  */
 @RequestProcessor
@@ -67,6 +71,11 @@ public class SearchProcessor {
      */
     private static final Logger LOGGER = Logger.getLogger(SearchProcessor.class);
 
+    /**
+     * Suggestion fetch size.
+     */
+    private static final int SUGGESTION_FETCH_SIZE = 10;
+
     /**
      * Article query service.
      */
@@ -97,6 +106,12 @@ public class SearchProcessor {
     @Inject
     private DataModelService dataModelService;
 
+    /**
+     * Suggestion query service.
+     */
+    @Inject
+    private SuggestionQueryService suggestionQueryService;
+
     /**
      * Shows opensearch.xml.
      *
@@ -121,6 +136,39 @@ public class SearchProcessor {
         }
     }
 
+    /**
+     * Gets search suggestions of article titles and tag titles in
+     * <a href="https://github.com/dewitt/opensearch/blob/master/mediawiki/Specifications/OpenSearch/Extensions/Suggestions/1.1/Draft%201.wiki">OpenSearch suggestions</a>
+     * format, for example,
+     * <pre>
+     * ["sol", ["Solo", "Solo 用户指南"]]
+     * </pre>
+     *
+     * @param request  the specified request
+     * @param response the specified response
+     */
+    @RequestProcessing(value = "/search/suggest", method = HTTPRequestMethod.GET)
+    public void suggest(final HttpServletRequest request, final HttpServletResponse response) {
+        String keyword = request.getParameter(Common.KEYWORD);
+        if (StringUtils.isBlank(keyword)) {
+            keyword = "";
+        }
+
+        final JSONArray ret = new JSONArray();
+        ret.put(keyword);
+        ret.put(new JSONArray(suggestionQueryService.getSuggestions(keyword, SUGGESTION_FETCH_SIZE)));
+
+        response.setContentType("application/x-suggestions+json");
+        response.setCharacterEncoding("UTF-8");
+        try {
+            final PrintWriter writer = response.getWriter();
+            writer.write(ret.toString());
+            writer.flush();
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Writes suggestions failed", e);
+        }
+    }
+
     /**
      * Searches articles.
      *
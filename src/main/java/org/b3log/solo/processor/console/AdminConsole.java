@@ -25,7 +25,6 @@ import org.apache.commons.lang.time.DateFormatUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.event.Event;
-import org.b3log.latke.event.EventManager;
 import org.b3log.latke.ioc.Inject;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
@@ -43,6 +42,7 @@ import org.b3log.latke.servlet.renderer.AbstractFreeMarkerRenderer;
 import org.b3log.latke.util.Execs;
 import org.b3log.latke.util.Strings;
 import org.b3log.solo.SoloServletListener;
+import org.b3log.solo.event.EventDispatcher;
 import org.b3log.solo.model.Common;
 import org.b3log.solo.model.Option;
 import org.b3log.solo.model.Skin;
@@ -67,7 +67,7 @@ import java.util.*;
  * Admin console render processing.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.7.0.7, Nov 6, 2018
+ * @version 1.7.0.8, Nov 21, 2018
  * @since 0.4.1
  */
 @RequestProcessor
@@ -116,10 +116,10 @@ public class AdminConsole {
     private DataModelService dataModelService;
 
     /**
-     * Event manager.
+     * Event dispatcher.
      */
     @Inject
-    private EventManager eventManager;
+    private EventDispatcher eventDispatcher;
 
     private static String sanitizeFilename(String unsanitized) {
         return unsanitized
@@ -509,7 +509,7 @@ public class AdminConsole {
 
         data.setViewName(hostTemplateName);
         data.setDataModel(dataModel);
-        eventManager.fireEventSynchronously(new Event<>(Keys.FREEMARKER_ACTION, data));
+        eventDispatcher.fireSynchronously(new Event<>(Keys.FREEMARKER_ACTION, data));
         if (StringUtils.isBlank((String) dataModel.get(Plugin.PLUGINS))) {
             // There is no plugin for this template, fill ${plugins} with blank.
             dataModel.put(Plugin.PLUGINS, "");
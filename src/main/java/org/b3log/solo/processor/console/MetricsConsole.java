@@ -0,0 +1,61 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.processor.console;
+
+import org.b3log.latke.servlet.HTTPRequestContext;
+import org.b3log.latke.servlet.HTTPRequestMethod;
+import org.b3log.latke.servlet.annotation.Before;
+import org.b3log.latke.servlet.annotation.RequestProcessing;
+import org.b3log.latke.servlet.annotation.RequestProcessor;
+import org.b3log.solo.util.Metrics;
+
+/**
+ * Metrics console request processing.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.1.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@RequestProcessor
+@Before(adviceClass = ConsoleAdminAuthAdvice.class)
+public class MetricsConsole {
+
+    /**
+     * Gets latency metrics in Prometheus text exposition format.
+     * <p>
+     * Renders the response with a text body, for example,
+     * <pre>
+     * # HELP solo_http_request_duration_seconds Request latency by route.
+     * # TYPE solo_http_request_duration_seconds summary
+     * solo_http_request_duration_seconds{route="/articles/{year}/{month}/{day}/*",method="GET",quantile="0.5"} 0.032767
+     * ....
+     * solo_http_request_duration_seconds_sum{route="/articles/{year}/{month}/{day}/*",method="GET"} 12.3
+     * solo_http_request_duration_seconds_count{route="/articles/{year}/{month}/{day}/*",method="GET"} 321
+     * ....
+     * </pre>
+     * </p>
+     *
+     * @param context the specified context
+     */
+    @RequestProcessing(value = "/console/metrics", method = HTTPRequestMethod.GET)
+    public void getMetrics(final HTTPRequestContext context) {
+        final PrometheusRenderer renderer = new PrometheusRenderer();
+        context.setRenderer(renderer);
+        renderer.setContent(Metrics.getPrometheusText());
+    }
+}
@@ -30,6 +30,7 @@ import org.b3log.latke.servlet.annotation.Before;
 import org.b3log.latke.servlet.annotation.RequestProcessing;
 import org.b3log.latke.servlet.annotation.RequestProcessor;
 import org.b3log.latke.servlet.renderer.JSONRenderer;
+import org.b3log.solo.event.EventDispatcher;
 import org.b3log.solo.model.Option;
 import org.b3log.solo.model.Sign;
 import org.b3log.solo.model.Skin;
@@ -37,6 +38,7 @@ import org.b3log.solo.service.OptionMgmtService;
 import org.b3log.solo.service.OptionQueryService;
 import org.b3log.solo.service.PreferenceMgmtService;
 import org.b3log.solo.service.PreferenceQueryService;
+import org.b3log.solo.service.SyncMgmtService;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -49,7 +51,7 @@ import java.util.Arrays;
  * Preference console request processing.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.2.0.14, Oct 17, 2018
+ * @version 1.2.2.0, Nov 21, 2018
  * @since 0.4.0
  */
 @RequestProcessor
@@ -90,6 +92,18 @@ public class PreferenceConsole {
     @Inject
     private OptionQueryService optionQueryService;
 
+    /**
+     * B3 sync management service.
+     */
+    @Inject
+    private SyncMgmtService syncMgmtService;
+
+    /**
+     * Event dispatcher.
+     */
+    @Inject
+    private EventDispatcher eventDispatcher;
+
     /**
      * Language service.
      */
@@ -138,6 +152,94 @@ public class PreferenceConsole {
         }
     }
 
+    /**
+     * Gets the B3 sync queue statistic.
+     * <p>
+     * Renders the response with a json object, for example,
+     * <pre>
+     * {
+     *     "sc": boolean,
+     *     "syncStat": {
+     *         "pending": long,
+     *         "sent": long,
+     *         "retried": long,
+     *         "dropped": long,
+     *         "coalesced": long
+     *     }
+     * }
+     * </pre>
+     * </p>
+     *
+     * @param request  the specified http servlet request
+     * @param response the specified http servlet response
+     * @param context  the specified http request context
+     */
+    @RequestProcessing(value = "/console/b3/sync/stat", method = HTTPRequestMethod.GET)
+    public void getSyncStat(final HttpServletRequest request, final HttpServletResponse response,
+                            final HTTPRequestContext context) {
+        final JSONRenderer renderer = new JSONRenderer();
+        context.setRenderer(renderer);
+
+        try {
+            final JSONObject ret = new JSONObject();
+            renderer.setJSONObject(ret);
+            ret.put("syncStat", syncMgmtService.getStat());
+            ret.put(Keys.STATUS_CODE, true);
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, e.getMessage(), e);
+
+            final JSONObject jsonObject = new JSONObject().put(Keys.STATUS_CODE, false);
+            renderer.setJSONObject(jsonObject);
+            jsonObject.put(Keys.MSG, langPropsService.get("getFailLabel"));
+        }
+    }
+
+    /**
+     * Gets the event dispatch statistic.
+     * <p>
+     * Renders the response with a json object, for example,
+     * <pre>
+     * {
+     *     "sc": boolean,
+     *     "eventStat": {
+     *         "pending": long,
+     *         "listeners": {
+     *             "B3ArticleSender": {
+     *                 "count": long,
+     *                 "failures": long,
+     *                 "avgMillis": double,
+     *                 "maxMillis": double
+     *             }, ....
+     *         }
+     *     }
+     * }
+     * </pre>
+     * </p>
+     *
+     * @param request  the specified http servlet request
+     * @param response the specified http servlet response
+     * @param context  the specified http request context
+     */
+    @RequestProcessing(value = "/console/event/stat", method = HTTPRequestMethod.GET)
+    public void getEventStat(final HttpServletRequest request, final HttpServletResponse response,
+                             final HTTPRequestContext context) {
+        final JSONRenderer renderer = new JSONRenderer();
+        context.setRenderer(renderer);
+
+        try {
+            final JSONObject ret = new JSONObject();
+            renderer.setJSONObject(ret);
+            ret.put("eventStat", eventDispatcher.getStat());
+            ret.put(Keys.STATUS_CODE, true);
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, e.getMessage(), e);
+
+            final JSONObject jsonObject = new JSONObject().put(Keys.STATUS_CODE, false);
+            renderer.setJSONObject(jsonObject);
+            jsonObject.put(Keys.MSG, langPropsService.get("getFailLabel"));
+        }
+    }
+
     /**
      * Updates reply template.
      *
@@ -0,0 +1,76 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.processor.console;
+
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.servlet.HTTPRequestContext;
+import org.b3log.latke.servlet.renderer.AbstractHTTPResponseRenderer;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.PrintWriter;
+
+/**
+ * <a href="https://prometheus.io/docs/instrumenting/exposition_formats">Prometheus text exposition</a> HTTP response
+ * renderer.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class PrometheusRenderer extends AbstractHTTPResponseRenderer {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(PrometheusRenderer.class);
+
+    /**
+     * Content type of the Prometheus text exposition format.
+     */
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+
+    /**
+     * Content to render.
+     */
+    private String content;
+
+    /**
+     * Sets the content with the specified content.
+     *
+     * @param content the specified content
+     */
+    public void setContent(final String content) {
+        this.content = content;
+    }
+
+    @Override
+    public void render(final HTTPRequestContext context) {
+        final HttpServletResponse response = context.getResponse();
+        response.setContentType(CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+
+        try {
+            final PrintWriter writer = response.getWriter();
+            writer.write(content);
+            writer.close();
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Render failed", e);
+        }
+    }
+}
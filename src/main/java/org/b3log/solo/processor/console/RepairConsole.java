@@ -17,7 +17,6 @@
  */
 package org.b3log.solo.processor.console;
 
-import org.b3log.latke.Keys;
 import org.b3log.latke.ioc.BeanManager;
 import org.b3log.latke.ioc.Inject;
 import org.b3log.latke.logging.Level;
@@ -25,35 +24,27 @@ import org.b3log.latke.logging.Logger;
 import org.b3log.latke.mail.MailService;
 import org.b3log.latke.mail.MailService.Message;
 import org.b3log.latke.mail.MailServiceFactory;
-import org.b3log.latke.repository.Query;
-import org.b3log.latke.repository.annotation.Transactional;
 import org.b3log.latke.servlet.HTTPRequestContext;
 import org.b3log.latke.servlet.HTTPRequestMethod;
 import org.b3log.latke.servlet.annotation.Before;
 import org.b3log.latke.servlet.annotation.RequestProcessing;
 import org.b3log.latke.servlet.annotation.RequestProcessor;
+import org.b3log.latke.servlet.renderer.JSONRenderer;
 import org.b3log.latke.servlet.renderer.TextHTMLRenderer;
-import org.b3log.solo.model.Article;
 import org.b3log.solo.model.Option;
-import org.b3log.solo.model.Tag;
-import org.b3log.solo.repository.ArticleRepository;
-import org.b3log.solo.repository.TagArticleRepository;
-import org.b3log.solo.repository.TagRepository;
 import org.b3log.solo.service.PreferenceMgmtService;
 import org.b3log.solo.service.PreferenceQueryService;
 import org.b3log.solo.service.StatisticMgmtService;
 import org.b3log.solo.service.StatisticQueryService;
+import org.b3log.solo.service.TagMgmtService;
 import org.b3log.solo.util.Solos;
-import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.util.List;
-
 /**
  * Provides patches on some special issues.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.2.0.17, Sep 25, 2018
+ * @version 1.3.0.0, Nov 21, 2018
  * @since 0.3.1
  */
 @RequestProcessor
@@ -89,22 +80,10 @@ public class RepairConsole {
     private PreferenceMgmtService preferenceMgmtService;
 
     /**
-     * Tag repository.
-     */
-    @Inject
-    private TagRepository tagRepository;
-
-    /**
-     * Tag-Article repository.
+     * Tag management service.
      */
     @Inject
-    private TagArticleRepository tagArticleRepository;
-
-    /**
-     * Article repository.
-     */
-    @Inject
-    private ArticleRepository articleRepository;
+    private TagMgmtService tagMgmtService;
 
     /**
      * Statistic query service.
@@ -157,53 +136,32 @@ public class RepairConsole {
     }
 
     /**
-     * Repairs tag article counter.
+     * Starts repairing tag article counter in background.
      *
      * @param context the specified context
      */
     @RequestProcessing(value = "/fix/tag-article-counter-repair.do", method = HTTPRequestMethod.GET)
-    @Transactional
     public void repairTagArticleCounter(final HTTPRequestContext context) {
         final TextHTMLRenderer renderer = new TextHTMLRenderer();
         context.setRenderer(renderer);
 
-        try {
-            final List<JSONObject> tags = tagRepository.getList(new Query());
-            for (final JSONObject tag : tags) {
-                final String tagId = tag.getString(Keys.OBJECT_ID);
-                final JSONObject tagArticleResult = tagArticleRepository.getByTagId(tagId, 1, Integer.MAX_VALUE);
-                final JSONArray tagArticles = tagArticleResult.getJSONArray(Keys.RESULTS);
-                final int tagRefCnt = tagArticles.length();
-                int publishedTagRefCnt = 0;
-
-                for (int i = 0; i < tagRefCnt; i++) {
-                    final JSONObject tagArticle = tagArticles.getJSONObject(i);
-                    final String articleId = tagArticle.getString(Article.ARTICLE + "_" + Keys.OBJECT_ID);
-                    final JSONObject article = articleRepository.get(articleId);
-                    if (null == article) {
-                        tagArticleRepository.remove(tagArticle.optString(Keys.OBJECT_ID));
-
-                        continue;
-                    }
-
-                    if (article.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
-                        publishedTagRefCnt++;
-                    }
-                }
-
-                tag.put(Tag.TAG_REFERENCE_COUNT, tagRefCnt);
-                tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedTagRefCnt);
-
-                tagRepository.update(tagId, tag);
-
-                LOGGER.log(Level.INFO, "Repaired tag[title={0}, refCnt={1}, publishedTagRefCnt={2}]",
-                        tag.getString(Tag.TAG_TITLE), tagRefCnt, publishedTagRefCnt);
-            }
-
-            renderer.setContent("Repair successfully!");
-        } catch (final Exception e) {
-            LOGGER.log(Level.ERROR, e.getMessage(), e);
-            renderer.setContent("Repairs failed, error msg[" + e.getMessage() + "]");
+        if (tagMgmtService.startTagArticleCounterRepair()) {
+            renderer.setContent("Repair started, see progress at /fix/tag-article-counter-repair-progress.do");
+        } else {
+            renderer.setContent("Repair is running, see progress at /fix/tag-article-counter-repair-progress.do");
         }
     }
+
+    /**
+     * Gets the progress of repairing tag article counter.
+     *
+     * @param context the specified context
+     */
+    @RequestProcessing(value = "/fix/tag-article-counter-repair-progress.do", method = HTTPRequestMethod.GET)
+    public void getTagArticleCounterRepairProgress(final HTTPRequestContext context) {
+        final JSONRenderer renderer = new JSONRenderer();
+        context.setRenderer(renderer);
+
+        renderer.setJSONObject(tagMgmtService.getTagArticleCounterRepairProgress());
+    }
 }
@@ -24,19 +24,21 @@ import org.b3log.latke.logging.Logger;
 import org.b3log.latke.repository.*;
 import org.b3log.latke.repository.annotation.Repository;
 import org.b3log.solo.cache.ArticleCache;
+import org.b3log.solo.cache.SuggestionCache;
 import org.b3log.solo.model.Article;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Article repository.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.1.11, Sep 30, 2018
+ * @version 1.3.0.1, Nov 21, 2018
  * @since 0.3.1
  */
 @Repository
@@ -48,15 +50,16 @@ public class ArticleRepository extends AbstractRepository {
     private static final Logger LOGGER = Logger.getLogger(ArticleRepository.class);
 
     /**
-     * Random range.
+     * Article cache.
      */
-    private static final double RANDOM_RANGE = 0.1D;
+    @Inject
+    private ArticleCache articleCache;
 
     /**
-     * Article cache.
+     * Suggestion cache.
      */
     @Inject
-    private ArticleCache articleCache;
+    private SuggestionCache suggestionCache;
 
     /**
      * Public constructor.
@@ -65,26 +68,66 @@ public class ArticleRepository extends AbstractRepository {
         super(Article.ARTICLE);
     }
 
+    @Override
+    public String add(final JSONObject article) throws RepositoryException {
+        final String ret = super.add(article);
+
+        article.put(Keys.OBJECT_ID, ret);
+        RequestLoader.evict(getName(), ret);
+        if (article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
+            articleCache.addPublishedId(ret);
+        }
+        suggestionCache.putArticle(article);
+
+        return ret;
+    }
+
     @Override
     public void remove(final String id) throws RepositoryException {
         super.remove(id);
 
+        RequestLoader.evict(getName(), id);
         articleCache.removeArticle(id);
+        suggestionCache.removeArticle(id);
     }
 
     @Override
     public JSONObject get(final String id) throws RepositoryException {
-        JSONObject ret = articleCache.getArticle(id);
-        if (null != ret) {
-            return ret;
+        return RequestLoader.load(getName(), id, this::fetch, this::getByIds);
+    }
+
+    /**
+     * Gets articles by the specified article ids in one query, articles found in the cache are not queried.
+     *
+     * @param ids the specified article ids
+     * @return articles, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     */
+    public List<JSONObject> getByIds(final Collection<String> ids) throws RepositoryException {
+        final List<JSONObject> ret = new ArrayList<>();
+        final List<String> missIds = new ArrayList<>();
+        for (final String id : ids) {
+            final JSONObject article = articleCache.getArticle(id);
+            if (null != article) {
+                ret.add(article);
+            } else {
+                missIds.add(id);
+            }
         }
 
-        ret = super.get(id);
-        if (null == ret) {
-            return null;
+        if (missIds.isEmpty()) {
+            return ret;
         }
 
-        articleCache.putArticle(ret);
+        final Query query = new Query().setPageCount(1).
+                setFilter(new PropertyFilter(Keys.OBJECT_ID, FilterOperator.IN, missIds));
+        final long start = System.nanoTime();
+        final List<JSONObject> articles = getList(query);
+        RequestLoader.countQuery(getName(), start);
+        for (final JSONObject article : articles) {
+            articleCache.putArticle(article);
+            ret.add(article);
+        }
 
         return ret;
     }
@@ -94,43 +137,65 @@ public class ArticleRepository extends AbstractRepository {
         super.update(id, article);
 
         article.put(Keys.OBJECT_ID, id);
+        RequestLoader.evict(getName(), id);
         articleCache.putArticle(article);
+        suggestionCache.putArticle(article);
     }
 
-    @Override
-    public List<JSONObject> getRandomly(final int fetchSize) throws RepositoryException {
-        final List<JSONObject> ret = new ArrayList();
-
-        if (0 == count()) {
+    /**
+     * Fetches an article by the specified id, from the article cache first.
+     *
+     * @param id the specified id
+     * @return article, returns {@code null} if not found
+     * @throws RepositoryException repository exception
+     */
+    private JSONObject fetch(final String id) throws RepositoryException {
+        JSONObject ret = articleCache.getArticle(id);
+        if (null != ret) {
             return ret;
         }
 
-        final double mid = Math.random() + RANDOM_RANGE;
+        final long start = System.nanoTime();
+        ret = super.get(id);
+        RequestLoader.countQuery(getName(), start);
+        if (null == ret) {
+            return null;
+        }
 
-        LOGGER.log(Level.TRACE, "Random mid[{0}]", mid);
+        articleCache.putArticle(ret);
 
-        Query query = new Query().setFilter(CompositeFilterOperator.and(
-                new PropertyFilter(Article.ARTICLE_RANDOM_DOUBLE, FilterOperator.GREATER_THAN_OR_EQUAL, mid),
-                new PropertyFilter(Article.ARTICLE_RANDOM_DOUBLE, FilterOperator.LESS_THAN_OR_EQUAL, mid),
-                new PropertyFilter(Article.ARTICLE_IS_PUBLISHED, FilterOperator.EQUAL, true))).
-                setCurrentPageNum(1).setPageSize(fetchSize).setPageCount(1);
+        return ret;
+    }
 
-        final List<JSONObject> list1 = getList(query);
-        ret.addAll(list1);
+    /**
+     * Gets published articles randomly with the specified fetch size.
+     * <p>
+     * Samples from the published article ids held in {@link ArticleCache}, loads the ids in one query on first use.
+     * </p>
+     *
+     * @param fetchSize the specified fetch size
+     * @return a list of published articles, its size less or equal to the specified fetch size
+     * @throws RepositoryException repository exception
+     */
+    @Override
+    public List<JSONObject> getRandomly(final int fetchSize) throws RepositoryException {
+        if (!articleCache.isPublishedIdsLoaded()) {
+            loadPublishedIds();
+        }
 
-        final int reminingSize = fetchSize - list1.size();
-        if (0 != reminingSize) { // Query for remains
-            query = new Query();
-            query.setFilter(
-                    CompositeFilterOperator.and(
-                            new PropertyFilter(Article.ARTICLE_RANDOM_DOUBLE, FilterOperator.GREATER_THAN_OR_EQUAL, 0D),
-                            new PropertyFilter(Article.ARTICLE_RANDOM_DOUBLE, FilterOperator.LESS_THAN_OR_EQUAL, mid),
-                            new PropertyFilter(Article.ARTICLE_IS_PUBLISHED, FilterOperator.EQUAL, true))).
-                    setCurrentPageNum(1).setPageSize(reminingSize).setPageCount(1);
+        final List<JSONObject> ret = new ArrayList<>();
+        final List<String> ids = articleCache.getRandomPublishedIds(fetchSize);
+        for (final String id : ids) {
+            final JSONObject article = get(id);
+            if (null == article) { // Added by a rolled back transaction
+                articleCache.removeArticle(id);
 
-            final List<JSONObject> list2 = getList(query);
+                continue;
+            }
 
-            ret.addAll(list2);
+            if (article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
+                ret.add(article);
+            }
         }
 
         return ret;
@@ -343,6 +408,25 @@ public class ArticleRepository extends AbstractRepository {
         return ret;
     }
 
+    /**
+     * Loads ids of all published articles into {@link ArticleCache}.
+     *
+     * @throws RepositoryException repository exception
+     */
+    private void loadPublishedIds() throws RepositoryException {
+        final Query query = new Query().setPageCount(1).
+                setFilter(new PropertyFilter(Article.ARTICLE_IS_PUBLISHED, FilterOperator.EQUAL, true)).
+                addProjection(Keys.OBJECT_ID, String.class);
+        final List<JSONObject> articles = getList(query);
+        final List<String> ids = new ArrayList<>(articles.size());
+        for (final JSONObject article : articles) {
+            ids.add(article.optString(Keys.OBJECT_ID));
+        }
+
+        articleCache.loadPublishedIds(ids);
+        LOGGER.log(Level.DEBUG, "Loaded published article ids [count={0}]", ids.size());
+    }
+
     /**
      * Determines an article specified by the given article id is published.
      *
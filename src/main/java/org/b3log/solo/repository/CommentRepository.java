@@ -35,7 +35,7 @@ import java.util.List;
  * Comment repository.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.5, Sep 30, 2018
+ * @version 1.1.0.0, Nov 21, 2018
  * @since 0.3.1
  */
 @Repository
@@ -65,11 +65,24 @@ public class CommentRepository extends AbstractRepository {
         super(Comment.COMMENT);
     }
 
+    @Override
+    public String add(final JSONObject comment) throws RepositoryException {
+        final String ret = super.add(comment);
+
+        commentCache.removeOnComments(comment.optString(Comment.COMMENT_ON_ID));
+
+        return ret;
+    }
+
     @Override
     public void remove(final String id) throws RepositoryException {
+        final JSONObject comment = get(id);
         super.remove(id);
 
         commentCache.removeComment(id);
+        if (null != comment) {
+            commentCache.removeOnComments(comment.optString(Comment.COMMENT_ON_ID));
+        }
     }
 
     @Override
@@ -95,6 +108,7 @@ public class CommentRepository extends AbstractRepository {
 
         comment.put(Keys.OBJECT_ID, id);
         commentCache.putComment(comment);
+        commentCache.removeOnComments(comment.optString(Comment.COMMENT_ON_ID));
     }
 
     /**
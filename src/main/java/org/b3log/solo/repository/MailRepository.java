@@ -0,0 +1,100 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.repository;
+
+import org.b3log.latke.Keys;
+import org.b3log.latke.repository.*;
+import org.b3log.latke.repository.annotation.Repository;
+import org.b3log.solo.model.Mail;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.List;
+
+/**
+ * Outbound mail repository.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@Repository
+public class MailRepository extends AbstractRepository {
+
+    /**
+     * Public constructor.
+     */
+    public MailRepository() {
+        super(Mail.MAIL);
+    }
+
+    /**
+     * Gets a mail by the specified key.
+     *
+     * @param key the specified key
+     * @return mail, returns {@code null} if not found
+     * @throws RepositoryException repository exception
+     */
+    public JSONObject getByKey(final String key) throws RepositoryException {
+        final Query query = new Query().setFilter(new PropertyFilter(Mail.MAIL_KEY, FilterOperator.EQUAL, key)).
+                setPageCount(1);
+
+        final JSONObject result = get(query);
+        final JSONArray array = result.optJSONArray(Keys.RESULTS);
+        if (0 == array.length()) {
+            return null;
+        }
+
+        return array.optJSONObject(0);
+    }
+
+    /**
+     * Gets pending mails which are due at the specified time, the most overdue first.
+     *
+     * @param now       the specified time
+     * @param fetchSize the specified fetch size
+     * @return pending mails, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     */
+    public List<JSONObject> getPendings(final long now, final int fetchSize) throws RepositoryException {
+        final Query query = new Query().setFilter(CompositeFilterOperator.and(
+                new PropertyFilter(Mail.MAIL_STATUS, FilterOperator.EQUAL, Mail.MAIL_STATUS_C_PENDING),
+                new PropertyFilter(Mail.MAIL_NEXT_TIME, FilterOperator.LESS_THAN_OR_EQUAL, now))).
+                addSort(Mail.MAIL_NEXT_TIME, SortDirection.ASCENDING).
+                setCurrentPageNum(1).setPageSize(fetchSize).setPageCount(1);
+
+        return getList(query);
+    }
+
+    /**
+     * Gets finished (sent or failed) mails created before the specified time.
+     *
+     * @param time      the specified time
+     * @param fetchSize the specified fetch size
+     * @return finished mails, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     */
+    public List<JSONObject> getFinished(final long time, final int fetchSize) throws RepositoryException {
+        final Query query = new Query().setFilter(CompositeFilterOperator.and(
+                new PropertyFilter(Mail.MAIL_STATUS, FilterOperator.NOT_EQUAL, Mail.MAIL_STATUS_C_PENDING),
+                new PropertyFilter(Mail.MAIL_CREATED, FilterOperator.LESS_THAN, time))).
+                setCurrentPageNum(1).setPageSize(fetchSize).setPageCount(1);
+
+        return getList(query);
+    }
+}
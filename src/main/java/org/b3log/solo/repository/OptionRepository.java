@@ -21,17 +21,22 @@ import org.b3log.latke.Keys;
 import org.b3log.latke.ioc.Inject;
 import org.b3log.latke.repository.*;
 import org.b3log.latke.repository.annotation.Repository;
+import org.b3log.latke.repository.jdbc.JdbcRepository;
+import org.b3log.latke.repository.jdbc.JdbcTransaction;
 import org.b3log.solo.cache.OptionCache;
 import org.b3log.solo.model.Option;
 import org.json.JSONObject;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 
 /**
  * Option repository.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.1, Sep 30, 2018
+ * @version 1.3.0.0, Nov 21, 2018
  * @since 0.6.0
  */
 @Repository
@@ -50,6 +55,16 @@ public class OptionRepository extends AbstractRepository {
         super(Option.OPTION);
     }
 
+    @Override
+    public String add(final JSONObject option) throws RepositoryException {
+        final String ret = super.add(option);
+
+        RequestLoader.evict(getName(), ret);
+        RequestLoader.evict(getCategoriesName(), option.optString(Option.OPTION_CATEGORY));
+
+        return ret;
+    }
+
     @Override
     public void remove(final String id) throws RepositoryException {
         final JSONObject option = get(id);
@@ -62,23 +77,14 @@ public class OptionRepository extends AbstractRepository {
 
         final String category = option.optString(Option.OPTION_CATEGORY);
         optionCache.removeCategory(category);
+
+        RequestLoader.evict(getName(), id);
+        RequestLoader.evict(getCategoriesName(), category);
     }
 
     @Override
     public JSONObject get(final String id) throws RepositoryException {
-        JSONObject ret = optionCache.getOption(id);
-        if (null != ret) {
-            return ret;
-        }
-
-        ret = super.get(id);
-        if (null == ret) {
-            return null;
-        }
-
-        optionCache.putOption(ret);
-
-        return ret;
+        return RequestLoader.load(getName(), id, this::fetch, null);
     }
 
     @Override
@@ -87,6 +93,61 @@ public class OptionRepository extends AbstractRepository {
 
         option.put(Keys.OBJECT_ID, id);
         optionCache.putOption(option);
+
+        RequestLoader.evict(getName(), id);
+        RequestLoader.evict(getCategoriesName(), option.optString(Option.OPTION_CATEGORY));
+    }
+
+    /**
+     * Adds the specified delta to the numeric value of an option specified by the given id, should be invoked in a
+     * transaction.
+     * <p>
+     * The option row is locked ({@code SELECT ... FOR UPDATE}) until the transaction ends, so concurrent transactions
+     * add on top of each other whatever order they commit in.
+     * </p>
+     *
+     * @param id    the given id
+     * @param delta the specified delta
+     * @return added value
+     * @throws RepositoryException repository exception
+     */
+    public long addValue(final String id, final long delta) throws RepositoryException {
+        final JdbcTransaction transaction = JdbcRepository.TX.get();
+        if (null == transaction || !transaction.isActive()) {
+            throw new RepositoryException("Adds option value [id=" + id + "] out of a transaction");
+        }
+
+        final long value;
+        final String sql = "SELECT `" + Option.OPTION_VALUE + "` FROM `" + getName() + "` WHERE `" + Keys.OBJECT_ID + "` = ? FOR UPDATE";
+        try (final PreparedStatement statement = transaction.getConnection().prepareStatement(sql)) {
+            statement.setString(1, id);
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new RepositoryException("Not found option [id=" + id + "]");
+                }
+
+                value = Long.parseLong(resultSet.getString(1).trim()) + delta;
+            }
+        } catch (final SQLException | NumberFormatException e) {
+            throw new RepositoryException(e);
+        }
+
+        final JSONObject option = get(id);
+        if (null == option) {
+            throw new RepositoryException("Not found option [id=" + id + "]");
+        }
+
+        final JSONObject updated = new JSONObject(option.toString());
+        updated.put(Option.OPTION_VALUE, String.valueOf(value));
+        super.update(id, updated);
+        // Not cached before the transaction commits, a rollback must not leave the added value in the option cache
+        optionCache.removeOption(id);
+        optionCache.removeCategory(option.optString(Option.OPTION_CATEGORY));
+
+        RequestLoader.evict(getName(), id);
+        RequestLoader.evict(getCategoriesName(), option.optString(Option.OPTION_CATEGORY));
+
+        return value;
     }
 
     /**
@@ -106,6 +167,43 @@ public class OptionRepository extends AbstractRepository {
      * @throws RepositoryException repository exception
      */
     public JSONObject getOptions(final String category) throws RepositoryException {
+        return RequestLoader.load(getCategoriesName(), category, this::fetchOptions, null);
+    }
+
+    /**
+     * Fetches an option by the specified id, from the option cache first.
+     *
+     * @param id the specified id
+     * @return option, returns {@code null} if not found
+     * @throws RepositoryException repository exception
+     */
+    private JSONObject fetch(final String id) throws RepositoryException {
+        JSONObject ret = optionCache.getOption(id);
+        if (null != ret) {
+            return ret;
+        }
+
+        final long start = System.nanoTime();
+        ret = super.get(id);
+        RequestLoader.countQuery(getName(), start);
+        if (null == ret) {
+            return null;
+        }
+
+        optionCache.putOption(ret);
+
+        return ret;
+    }
+
+    /**
+     * Fetches options with the specified category, from the option cache first.
+     *
+     * @param category the specified category
+     * @return all options with the specified category, returns {@code null} if not found
+     * @throws RepositoryException repository exception
+     * @see #getOptions(String)
+     */
+    private JSONObject fetchOptions(final String category) throws RepositoryException {
         final JSONObject cached = optionCache.getCategory(category);
         if (null != cached) {
             return cached;
@@ -113,7 +211,9 @@ public class OptionRepository extends AbstractRepository {
 
         final JSONObject ret = new JSONObject();
         try {
+            final long start = System.nanoTime();
             final List<JSONObject> options = getList(new Query().setFilter(new PropertyFilter(Option.OPTION_CATEGORY, FilterOperator.EQUAL, category)));
+            RequestLoader.countQuery(getName(), start);
             if (0 == options.size()) {
                 return null;
             }
@@ -126,4 +226,13 @@ public class OptionRepository extends AbstractRepository {
             throw new RepositoryException(e);
         }
     }
+
+    /**
+     * Gets the request loader table name of option categories.
+     *
+     * @return table name
+     */
+    private String getCategoriesName() {
+        return getName() + "_" + Option.OPTION_CATEGORY;
+    }
 }
@@ -0,0 +1,279 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.repository;
+
+import org.b3log.latke.Keys;
+import org.b3log.latke.repository.RepositoryException;
+import org.b3log.solo.util.Metrics;
+import org.b3log.solo.util.Solos;
+import org.json.JSONObject;
+
+import java.util.*;
+
+/**
+ * Request-scoped repository loader.
+ * <p>
+ * Within a request scope (see {@link #start()} and {@link #end()}), identical lookups through a repository are loaded
+ * once and served from the scope afterwards, ids {@link #defer(String, Collection) deferred} by a caller are loaded
+ * together in one query on the first lookup of any of them. Lookups outside a request scope (background workers,
+ * for example) go to the repository directly.
+ * </p>
+ * <p>
+ * Records held in a scope are never handed out, every lookup returns a clone.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.1, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class RequestLoader {
+
+    /**
+     * Scope of the current thread.
+     */
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    /**
+     * Private constructor.
+     */
+    private RequestLoader() {
+    }
+
+    /**
+     * Starts a request scope for the current thread.
+     */
+    public static void start() {
+        SCOPE.set(new Scope());
+    }
+
+    /**
+     * Ends the request scope of the current thread.
+     *
+     * @return statistic of the ended scope, for example,
+     * <pre>
+     * {
+     *     "loads": long, // lookups made through the loader
+     *     "hits": long, // lookups served from the scope
+     *     "queries": long, // queries sent to the database
+     *     "batches": long // queries loading deferred ids
+     * }
+     * </pre>, returns {@code null} if the current thread has no scope
+     */
+    public static JSONObject end() {
+        final Scope scope = SCOPE.get();
+        SCOPE.remove();
+        if (null == scope) {
+            return null;
+        }
+
+        return new JSONObject().put("loads", scope.loads).put("hits", scope.hits).
+                put("queries", scope.queries).put("batches", scope.batches);
+    }
+
+    /**
+     * Defers loading of the specified ids of the specified table, the first lookup of any of them loads all of them
+     * in one query. Does nothing if the current thread has no scope.
+     *
+     * @param table the specified table
+     * @param ids   the specified ids
+     */
+    public static void defer(final String table, final Collection<String> ids) {
+        final Scope scope = SCOPE.get();
+        if (null == scope) {
+            return;
+        }
+
+        final Map<String, JSONObject> loaded = scope.getLoaded(table);
+        final Set<String> pending = scope.pending.computeIfAbsent(table, key -> new HashSet<>());
+        for (final String id : ids) {
+            if (!loaded.containsKey(id)) {
+                pending.add(id);
+            }
+        }
+    }
+
+    /**
+     * Loads a record by the specified id of the specified table.
+     *
+     * @param table        the specified table
+     * @param id           the specified id
+     * @param fetcher      the specified fetcher, fetches one record by id
+     * @param batchFetcher the specified batch fetcher, fetches records by ids in one query, may be {@code null} if
+     *                     ids of the table are never deferred
+     * @return record, returns {@code null} if not found
+     * @throws RepositoryException repository exception
+     */
+    public static JSONObject load(final String table, final String id, final Fetcher<String, JSONObject> fetcher,
+                                  final Fetcher<Collection<String>, List<JSONObject>> batchFetcher) throws RepositoryException {
+        final Scope scope = SCOPE.get();
+        if (null == scope) {
+            return fetcher.fetch(id);
+        }
+
+        scope.loads++;
+        final Map<String, JSONObject> loaded = scope.getLoaded(table);
+        if (loaded.containsKey(id)) {
+            scope.hits++;
+
+            return copy(loaded.get(id));
+        }
+
+        final Set<String> pending = scope.pending.get(table);
+        if (null != batchFetcher && null != pending && pending.remove(id)) {
+            final List<String> ids = new ArrayList<>(pending);
+            ids.add(id);
+            pending.clear();
+
+            scope.batches++;
+            for (final String anId : ids) {
+                loaded.put(anId, null);
+            }
+            for (final JSONObject record : batchFetcher.fetch(ids)) {
+                loaded.put(record.optString(Keys.OBJECT_ID), record);
+            }
+        } else {
+            loaded.put(id, fetcher.fetch(id));
+        }
+
+        return copy(loaded.get(id));
+    }
+
+    /**
+     * Counts a query of the specified table sent to the database in the current scope, and records its latency to
+     * {@link Metrics} as a repository load.
+     *
+     * @param table the specified table
+     * @param start the specified start time of the query in nanoseconds, returned by {@link System#nanoTime()}
+     */
+    public static void countQuery(final String table, final long start) {
+        Metrics.recordLoad(table, start);
+
+        final Scope scope = SCOPE.get();
+        if (null != scope) {
+            scope.queries++;
+        }
+    }
+
+    /**
+     * Evicts a record specified by the given id of the specified table from the current scope.
+     *
+     * @param table the specified table
+     * @param id    the given id
+     */
+    public static void evict(final String table, final String id) {
+        final Scope scope = SCOPE.get();
+        if (null == scope) {
+            return;
+        }
+
+        final Map<String, JSONObject> loaded = scope.loaded.get(table);
+        if (null != loaded) {
+            loaded.remove(id);
+        }
+    }
+
+    /**
+     * Evicts all records of the specified table from the current scope.
+     *
+     * @param table the specified table
+     */
+    public static void evictAll(final String table) {
+        final Scope scope = SCOPE.get();
+        if (null == scope) {
+            return;
+        }
+
+        scope.loaded.remove(table);
+        scope.pending.remove(table);
+    }
+
+    /**
+     * Copies the specified record.
+     *
+     * @param record the specified record
+     * @return copied record, returns {@code null} if the specified record is {@code null}
+     */
+    private static JSONObject copy(final JSONObject record) {
+        return null == record ? null : Solos.clone(record);
+    }
+
+    /**
+     * Fetcher.
+     *
+     * @param <T> the type of the key
+     * @param <R> the type of the result
+     */
+    @FunctionalInterface
+    public interface Fetcher<T, R> {
+
+        /**
+         * Fetches by the specified key.
+         *
+         * @param key the specified key
+         * @return result
+         * @throws RepositoryException repository exception
+         */
+        R fetch(final T key) throws RepositoryException;
+    }
+
+    /**
+     * Request scope.
+     */
+    private static final class Scope {
+
+        /**
+         * Loaded records, &lt;table, &lt;id, record&gt;&gt;, a {@code null} record means not found.
+         */
+        private final Map<String, Map<String, JSONObject>> loaded = new HashMap<>();
+
+        /**
+         * Deferred ids, &lt;table, ids&gt;.
+         */
+        private final Map<String, Set<String>> pending = new HashMap<>();
+
+        /**
+         * Count of lookups.
+         */
+        private long loads;
+
+        /**
+         * Count of lookups served from this scope.
+         */
+        private long hits;
+
+        /**
+         * Count of queries.
+         */
+        private long queries;
+
+        /**
+         * Count of batch queries.
+         */
+        private long batches;
+
+        /**
+         * Gets the loaded records of the specified table.
+         *
+         * @param table the specified table
+         * @return loaded records
+         */
+        private Map<String, JSONObject> getLoaded(final String table) {
+            return loaded.computeIfAbsent(table, key -> new HashMap<>());
+        }
+    }
+}
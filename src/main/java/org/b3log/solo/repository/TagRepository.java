@@ -21,20 +21,23 @@ import org.b3log.latke.Keys;
 import org.b3log.latke.ioc.Inject;
 import org.b3log.latke.repository.*;
 import org.b3log.latke.repository.annotation.Repository;
+import org.b3log.solo.cache.SuggestionCache;
+import org.b3log.solo.cache.TagCache;
 import org.b3log.solo.model.Tag;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.text.Collator;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 /**
  * Tag repository.
+ * <p>
+ * Tags are resolved by title through the tag dictionary {@link TagCache}, then fetched by ids in one query.
+ * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.2, Sep 30, 2018
+ * @version 1.1.0.0, Nov 21, 2018
  * @since 0.3.1
  */
 @Repository
@@ -53,6 +56,144 @@ public class TagRepository extends AbstractRepository {
     @Inject
     private TagArticleRepository tagArticleRepository;
 
+    /**
+     * Suggestion cache.
+     */
+    @Inject
+    private SuggestionCache suggestionCache;
+
+    /**
+     * Tag cache.
+     */
+    @Inject
+    private TagCache tagCache;
+
+    @Override
+    public String add(final JSONObject tag) throws RepositoryException {
+        final String ret = super.add(tag);
+
+        tag.put(Keys.OBJECT_ID, ret);
+        suggestionCache.putTag(tag);
+        tagCache.putTag(tag);
+
+        return ret;
+    }
+
+    @Override
+    public void update(final String id, final JSONObject tag) throws RepositoryException {
+        super.update(id, tag);
+
+        tag.put(Keys.OBJECT_ID, id);
+        suggestionCache.putTag(tag);
+        tagCache.putTag(tag);
+    }
+
+    @Override
+    public void remove(final String id) throws RepositoryException {
+        super.remove(id);
+
+        suggestionCache.removeTag(id);
+        tagCache.removeTag(id);
+    }
+
+    /**
+     * Loads titles of all tags into the tag dictionary if it has not been loaded.
+     *
+     * @throws RepositoryException repository exception
+     */
+    public void loadTitles() throws RepositoryException {
+        if (tagCache.isLoaded()) {
+            return;
+        }
+
+        synchronized (tagCache) {
+            if (tagCache.isLoaded()) {
+                return;
+            }
+
+            final Query query = new Query().setPageCount(1).
+                    addProjection(Keys.OBJECT_ID, String.class).
+                    addProjection(Tag.TAG_TITLE, String.class);
+            tagCache.load(getList(query));
+        }
+    }
+
+    /**
+     * Gets tags by the specified tag ids.
+     *
+     * @param ids the specified tag ids
+     * @return tags, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     */
+    public List<JSONObject> getByIds(final Collection<String> ids) throws RepositoryException {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        final Query query = new Query().setPageCount(1).
+                setFilter(new PropertyFilter(Keys.OBJECT_ID, FilterOperator.IN, new ArrayList<>(ids)));
+
+        return getList(query);
+    }
+
+    /**
+     * Gets tags by the specified tag titles in one pass.
+     * <p>
+     * Titles are resolved to ids through the tag dictionary and the tags are fetched by ids in one query, titles not
+     * found in the dictionary are looked up in one query by titles.
+     * </p>
+     *
+     * @param titles the specified tag titles
+     * @return tags, &lt;title, tag&gt;, titles not found are absent
+     * @throws RepositoryException repository exception
+     */
+    public Map<String, JSONObject> getByTitles(final Collection<String> titles) throws RepositoryException {
+        final Map<String, JSONObject> ret = new HashMap<>();
+        if (titles.isEmpty()) {
+            return ret;
+        }
+
+        loadTitles();
+
+        final Map<String, String> idTitles = new HashMap<>();
+        final List<String> missTitles = new ArrayList<>();
+        for (final String title : titles) {
+            final String id = tagCache.getId(title);
+            if (null == id) {
+                missTitles.add(title);
+            } else {
+                idTitles.put(id, title);
+            }
+        }
+
+        for (final JSONObject tag : getByIds(idTitles.keySet())) {
+            ret.put(idTitles.remove(tag.optString(Keys.OBJECT_ID)), tag);
+        }
+        for (final Map.Entry<String, String> stale : idTitles.entrySet()) { // Added by a rolled back transaction
+            tagCache.removeTag(stale.getKey());
+            missTitles.add(stale.getValue());
+        }
+
+        if (missTitles.isEmpty()) {
+            return ret;
+        }
+
+        final Query query = new Query().setPageCount(1).
+                setFilter(new PropertyFilter(Tag.TAG_TITLE, FilterOperator.IN, missTitles));
+        final List<JSONObject> tags = getList(query);
+        for (final JSONObject tag : tags) {
+            tagCache.putTag(tag);
+            final String title = tag.optString(Tag.TAG_TITLE);
+            for (final String missTitle : missTitles) {
+                if (missTitle.equalsIgnoreCase(title)) { // The datastore may compare titles case-insensitively
+                    ret.putIfAbsent(missTitle, tag);
+                }
+            }
+        }
+
+        return ret;
+    }
+
     /**
      * Gets tags of an article specified by the article id.
      *
@@ -62,14 +203,20 @@ public class TagRepository extends AbstractRepository {
      * @throws RepositoryException repository exception
      */
     public List<JSONObject> getByArticleId(final String articleId) throws RepositoryException {
-        final List<JSONObject> ret = new ArrayList<>();
-
+        final List<String> tagIds = new ArrayList<>();
         final List<JSONObject> tagArticleRelations = tagArticleRepository.getByArticleId(articleId);
         for (final JSONObject tagArticleRelation : tagArticleRelations) {
-            final String tagId = tagArticleRelation.optString(Tag.TAG + "_" + Keys.OBJECT_ID);
-            final JSONObject tag = get(tagId);
+            tagIds.add(tagArticleRelation.optString(Tag.TAG + "_" + Keys.OBJECT_ID));
+        }
 
-            ret.add(tag);
+        final Map<String, JSONObject> tags = new HashMap<>();
+        for (final JSONObject tag : getByIds(tagIds)) {
+            tags.put(tag.optString(Keys.OBJECT_ID), tag);
+        }
+
+        final List<JSONObject> ret = new ArrayList<>();
+        for (final String tagId : tagIds) {
+            ret.add(tags.get(tagId));
         }
 
         return ret;
@@ -83,6 +230,18 @@ public class TagRepository extends AbstractRepository {
      * @throws RepositoryException repository exception
      */
     public JSONObject getByTitle(final String tagTitle) throws RepositoryException {
+        loadTitles();
+
+        final String id = tagCache.getId(tagTitle);
+        if (null != id) {
+            final JSONObject ret = get(id);
+            if (null != ret) {
+                return ret;
+            }
+
+            tagCache.removeTag(id); // Added by a rolled back transaction
+        }
+
         final Query query = new Query().setFilter(new PropertyFilter(Tag.TAG_TITLE, FilterOperator.EQUAL, tagTitle)).setPageCount(1);
 
         final JSONObject result = get(query);
@@ -91,7 +250,10 @@ public class TagRepository extends AbstractRepository {
             return null;
         }
 
-        return array.optJSONObject(0);
+        final JSONObject ret = array.optJSONObject(0);
+        tagCache.putTag(ret);
+
+        return ret;
     }
 
     /**
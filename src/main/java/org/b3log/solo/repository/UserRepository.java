@@ -27,13 +27,15 @@ import org.b3log.solo.cache.UserCache;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * User repository.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.1, Sep 30, 2018
+ * @version 1.3.0.1, Nov 21, 2018
  * @since 0.3.1
  */
 @Repository
@@ -56,24 +58,13 @@ public class UserRepository extends AbstractRepository {
     public void remove(final String id) throws RepositoryException {
         super.remove(id);
 
+        RequestLoader.evict(getName(), id);
         userCache.removeUser(id);
     }
 
     @Override
     public JSONObject get(final String id) throws RepositoryException {
-        JSONObject ret = userCache.getUser(id);
-        if (null != ret) {
-            return ret;
-        }
-
-        ret = super.get(id);
-        if (null == ret) {
-            return null;
-        }
-
-        userCache.putUser(ret);
-
-        return ret;
+        return RequestLoader.load(getName(), id, this::fetch, this::getByIds);
     }
 
     @Override
@@ -81,6 +72,7 @@ public class UserRepository extends AbstractRepository {
         super.update(id, user);
 
         user.put(Keys.OBJECT_ID, id);
+        RequestLoader.evict(getName(), id);
         userCache.putUser(user);
 
         if (Role.ADMIN_ROLE.equals(user.optString(User.USER_ROLE))) {
@@ -88,6 +80,42 @@ public class UserRepository extends AbstractRepository {
         }
     }
 
+    /**
+     * Gets users by the specified user ids in one query, users found in the cache are not queried.
+     *
+     * @param ids the specified user ids
+     * @return users, returns an empty list if not found
+     * @throws RepositoryException repository exception
+     */
+    public List<JSONObject> getByIds(final Collection<String> ids) throws RepositoryException {
+        final List<JSONObject> ret = new ArrayList<>();
+        final List<String> missIds = new ArrayList<>();
+        for (final String id : ids) {
+            final JSONObject user = userCache.getUser(id);
+            if (null != user) {
+                ret.add(user);
+            } else {
+                missIds.add(id);
+            }
+        }
+
+        if (missIds.isEmpty()) {
+            return ret;
+        }
+
+        final Query query = new Query().setPageCount(1).
+                setFilter(new PropertyFilter(Keys.OBJECT_ID, FilterOperator.IN, missIds));
+        final long start = System.nanoTime();
+        final List<JSONObject> users = getList(query);
+        RequestLoader.countQuery(getName(), start);
+        for (final JSONObject user : users) {
+            userCache.putUser(user);
+            ret.add(user);
+        }
+
+        return ret;
+    }
+
     /**
      * Gets a user by the specified username.
      *
@@ -157,4 +185,29 @@ public class UserRepository extends AbstractRepository {
 
         return ret;
     }
+
+    /**
+     * Fetches a user by the specified id, from the user cache first.
+     *
+     * @param id the specified id
+     * @return user, returns {@code null} if not found
+     * @throws RepositoryException repository exception
+     */
+    private JSONObject fetch(final String id) throws RepositoryException {
+        JSONObject ret = userCache.getUser(id);
+        if (null != ret) {
+            return ret;
+        }
+
+        final long start = System.nanoTime();
+        ret = super.get(id);
+        RequestLoader.countQuery(getName(), start);
+        if (null == ret) {
+            return null;
+        }
+
+        userCache.putUser(ret);
+
+        return ret;
+    }
 }
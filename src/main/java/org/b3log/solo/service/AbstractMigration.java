@@ -0,0 +1,134 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.service;
+
+import org.json.JSONObject;
+
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Abstract data migration, migrates rows of a table in chunks ordered by id.
+ * <p>
+ * A migration is run by {@link MigrationService}, every chunk is migrated and checkpointed in one JDBC transaction,
+ * so an interrupted migration resumes from the chunk after its last checkpoint. Migrating a chunk should be
+ * idempotent, a failed chunk is migrated again on the next run.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public abstract class AbstractMigration {
+
+    /**
+     * Default chunk size.
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+
+    /**
+     * Id.
+     */
+    private final String id;
+
+    /**
+     * Table name.
+     */
+    private final String table;
+
+    /**
+     * Whether to run in background after startup.
+     */
+    private final boolean background;
+
+    /**
+     * Constructs a migration with the specified id, table name and background flag.
+     *
+     * @param id         the specified id, for example "2.9.7-articles"
+     * @param table      the specified table name (with table prefix)
+     * @param background the specified background flag, {@code true} to run in background after startup,
+     *                   {@code false} to run before startup finishes
+     */
+    protected AbstractMigration(final String id, final String table, final boolean background) {
+        this.id = id;
+        this.table = table;
+        this.background = background;
+    }
+
+    /**
+     * Gets the id.
+     *
+     * @return id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the table name.
+     *
+     * @return table name
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Determines whether this migration runs in background after startup.
+     *
+     * @return {@code true} if it does, returns {@code false} otherwise
+     */
+    public boolean isBackground() {
+        return background;
+    }
+
+    /**
+     * Gets the chunk size.
+     *
+     * @return chunk size
+     */
+    public int getChunkSize() {
+        return DEFAULT_CHUNK_SIZE;
+    }
+
+    /**
+     * Gets the columns to read besides "oId".
+     *
+     * @return columns, returns an empty array if only "oId" is required
+     */
+    public abstract String[] getColumns();
+
+    /**
+     * Migrates the specified rows with the specified connection.
+     * <p>
+     * Do not commit or close the connection, it is committed with the checkpoint of the rows.
+     * </p>
+     *
+     * @param connection the specified connection
+     * @param rows       the specified rows, for example,
+     *                   <pre>
+     *                   [{
+     *                       "oId": "",
+     *                       "column1": value1, // columns specified by {@link #getColumns()}, absent if null
+     *                       ....
+     *                   }, ....]
+     *                   </pre>
+     * @throws Exception exception
+     */
+    public abstract void migrate(final Connection connection, final List<JSONObject> rows) throws Exception;
+}
@@ -22,7 +22,6 @@ import org.apache.commons.lang.time.DateFormatUtils;
 import org.apache.commons.lang.time.DateUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.event.Event;
-import org.b3log.latke.event.EventManager;
 import org.b3log.latke.ioc.Inject;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
@@ -33,17 +32,15 @@ import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.service.annotation.Service;
 import org.b3log.latke.util.CollectionUtils;
 import org.b3log.latke.util.Ids;
+import org.b3log.solo.event.EventDispatcher;
 import org.b3log.solo.event.EventTypes;
 import org.b3log.solo.model.*;
 import org.b3log.solo.repository.*;
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.text.ParseException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
 
 import static org.b3log.solo.model.Article.*;
 
@@ -51,7 +48,7 @@ import static org.b3log.solo.model.Article.*;
  * Article management service.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.2.2.13, Oct 7, 2018
+ * @version 1.2.6.3, Nov 21, 2018
  * @since 0.3.5
  */
 @Service
@@ -123,10 +120,10 @@ public class ArticleMgmtService {
     private PermalinkQueryService permalinkQueryService;
 
     /**
-     * Event manager.
+     * Event dispatcher.
      */
     @Inject
-    private EventManager eventManager;
+    private EventDispatcher eventDispatcher;
 
     /**
      * Language service.
@@ -152,24 +149,6 @@ public class ArticleMgmtService {
     @Inject
     private TagMgmtService tagMgmtService;
 
-    /**
-     * Determines whether the specified tag title exists in the specified tags.
-     *
-     * @param tagTitle the specified tag title
-     * @param tags     the specified tags
-     * @return {@code true} if it exists, {@code false} otherwise
-     * @throws JSONException json exception
-     */
-    private static boolean tagExists(final String tagTitle, final List<JSONObject> tags) throws JSONException {
-        for (final JSONObject tag : tags) {
-            if (tag.getString(Tag.TAG_TITLE).equals(tagTitle)) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
     /**
      * Article comment count +1 for an article specified by the given article id.
      *
@@ -203,20 +182,15 @@ public class ArticleMgmtService {
 
             articleRepository.update(articleId, article);
             statisticMgmtService.decPublishedBlogArticleCount();
-            final int blogCmtCnt = statisticQueryService.getPublishedBlogCommentCount();
-            final int articleCmtCnt = article.getInt(ARTICLE_COMMENT_COUNT);
-
-            statisticMgmtService.setPublishedBlogCommentCount(blogCmtCnt - articleCmtCnt);
+            statisticMgmtService.addPublishedBlogCommentCount(-article.getInt(ARTICLE_COMMENT_COUNT));
 
             final JSONObject author = userRepository.get(article.optString(Article.ARTICLE_AUTHOR_ID));
             author.put(UserExt.USER_PUBLISHED_ARTICLE_COUNT, author.optInt(UserExt.USER_PUBLISHED_ARTICLE_COUNT) - 1);
             userRepository.update(author.optString(Keys.OBJECT_ID), author);
 
-            transaction.commit();
+            statisticMgmtService.commit(transaction);
         } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            statisticMgmtService.rollback(transaction);
 
             LOGGER.log(Level.ERROR, "Cancels publish article failed", e);
 
@@ -292,7 +266,7 @@ public class ArticleMgmtService {
             final String permalink = getPermalinkForUpdateArticle(oldArticle, article, oldArticle.optLong(ARTICLE_CREATED));
             article.put(ARTICLE_PERMALINK, permalink);
 
-            processTagsForArticleUpdate(oldArticle, article);
+            retag(articleId, oldArticle, article);
 
             if (!oldArticle.getString(Article.ARTICLE_PERMALINK).equals(permalink)) { // The permalink has been updated
                 // Updates related comments' links
@@ -342,9 +316,7 @@ public class ArticleMgmtService {
             if (publishNewArticle) {
                 // This article is updated from unpublished to published
                 statisticMgmtService.incPublishedBlogArticleCount();
-                final int blogCmtCnt = statisticQueryService.getPublishedBlogCommentCount();
-                final int articleCmtCnt = article.getInt(ARTICLE_COMMENT_COUNT);
-                statisticMgmtService.setPublishedBlogCommentCount(blogCmtCnt + articleCmtCnt);
+                statisticMgmtService.addPublishedBlogCommentCount(article.getInt(ARTICLE_COMMENT_COUNT));
 
                 final JSONObject author = userRepository.get(article.optString(Article.ARTICLE_AUTHOR_ID));
                 author.put(UserExt.USER_PUBLISHED_ARTICLE_COUNT, author.optInt(UserExt.USER_PUBLISHED_ARTICLE_COUNT) + 1);
@@ -366,28 +338,24 @@ public class ArticleMgmtService {
                 final JSONObject eventData = new JSONObject();
                 eventData.put(ARTICLE, article);
                 eventData.put(Keys.RESULTS, ret);
-                eventManager.fireEventSynchronously(new Event<>(EventTypes.ADD_ARTICLE, eventData));
+                eventDispatcher.fire(new Event<>(EventTypes.ADD_ARTICLE, eventData), articleId);
             } else {
                 // Fire update article event
                 final JSONObject eventData = new JSONObject();
                 eventData.put(ARTICLE, article);
                 eventData.put(Keys.RESULTS, ret);
-                eventManager.fireEventSynchronously(new Event<>(EventTypes.UPDATE_ARTICLE, eventData));
+                eventDispatcher.fire(new Event<>(EventTypes.UPDATE_ARTICLE, eventData), articleId);
             }
 
-            transaction.commit();
+            statisticMgmtService.commit(transaction);
         } catch (final ServiceException e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            statisticMgmtService.rollback(transaction);
 
             LOGGER.log(Level.ERROR, "Updates an article failed", e);
 
             throw e;
         } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            statisticMgmtService.rollback(transaction);
 
             LOGGER.log(Level.ERROR, "Updates an article failed", e);
 
@@ -425,13 +393,11 @@ public class ArticleMgmtService {
         try {
             final JSONObject article = requestJSONObject.getJSONObject(Article.ARTICLE);
             final String ret = addArticleInternal(article);
-            transaction.commit();
+            statisticMgmtService.commit(transaction);
 
             return ret;
         } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            statisticMgmtService.rollback(transaction);
 
             throw new ServiceException(e.getMessage());
         }
@@ -458,8 +424,6 @@ public class ArticleMgmtService {
                 throw new ServiceException(langPropsService.get("tagsEmptyLabel"));
             }
             article.put(Article.ARTICLE_TAGS_REF, tagsString);
-            final String[] tagTitles = tagsString.split(",");
-            final JSONArray tags = tag(tagTitles, article);
 
             article.put(Article.ARTICLE_COMMENT_COUNT, 0);
             article.put(Article.ARTICLE_VIEW_COUNT, 0);
@@ -470,7 +434,7 @@ public class ArticleMgmtService {
             article.put(Article.ARTICLE_UPDATED, article.optLong(Article.ARTICLE_CREATED));
             article.put(Article.ARTICLE_PUT_TOP, false);
 
-            addTagArticleRelation(tags, article);
+            retag(ret, null, article);
 
             statisticMgmtService.incBlogArticleCount();
             if (article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
@@ -515,7 +479,7 @@ public class ArticleMgmtService {
             if (article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
                 final JSONObject eventData = new JSONObject();
                 eventData.put(Article.ARTICLE, article);
-                eventManager.fireEventSynchronously(new Event<>(EventTypes.ADD_ARTICLE, eventData));
+                eventDispatcher.fire(new Event<>(EventTypes.ADD_ARTICLE, eventData), ret);
             }
 
             article.remove(Common.POST_TO_COMMUNITY);
@@ -540,13 +504,12 @@ public class ArticleMgmtService {
         final Transaction transaction = articleRepository.beginTransaction();
 
         try {
-            decTagRefCount(articleId);
+            final JSONObject article = articleRepository.get(articleId);
+
+            retag(articleId, article, null);
             unArchiveDate(articleId);
-            removeTagArticleRelations(articleId);
             removeArticleComments(articleId);
 
-            final JSONObject article = articleRepository.get(articleId);
-
             articleRepository.remove(articleId);
 
             statisticMgmtService.decBlogArticleCount();
@@ -559,11 +522,9 @@ public class ArticleMgmtService {
             author.put(UserExt.USER_ARTICLE_COUNT, author.optInt(UserExt.USER_ARTICLE_COUNT) - 1);
             userRepository.update(author.optString(Keys.OBJECT_ID), author);
 
-            transaction.commit();
+            statisticMgmtService.commit(transaction);
         } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            statisticMgmtService.rollback(transaction);
 
             LOGGER.log(Level.ERROR, "Removes an article[id=" + articleId + "] failed", e);
             throw new ServiceException(e);
@@ -572,38 +533,6 @@ public class ArticleMgmtService {
         LOGGER.log(Level.DEBUG, "Removed an article[id={0}]", articleId);
     }
 
-    /**
-     * Updates the random values of articles fetched with the specified update
-     * count.
-     *
-     * @param updateCnt the specified update count
-     * @throws ServiceException service exception
-     */
-    public void updateArticlesRandomValue(final int updateCnt)
-            throws ServiceException {
-        final Transaction transaction = articleRepository.beginTransaction();
-
-        try {
-            final List<JSONObject> randomArticles = articleRepository.getRandomly(updateCnt);
-
-            for (final JSONObject article : randomArticles) {
-                article.put(Article.ARTICLE_RANDOM_DOUBLE, Math.random());
-
-                articleRepository.update(article.getString(Keys.OBJECT_ID), article);
-            }
-
-            transaction.commit();
-        } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
-
-            LOGGER.log(Level.WARN, "Updates article random value failed");
-
-            throw new ServiceException(e);
-        }
-    }
-
     /**
      * Increments the view count of the article specified by the given article id.
      *
@@ -643,43 +572,6 @@ public class ArticleMgmtService {
         }
     }
 
-    /**
-     * Decrements reference count of every tag of an article specified by the
-     * given article id.
-     *
-     * @param articleId the given article id
-     * @throws ServiceException service exception
-     */
-    private void decTagRefCount(final String articleId) throws ServiceException {
-        try {
-            final List<JSONObject> tags = tagRepository.getByArticleId(articleId);
-            final JSONObject article = articleRepository.get(articleId);
-
-            for (final JSONObject tag : tags) {
-                final String tagId = tag.getString(Keys.OBJECT_ID);
-                final int refCnt = tag.getInt(Tag.TAG_REFERENCE_COUNT);
-
-                tag.put(Tag.TAG_REFERENCE_COUNT, refCnt - 1);
-                final int publishedRefCnt = tag.getInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT);
-
-                if (article.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
-                    tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt - 1);
-                } else {
-                    tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt);
-                }
-                tagRepository.update(tagId, tag);
-                LOGGER.log(Level.TRACE, "Deced tag[title={0}, refCnt={1}, publishedRefCnt={2}] of article[id={3}]",
-                        tag.getString(Tag.TAG_TITLE), tag.getInt(Tag.TAG_REFERENCE_COUNT), tag.getInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT),
-                        articleId);
-            }
-        } catch (final Exception e) {
-            LOGGER.log(Level.ERROR, "Decs tag references count of article[id" + articleId + "] failed", e);
-            throw new ServiceException(e);
-        }
-
-        LOGGER.log(Level.DEBUG, "Deced all tag reference count of article[id={0}]", articleId);
-    }
-
     /**
      * Un-archive an article specified by the given specified article id.
      *
@@ -746,118 +638,101 @@ public class ArticleMgmtService {
     }
 
     /**
-     * Processes tags for article update.
+     * Retags an article specified by the given article id from the specified old article to the specified new article.
      * <p>
+     * Old tags are loaded in one query and new tags are resolved in one query through the tag dictionary, then every
+     * changed tag is written once with all its reference count deltas:
      * <ul>
-     * <li>Un-tags old article, decrements tag reference count</li>
-     * <li>Removes old article-tag relations</li>
-     * <li>Saves new article-tag relations with tag reference count</li>
+     * <li>Unchanged tags, published reference count +/-1 if the article publish state changed</li>
+     * <li>Dropped tags, reference count -1 (published reference count -1 if the old article is published), removes
+     * their tag-article relations</li>
+     * <li>Added tags, reference count +1 (published reference count +1 if the new article is published), adds new
+     * tags and their tag-article relations</li>
      * </ul>
+     * </p>
      *
-     * @param oldArticle the specified old article
-     * @param newArticle the specified new article
-     * @throws Exception exception
+     * @param articleId  the given article id
+     * @param oldArticle the specified old article, {@code null} if the article is being added
+     * @param newArticle the specified new article, {@code null} if the article is being removed
+     * @throws RepositoryException repository exception
      */
-    private void processTagsForArticleUpdate(final JSONObject oldArticle, final JSONObject newArticle) throws Exception {
-        final String oldArticleId = oldArticle.getString(Keys.OBJECT_ID);
-        final List<JSONObject> oldTags = tagRepository.getByArticleId(oldArticleId);
-        final String tagsString = newArticle.getString(Article.ARTICLE_TAGS_REF);
-        String[] tagStrings = tagsString.split(",");
-        final List<JSONObject> newTags = new ArrayList<>();
-
-        for (int i = 0; i < tagStrings.length; i++) {
-            final String tagTitle = tagStrings[i].trim();
-            JSONObject newTag = tagRepository.getByTitle(tagTitle);
-
-            if (null == newTag) {
-                newTag = new JSONObject();
-                newTag.put(Tag.TAG_TITLE, tagTitle);
+    private void retag(final String articleId, final JSONObject oldArticle, final JSONObject newArticle)
+            throws RepositoryException {
+        final boolean oldPublished = null != oldArticle && oldArticle.optBoolean(Article.ARTICLE_IS_PUBLISHED);
+        final boolean newPublished = null != newArticle && newArticle.optBoolean(Article.ARTICLE_IS_PUBLISHED);
+
+        final Set<String> addedTitles = new LinkedHashSet<>();
+        if (null != newArticle) {
+            for (final String tagTitle : newArticle.optString(Article.ARTICLE_TAGS_REF).split(",")) {
+                if (StringUtils.isNotBlank(tagTitle)) {
+                    addedTitles.add(tagTitle.trim());
+                }
             }
-            newTags.add(newTag);
         }
 
-        final List<JSONObject> tagsDropped = new ArrayList<>();
-        final List<JSONObject> tagsNeedToAdd = new ArrayList<>();
-        final List<JSONObject> tagsUnchanged = new ArrayList<>();
-
-        for (final JSONObject newTag : newTags) {
-            final String newTagTitle = newTag.getString(Tag.TAG_TITLE);
+        final Map<String, JSONObject> changedTags = new LinkedHashMap<>();
+        final List<String> droppedTagIds = new ArrayList<>();
+        final List<JSONObject> oldTags = null == oldArticle ? Collections.emptyList() : tagRepository.getByArticleId(articleId);
+        for (final JSONObject oldTag : oldTags) {
+            final String tagId = oldTag.optString(Keys.OBJECT_ID);
+            final int publishedRefCnt = oldTag.optInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT);
+            if (addedTitles.remove(oldTag.optString(Tag.TAG_TITLE))) { // Unchanged
+                if (oldPublished != newPublished) {
+                    oldTag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt + (newPublished ? 1 : -1));
+                    changedTags.put(tagId, oldTag);
+                }
 
-            if (!tagExists(newTagTitle, oldTags)) {
-                LOGGER.log(Level.DEBUG, "Tag need to add[title={0}]", newTagTitle);
-                tagsNeedToAdd.add(newTag);
-            } else {
-                tagsUnchanged.add(newTag);
+                continue;
             }
-        }
-        for (final JSONObject oldTag : oldTags) {
-            final String oldTagTitle = oldTag.getString(Tag.TAG_TITLE);
 
-            if (!tagExists(oldTagTitle, newTags)) {
-                LOGGER.log(Level.DEBUG, "Tag dropped[title={0}]", oldTag);
-                tagsDropped.add(oldTag);
-            } else {
-                tagsUnchanged.remove(oldTag);
+            LOGGER.log(Level.DEBUG, "Tag dropped[title={0}]", oldTag.optString(Tag.TAG_TITLE));
+            oldTag.put(Tag.TAG_REFERENCE_COUNT, oldTag.optInt(Tag.TAG_REFERENCE_COUNT) - 1);
+            if (oldPublished) {
+                oldTag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt - 1);
             }
+            changedTags.put(tagId, oldTag);
+            droppedTagIds.add(tagId);
         }
 
-        LOGGER.log(Level.DEBUG, "Tags unchanged[{0}]", tagsUnchanged);
-        for (final JSONObject tagUnchanged : tagsUnchanged) {
-            final String tagId = tagUnchanged.optString(Keys.OBJECT_ID);
+        final List<JSONObject> addedTags = new ArrayList<>();
+        final Map<String, JSONObject> existingTags = tagRepository.getByTitles(addedTitles);
+        for (final String tagTitle : addedTitles) {
+            JSONObject tag = existingTags.get(tagTitle);
+            if (null == tag) {
+                LOGGER.log(Level.TRACE, "Found a new tag[title={0}] in article[id={1}]", tagTitle, articleId);
+                tag = new JSONObject();
+                tag.put(Tag.TAG_TITLE, tagTitle);
+                tag.put(Tag.TAG_REFERENCE_COUNT, 1);
+                tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, newPublished ? 1 : 0);
+                tag.put(Keys.OBJECT_ID, tagRepository.add(tag));
+                addedTags.add(tag);
 
-            if (null == tagId) {
-                continue; // Unchanged tag always exist id
+                continue;
             }
-            final int publishedRefCnt = tagUnchanged.getInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT);
 
-            if (oldArticle.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
-                if (!newArticle.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
-                    tagUnchanged.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt - 1);
-                    tagRepository.update(tagId, tagUnchanged);
-                }
-            } else {
-                if (newArticle.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
-                    tagUnchanged.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt + 1);
-                    tagRepository.update(tagId, tagUnchanged);
-                }
+            final String tagId = tag.optString(Keys.OBJECT_ID);
+            tag = changedTags.getOrDefault(tagId, tag); // May be dropped by a title in another case
+            LOGGER.log(Level.TRACE, "Found a existing tag[title={0}, id={1}] in article[id={2}]",
+                    tag.optString(Tag.TAG_TITLE), tagId, articleId);
+            tag.put(Tag.TAG_REFERENCE_COUNT, tag.optInt(Tag.TAG_REFERENCE_COUNT) + 1);
+            if (newPublished) {
+                tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, tag.optInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT) + 1);
             }
+            changedTags.put(tagId, tag);
+            addedTags.add(tag);
         }
 
-        for (final JSONObject tagDropped : tagsDropped) {
-            final String tagId = tagDropped.getString(Keys.OBJECT_ID);
-            final int refCnt = tagDropped.getInt(Tag.TAG_REFERENCE_COUNT);
-
-            tagDropped.put(Tag.TAG_REFERENCE_COUNT, refCnt - 1);
-            final int publishedRefCnt = tagDropped.getInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT);
-
-            if (oldArticle.getBoolean(Article.ARTICLE_IS_PUBLISHED)) {
-                tagDropped.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt - 1);
-            }
-
-            tagRepository.update(tagId, tagDropped);
+        for (final Map.Entry<String, JSONObject> changedTag : changedTags.entrySet()) {
+            tagRepository.update(changedTag.getKey(), changedTag.getValue());
         }
 
-        final String[] tagIdsDropped = new String[tagsDropped.size()];
-
-        for (int i = 0; i < tagIdsDropped.length; i++) {
-            final JSONObject tag = tagsDropped.get(i);
-            final String id = tag.getString(Keys.OBJECT_ID);
-
-            tagIdsDropped[i] = id;
+        if (!droppedTagIds.isEmpty()) {
+            removeTagArticleRelations(articleId, droppedTagIds.toArray(new String[0]));
         }
+        addTagArticleRelation(addedTags, articleId);
 
-        removeTagArticleRelations(oldArticleId, 0 == tagIdsDropped.length ? new String[]{"l0y0l"} : tagIdsDropped);
-
-        tagStrings = new String[tagsNeedToAdd.size()];
-        for (int i = 0; i < tagStrings.length; i++) {
-            final JSONObject tag = tagsNeedToAdd.get(i);
-            final String tagTitle = tag.getString(Tag.TAG_TITLE);
-
-            tagStrings[i] = tagTitle;
-        }
-        final JSONArray tags = tag(tagStrings, newArticle);
-
-        addTagArticleRelation(tags, newArticle);
+        LOGGER.log(Level.DEBUG, "Retagged article[id={0}, changedTags={1}, droppedTags={2}, addedTags={3}]",
+                articleId, changedTags.size(), droppedTagIds.size(), addedTags.size());
     }
 
     /**
@@ -895,78 +770,21 @@ public class ArticleMgmtService {
     /**
      * Adds relation of the specified tags and article.
      *
-     * @param tags    the specified tags
-     * @param article the specified article
+     * @param tags      the specified tags
+     * @param articleId the specified article id
      * @throws RepositoryException repository exception
      */
-    private void addTagArticleRelation(final JSONArray tags, final JSONObject article) throws RepositoryException {
-        for (int i = 0; i < tags.length(); i++) {
-            final JSONObject tag = tags.optJSONObject(i);
+    private void addTagArticleRelation(final List<JSONObject> tags, final String articleId) throws RepositoryException {
+        for (final JSONObject tag : tags) {
             final JSONObject tagArticleRelation = new JSONObject();
 
             tagArticleRelation.put(Tag.TAG + "_" + Keys.OBJECT_ID, tag.optString(Keys.OBJECT_ID));
-            tagArticleRelation.put(Article.ARTICLE + "_" + Keys.OBJECT_ID, article.optString(Keys.OBJECT_ID));
+            tagArticleRelation.put(Article.ARTICLE + "_" + Keys.OBJECT_ID, articleId);
 
             tagArticleRepository.add(tagArticleRelation);
         }
     }
 
-    /**
-     * Tags the specified article with the specified tag titles.
-     *
-     * @param tagTitles the specified tag titles
-     * @param article   the specified article
-     * @return an array of tags
-     * @throws RepositoryException repository exception
-     */
-    private JSONArray tag(final String[] tagTitles, final JSONObject article) throws RepositoryException {
-        final JSONArray ret = new JSONArray();
-
-        for (int i = 0; i < tagTitles.length; i++) {
-            final String tagTitle = tagTitles[i].trim();
-            JSONObject tag = tagRepository.getByTitle(tagTitle);
-            String tagId;
-
-            if (null == tag) {
-                LOGGER.log(Level.TRACE, "Found a new tag[title={0}] in article[title={1}]",
-                        tagTitle, article.optString(Article.ARTICLE_TITLE));
-                tag = new JSONObject();
-                tag.put(Tag.TAG_TITLE, tagTitle);
-                tag.put(Tag.TAG_REFERENCE_COUNT, 1);
-                if (article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) { // Publish article directly
-                    tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, 1);
-                } else { // Save as draft
-                    tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, 0);
-                }
-
-                tagId = tagRepository.add(tag);
-                tag.put(Keys.OBJECT_ID, tagId);
-            } else {
-                tagId = tag.optString(Keys.OBJECT_ID);
-                LOGGER.log(Level.TRACE, "Found a existing tag[title={0}, id={1}] in article[title={2}]",
-                        tag.optString(Tag.TAG_TITLE), tag.optString(Keys.OBJECT_ID), article.optString(Article.ARTICLE_TITLE));
-                final JSONObject tagTmp = new JSONObject();
-
-                tagTmp.put(Keys.OBJECT_ID, tagId);
-                tagTmp.put(Tag.TAG_TITLE, tagTitle);
-                final int refCnt = tag.optInt(Tag.TAG_REFERENCE_COUNT);
-                final int publishedRefCnt = tag.optInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT);
-
-                tagTmp.put(Tag.TAG_REFERENCE_COUNT, refCnt + 1);
-                if (article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
-                    tagTmp.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt + 1);
-                } else {
-                    tagTmp.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, publishedRefCnt);
-                }
-                tagRepository.update(tagId, tagTmp);
-            }
-
-            ret.put(tag);
-        }
-
-        return ret;
-    }
-
     /**
      * Removes article comments by the specified article id.
      * <p>
@@ -978,18 +796,11 @@ public class ArticleMgmtService {
      */
     private void removeArticleComments(final String articleId) throws Exception {
         final int removedCnt = commentRepository.removeComments(articleId);
-        int blogCommentCount = statisticQueryService.getBlogCommentCount();
-
-        blogCommentCount -= removedCnt;
-        statisticMgmtService.setBlogCommentCount(blogCommentCount);
+        statisticMgmtService.addBlogCommentCount(-removedCnt);
 
         final JSONObject article = articleRepository.get(articleId);
-
         if (article.optBoolean(Article.ARTICLE_IS_PUBLISHED)) {
-            int publishedBlogCommentCount = statisticQueryService.getPublishedBlogCommentCount();
-
-            publishedBlogCommentCount -= removedCnt;
-            statisticMgmtService.setPublishedBlogCommentCount(publishedBlogCommentCount);
+            statisticMgmtService.addPublishedBlogCommentCount(-removedCnt);
         }
     }
 
@@ -1042,10 +853,6 @@ public class ArticleMgmtService {
      * Some properties of an article are not been changed while article
      * updating, these properties are called 'auto' properties.
      * </p>
-     * <p>
-     * The property(named {@value org.b3log.solo.model.Article#ARTICLE_RANDOM_DOUBLE}) of the specified
-     * article will be regenerated.
-     * </p>
      *
      * @param oldArticle the specified old article
      * @param article    the specified article
@@ -1059,7 +866,7 @@ public class ArticleMgmtService {
         article.put(ARTICLE_PUT_TOP, oldArticle.getBoolean(ARTICLE_PUT_TOP));
         article.put(ARTICLE_HAD_BEEN_PUBLISHED, oldArticle.getBoolean(ARTICLE_HAD_BEEN_PUBLISHED));
         article.put(ARTICLE_AUTHOR_ID, oldArticle.getString(ARTICLE_AUTHOR_ID));
-        article.put(ARTICLE_RANDOM_DOUBLE, Math.random());
+        article.put(ARTICLE_RANDOM_DOUBLE, oldArticle.optDouble(ARTICLE_RANDOM_DOUBLE));
     }
 
     /**
@@ -19,6 +19,7 @@ package org.b3log.solo.service;
 
 import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Keys;
+import org.b3log.latke.Latkes;
 import org.b3log.latke.ioc.Inject;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
@@ -32,6 +33,7 @@ import org.b3log.latke.service.annotation.Service;
 import org.b3log.latke.util.CollectionUtils;
 import org.b3log.latke.util.Paginator;
 import org.b3log.latke.util.Stopwatchs;
+import org.b3log.solo.cache.UserCache;
 import org.b3log.solo.model.*;
 import org.b3log.solo.repository.*;
 import org.b3log.solo.util.Emotions;
@@ -43,6 +45,11 @@ import org.json.JSONObject;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.b3log.solo.model.Article.*;
 
@@ -53,7 +60,7 @@ import static org.b3log.solo.model.Article.*;
  * @author <a href="http://blog.sweelia.com">ArmstrongCN</a>
  * @author <a href="http://zephyr.b3log.org">Zephyr</a>
  * @author <a href="http://vanessa.b3log.org">Liyuan Li</a>
- * @version 1.3.2.7, Nov 6, 2018
+ * @version 1.3.5.2, Nov 21, 2018
  * @since 0.3.5
  */
 @Service
@@ -64,6 +71,16 @@ public class ArticleQueryService {
      */
     private static final Logger LOGGER = Logger.getLogger(ArticleQueryService.class);
 
+    /**
+     * Markdown rendering pool of article lists.
+     */
+    private static final ForkJoinPool MARKDOWN_POOL = new ForkJoinPool(Math.min(8, Math.max(2, Runtime.getRuntime().availableProcessors())));
+
+    /**
+     * Default markdown rendering timeout of an article in an article list in milliseconds.
+     */
+    private static final long DEFAULT_MARKDOWN_TIMEOUT = Markdowns.MD_TIMEOUT;
+
     /**
      * User repository.
      */
@@ -76,6 +93,12 @@ public class ArticleQueryService {
     @Inject
     private ArticleRepository articleRepository;
 
+    /**
+     * User cache.
+     */
+    @Inject
+    private UserCache userCache;
+
     /**
      * Category-Tag repository.
      */
@@ -334,6 +357,93 @@ public class ArticleQueryService {
         }
     }
 
+    /**
+     * Gets author cards of the specified articles.
+     * <p>
+     * Distinct authors not in the user cache are fetched in one query, an author card holds the user id, name, role
+     * and the resolved avatar URL (Gravatar if the user has no avatar), and it is memoized in the user cache. The
+     * administrator's card is used for an author which has been removed.
+     * </p>
+     *
+     * @param articles the specified articles
+     * @return author cards, &lt;authorId, card&gt;, for example,
+     * <pre>
+     * {
+     *     "oId": "",
+     *     "userName": "",
+     *     "userRole": "",
+     *     "userAvatar": ""
+     * }
+     * </pre>
+     * @throws ServiceException service exception
+     */
+    public Map<String, JSONObject> getAuthors(final List<JSONObject> articles) throws ServiceException {
+        final Map<String, JSONObject> ret = new HashMap<>();
+        final Set<String> missIds = new HashSet<>();
+        for (final JSONObject article : articles) {
+            final String authorId = article.optString(ARTICLE_AUTHOR_ID);
+            if (ret.containsKey(authorId) || missIds.contains(authorId)) {
+                continue;
+            }
+
+            final JSONObject card = userCache.getAuthorCard(authorId);
+            if (null != card) {
+                ret.put(authorId, card);
+            } else {
+                missIds.add(authorId);
+            }
+        }
+
+        if (missIds.isEmpty()) {
+            return ret;
+        }
+
+        try {
+            final List<JSONObject> users = userRepository.getByIds(missIds);
+            for (final JSONObject user : users) {
+                final JSONObject card = toAuthorCard(user);
+                userCache.putAuthorCard(card);
+                ret.put(card.optString(Keys.OBJECT_ID), card);
+                missIds.remove(card.optString(Keys.OBJECT_ID));
+            }
+
+            if (!missIds.isEmpty()) {
+                LOGGER.log(Level.WARN, "Gets authors of articles failed, assumes the administrator is the author of these articles [authorIds={0}]", missIds);
+                // These authors may be deleted by admin, use admin as the author of their articles
+                final JSONObject adminCard = toAuthorCard(userRepository.getAdmin());
+                for (final String missId : missIds) {
+                    ret.put(missId, adminCard);
+                }
+            }
+
+            return ret;
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Gets authors of articles failed", e);
+
+            throw new ServiceException(e);
+        }
+    }
+
+    /**
+     * Builds an author card of the specified user.
+     *
+     * @param user the specified user
+     * @return author card
+     */
+    private static JSONObject toAuthorCard(final JSONObject user) {
+        final JSONObject ret = new JSONObject();
+        ret.put(Keys.OBJECT_ID, user.optString(Keys.OBJECT_ID));
+        ret.put(User.USER_NAME, user.optString(User.USER_NAME));
+        ret.put(User.USER_ROLE, user.optString(User.USER_ROLE));
+        String avatar = user.optString(UserExt.USER_AVATAR);
+        if (StringUtils.isBlank(avatar)) {
+            avatar = Solos.getGravatarURL(user.optString(User.USER_EMAIL), "128");
+        }
+        ret.put(UserExt.USER_AVATAR, avatar);
+
+        return ret;
+    }
+
     /**
      * Gets the sign of an article specified by the sign id.
      *
@@ -587,9 +697,10 @@ public class ArticleQueryService {
             JSONArray excludes = requestJSONObject.optJSONArray(Keys.EXCLUDES);
             excludes = null == excludes ? new JSONArray() : excludes;
 
+            final Map<String, JSONObject> authors = getAuthors(CollectionUtils.jsonArrayToList(articles));
             for (int i = 0; i < articles.length(); i++) {
                 final JSONObject article = articles.getJSONObject(i);
-                final JSONObject author = getAuthor(article);
+                final JSONObject author = authors.get(article.optString(ARTICLE_AUTHOR_ID));
                 final String authorName = author.getString(User.USER_NAME);
                 article.put(Common.AUTHOR_NAME, authorName);
                 article.put(ARTICLE_CREATE_TIME, article.getLong(ARTICLE_CREATED));
@@ -774,6 +885,12 @@ public class ArticleQueryService {
 
                 final int relationSize = displayCnt < tagArticleRelations.length() ? displayCnt : tagArticleRelations.length();
 
+                final List<String> relatedArticleIds = new ArrayList<>();
+                for (int j = 0; j < relationSize; j++) {
+                    relatedArticleIds.add(tagArticleRelations.getJSONObject(j).getString(Article.ARTICLE + "_" + Keys.OBJECT_ID));
+                }
+                RequestLoader.defer(articleRepository.getName(), relatedArticleIds);
+
                 for (int j = 0; j < relationSize; j++) {
                     final JSONObject tagArticleRelation = tagArticleRelations.getJSONObject(j);
                     final String relatedArticleId = tagArticleRelation.getString(Article.ARTICLE + "_" + Keys.OBJECT_ID);
@@ -1008,14 +1125,89 @@ public class ArticleQueryService {
 
     /**
      * Converts the content and abstract for each of the specified articles to HTML if that is saved by Markdown editor.
+     * <p>
+     * Articles are rendered in parallel with the markdown pool, the order of the specified articles is kept. Each
+     * article is waited for at most "markdownListTimeout" (latke.properties) milliseconds, which is not shorter than
+     * the timeout of a single rendering. An article timed out or failed to render gets the "content render failed"
+     * label, same as {@link Markdowns#toHTML(String)} does.
+     * </p>
      *
      * @param articles the specified articles
      * @throws Exception exception
      */
     public void markdowns(final List<JSONObject> articles) throws Exception {
+        final List<JSONObject> markdownArticles = new ArrayList<>();
         for (final JSONObject article : articles) {
-            markdown(article);
+            if ("CodeMirror-Markdown".equals(article.optString(ARTICLE_EDITOR_TYPE))) {
+                markdownArticles.add(article);
+            }
+        }
+
+        if (2 > markdownArticles.size()) {
+            for (final JSONObject article : markdownArticles) {
+                markdown(article);
+            }
+
+            return;
+        }
+
+        Stopwatchs.start("Markdown Articles [size=" + markdownArticles.size() + "]");
+        try {
+            final List<Future<String[]>> futures = new ArrayList<>(markdownArticles.size());
+            for (final JSONObject article : markdownArticles) {
+                final String content = article.optString(ARTICLE_CONTENT);
+                final String abstractContent = article.optString(ARTICLE_ABSTRACT);
+                futures.add(MARKDOWN_POOL.submit(() -> {
+                    try {
+                        return new String[]{toHTML(content), StringUtils.isNotBlank(abstractContent) ? toHTML(abstractContent) : null};
+                    } finally {
+                        Stopwatchs.release();
+                    }
+                }));
+            }
+
+            final long timeout = getMarkdownTimeout();
+            for (int i = 0; i < markdownArticles.size(); i++) {
+                final JSONObject article = markdownArticles.get(i);
+                String[] htmls;
+                try {
+                    htmls = futures.get(i).get(timeout, TimeUnit.MILLISECONDS);
+                } catch (final TimeoutException | ExecutionException e) {
+                    LOGGER.log(Level.ERROR, "Markdown article [id=" + article.optString(Keys.OBJECT_ID) + "] failed", e);
+                    final String failed = langPropsService.get("contentRenderFailedLabel");
+                    htmls = new String[]{failed, failed};
+                }
+
+                article.put(ARTICLE_CONTENT, htmls[0]);
+                if (StringUtils.isNotBlank(article.optString(ARTICLE_ABSTRACT))) {
+                    article.put(ARTICLE_ABSTRACT, htmls[1]);
+                }
+            }
+        } finally {
+            Stopwatchs.end();
+        }
+    }
+
+    /**
+     * Gets the markdown rendering timeout of an article in an article list, configured by "markdownListTimeout" in
+     * latke.properties, not shorter than {@link Markdowns#MD_TIMEOUT}.
+     *
+     * @return timeout in milliseconds
+     */
+    private static long getMarkdownTimeout() {
+        final String timeoutConf = Latkes.getLatkeProperty("markdownListTimeout");
+        if (StringUtils.isNumeric(timeoutConf) && StringUtils.isNotBlank(timeoutConf)) {
+            return Math.max(Long.parseLong(timeoutConf), Markdowns.MD_TIMEOUT);
         }
+
+        return DEFAULT_MARKDOWN_TIMEOUT;
+    }
+
+    /**
+     * Shuts down the markdown pool.
+     */
+    public void shutdown() {
+        MARKDOWN_POOL.shutdownNow();
     }
 
     /**
@@ -1029,19 +1221,14 @@ public class ArticleQueryService {
             Stopwatchs.start("Markdown Article[id=" + article.optString(Keys.OBJECT_ID) + "]");
 
             Stopwatchs.start("Content");
-            String content = article.optString(ARTICLE_CONTENT);
-            content = Emotions.convert(content);
-            content = Markdowns.toHTML(content);
-            article.put(ARTICLE_CONTENT, content);
+            article.put(ARTICLE_CONTENT, toHTML(article.optString(ARTICLE_CONTENT)));
             Stopwatchs.end();
 
-            String abstractContent = article.optString(ARTICLE_ABSTRACT);
+            final String abstractContent = article.optString(ARTICLE_ABSTRACT);
 
             if (StringUtils.isNotBlank(abstractContent)) {
                 Stopwatchs.start("Abstract");
-                abstractContent = Emotions.convert(abstractContent);
-                abstractContent = Markdowns.toHTML(abstractContent);
-                article.put(ARTICLE_ABSTRACT, abstractContent);
+                article.put(ARTICLE_ABSTRACT, toHTML(abstractContent));
                 Stopwatchs.end();
             }
 
@@ -1049,6 +1236,16 @@ public class ArticleQueryService {
         }
     }
 
+    /**
+     * Converts the specified markdown text with emotions to HTML.
+     *
+     * @param markdownText the specified markdown text
+     * @return HTML
+     */
+    private static String toHTML(final String markdownText) {
+        return Markdowns.toHTML(Emotions.convert(markdownText));
+    }
+
     /**
      * Removes unused properties of each article in the specified articles.
      * <p>
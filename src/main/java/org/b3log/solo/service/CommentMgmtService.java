@@ -17,18 +17,15 @@
  */
 package org.b3log.solo.service;
 
-import jodd.http.HttpRequest;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.time.DateFormatUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.event.Event;
-import org.b3log.latke.event.EventManager;
 import org.b3log.latke.ioc.Inject;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.mail.MailService;
-import org.b3log.latke.mail.MailServiceFactory;
 import org.b3log.latke.repository.RepositoryException;
 import org.b3log.latke.repository.Transaction;
 import org.b3log.latke.service.LangPropsService;
@@ -36,6 +33,8 @@ import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.service.annotation.Service;
 import org.b3log.latke.util.Ids;
 import org.b3log.latke.util.Strings;
+import org.b3log.solo.cache.CommentCache;
+import org.b3log.solo.event.EventDispatcher;
 import org.b3log.solo.event.EventTypes;
 import org.b3log.solo.model.*;
 import org.b3log.solo.repository.ArticleRepository;
@@ -43,22 +42,18 @@ import org.b3log.solo.repository.CommentRepository;
 import org.b3log.solo.repository.PageRepository;
 import org.b3log.solo.repository.UserRepository;
 import org.b3log.solo.util.Emotions;
-import org.b3log.solo.util.Markdowns;
+import org.b3log.solo.util.GravatarResolver;
 import org.b3log.solo.util.Solos;
 import org.json.JSONException;
 import org.json.JSONObject;
-import org.jsoup.Jsoup;
-import org.jsoup.safety.Whitelist;
 
-import javax.servlet.http.HttpServletResponse;
-import java.net.URL;
 import java.util.Date;
 
 /**
  * Comment management service.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.3.3.3, Oct 7, 2018
+ * @version 1.4.4.4, Nov 21, 2018
  * @since 0.3.5
  */
 @Service
@@ -80,6 +75,12 @@ public class CommentMgmtService {
      */
     private static final String DEFAULT_USER_THUMBNAIL = "default-user-thumbnail.png";
 
+    /**
+     * Gravatar resolver, remembers existing avatars for a day and missing ones for 10 minutes.
+     */
+    private static final GravatarResolver GRAVATAR_RESOLVER =
+            new GravatarResolver(Solos.GRAVATAR, 24 * 60 * 60 * 1000, 10 * 60 * 1000, 4096);
+
     /**
      * Minimum length of comment name.
      */
@@ -101,10 +102,10 @@ public class CommentMgmtService {
     private static final int MAX_COMMENT_CONTENT_LENGTH = 500;
 
     /**
-     * Event manager.
+     * Event dispatcher.
      */
     @Inject
-    private static EventManager eventManager;
+    private static EventDispatcher eventDispatcher;
 
     /**
      * Article management service.
@@ -118,6 +119,18 @@ public class CommentMgmtService {
     @Inject
     private CommentRepository commentRepository;
 
+    /**
+     * Comment query service.
+     */
+    @Inject
+    private CommentQueryService commentQueryService;
+
+    /**
+     * Comment cache.
+     */
+    @Inject
+    private CommentCache commentCache;
+
     /**
      * Article repository.
      */
@@ -155,13 +168,17 @@ public class CommentMgmtService {
     private LangPropsService langPropsService;
 
     /**
-     * Mail service.
+     * Mail management service.
      */
-    private MailService mailService = MailServiceFactory.getMailService();
+    @Inject
+    private MailMgmtService mailMgmtService;
 
     /**
      * Sends a notification mail to administrator for notifying the specified article or page received the specified
      * comment and original comment.
+     * <p>
+     * The mail is queued in the current transaction and sent by {@link MailMgmtService} in background.
+     * </p>
      *
      * @param articleOrPage   the specified article or page
      * @param comment         the specified comment
@@ -245,10 +262,10 @@ public class CommentMgmtService {
                 "{commenter}", commenter);
         message.setHtmlBody(mailBody);
 
-        LOGGER.log(Level.DEBUG, "Sending a mail[mailSubject={0}, mailBody=[{1}] to admin[email={2}]",
+        LOGGER.log(Level.DEBUG, "Queuing a mail[mailSubject={0}, mailBody=[{1}] to admin[email={2}]",
                 mailSubject, mailBody, adminEmail);
 
-        mailService.send(message);
+        mailMgmtService.queue("comment_" + commentId, message);
     }
 
     /**
@@ -454,12 +471,13 @@ public class CommentMgmtService {
             // Save comment sharp URL
             final String commentSharpURL = Comment.getCommentSharpURLForPage(page, commentId);
             ret.put(Comment.COMMENT_NAME, commentName);
-            ret.put(Comment.COMMENT_CONTENT, commentContent);
             ret.put(Comment.COMMENT_URL, commentURL);
 
             ret.put(Comment.COMMENT_SHARP_URL, commentSharpURL);
             comment.put(Comment.COMMENT_SHARP_URL, commentSharpURL);
             comment.put(Keys.OBJECT_ID, commentId);
+            // Renders the content once, later views of the page reuse it
+            ret.put(Comment.COMMENT_CONTENT, commentQueryService.getCommentContentHTML(comment));
             commentRepository.add(comment);
             // Step 2: Update page comment count
             incPageCommentCount(pageId);
@@ -477,13 +495,13 @@ public class CommentMgmtService {
 
             eventData.put(Comment.COMMENT, comment);
             eventData.put(Page.PAGE, page);
-            eventManager.fireEventSynchronously(new Event<>(EventTypes.ADD_COMMENT_TO_PAGE, eventData));
+            eventDispatcher.fire(new Event<>(EventTypes.ADD_COMMENT_TO_PAGE, eventData), pageId);
 
-            transaction.commit();
+            statisticMgmtService.commit(transaction);
+            // Drops the comment list again, a concurrent view may have cached it before the commit
+            commentCache.removeOnComments(pageId);
         } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            statisticMgmtService.rollback(transaction);
 
             throw new ServiceException(e);
         }
@@ -564,10 +582,6 @@ public class CommentMgmtService {
             ret.put(Common.PERMALINK, article.getString(Article.ARTICLE_PERMALINK));
 
             ret.put(Comment.COMMENT_NAME, commentName);
-            String cmtContent = Emotions.convert(commentContent);
-            cmtContent = Markdowns.toHTML(cmtContent);
-            cmtContent = Jsoup.clean(cmtContent, Whitelist.relaxed());
-            ret.put(Comment.COMMENT_CONTENT, cmtContent);
             ret.put(Comment.COMMENT_URL, commentURL);
 
             if (StringUtils.isNotBlank(originalCommentId)) {
@@ -597,6 +611,8 @@ public class CommentMgmtService {
             final String commentSharpURL = Comment.getCommentSharpURLForArticle(article, commentId);
             comment.put(Comment.COMMENT_SHARP_URL, commentSharpURL);
             ret.put(Comment.COMMENT_SHARP_URL, commentSharpURL);
+            // Renders the content once, later views of the article reuse it
+            ret.put(Comment.COMMENT_CONTENT, commentQueryService.getCommentContentHTML(comment));
 
             commentRepository.add(comment);
             // Step 2: Update article comment count
@@ -615,13 +631,13 @@ public class CommentMgmtService {
 
             eventData.put(Comment.COMMENT, comment);
             eventData.put(Article.ARTICLE, article);
-            eventManager.fireEventSynchronously(new Event<>(EventTypes.ADD_COMMENT_TO_ARTICLE, eventData));
+            eventDispatcher.fire(new Event<>(EventTypes.ADD_COMMENT_TO_ARTICLE, eventData), articleId);
 
-            transaction.commit();
+            statisticMgmtService.commit(transaction);
+            // Drops the comment list again, a concurrent view may have cached it before the commit
+            commentCache.removeOnComments(articleId);
         } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            statisticMgmtService.rollback(transaction);
 
             throw new ServiceException(e);
         }
@@ -650,11 +666,11 @@ public class CommentMgmtService {
             statisticMgmtService.decBlogCommentCount();
             statisticMgmtService.decPublishedBlogCommentCount();
 
-            transaction.commit();
+            statisticMgmtService.commit(transaction);
+            // Drops the comment list again, a concurrent view may have cached it before the commit
+            commentCache.removeOnComments(pageId);
         } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            statisticMgmtService.rollback(transaction);
 
             LOGGER.log(Level.ERROR, "Removes a comment of a page failed", e);
             throw new ServiceException(e);
@@ -683,11 +699,11 @@ public class CommentMgmtService {
             statisticMgmtService.decBlogCommentCount();
             statisticMgmtService.decPublishedBlogCommentCount();
 
-            transaction.commit();
+            statisticMgmtService.commit(transaction);
+            // Drops the comment list again, a concurrent view may have cached it before the commit
+            commentCache.removeOnComments(articleId);
         } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            statisticMgmtService.rollback(transaction);
 
             LOGGER.log(Level.ERROR, "Removes a comment of an article failed", e);
             throw new ServiceException(e);
@@ -752,7 +768,7 @@ public class CommentMgmtService {
      * Try to set thumbnail URL using:
      * <ol>
      * <li>User avatar</li>
-     * <li>Gravatar service</li>
+     * <li>Gravatar service, falls back to the default thumbnail through Gravatar until the avatar has been verified in background</li>
      * <ol>
      * </p>
      *
@@ -773,21 +789,9 @@ public class CommentMgmtService {
             }
         }
 
-        // 2. Gravatar
-        String thumbnailURL = Solos.getGravatarURL(commentEmail.toLowerCase(), "128");
-        final URL gravatarURL = new URL(thumbnailURL);
-
-        int statusCode = HttpServletResponse.SC_OK;
-        try {
-            statusCode = HttpRequest.get(thumbnailURL).header("User-Agent", Solos.USER_AGENT).send().statusCode();
-        } catch (final Exception e) {
-            LOGGER.log(Level.DEBUG, "Can not fetch thumbnail from Gravatar [commentEmail={0}]", commentEmail);
-        } finally {
-            if (HttpServletResponse.SC_OK != statusCode) {
-                thumbnailURL = Latkes.getStaticServePath() + "/images/" + DEFAULT_USER_THUMBNAIL;
-            }
-        }
-
+        // 2. Gravatar, verified in background so a slow Gravatar never stalls commenting
+        final String defaultThumbnailURL = Latkes.getStaticServePath() + "/images/" + DEFAULT_USER_THUMBNAIL;
+        final String thumbnailURL = GRAVATAR_RESOLVER.getAvatarURL(commentEmail, "128", defaultThumbnailURL);
         comment.put(Comment.COMMENT_THUMBNAIL_URL, thumbnailURL);
     }
 
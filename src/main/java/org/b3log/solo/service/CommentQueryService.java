@@ -30,6 +30,7 @@ import org.b3log.latke.repository.SortDirection;
 import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.service.annotation.Service;
 import org.b3log.latke.util.Paginator;
+import org.b3log.solo.cache.CommentCache;
 import org.b3log.solo.model.Article;
 import org.b3log.solo.model.Comment;
 import org.b3log.solo.model.Common;
@@ -53,7 +54,7 @@ import java.util.List;
  * Comment query service.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.3.2.3, Oct 7, 2018
+ * @version 1.4.0.0, Nov 21, 2018
  * @since 0.3.5
  */
 @Service
@@ -82,6 +83,12 @@ public class CommentQueryService {
     @Inject
     private ArticleRepository articleRepository;
 
+    /**
+     * Comment cache.
+     */
+    @Inject
+    private CommentCache commentCache;
+
     /**
      * Page repository.
      */
@@ -192,12 +199,7 @@ public class CommentQueryService {
                 }
 
                 comment.put(Common.COMMENT_TITLE, title);
-
-                String commentContent = comment.optString(Comment.COMMENT_CONTENT);
-                commentContent = Emotions.convert(commentContent);
-                commentContent = Markdowns.toHTML(commentContent);
-                commentContent = Jsoup.clean(commentContent, Whitelist.relaxed());
-                comment.put(Comment.COMMENT_CONTENT, commentContent);
+                comment.put(Comment.COMMENT_CONTENT, getCommentContentHTML(comment));
 
                 String commentName = comment.optString(Comment.COMMENT_NAME);
                 commentName = Jsoup.clean(commentName, Whitelist.none());
@@ -227,14 +229,22 @@ public class CommentQueryService {
 
     /**
      * Gets comments of an article or page specified by the on id.
+     * <p>
+     * The rendered list is cached until a comment of the article or page is added, updated or removed.
+     * </p>
      *
      * @param onId the specified on id
      * @return a list of comments, returns an empty list if not found
      * @throws ServiceException service exception
      */
     public List<JSONObject> getComments(final String onId) throws ServiceException {
+        List<JSONObject> ret = commentCache.getOnComments(onId);
+        if (null != ret) {
+            return ret;
+        }
+
         try {
-            final List<JSONObject> ret = new ArrayList<>();
+            ret = new ArrayList<>();
             final List<JSONObject> comments = commentRepository.getComments(onId, 1, Integer.MAX_VALUE);
             for (final JSONObject comment : comments) {
                 comment.put(Comment.COMMENT_TIME, comment.optLong(Comment.COMMENT_CREATED));
@@ -259,11 +269,7 @@ public class CommentQueryService {
                     comment.put(Common.IS_REPLY, true);
                 }
 
-                String commentContent = comment.optString(Comment.COMMENT_CONTENT);
-                commentContent = Emotions.convert(commentContent);
-                commentContent = Markdowns.toHTML(commentContent);
-                commentContent = Jsoup.clean(commentContent, Whitelist.relaxed());
-                comment.put(Comment.COMMENT_CONTENT, commentContent);
+                comment.put(Comment.COMMENT_CONTENT, getCommentContentHTML(comment));
 
                 String commentName = comment.optString(Comment.COMMENT_NAME);
                 commentName = Jsoup.clean(commentName, Whitelist.none());
@@ -272,6 +278,8 @@ public class CommentQueryService {
                 ret.add(comment);
             }
 
+            commentCache.putOnComments(onId, ret);
+
             return ret;
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, "Gets comments failed", e);
@@ -279,6 +287,33 @@ public class CommentQueryService {
         }
     }
 
+    /**
+     * Gets the sanitized content HTML of the specified comment.
+     * <p>
+     * The content is rendered (emotions, markdown and sanitizing) only once per comment, the result is held by the
+     * comment cache.
+     * </p>
+     *
+     * @param comment the specified comment, its content is the raw markdown
+     * @return content HTML
+     */
+    public String getCommentContentHTML(final JSONObject comment) {
+        final String commentId = comment.optString(Keys.OBJECT_ID);
+        String ret = commentCache.getContentHTML(commentId);
+        if (null != ret) {
+            return ret;
+        }
+
+        ret = Emotions.convert(comment.optString(Comment.COMMENT_CONTENT));
+        ret = Markdowns.toHTML(ret);
+        ret = Jsoup.clean(ret, Whitelist.relaxed());
+        if (StringUtils.isNotBlank(commentId)) {
+            commentCache.putContentHTML(commentId, ret);
+        }
+
+        return ret;
+    }
+
     /**
      * Sets the article repository with the specified article repository.
      *
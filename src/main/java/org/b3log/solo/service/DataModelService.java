@@ -23,7 +23,6 @@ import org.apache.commons.lang.time.DateFormatUtils;
 import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.event.Event;
-import org.b3log.latke.event.EventManager;
 import org.b3log.latke.ioc.Inject;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
@@ -38,10 +37,12 @@ import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.service.annotation.Service;
 import org.b3log.latke.util.*;
 import org.b3log.solo.SoloServletListener;
+import org.b3log.solo.event.EventDispatcher;
 import org.b3log.solo.model.*;
 import org.b3log.solo.repository.*;
 import org.b3log.solo.util.Emotions;
 import org.b3log.solo.util.Markdowns;
+import org.b3log.solo.util.Metrics;
 import org.b3log.solo.util.Skins;
 import org.b3log.solo.util.Solos;
 import org.json.JSONObject;
@@ -60,7 +61,7 @@ import static org.b3log.solo.model.Article.ARTICLE_CONTENT;
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
  * @author <a href="http://vanessa.b3log.org">Liyuan Li</a>
- * @version 1.6.16.12, Oct 15, 2018
+ * @version 1.6.20.0, Nov 21, 2018
  * @since 0.3.1
  */
 @Service
@@ -155,10 +156,10 @@ public class DataModelService {
     private UserQueryService userQueryService;
 
     /**
-     * Event manager.
+     * Event dispatcher.
      */
     @Inject
-    private EventManager eventManager;
+    private EventDispatcher eventDispatcher;
 
     /**
      * Language service.
@@ -557,6 +558,7 @@ public class DataModelService {
      */
     private void fillBlogFooter(final HttpServletRequest request, final HttpServletResponse response, final Map<String, Object> dataModel, final JSONObject preference)
             throws ServiceException {
+        final long start = System.nanoTime();
         Stopwatchs.start("Fill Footer");
         try {
             LOGGER.debug("Filling footer....");
@@ -594,7 +596,7 @@ public class DataModelService {
             final ViewLoadEventData data = new ViewLoadEventData();
             data.setViewName("footer.ftl");
             data.setDataModel(dataModel);
-            eventManager.fireEventSynchronously(new Event<>(Keys.FREEMARKER_ACTION, data));
+            eventDispatcher.fireSynchronously(new Event<>(Keys.FREEMARKER_ACTION, data));
             if (StringUtils.isBlank((String) dataModel.get(Plugin.PLUGINS))) {
                 // There is no plugin for this template, fill ${plugins} with blank.
                 dataModel.put(Plugin.PLUGINS, "");
@@ -605,6 +607,7 @@ public class DataModelService {
             throw new ServiceException(e);
         } finally {
             Stopwatchs.end();
+            Metrics.recordSection("Fill Footer", start);
         }
     }
 
@@ -619,6 +622,7 @@ public class DataModelService {
      */
     private void fillBlogHeader(final HttpServletRequest request, final HttpServletResponse response, final Map<String, Object> dataModel, final JSONObject preference)
             throws ServiceException {
+        final long start = System.nanoTime();
         Stopwatchs.start("Fill Header");
         try {
             LOGGER.debug("Filling header....");
@@ -668,6 +672,7 @@ public class DataModelService {
             throw new ServiceException(e);
         } finally {
             Stopwatchs.end();
+            Metrics.recordSection("Fill Header", start);
         }
     }
 
@@ -701,6 +706,7 @@ public class DataModelService {
      */
     private void fillSide(final HttpServletRequest request, final Map<String, Object> dataModel, final JSONObject preference)
             throws ServiceException {
+        final long start = System.nanoTime();
         Stopwatchs.start("Fill Side");
         try {
             LOGGER.debug("Filling side....");
@@ -740,6 +746,7 @@ public class DataModelService {
             throw new ServiceException(e);
         } finally {
             Stopwatchs.end();
+            Metrics.recordSection("Fill Side", start);
         }
     }
 
@@ -859,27 +866,21 @@ public class DataModelService {
      *
      * @param request    the specified HTTP servlet request
      * @param article    the specified article
+     * @param author     the specified author card of the article
      * @param preference the specified preference
      * @throws ServiceException service exception
      * @see #setArticlesExProperties(HttpServletRequest, List, JSONObject)
      */
-    private void setArticleExProperties(final HttpServletRequest request, final JSONObject article, final JSONObject preference) throws ServiceException {
+    private void setArticleExProperties(final HttpServletRequest request, final JSONObject article, final JSONObject author,
+                                        final JSONObject preference) throws ServiceException {
         try {
-            final JSONObject author = articleQueryService.getAuthor(article);
             final String authorName = author.getString(User.USER_NAME);
             article.put(Common.AUTHOR_NAME, authorName);
             final String authorId = author.getString(Keys.OBJECT_ID);
             article.put(Common.AUTHOR_ID, authorId);
             article.put(Article.ARTICLE_T_CREATE_DATE, new Date(article.optLong(Article.ARTICLE_CREATED)));
             article.put(Article.ARTICLE_T_UPDATE_DATE, new Date(article.optLong(Article.ARTICLE_UPDATED)));
-
-            final String userAvatar = author.optString(UserExt.USER_AVATAR);
-            if (StringUtils.isNotBlank(userAvatar)) {
-                article.put(Common.AUTHOR_THUMBNAIL_URL, userAvatar);
-            } else {
-                final String thumbnailURL = Solos.getGravatarURL(author.optString(User.USER_EMAIL), "128");
-                article.put(Common.AUTHOR_THUMBNAIL_URL, thumbnailURL);
-            }
+            article.put(Common.AUTHOR_THUMBNAIL_URL, author.optString(UserExt.USER_AVATAR));
 
             if (preference.getBoolean(Option.ID_C_ENABLE_ARTICLE_UPDATE_HINT)) {
                 article.put(Common.HAS_UPDATED, articleQueryService.hasUpdated(article));
@@ -893,8 +894,6 @@ public class DataModelService {
             }
 
             processArticleAbstract(preference, article);
-
-            articleQueryService.markdown(article);
         } catch (final Exception e) {
             LOGGER.log(Level.ERROR, "Sets article extra properties failed", e);
             throw new ServiceException(e);
@@ -904,7 +903,7 @@ public class DataModelService {
     /**
      * Sets some extra properties into the specified article with the specified preference.
      * <p>
-     * The batch version of method {@linkplain #setArticleExProperties(HttpServletRequest, JSONObject, JSONObject)}.
+     * The batch version of method {@linkplain #setArticleExProperties(HttpServletRequest, JSONObject, JSONObject, JSONObject)}.
      * </p>
      * <p>
      * Article ext properties:
@@ -922,12 +921,20 @@ public class DataModelService {
      * @param articles   the specified articles
      * @param preference the specified preference
      * @throws ServiceException service exception
-     * @see #setArticleExProperties(HttpServletRequest, JSONObject, JSONObject)
+     * @see #setArticleExProperties(HttpServletRequest, JSONObject, JSONObject, JSONObject)
      */
     public void setArticlesExProperties(final HttpServletRequest request, final List<JSONObject> articles, final JSONObject preference)
             throws ServiceException {
+        final Map<String, JSONObject> authors = articleQueryService.getAuthors(articles);
         for (final JSONObject article : articles) {
-            setArticleExProperties(request, article, preference);
+            setArticleExProperties(request, article, authors.get(article.optString(Article.ARTICLE_AUTHOR_ID)), preference);
+        }
+
+        try {
+            articleQueryService.markdowns(articles);
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Markdowns articles failed", e);
+            throw new ServiceException(e);
         }
     }
 
@@ -61,7 +61,7 @@ import java.util.Set;
  * Solo initialization service.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.5.2.25, Nov 9, 2018
+ * @version 1.5.4.3, Nov 21, 2018
  * @since 0.4.0
  */
 @Service
@@ -77,6 +77,18 @@ public class InitService {
      */
     private static final int MAX_RETRIES_CNT = 3;
 
+    /**
+     * Mail management service.
+     */
+    @Inject
+    private MailMgmtService mailMgmtService;
+
+    /**
+     * B3 sync management service.
+     */
+    @Inject
+    private SyncMgmtService syncMgmtService;
+
     /**
      * Option repository.
      */
@@ -271,11 +283,9 @@ public class InitService {
 
         try {
             helloWorld();
-            transaction.commit();
+            statisticMgmtService.commit(transaction);
         } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            statisticMgmtService.rollback(transaction);
 
             LOGGER.log(Level.ERROR, "Hello World error?!", e);
         }
@@ -287,6 +297,8 @@ public class InitService {
         }
 
         pluginManager.load();
+        mailMgmtService.start();
+        syncMgmtService.start();
     }
 
     /**
@@ -0,0 +1,304 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.service;
+
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.Keys;
+import org.b3log.latke.ioc.Inject;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.mail.MailService;
+import org.b3log.latke.mail.MailServiceFactory;
+import org.b3log.latke.repository.RepositoryException;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.service.ServiceException;
+import org.b3log.latke.service.annotation.Service;
+import org.b3log.solo.model.Mail;
+import org.b3log.solo.repository.MailRepository;
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Outbound mail management service.
+ * <p>
+ * Mails are queued into the mail table in the caller's transaction if there is one (the comment notifiers queue in the
+ * transaction adding the comment, so a notification is kept if and only if its comment is committed) and sent by a
+ * background dispatcher, a failed mail is retried with exponential backoff until {@link #MAX_RETRIES}. Mails are
+ * de-duplicated by key, so the same notification is never queued twice.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.2, Nov 21, 2018
+ * @since 2.9.7
+ */
+@Service
+public class MailMgmtService {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(MailMgmtService.class);
+
+    /**
+     * Max retries of a mail, gives up after it.
+     */
+    static final int MAX_RETRIES = 5;
+
+    /**
+     * Backoff base in milliseconds, the n-th retry waits base * 2^(n-1).
+     */
+    static final long RETRY_BACKOFF = 60 * 1000;
+
+    /**
+     * Dispatch period in milliseconds.
+     */
+    private static final long DISPATCH_PERIOD = 10 * 1000;
+
+    /**
+     * Delay of a dispatch woken by a queued mail in milliseconds, leaves the queuing transaction time to commit.
+     */
+    private static final long WAKE_DELAY = 1000;
+
+    /**
+     * Max mails sent in one dispatch.
+     */
+    private static final int DISPATCH_BATCH_SIZE = 32;
+
+    /**
+     * Keep time of sent and failed mails in milliseconds.
+     */
+    private static final long FINISHED_KEEP_TIME = 7L * 24 * 60 * 60 * 1000;
+
+    /**
+     * Mail repository.
+     */
+    @Inject
+    private MailRepository mailRepository;
+
+    /**
+     * Mail service.
+     */
+    private MailService mailService = MailServiceFactory.getMailService();
+
+    /**
+     * Whether a dispatch is running.
+     */
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+
+    /**
+     * Dispatcher.
+     */
+    private ScheduledExecutorService dispatcher;
+
+    /**
+     * Queues the specified message with the specified key, does nothing if a mail with the key has been queued.
+     *
+     * @param key     the specified key, for example "comment_1542785474713"
+     * @param message the specified message
+     * @throws ServiceException service exception
+     */
+    public void queue(final String key, final MailService.Message message) throws ServiceException {
+        final boolean outerTransaction = mailRepository.hasTransactionBegun();
+        final Transaction transaction = outerTransaction ? null : mailRepository.beginTransaction();
+        try {
+            if (null != mailRepository.getByKey(key)) {
+                LOGGER.log(Level.DEBUG, "Mail [key={0}] has been queued", key);
+                if (!outerTransaction) {
+                    transaction.commit();
+                }
+
+                return;
+            }
+
+            final long now = System.currentTimeMillis();
+            final JSONObject mail = new JSONObject();
+            mail.put(Mail.MAIL_KEY, key);
+            mail.put(Mail.MAIL_FROM, message.getFrom());
+            mail.put(Mail.MAIL_TO, StringUtils.join(message.getRecipients(), ","));
+            mail.put(Mail.MAIL_SUBJECT, StringUtils.substring(message.getSubject(), 0, 512));
+            mail.put(Mail.MAIL_BODY, message.getHtmlBody());
+            mail.put(Mail.MAIL_STATUS, Mail.MAIL_STATUS_C_PENDING);
+            mail.put(Mail.MAIL_RETRIES, 0);
+            mail.put(Mail.MAIL_NEXT_TIME, now);
+            mail.put(Mail.MAIL_CREATED, now);
+            mailRepository.add(mail);
+
+            if (!outerTransaction) {
+                transaction.commit();
+            }
+        } catch (final RepositoryException e) {
+            if (!outerTransaction && transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            LOGGER.log(Level.ERROR, "Queues mail [key=" + key + "] failed", e);
+
+            throw new ServiceException(e);
+        }
+
+        wake();
+    }
+
+    /**
+     * Sends the due pending mails, does nothing if another dispatch is running.
+     *
+     * @return count of sent mails
+     */
+    public int dispatch() {
+        if (!dispatching.compareAndSet(false, true)) {
+            return 0;
+        }
+
+        int ret = 0;
+        try {
+            final long now = System.currentTimeMillis();
+            final List<JSONObject> mails = mailRepository.getPendings(now, DISPATCH_BATCH_SIZE);
+            for (final JSONObject mail : mails) {
+                if (send(mail, now)) {
+                    ret++;
+                }
+            }
+
+            final List<JSONObject> finished = mailRepository.getFinished(now - FINISHED_KEEP_TIME, DISPATCH_BATCH_SIZE);
+            if (!finished.isEmpty()) {
+                final Transaction transaction = mailRepository.beginTransaction();
+                try {
+                    for (final JSONObject mail : finished) {
+                        mailRepository.remove(mail.optString(Keys.OBJECT_ID));
+                    }
+                    transaction.commit();
+                } catch (final RepositoryException e) {
+                    if (transaction.isActive()) {
+                        transaction.rollback();
+                    }
+
+                    throw e;
+                }
+            }
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Dispatches mails failed", e);
+        } finally {
+            dispatching.set(false);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Starts the dispatcher.
+     */
+    public synchronized void start() {
+        if (null != dispatcher) {
+            return;
+        }
+
+        dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread ret = new Thread(r, "mail-dispatcher");
+            ret.setDaemon(true);
+
+            return ret;
+        });
+        dispatcher.scheduleWithFixedDelay(this::dispatch, DISPATCH_PERIOD, DISPATCH_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the dispatcher.
+     */
+    public synchronized void stop() {
+        if (null == dispatcher) {
+            return;
+        }
+
+        dispatcher.shutdownNow();
+        dispatcher = null;
+    }
+
+    /**
+     * Sets the mail service with the specified mail service.
+     *
+     * @param mailService the specified mail service
+     */
+    public void setMailService(final MailService mailService) {
+        this.mailService = mailService;
+    }
+
+    /**
+     * Sends the specified mail and records the result.
+     *
+     * @param mail the specified mail
+     * @param now  the current time
+     * @return {@code true} if sent, returns {@code false} otherwise
+     * @throws RepositoryException repository exception
+     */
+    private boolean send(final JSONObject mail, final long now) throws RepositoryException {
+        final String id = mail.optString(Keys.OBJECT_ID);
+        boolean ret = false;
+        try {
+            final MailService.Message message = new MailService.Message();
+            message.setFrom(mail.optString(Mail.MAIL_FROM));
+            for (final String recipient : StringUtils.split(mail.optString(Mail.MAIL_TO), ',')) {
+                message.addRecipient(recipient);
+            }
+            message.setSubject(mail.optString(Mail.MAIL_SUBJECT));
+            message.setHtmlBody(mail.optString(Mail.MAIL_BODY));
+            mailService.send(message);
+            mail.put(Mail.MAIL_STATUS, Mail.MAIL_STATUS_C_SENT);
+            ret = true;
+        } catch (final Exception e) {
+            final int retries = mail.optInt(Mail.MAIL_RETRIES) + 1;
+            mail.put(Mail.MAIL_RETRIES, retries);
+            if (MAX_RETRIES <= retries) {
+                mail.put(Mail.MAIL_STATUS, Mail.MAIL_STATUS_C_FAILED);
+                LOGGER.log(Level.ERROR, "Sends mail [id=" + id + "] failed, gave up after [" + retries + "] retries", e);
+            } else {
+                mail.put(Mail.MAIL_NEXT_TIME, now + (RETRY_BACKOFF << (retries - 1)));
+                LOGGER.log(Level.WARN, "Sends mail [id=" + id + "] failed [" + e.getMessage() + "], retry [" + retries + "] later");
+            }
+        }
+
+        final Transaction transaction = mailRepository.beginTransaction();
+        try {
+            mailRepository.update(id, mail);
+            transaction.commit();
+        } catch (final RepositoryException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Wakes the dispatcher up to send the queued mails soon.
+     */
+    private synchronized void wake() {
+        if (null == dispatcher) {
+            return;
+        }
+
+        dispatcher.schedule(this::dispatch, WAKE_DELAY, TimeUnit.MILLISECONDS);
+    }
+}
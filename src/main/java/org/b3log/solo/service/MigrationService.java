@@ -0,0 +1,331 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.service;
+
+import org.b3log.latke.Keys;
+import org.b3log.latke.ioc.Inject;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.jdbc.util.Connections;
+import org.b3log.latke.service.ServiceException;
+import org.b3log.latke.service.annotation.Service;
+import org.b3log.solo.model.Option;
+import org.b3log.solo.repository.OptionRepository;
+import org.json.JSONObject;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Migration service, runs {@link AbstractMigration data migrations} in chunks with checkpoints.
+ * <p>
+ * Rows are read by id ascending chunks (keyset, "oId &gt; last id"), every chunk is migrated and its last id is
+ * checkpointed in the option table in one JDBC transaction. A migration with a checkpoint is unfinished, it resumes
+ * from the checkpoint and its checkpoint is removed once it finishes.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@Service
+public class MigrationService {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(MigrationService.class);
+
+    /**
+     * Option repository.
+     */
+    @Inject
+    private OptionRepository optionRepository;
+
+    /**
+     * Ids of running migrations.
+     */
+    private final Set<String> runnings = Collections.synchronizedSet(new HashSet<>());
+
+    /**
+     * Background migration executor.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Migrates with the specified migration from its checkpoint to the end.
+     *
+     * @param migration the specified migration
+     * @return count of migrated rows, returns {@code 0} if the migration is running in another thread
+     * @throws ServiceException service exception
+     */
+    public long migrate(final AbstractMigration migration) throws ServiceException {
+        final String id = migration.getId();
+        if (!runnings.add(id)) {
+            return 0;
+        }
+
+        final long start = System.currentTimeMillis();
+        long ret = 0;
+        try {
+            String lastId = getCheckpoint(id);
+            if (null == lastId) {
+                lastId = "";
+            }
+            LOGGER.log(Level.INFO, "Migrating [id={0}, table={1}, checkpoint={2}]", id, migration.getTable(), lastId);
+
+            while (!Thread.currentThread().isInterrupted()) {
+                final int migrated;
+                try (final Connection connection = Connections.getConnection()) {
+                    connection.setAutoCommit(false);
+                    try {
+                        final List<JSONObject> rows = getChunk(connection, migration, lastId);
+                        if (rows.isEmpty()) {
+                            removeCheckpoint(connection, id);
+                            connection.commit();
+
+                            break;
+                        }
+
+                        migration.migrate(connection, rows);
+                        migrated = rows.size();
+                        lastId = rows.get(migrated - 1).optString(Keys.OBJECT_ID);
+                        saveCheckpoint(connection, id, lastId);
+                        connection.commit();
+                    } catch (final Exception e) {
+                        connection.rollback();
+
+                        throw e;
+                    }
+                }
+
+                ret += migrated;
+                LOGGER.log(Level.DEBUG, "Migrated a chunk [id={0}, rows={1}, checkpoint={2}]", id, ret, lastId);
+            }
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Migrates [id=" + id + "] failed, it will resume from its checkpoint on the next run", e);
+
+            throw new ServiceException(e);
+        } finally {
+            runnings.remove(id);
+        }
+
+        LOGGER.log(Level.INFO, "Migrated [id={0}, rows={1}, elapsed={2}ms]", id, ret, System.currentTimeMillis() - start);
+
+        return ret;
+    }
+
+    /**
+     * Schedules the specified background migration, creates its checkpoint so it is run by
+     * {@link #resume(List)} until it finishes.
+     *
+     * @param migration the specified background migration
+     * @throws ServiceException service exception
+     */
+    public void schedule(final AbstractMigration migration) throws ServiceException {
+        try (final Connection connection = Connections.getConnection()) {
+            connection.setAutoCommit(false);
+            if (null == getCheckpoint(connection, migration.getId())) {
+                saveCheckpoint(connection, migration.getId(), "");
+            }
+            connection.commit();
+        } catch (final SQLException e) {
+            LOGGER.log(Level.ERROR, "Schedules migration [id=" + migration.getId() + "] failed", e);
+
+            throw new ServiceException(e);
+        }
+    }
+
+    /**
+     * Resumes the unfinished (with checkpoints) migrations of the specified background migrations in background,
+     * one by one.
+     *
+     * @param migrations the specified background migrations
+     */
+    public synchronized void resume(final List<AbstractMigration> migrations) {
+        for (final AbstractMigration migration : migrations) {
+            if (!migration.isBackground()) {
+                continue;
+            }
+
+            try {
+                if (null == getCheckpoint(migration.getId())) {
+                    continue;
+                }
+            } catch (final ServiceException e) {
+                continue;
+            }
+
+            if (null == executor) {
+                executor = Executors.newSingleThreadExecutor(r -> {
+                    final Thread ret = new Thread(r, "migration");
+                    ret.setDaemon(true);
+
+                    return ret;
+                });
+            }
+
+            executor.submit(() -> {
+                try {
+                    migrate(migration);
+                } catch (final ServiceException e) {
+                    // Logged in migrate
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops the background migrations, an interrupted migration resumes from its checkpoint on the next startup.
+     */
+    public synchronized void stop() {
+        if (null == executor) {
+            return;
+        }
+
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    /**
+     * Gets the checkpoint of a migration specified by the given migration id.
+     *
+     * @param migrationId the given migration id
+     * @return last migrated id, returns {@code ""} if scheduled but not migrated any rows, returns {@code null} if
+     * not found (finished or never scheduled)
+     * @throws ServiceException service exception
+     */
+    public String getCheckpoint(final String migrationId) throws ServiceException {
+        try (final Connection connection = Connections.getConnection()) {
+            return getCheckpoint(connection, migrationId);
+        } catch (final SQLException e) {
+            LOGGER.log(Level.ERROR, "Gets checkpoint of migration [id=" + migrationId + "] failed", e);
+
+            throw new ServiceException(e);
+        }
+    }
+
+    /**
+     * Gets a chunk of rows after the specified last id with the specified connection and migration.
+     *
+     * @param connection the specified connection
+     * @param migration  the specified migration
+     * @param lastId     the specified last id
+     * @return rows, returns an empty list if no more
+     * @throws SQLException sql exception
+     */
+    private static List<JSONObject> getChunk(final Connection connection, final AbstractMigration migration, final String lastId)
+            throws SQLException {
+        final String[] columns = migration.getColumns();
+        final StringBuilder sql = new StringBuilder("SELECT oId");
+        for (final String column : columns) {
+            sql.append(", ").append(column);
+        }
+        sql.append(" FROM `").append(migration.getTable()).append("` WHERE oId > ? ORDER BY oId LIMIT ?");
+
+        final List<JSONObject> ret = new ArrayList<>();
+        try (final PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            statement.setString(1, lastId);
+            statement.setInt(2, migration.getChunkSize());
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    final JSONObject row = new JSONObject();
+                    row.put(Keys.OBJECT_ID, resultSet.getString(1));
+                    for (int i = 0; i < columns.length; i++) { // By index, H2 labels are upper case
+                        row.put(columns[i], resultSet.getObject(i + 2));
+                    }
+                    ret.add(row);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the checkpoint of a migration specified by the given migration id with the specified connection.
+     *
+     * @param connection  the specified connection
+     * @param migrationId the given migration id
+     * @return last migrated id, returns {@code null} if not found
+     * @throws SQLException sql exception
+     */
+    private String getCheckpoint(final Connection connection, final String migrationId) throws SQLException {
+        try (final PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + Option.OPTION_VALUE + " FROM `" + optionRepository.getName() + "` WHERE oId = ?")) {
+            statement.setString(1, Option.ID_C_MIGRATION_CHECKPOINT_PREFIX + migrationId);
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+
+                final String ret = resultSet.getString(1);
+
+                return null == ret ? "" : ret;
+            }
+        }
+    }
+
+    /**
+     * Saves the specified checkpoint of a migration specified by the given migration id with the specified connection.
+     *
+     * @param connection  the specified connection
+     * @param migrationId the given migration id
+     * @param lastId      the specified checkpoint
+     * @throws SQLException sql exception
+     */
+    private void saveCheckpoint(final Connection connection, final String migrationId, final String lastId) throws SQLException {
+        final String optionId = Option.ID_C_MIGRATION_CHECKPOINT_PREFIX + migrationId;
+        try (final PreparedStatement statement = connection.prepareStatement(
+                "UPDATE `" + optionRepository.getName() + "` SET " + Option.OPTION_VALUE + " = ? WHERE oId = ?")) {
+            statement.setString(1, lastId);
+            statement.setString(2, optionId);
+            if (0 < statement.executeUpdate()) {
+                return;
+            }
+        }
+
+        try (final PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO `" + optionRepository.getName() + "` (oId, " + Option.OPTION_VALUE + ", " + Option.OPTION_CATEGORY + ") VALUES (?, ?, ?)")) {
+            statement.setString(1, optionId);
+            statement.setString(2, lastId);
+            statement.setString(3, Option.CATEGORY_C_MIGRATION);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Removes the checkpoint of a migration specified by the given migration id with the specified connection.
+     *
+     * @param connection  the specified connection
+     * @param migrationId the given migration id
+     * @throws SQLException sql exception
+     */
+    private void removeCheckpoint(final Connection connection, final String migrationId) throws SQLException {
+        try (final PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM `" + optionRepository.getName() + "` WHERE oId = ?")) {
+            statement.setString(1, Option.ID_C_MIGRATION_CHECKPOINT_PREFIX + migrationId);
+            statement.executeUpdate();
+        }
+    }
+}
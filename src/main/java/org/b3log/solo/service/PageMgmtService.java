@@ -42,7 +42,7 @@ import java.util.List;
  * Page management service.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.9, Sep 21, 2017
+ * @version 1.1.0.12, Nov 21, 2018
  * @since 0.4.0
  */
 @Service
@@ -204,12 +204,9 @@ public class PageMgmtService {
             removePageComments(pageId);
             pageRepository.remove(pageId);
 
-            transaction.commit();
-
+            statisticMgmtService.commit(transaction);
         } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            statisticMgmtService.rollback(transaction);
 
             LOGGER.log(Level.ERROR, "Removes a page[id=" + pageId + "] failed", e);
 
@@ -367,16 +364,8 @@ public class PageMgmtService {
      */
     private void removePageComments(final String pageId) throws Exception {
         final int removedCnt = commentRepository.removeComments(pageId);
-
-        int blogCommentCount = statisticQueryService.getBlogCommentCount();
-
-        blogCommentCount -= removedCnt;
-        statisticMgmtService.setBlogCommentCount(blogCommentCount);
-
-        int publishedBlogCommentCount = statisticQueryService.getPublishedBlogCommentCount();
-
-        publishedBlogCommentCount -= removedCnt;
-        statisticMgmtService.setPublishedBlogCommentCount(publishedBlogCommentCount);
+        statisticMgmtService.addBlogCommentCount(-removedCnt);
+        statisticMgmtService.addPublishedBlogCommentCount(-removedCnt);
     }
 
     /**
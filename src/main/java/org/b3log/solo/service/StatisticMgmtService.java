@@ -27,12 +27,12 @@ import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.service.annotation.Service;
 import org.b3log.latke.util.Requests;
 import org.b3log.solo.cache.StatisticCache;
+import org.b3log.solo.event.EventDispatcher;
 import org.b3log.solo.model.Option;
 import org.b3log.solo.repository.ArticleRepository;
 import org.b3log.solo.repository.OptionRepository;
 import org.b3log.solo.util.Solos;
 import org.json.JSONArray;
-import org.json.JSONObject;
 
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
@@ -45,9 +45,14 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Statistic management service.
+ * <p>
+ * Blog statistics are counted in {@link StatisticCache}, a change is held in the current thread as a delta, added to
+ * the persisted statistic under a row lock in the transaction of the change, and counted in the cache once the
+ * transaction committed, see {@link #commit(Transaction)} and {@link #rollback(Transaction)}.
+ * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 2.0.1.2, Oct 15, 2018
+ * @version 2.3.0.0, Nov 21, 2018
  * @since 0.5.0
  */
 @Service
@@ -100,6 +105,18 @@ public class StatisticMgmtService {
     @Inject
     private StatisticCache statisticCache;
 
+    /**
+     * Statistic query service.
+     */
+    @Inject
+    private StatisticQueryService statisticQueryService;
+
+    /**
+     * Event dispatcher.
+     */
+    @Inject
+    private EventDispatcher eventDispatcher;
+
     /**
      * Removes the expired online visitor.
      */
@@ -206,9 +223,6 @@ public class StatisticMgmtService {
      * <p>
      * If it is a search engine bot made the specified request, will NOT increment blog statistic view count.
      * </p>
-     * <p>
-     * There is a cron job (/console/stat/viewcnt) to flush the blog view count from cache to datastore.
-     * </p>
      *
      * @param request  the specified request
      * @param response the specified response
@@ -224,31 +238,18 @@ public class StatisticMgmtService {
         }
 
         final Transaction transaction = optionRepository.beginTransaction();
-        JSONObject statistic;
         try {
-            statistic = optionRepository.get(Option.ID_C_STATISTIC_BLOG_VIEW_COUNT);
-            if (null == statistic) {
-                return;
-            }
-
-            LOGGER.log(Level.TRACE, "Before inc blog view count is [{0}]", statistic);
-
-            statistic.put(Option.OPTION_VALUE, statistic.optInt(Option.OPTION_VALUE) + 1);
-
-            updateStatistic(Option.ID_C_STATISTIC_BLOG_VIEW_COUNT, statistic);
-
-            transaction.commit();
-        } catch (final RepositoryException e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
+            statisticCache.add(Option.ID_C_STATISTIC_BLOG_VIEW_COUNT, 1);
+            commit(transaction);
+        } catch (final Exception e) {
+            rollback(transaction);
 
             LOGGER.log(Level.ERROR, "Updates blog view count failed", e);
 
             return;
         }
 
-        LOGGER.log(Level.TRACE, "Inced blog view count[statistic={0}]", statistic);
+        LOGGER.log(Level.TRACE, "Inced blog view count");
     }
 
     /**
@@ -257,13 +258,7 @@ public class StatisticMgmtService {
      * @throws RepositoryException repository exception
      */
     public void incBlogArticleCount() throws RepositoryException {
-        final JSONObject statistic = optionRepository.get(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT);
-        if (null == statistic) {
-            throw new RepositoryException("Not found statistic");
-        }
-
-        statistic.put(Option.OPTION_VALUE, statistic.optInt(Option.OPTION_VALUE) + 1);
-        updateStatistic(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT, statistic);
+        statisticCache.add(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT, 1);
     }
 
     /**
@@ -272,13 +267,7 @@ public class StatisticMgmtService {
      * @throws RepositoryException repository exception
      */
     public void incPublishedBlogArticleCount() throws RepositoryException {
-        final JSONObject statistic = optionRepository.get(Option.ID_C_STATISTIC_PUBLISHED_ARTICLE_COUNT);
-        if (null == statistic) {
-            throw new RepositoryException("Not found statistic");
-        }
-
-        statistic.put(Option.OPTION_VALUE, statistic.optInt(Option.OPTION_VALUE) + 1);
-        updateStatistic(Option.ID_C_STATISTIC_PUBLISHED_ARTICLE_COUNT, statistic);
+        statisticCache.add(Option.ID_C_STATISTIC_PUBLISHED_ARTICLE_COUNT, 1);
     }
 
     /**
@@ -287,13 +276,7 @@ public class StatisticMgmtService {
      * @throws RepositoryException repository exception
      */
     public void decBlogArticleCount() throws RepositoryException {
-        final JSONObject statistic = optionRepository.get(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT);
-        if (null == statistic) {
-            throw new RepositoryException("Not found statistic");
-        }
-
-        statistic.put(Option.OPTION_VALUE, statistic.optInt(Option.OPTION_VALUE) - 1);
-        updateStatistic(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT, statistic);
+        statisticCache.add(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT, -1);
     }
 
     /**
@@ -302,13 +285,7 @@ public class StatisticMgmtService {
      * @throws RepositoryException repository exception
      */
     public void decPublishedBlogArticleCount() throws RepositoryException {
-        final JSONObject statistic = optionRepository.get(Option.ID_C_STATISTIC_PUBLISHED_ARTICLE_COUNT);
-        if (null == statistic) {
-            throw new RepositoryException("Not found statistic");
-        }
-
-        statistic.put(Option.OPTION_VALUE, statistic.optInt(Option.OPTION_VALUE) - 1);
-        updateStatistic(Option.ID_C_STATISTIC_PUBLISHED_ARTICLE_COUNT, statistic);
+        statisticCache.add(Option.ID_C_STATISTIC_PUBLISHED_ARTICLE_COUNT, -1);
     }
 
     /**
@@ -317,12 +294,7 @@ public class StatisticMgmtService {
      * @throws RepositoryException repository exception
      */
     public void incBlogCommentCount() throws RepositoryException {
-        final JSONObject statistic = optionRepository.get(Option.ID_C_STATISTIC_BLOG_COMMENT_COUNT);
-        if (null == statistic) {
-            throw new RepositoryException("Not found statistic");
-        }
-        statistic.put(Option.OPTION_VALUE, statistic.optInt(Option.OPTION_VALUE) + 1);
-        updateStatistic(Option.ID_C_STATISTIC_BLOG_COMMENT_COUNT, statistic);
+        statisticCache.add(Option.ID_C_STATISTIC_BLOG_COMMENT_COUNT, 1);
     }
 
     /**
@@ -331,12 +303,7 @@ public class StatisticMgmtService {
      * @throws RepositoryException repository exception
      */
     public void incPublishedBlogCommentCount() throws RepositoryException {
-        final JSONObject statistic = optionRepository.get(Option.ID_C_STATISTIC_PUBLISHED_BLOG_COMMENT_COUNT);
-        if (null == statistic) {
-            throw new RepositoryException("Not found statistic");
-        }
-        statistic.put(Option.OPTION_VALUE, statistic.optInt(Option.OPTION_VALUE) + 1);
-        updateStatistic(Option.ID_C_STATISTIC_PUBLISHED_BLOG_COMMENT_COUNT, statistic);
+        statisticCache.add(Option.ID_C_STATISTIC_PUBLISHED_BLOG_COMMENT_COUNT, 1);
     }
 
     /**
@@ -345,13 +312,7 @@ public class StatisticMgmtService {
      * @throws RepositoryException repository exception
      */
     public void decBlogCommentCount() throws RepositoryException {
-        final JSONObject statistic = optionRepository.get(Option.ID_C_STATISTIC_BLOG_COMMENT_COUNT);
-        if (null == statistic) {
-            throw new RepositoryException("Not found statistic");
-        }
-
-        statistic.put(Option.OPTION_VALUE, statistic.optInt(Option.OPTION_VALUE) - 1);
-        updateStatistic(Option.ID_C_STATISTIC_BLOG_COMMENT_COUNT, statistic);
+        statisticCache.add(Option.ID_C_STATISTIC_BLOG_COMMENT_COUNT, -1);
     }
 
     /**
@@ -360,45 +321,87 @@ public class StatisticMgmtService {
      * @throws RepositoryException repository exception
      */
     public void decPublishedBlogCommentCount() throws RepositoryException {
-        final JSONObject statistic = optionRepository.get(Option.ID_C_STATISTIC_PUBLISHED_BLOG_COMMENT_COUNT);
-        if (null == statistic) {
-            throw new RepositoryException("Not found statistic");
-        }
+        statisticCache.add(Option.ID_C_STATISTIC_PUBLISHED_BLOG_COMMENT_COUNT, -1);
+    }
 
-        statistic.put(Option.OPTION_VALUE, statistic.optInt(Option.OPTION_VALUE) - 1);
-        updateStatistic(Option.ID_C_STATISTIC_PUBLISHED_BLOG_COMMENT_COUNT, statistic);
+    /**
+     * Adds the specified delta to blog comment count.
+     *
+     * @param delta the specified delta
+     */
+    public void addBlogCommentCount(final int delta) {
+        statisticCache.add(Option.ID_C_STATISTIC_BLOG_COMMENT_COUNT, delta);
     }
 
     /**
-     * Sets blog comment count with the specified count.
+     * Adds the specified delta to blog comment(published article) count.
      *
-     * @param count the specified count
-     * @throws RepositoryException repository exception
+     * @param delta the specified delta
      */
-    public void setBlogCommentCount(final int count) throws RepositoryException {
-        final JSONObject statistic = optionRepository.get(Option.ID_C_STATISTIC_BLOG_COMMENT_COUNT);
-        if (null == statistic) {
-            throw new RepositoryException("Not found statistic");
-        }
+    public void addPublishedBlogCommentCount(final int delta) {
+        statisticCache.add(Option.ID_C_STATISTIC_PUBLISHED_BLOG_COMMENT_COUNT, delta);
+    }
 
-        statistic.put(Option.OPTION_VALUE, count);
-        updateStatistic(Option.ID_C_STATISTIC_BLOG_COMMENT_COUNT, statistic);
+    /**
+     * Commits the specified transaction with the statistic changes made by the current thread.
+     * <p>
+     * The changes are added to the persisted statistics in the transaction (each changed statistic row is locked and
+     * written once), and counted in the cached statistics after the transaction committed. The plugin events held by
+     * the transaction are dispatched by {@link EventDispatcher#commit(Transaction)}.
+     * </p>
+     *
+     * @param transaction the specified transaction
+     * @throws ServiceException service exception
+     */
+    public void commit(final Transaction transaction) throws ServiceException {
+        flush();
+        eventDispatcher.commit(transaction);
+        statisticCache.apply();
     }
 
     /**
-     * Sets blog comment(published article) count with the specified count.
+     * Rolls back the specified transaction if it is active, discards the statistic changes and the plugin events held
+     * by the current thread.
      *
-     * @param count the specified count
-     * @throws RepositoryException repository exception
+     * @param transaction the specified transaction
+     */
+    public void rollback(final Transaction transaction) {
+        statisticCache.discard();
+        eventDispatcher.rollback(transaction);
+    }
+
+    /**
+     * Discards the statistic changes made by the current thread, for a transaction finished without
+     * {@link #commit(Transaction)} or {@link #rollback(Transaction)}.
+     */
+    public void discard() {
+        statisticCache.discard();
+    }
+
+    /**
+     * Adds the statistic changes made by the current thread to the persisted statistics in the current transaction.
+     *
+     * @throws ServiceException service exception
      */
-    public void setPublishedBlogCommentCount(final int count) throws RepositoryException {
-        final JSONObject statistic = optionRepository.get(Option.ID_C_STATISTIC_PUBLISHED_BLOG_COMMENT_COUNT);
-        if (null == statistic) {
-            throw new RepositoryException("Not found statistic");
+    private void flush() throws ServiceException {
+        if (!statisticCache.hasPending()) {
+            return;
         }
 
-        statistic.put(Option.OPTION_VALUE, count);
-        updateStatistic(Option.ID_C_STATISTIC_PUBLISHED_BLOG_COMMENT_COUNT, statistic);
+        if (!statisticQueryService.loadStatistic()) {
+            statisticCache.discard();
+
+            throw new ServiceException("Not found statistic");
+        }
+
+        try {
+            final Map<String, Long> deltas = statisticCache.reserve();
+            for (final Map.Entry<String, Long> delta : deltas.entrySet()) {
+                optionRepository.addValue(delta.getKey(), delta.getValue());
+            }
+        } catch (final RepositoryException e) {
+            throw new ServiceException(e);
+        }
     }
 
     /**
@@ -417,18 +420,6 @@ public class StatisticMgmtService {
         LOGGER.log(Level.DEBUG, "Current online visitor count [{0}]", ONLINE_VISITORS.size());
     }
 
-    /**
-     * Updates the statistic with the specified statistic.
-     *
-     * @param id        the specified statistic id
-     * @param statistic the specified statistic
-     * @throws RepositoryException repository exception
-     */
-    private void updateStatistic(final String id, final JSONObject statistic) throws RepositoryException {
-        optionRepository.update(id, statistic);
-        statisticCache.clear();
-    }
-
     /**
      * Sets the article repository with the specified article repository.
      *
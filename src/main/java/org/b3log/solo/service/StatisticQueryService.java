@@ -20,14 +20,18 @@ package org.b3log.solo.service;
 import org.b3log.latke.ioc.Inject;
 import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.service.annotation.Service;
+import org.b3log.solo.cache.StatisticCache;
 import org.b3log.solo.model.Option;
 import org.json.JSONObject;
 
 /**
  * Statistic query service.
+ * <p>
+ * Statistics are served from the in-memory counters of {@link StatisticCache}, which are loaded at startup.
+ * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 2.0.0.1, Sep 19, 2018
+ * @version 2.1.0.0, Nov 21, 2018
  * @since 0.5.0
  */
 @Service
@@ -39,6 +43,12 @@ public class StatisticQueryService {
     @Inject
     private OptionQueryService optionQueryService;
 
+    /**
+     * Statistic cache.
+     */
+    @Inject
+    private StatisticCache statisticCache;
+
     /**
      * Gets the online visitor count.
      *
@@ -55,12 +65,7 @@ public class StatisticQueryService {
      * @throws ServiceException service exception
      */
     public int getBlogCommentCount() throws ServiceException {
-        final JSONObject opt = optionQueryService.getOptionById(Option.ID_C_STATISTIC_BLOG_COMMENT_COUNT);
-        if (null == opt) {
-            throw new ServiceException("Not found statistic");
-        }
-
-        return opt.optInt(Option.OPTION_VALUE);
+        return get(Option.ID_C_STATISTIC_BLOG_COMMENT_COUNT);
     }
 
     /**
@@ -70,12 +75,7 @@ public class StatisticQueryService {
      * @throws ServiceException service exception
      */
     public int getPublishedBlogCommentCount() throws ServiceException {
-        final JSONObject opt = optionQueryService.getOptionById(Option.ID_C_STATISTIC_PUBLISHED_BLOG_COMMENT_COUNT);
-        if (null == opt) {
-            throw new ServiceException("Not found statistic");
-        }
-
-        return opt.optInt(Option.OPTION_VALUE);
+        return get(Option.ID_C_STATISTIC_PUBLISHED_BLOG_COMMENT_COUNT);
     }
 
     /**
@@ -85,12 +85,7 @@ public class StatisticQueryService {
      * @throws ServiceException service exception
      */
     public int getPublishedBlogArticleCount() throws ServiceException {
-        final JSONObject opt = optionQueryService.getOptionById(Option.ID_C_STATISTIC_PUBLISHED_ARTICLE_COUNT);
-        if (null == opt) {
-            throw new ServiceException("Not found statistic");
-        }
-
-        return opt.optInt(Option.OPTION_VALUE);
+        return get(Option.ID_C_STATISTIC_PUBLISHED_ARTICLE_COUNT);
     }
 
     /**
@@ -100,12 +95,7 @@ public class StatisticQueryService {
      * @throws ServiceException service exception
      */
     public int getBlogArticleCount() throws ServiceException {
-        final JSONObject opt = optionQueryService.getOptionById(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT);
-        if (null == opt) {
-            throw new ServiceException("Not found statistic");
-        }
-
-        return opt.optInt(Option.OPTION_VALUE);
+        return get(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT);
     }
 
     /**
@@ -115,7 +105,53 @@ public class StatisticQueryService {
      * @throws ServiceException if repository exception
      */
     public JSONObject getStatistic() throws ServiceException {
-        return optionQueryService.getOptions(Option.CATEGORY_C_STATISTIC);
+        if (!loadStatistic()) {
+            return null;
+        }
+
+        return statisticCache.getStatistic();
+    }
+
+    /**
+     * Loads the statistic into the statistic cache if it has not been loaded.
+     *
+     * @return {@code true} if loaded, returns {@code false} if not found the statistic
+     * @throws ServiceException service exception
+     */
+    public boolean loadStatistic() throws ServiceException {
+        if (statisticCache.isLoaded()) {
+            return true;
+        }
+
+        synchronized (statisticCache) {
+            if (statisticCache.isLoaded()) {
+                return true;
+            }
+
+            final JSONObject statistic = optionQueryService.getOptions(Option.CATEGORY_C_STATISTIC);
+            if (null == statistic) {
+                return false;
+            }
+
+            statisticCache.load(statistic);
+
+            return true;
+        }
+    }
+
+    /**
+     * Gets the statistic value of the specified statistic id.
+     *
+     * @param id the specified statistic id
+     * @return statistic value
+     * @throws ServiceException service exception
+     */
+    private int get(final String id) throws ServiceException {
+        if (!loadStatistic()) {
+            throw new ServiceException("Not found statistic");
+        }
+
+        return (int) statisticCache.get(id);
     }
 
     /**
@@ -0,0 +1,116 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.service;
+
+import org.b3log.latke.Keys;
+import org.b3log.latke.ioc.Inject;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.FilterOperator;
+import org.b3log.latke.repository.PropertyFilter;
+import org.b3log.latke.repository.Query;
+import org.b3log.latke.service.annotation.Service;
+import org.b3log.latke.util.Stopwatchs;
+import org.b3log.solo.cache.SuggestionCache;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.model.Tag;
+import org.b3log.solo.repository.ArticleRepository;
+import org.b3log.solo.repository.TagRepository;
+import org.json.JSONObject;
+
+import java.util.List;
+
+/**
+ * Search suggestion query service.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 20, 2018
+ * @since 2.9.7
+ */
+@Service
+public class SuggestionQueryService {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SuggestionQueryService.class);
+
+    /**
+     * Suggestion cache.
+     */
+    @Inject
+    private SuggestionCache suggestionCache;
+
+    /**
+     * Article repository.
+     */
+    @Inject
+    private ArticleRepository articleRepository;
+
+    /**
+     * Tag repository.
+     */
+    @Inject
+    private TagRepository tagRepository;
+
+    /**
+     * Gets suggestions by the specified prefix and fetch size.
+     * <p>
+     * Served from memory only, the suggestion cache is maintained by article and tag repositories.
+     * </p>
+     *
+     * @param prefix    the specified prefix
+     * @param fetchSize the specified fetch size
+     * @return suggestion texts, returns an empty list if not found
+     */
+    public List<String> getSuggestions(final String prefix, final int fetchSize) {
+        return suggestionCache.getSuggestions(prefix, fetchSize);
+    }
+
+    /**
+     * Loads titles of all published articles and tags into the suggestion cache.
+     */
+    public void loadSuggestions() {
+        Stopwatchs.start("Load Suggestions");
+        try {
+            suggestionCache.clear();
+
+            final Query articleQuery = new Query().setPageCount(1).
+                    setFilter(new PropertyFilter(Article.ARTICLE_IS_PUBLISHED, FilterOperator.EQUAL, true)).
+                    addProjection(Keys.OBJECT_ID, String.class).
+                    addProjection(Article.ARTICLE_TITLE, String.class).
+                    addProjection(Article.ARTICLE_VIEW_COUNT, Integer.class).
+                    addProjection(Article.ARTICLE_IS_PUBLISHED, Boolean.class);
+            final List<JSONObject> articles = articleRepository.getList(articleQuery);
+            for (final JSONObject article : articles) {
+                suggestionCache.putArticle(article);
+            }
+
+            final List<JSONObject> tags = tagRepository.getList(new Query().setPageCount(1));
+            for (final JSONObject tag : tags) {
+                suggestionCache.putTag(tag);
+            }
+
+            LOGGER.log(Level.DEBUG, "Loaded suggestions [articles={0}, tags={1}]", articles.size(), tags.size());
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Loads suggestions failed", e);
+        } finally {
+            Stopwatchs.end();
+        }
+    }
+}
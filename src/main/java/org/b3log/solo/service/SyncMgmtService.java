@@ -0,0 +1,403 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.service;
+
+import org.apache.commons.io.IOUtils;
+import org.b3log.latke.Keys;
+import org.b3log.latke.ioc.Inject;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.RepositoryException;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.service.ServiceException;
+import org.b3log.latke.service.annotation.Service;
+import org.b3log.solo.model.Sync;
+import org.b3log.solo.repository.SyncRepository;
+import org.b3log.solo.util.Solos;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * B3 sync management service, pushes articles and comments to the B3log community in background.
+ * <ul>
+ * <li>Durable: pushes are queued into the sync table (in the caller's transaction if there is one) and removed once
+ * sent</li>
+ * <li>Coalescing: a push is keyed by its article or comment, a queued push is replaced by a later one of the same key
+ * (an add followed by updates is sent as one add with the latest content), a push replaced while being sent is kept
+ * for the next dispatch</li>
+ * <li>Batched: a dispatch sends up to {@link #DISPATCH_BATCH_SIZE} due pushes back to back over kept-alive
+ * connections</li>
+ * <li>Backoff: a failed push is retried with exponential backoff until {@link #MAX_RETRIES}, a rejected one (4xx) is
+ * dropped at once</li>
+ * </ul>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@Service
+public class SyncMgmtService {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SyncMgmtService.class);
+
+    /**
+     * Max retries of a push, drops it after that.
+     */
+    static final int MAX_RETRIES = 8;
+
+    /**
+     * Backoff base in milliseconds, the n-th retry waits base * 2^(n-1).
+     */
+    static final long RETRY_BACKOFF = 30 * 1000;
+
+    /**
+     * Max pushes sent in one dispatch.
+     */
+    static final int DISPATCH_BATCH_SIZE = 16;
+
+    /**
+     * Dispatch period in milliseconds.
+     */
+    private static final long DISPATCH_PERIOD = 30 * 1000;
+
+    /**
+     * Delay of a dispatch woken by a queued push in milliseconds, leaves the queuing transaction time to commit and
+     * later updates of the same article time to coalesce.
+     */
+    private static final long WAKE_DELAY = 3000;
+
+    /**
+     * Connect timeout in milliseconds.
+     */
+    private static final int CONNECT_TIMEOUT = 3000;
+
+    /**
+     * Read timeout in milliseconds.
+     */
+    private static final int READ_TIMEOUT = 10000;
+
+    /**
+     * Sync repository.
+     */
+    @Inject
+    private SyncRepository syncRepository;
+
+    /**
+     * Count of sent pushes.
+     */
+    private final AtomicLong sent = new AtomicLong();
+
+    /**
+     * Count of retried pushes.
+     */
+    private final AtomicLong retried = new AtomicLong();
+
+    /**
+     * Count of dropped pushes.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Count of coalesced pushes.
+     */
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Whether a dispatch is running.
+     */
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+
+    /**
+     * Dispatcher.
+     */
+    private ScheduledExecutorService dispatcher;
+
+    /**
+     * Queues a push with the specified key, method, URL and body, replaces the queued push of the same key.
+     *
+     * @param key    the specified key, for example "article_1542785474713"
+     * @param method the specified HTTP method, POST or PUT
+     * @param url    the specified URL
+     * @param body   the specified JSON body
+     * @throws ServiceException service exception
+     */
+    public void queue(final String key, final String method, final String url, final JSONObject body) throws ServiceException {
+        final boolean outerTransaction = syncRepository.hasTransactionBegun();
+        final Transaction transaction = outerTransaction ? null : syncRepository.beginTransaction();
+        try {
+            final long now = System.currentTimeMillis();
+            final JSONObject queued = syncRepository.getByKey(key);
+            if (null != queued) {
+                if (!"POST".equals(queued.optString(Sync.SYNC_METHOD))) { // A queued add stays an add
+                    queued.put(Sync.SYNC_METHOD, method);
+                    queued.put(Sync.SYNC_URL, url);
+                }
+                queued.put(Sync.SYNC_BODY, body.toString());
+                queued.put(Sync.SYNC_VERSION, queued.optInt(Sync.SYNC_VERSION) + 1);
+                queued.put(Sync.SYNC_RETRIES, 0);
+                queued.put(Sync.SYNC_NEXT_TIME, now);
+                syncRepository.update(queued.optString(Keys.OBJECT_ID), queued);
+                coalesced.incrementAndGet();
+            } else {
+                final JSONObject sync = new JSONObject();
+                sync.put(Sync.SYNC_KEY, key);
+                sync.put(Sync.SYNC_METHOD, method);
+                sync.put(Sync.SYNC_URL, url);
+                sync.put(Sync.SYNC_BODY, body.toString());
+                sync.put(Sync.SYNC_VERSION, 0);
+                sync.put(Sync.SYNC_RETRIES, 0);
+                sync.put(Sync.SYNC_NEXT_TIME, now);
+                sync.put(Sync.SYNC_CREATED, now);
+                syncRepository.add(sync);
+            }
+
+            if (!outerTransaction) {
+                transaction.commit();
+            }
+        } catch (final RepositoryException e) {
+            if (!outerTransaction && transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            LOGGER.log(Level.ERROR, "Queues sync [key=" + key + "] failed", e);
+
+            throw new ServiceException(e);
+        }
+
+        wake();
+    }
+
+    /**
+     * Sends the due pushes, does nothing if another dispatch is running.
+     *
+     * @return count of sent pushes
+     */
+    public int dispatch() {
+        if (!dispatching.compareAndSet(false, true)) {
+            return 0;
+        }
+
+        int ret = 0;
+        try {
+            final List<JSONObject> syncs = syncRepository.getPendings(System.currentTimeMillis(), DISPATCH_BATCH_SIZE);
+            for (final JSONObject sync : syncs) {
+                if (send(sync)) {
+                    ret++;
+                }
+            }
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Dispatches syncs failed", e);
+        } finally {
+            dispatching.set(false);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the queue statistic.
+     *
+     * @return queue statistic, for example,
+     * <pre>
+     * {
+     *     "pending": long, // queue depth
+     *     "sent": long,
+     *     "retried": long,
+     *     "dropped": long,
+     *     "coalesced": long
+     * }
+     * </pre>
+     * counters are accumulated since startup
+     * @throws ServiceException service exception
+     */
+    public JSONObject getStat() throws ServiceException {
+        try {
+            return new JSONObject().put("pending", syncRepository.count()).put("sent", sent.get()).
+                    put("retried", retried.get()).put("dropped", dropped.get()).put("coalesced", coalesced.get());
+        } catch (final RepositoryException e) {
+            LOGGER.log(Level.ERROR, "Gets sync statistic failed", e);
+
+            throw new ServiceException(e);
+        }
+    }
+
+    /**
+     * Starts the dispatcher.
+     */
+    public synchronized void start() {
+        if (null != dispatcher) {
+            return;
+        }
+
+        dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread ret = new Thread(r, "b3-sync-dispatcher");
+            ret.setDaemon(true);
+
+            return ret;
+        });
+        dispatcher.scheduleWithFixedDelay(this::dispatch, DISPATCH_PERIOD, DISPATCH_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the dispatcher.
+     */
+    public synchronized void stop() {
+        if (null == dispatcher) {
+            return;
+        }
+
+        dispatcher.shutdownNow();
+        dispatcher = null;
+    }
+
+    /**
+     * Sends the specified push, removes it if sent or rejected, schedules a retry otherwise.
+     * <p>
+     * A later push coalesced into the specified one while sending (detected by its version) is kept as queued, and
+     * turns into an update if the specified push was an add and has been sent.
+     * </p>
+     *
+     * @param sync the specified push
+     * @return {@code true} if sent, returns {@code false} otherwise
+     * @throws RepositoryException repository exception
+     */
+    private boolean send(final JSONObject sync) throws RepositoryException {
+        final String id = sync.optString(Keys.OBJECT_ID);
+        final String key = sync.optString(Sync.SYNC_KEY);
+        final String method = sync.optString(Sync.SYNC_METHOD);
+        int statusCode;
+        try {
+            statusCode = send(method, sync.optString(Sync.SYNC_URL), sync.optString(Sync.SYNC_BODY));
+        } catch (final IOException e) {
+            LOGGER.log(Level.DEBUG, "Pushes [key=" + key + "] failed: " + e.getMessage());
+            statusCode = -1;
+        }
+
+        final boolean ret = 200 <= statusCode && 300 > statusCode;
+        final boolean rejected = 400 <= statusCode && 500 > statusCode && 429 != statusCode;
+        final int retries = sync.optInt(Sync.SYNC_RETRIES) + 1;
+
+        final Transaction transaction = syncRepository.beginTransaction();
+        try {
+            final JSONObject current = syncRepository.get(id);
+            if (null == current) {
+                transaction.commit();
+
+                return ret;
+            }
+
+            if (current.optInt(Sync.SYNC_VERSION) != sync.optInt(Sync.SYNC_VERSION)) {
+                if (ret) {
+                    sent.incrementAndGet();
+                    if ("POST".equals(method) && "POST".equals(current.optString(Sync.SYNC_METHOD))) {
+                        current.put(Sync.SYNC_METHOD, "PUT");
+                        syncRepository.update(id, current);
+                    }
+                }
+                transaction.commit();
+
+                return ret;
+            }
+
+            if (ret) {
+                syncRepository.remove(id);
+                sent.incrementAndGet();
+            } else if (rejected || MAX_RETRIES <= retries) {
+                syncRepository.remove(id);
+                dropped.incrementAndGet();
+                LOGGER.log(Level.WARN, "Dropped push [key={0}, statusCode={1}, retries={2}]", key, statusCode, retries);
+            } else {
+                sync.put(Sync.SYNC_RETRIES, retries);
+                sync.put(Sync.SYNC_NEXT_TIME, System.currentTimeMillis() + (RETRY_BACKOFF << (retries - 1)));
+                syncRepository.update(id, sync);
+                retried.incrementAndGet();
+            }
+            transaction.commit();
+        } catch (final RepositoryException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+
+            throw e;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Sends the specified body to the specified URL with the specified method.
+     * <p>
+     * The response is read to the end and closed without disconnecting, so the JDK keep-alive cache reuses the
+     * connection for the next push.
+     * </p>
+     *
+     * @param method the specified method
+     * @param url    the specified URL
+     * @param body   the specified body
+     * @return response status code
+     * @throws IOException io exception
+     */
+    private static int send(final String method, final String url, final String body) throws IOException {
+        final HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(CONNECT_TIMEOUT);
+        conn.setReadTimeout(READ_TIMEOUT);
+        conn.setDoOutput(true);
+        conn.setRequestMethod(method);
+        conn.setRequestProperty("Content-Type", "application/json");
+        conn.setRequestProperty("User-Agent", Solos.USER_AGENT);
+
+        try (final OutputStream outputStream = conn.getOutputStream()) {
+            IOUtils.write(body, outputStream, "UTF-8");
+        }
+
+        final int ret = conn.getResponseCode();
+        final InputStream stream = 400 > ret ? conn.getInputStream() : conn.getErrorStream();
+        if (null != stream) {
+            try (final InputStream inputStream = stream) {
+                IOUtils.toByteArray(inputStream);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Wakes the dispatcher up to send the queued pushes soon.
+     */
+    private synchronized void wake() {
+        if (null == dispatcher) {
+            return;
+        }
+
+        dispatcher.schedule(this::dispatch, WAKE_DELAY, TimeUnit.MILLISECONDS);
+    }
+}
@@ -21,23 +21,28 @@ import org.b3log.latke.Keys;
 import org.b3log.latke.ioc.Inject;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
-import org.b3log.latke.repository.RepositoryException;
-import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.repository.*;
 import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.service.annotation.Service;
+import org.b3log.latke.util.CollectionUtils;
+import org.b3log.solo.model.Article;
 import org.b3log.solo.model.Tag;
+import org.b3log.solo.repository.ArticleRepository;
 import org.b3log.solo.repository.CategoryTagRepository;
+import org.b3log.solo.repository.TagArticleRepository;
 import org.b3log.solo.repository.TagRepository;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Tag management service.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.2, Mar 31, 2017
+ * @version 1.1.0.1, Nov 21, 2018
  * @since 0.4.0
  */
 @Service
@@ -48,6 +53,11 @@ public class TagMgmtService {
      */
     private static final Logger LOGGER = Logger.getLogger(TagMgmtService.class);
 
+    /**
+     * Size of a chunk read or written by the tag article counter repair.
+     */
+    private static final int REPAIR_CHUNK_SIZE = 500;
+
     /**
      * Tag query service.
      */
@@ -66,6 +76,28 @@ public class TagMgmtService {
     @Inject
     private CategoryTagRepository categoryTagRepository;
 
+    /**
+     * Tag-Article repository.
+     */
+    @Inject
+    private TagArticleRepository tagArticleRepository;
+
+    /**
+     * Article repository.
+     */
+    @Inject
+    private ArticleRepository articleRepository;
+
+    /**
+     * Whether a tag article counter repair is running.
+     */
+    private final AtomicBoolean repairing = new AtomicBoolean();
+
+    /**
+     * Progress of the latest tag article counter repair, {@code null} if never run.
+     */
+    private volatile RepairProgress repairProgress;
+
     /**
      * Decrements reference count of every tag of an published article specified
      * by the given article id.
@@ -124,6 +156,283 @@ public class TagMgmtService {
         }
     }
 
+    /**
+     * Starts a tag article counter repair in background, see {@link #repairTagArticleCounter()} for details.
+     *
+     * @return {@code true} if started, returns {@code false} if a repair is running
+     */
+    public boolean startTagArticleCounterRepair() {
+        if (!repairing.compareAndSet(false, true)) {
+            return false;
+        }
+
+        final Thread thread = new Thread(this::repair, "tag-article-counter-repair");
+        thread.setDaemon(true);
+        thread.start();
+
+        return true;
+    }
+
+    /**
+     * Repairs reference counts of all tags.
+     * <p>
+     * Streams published flags of articles and tag-article relations once (both by id ascending chunks), aggregates the
+     * counts in memory, then writes back the changed tags and removes the relations of missing articles in chunk
+     * transactions. Articles added after the articles phase are left alone: a relation is removed only if its article
+     * is still missing in the removing transaction, and a changed tag is recounted in the transaction updating it.
+     * </p>
+     *
+     * @return {@code true} if repaired, returns {@code false} if another repair is running or this repair failed
+     */
+    public boolean repairTagArticleCounter() {
+        if (!repairing.compareAndSet(false, true)) {
+            return false;
+        }
+
+        return repair();
+    }
+
+    /**
+     * Gets the progress of the latest tag article counter repair.
+     *
+     * @return progress, for example,
+     * <pre>
+     * {
+     *     "running": boolean,
+     *     "phase": "articles", // articles/relations/tags/done/failed
+     *     "processed": long, // processed articles + relations + tags
+     *     "total": long,
+     *     "percent": int,
+     *     "elapsed": long, // milliseconds
+     *     "eta": long, // milliseconds, -1 if unknown
+     *     "repairedTags": int,
+     *     "removedRelations": int,
+     *     "msg": "" // error message if failed
+     * }
+     * </pre>, returns {"running": false, "phase": ""} if never run
+     */
+    public JSONObject getTagArticleCounterRepairProgress() {
+        final RepairProgress progress = repairProgress;
+        if (null == progress) {
+            return new JSONObject().put("running", false).put("phase", "");
+        }
+
+        return progress.toJSONObject(repairing.get());
+    }
+
+    /**
+     * Repairs reference counts of all tags, resets the repairing flag when done.
+     *
+     * @return {@code true} if repaired, returns {@code false} otherwise
+     */
+    private boolean repair() {
+        final RepairProgress progress = new RepairProgress();
+        repairProgress = progress;
+        try {
+            progress.total = articleRepository.count() + tagArticleRepository.count() + tagRepository.count();
+
+            progress.phase = "articles";
+            final Map<String, Boolean> articlePublished = new HashMap<>();
+            String lastId = null;
+            List<JSONObject> articles;
+            do {
+                articles = getChunk(articleRepository, lastId, Article.ARTICLE_IS_PUBLISHED, Boolean.class);
+                for (final JSONObject article : articles) {
+                    lastId = article.optString(Keys.OBJECT_ID);
+                    articlePublished.put(lastId, article.optBoolean(Article.ARTICLE_IS_PUBLISHED));
+                }
+                progress.processed += articles.size();
+            } while (REPAIR_CHUNK_SIZE == articles.size());
+
+            progress.phase = "relations";
+            final Map<String, int[]> counts = new HashMap<>(); // <tagId, [refCnt, publishedRefCnt]>
+            final Map<String, String> danglingRelations = new LinkedHashMap<>(); // <relationId, articleId>
+            final String maxArticleId = lastId;
+            lastId = null;
+            List<JSONObject> relations;
+            do {
+                relations = getChunk(tagArticleRepository, lastId, Article.ARTICLE + "_" + Keys.OBJECT_ID, String.class,
+                        Tag.TAG + "_" + Keys.OBJECT_ID, String.class);
+                for (final JSONObject relation : relations) {
+                    lastId = relation.optString(Keys.OBJECT_ID);
+                    final String articleId = relation.optString(Article.ARTICLE + "_" + Keys.OBJECT_ID);
+                    if (null == maxArticleId || articleId.compareTo(maxArticleId) > 0) { // Added after the articles phase
+                        continue;
+                    }
+
+                    final Boolean published = articlePublished.get(articleId);
+                    if (null == published) {
+                        danglingRelations.put(lastId, articleId);
+
+                        continue;
+                    }
+
+                    final int[] count = counts.computeIfAbsent(relation.optString(Tag.TAG + "_" + Keys.OBJECT_ID), key -> new int[2]);
+                    count[0]++;
+                    if (published) {
+                        count[1]++;
+                    }
+                }
+                progress.processed += relations.size();
+            } while (REPAIR_CHUNK_SIZE == relations.size());
+            articlePublished.clear();
+
+            final List<Map.Entry<String, String>> danglings = new ArrayList<>(danglingRelations.entrySet());
+            for (int i = 0; i < danglings.size(); i += REPAIR_CHUNK_SIZE) {
+                final Transaction transaction = tagArticleRepository.beginTransaction();
+                try {
+                    for (final Map.Entry<String, String> relation : danglings.subList(i, Math.min(i + REPAIR_CHUNK_SIZE, danglings.size()))) {
+                        if (null != articleRepository.get(relation.getValue())) { // Added after the articles phase
+                            continue;
+                        }
+
+                        tagArticleRepository.remove(relation.getKey());
+                        progress.removedRelations++;
+                    }
+                    transaction.commit();
+                } catch (final RepositoryException e) {
+                    if (transaction.isActive()) {
+                        transaction.rollback();
+                    }
+
+                    throw e;
+                }
+            }
+
+            progress.phase = "tags";
+            lastId = null;
+            List<JSONObject> tags;
+            do {
+                tags = getChunk(tagRepository, lastId);
+                final Transaction transaction = tagRepository.beginTransaction();
+                try {
+                    for (final JSONObject tag : tags) {
+                        lastId = tag.optString(Keys.OBJECT_ID);
+                        int[] count = counts.getOrDefault(lastId, new int[2]);
+                        if (count[0] == tag.optInt(Tag.TAG_REFERENCE_COUNT) && count[1] == tag.optInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT)) {
+                            continue;
+                        }
+
+                        // The scanned counts may be outdated by concurrent article changes, recounts in this transaction
+                        count = countTagArticles(lastId);
+                        if (count[0] == tag.optInt(Tag.TAG_REFERENCE_COUNT) && count[1] == tag.optInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT)) {
+                            continue;
+                        }
+
+                        LOGGER.log(Level.INFO, "Repairing tag [title={0}, refCnt={1}->{2}, publishedRefCnt={3}->{4}]",
+                                tag.optString(Tag.TAG_TITLE), tag.optInt(Tag.TAG_REFERENCE_COUNT), count[0],
+                                tag.optInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT), count[1]);
+                        tag.put(Tag.TAG_REFERENCE_COUNT, count[0]);
+                        tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, count[1]);
+                        tagRepository.update(lastId, tag);
+                        progress.repairedTags++;
+                    }
+                    transaction.commit();
+                } catch (final RepositoryException e) {
+                    if (transaction.isActive()) {
+                        transaction.rollback();
+                    }
+
+                    throw e;
+                }
+                progress.processed += tags.size();
+            } while (REPAIR_CHUNK_SIZE == tags.size());
+
+            progress.phase = "done";
+            LOGGER.log(Level.INFO, "Repaired tag article counter [repairedTags={0}, removedRelations={1}, elapsed={2}ms]",
+                    progress.repairedTags, progress.removedRelations, System.currentTimeMillis() - progress.start);
+
+            return true;
+        } catch (final Exception e) {
+            progress.phase = "failed";
+            progress.msg = String.valueOf(e.getMessage());
+            LOGGER.log(Level.ERROR, "Repairs tag article counter failed", e);
+
+            return false;
+        } finally {
+            progress.end = System.currentTimeMillis();
+            repairing.set(false);
+        }
+    }
+
+    /**
+     * Counts the tag-article relations of the tag specified by the given id, relations of missing articles are not
+     * counted.
+     *
+     * @param tagId the given id
+     * @return [refCnt, publishedRefCnt]
+     * @throws RepositoryException repository exception
+     */
+    private int[] countTagArticles(final String tagId) throws RepositoryException {
+        final int[] ret = new int[2];
+        final List<JSONObject> relations = CollectionUtils.jsonArrayToList(tagArticleRepository.get(new Query().
+                setFilter(new PropertyFilter(Tag.TAG + "_" + Keys.OBJECT_ID, FilterOperator.EQUAL, tagId)).
+                setPageCount(1)).optJSONArray(Keys.RESULTS));
+        final Set<String> articleIds = new HashSet<>();
+        for (final JSONObject relation : relations) {
+            articleIds.add(relation.optString(Article.ARTICLE + "_" + Keys.OBJECT_ID));
+        }
+        if (articleIds.isEmpty()) {
+            return ret;
+        }
+
+        final Map<String, Boolean> articlePublished = new HashMap<>();
+        final List<JSONObject> articles = CollectionUtils.jsonArrayToList(articleRepository.get(new Query().
+                setFilter(new PropertyFilter(Keys.OBJECT_ID, FilterOperator.IN, articleIds)).
+                addProjection(Keys.OBJECT_ID, String.class).addProjection(Article.ARTICLE_IS_PUBLISHED, Boolean.class).
+                setPageCount(1)).optJSONArray(Keys.RESULTS));
+        for (final JSONObject article : articles) {
+            articlePublished.put(article.optString(Keys.OBJECT_ID), article.optBoolean(Article.ARTICLE_IS_PUBLISHED));
+        }
+
+        for (final JSONObject relation : relations) {
+            final Boolean published = articlePublished.get(relation.optString(Article.ARTICLE + "_" + Keys.OBJECT_ID));
+            if (null == published) {
+                continue;
+            }
+
+            ret[0]++;
+            if (published) {
+                ret[1]++;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets a chunk of records (id ascending) after the specified last id from the specified repository.
+     *
+     * @param repository  the specified repository
+     * @param lastId      the specified last id, {@code null} for the first chunk
+     * @param projections the specified projections, pairs of property name and type, gets all properties if not
+     *                    specified
+     * @return records, returns an empty list if no more
+     * @throws RepositoryException repository exception
+     */
+    private static List<JSONObject> getChunk(final Repository repository, final String lastId, final Object... projections)
+            throws RepositoryException {
+        final Query query = new Query().addSort(Keys.OBJECT_ID, SortDirection.ASCENDING).
+                setCurrentPageNum(1).setPageSize(REPAIR_CHUNK_SIZE).setPageCount(1);
+        if (null != lastId) {
+            query.setFilter(new PropertyFilter(Keys.OBJECT_ID, FilterOperator.GREATER_THAN, lastId));
+        }
+        if (0 < projections.length) {
+            query.addProjection(Keys.OBJECT_ID, String.class);
+            for (int i = 0; i < projections.length; i += 2) {
+                query.addProjection((String) projections[i], (Class<?>) projections[i + 1]);
+            }
+        }
+
+        final JSONArray records = repository.get(query).optJSONArray(Keys.RESULTS);
+        final List<JSONObject> ret = new ArrayList<>();
+        for (int i = 0; i < records.length(); i++) {
+            ret.add(records.optJSONObject(i));
+        }
+
+        return ret;
+    }
+
     /**
      * Sets the tag repository with the specified tag repository.
      *
@@ -141,4 +450,74 @@ public class TagMgmtService {
     public void setTagQueryService(final TagQueryService tagQueryService) {
         this.tagQueryService = tagQueryService;
     }
+
+    /**
+     * Progress of a tag article counter repair, written by the repairing thread only.
+     */
+    private static final class RepairProgress {
+
+        /**
+         * Start time.
+         */
+        private final long start = System.currentTimeMillis();
+
+        /**
+         * End time, {@code 0} if running.
+         */
+        private volatile long end;
+
+        /**
+         * Phase.
+         */
+        private volatile String phase = "";
+
+        /**
+         * Count of processed articles, relations and tags.
+         */
+        private volatile long processed;
+
+        /**
+         * Count of all articles, relations and tags.
+         */
+        private volatile long total;
+
+        /**
+         * Count of repaired tags.
+         */
+        private volatile int repairedTags;
+
+        /**
+         * Count of removed relations.
+         */
+        private volatile int removedRelations;
+
+        /**
+         * Error message if failed.
+         */
+        private volatile String msg = "";
+
+        /**
+         * Gets the JSON representation of this progress.
+         *
+         * @param running whether the repair is running
+         * @return JSON representation
+         */
+        private JSONObject toJSONObject(final boolean running) {
+            final long processedCnt = processed;
+            final long totalCnt = Math.max(total, processedCnt);
+            final long elapsed = (0 < end ? end : System.currentTimeMillis()) - start;
+            long eta = -1;
+            if (0 < end) {
+                eta = 0;
+            } else if (0 < processedCnt) {
+                eta = elapsed * (totalCnt - processedCnt) / processedCnt;
+            }
+
+            return new JSONObject().put("running", running).put("phase", phase).
+                    put("processed", processedCnt).put("total", totalCnt).
+                    put("percent", 0 == totalCnt ? 100 : (int) (processedCnt * 100 / totalCnt)).
+                    put("elapsed", elapsed).put("eta", eta).
+                    put("repairedTags", repairedTags).put("removedRelations", removedRelations).put("msg", msg);
+        }
+    }
 }
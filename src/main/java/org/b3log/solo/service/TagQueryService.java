@@ -25,6 +25,7 @@ import org.b3log.latke.repository.RepositoryException;
 import org.b3log.latke.repository.SortDirection;
 import org.b3log.latke.service.ServiceException;
 import org.b3log.latke.service.annotation.Service;
+import org.b3log.latke.util.Stopwatchs;
 import org.b3log.solo.model.Tag;
 import org.b3log.solo.repository.TagRepository;
 import org.json.JSONException;
@@ -37,7 +38,7 @@ import java.util.List;
  * Tag query service.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.4, Aug 27, 2018
+ * @version 1.2.0.0, Nov 21, 2018
  * @since 0.4.0
  */
 @Service
@@ -54,6 +55,20 @@ public class TagQueryService {
     @Inject
     private TagRepository tagRepository;
 
+    /**
+     * Loads titles of all tags into the tag dictionary.
+     */
+    public void loadTags() {
+        Stopwatchs.start("Load Tags");
+        try {
+            tagRepository.loadTitles();
+        } catch (final Exception e) {
+            LOGGER.log(Level.ERROR, "Loads tags failed", e);
+        } finally {
+            Stopwatchs.end();
+        }
+    }
+
     /**
      * Gets a tag by the specified tag title.
      *
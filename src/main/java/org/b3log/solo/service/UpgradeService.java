@@ -17,16 +17,12 @@
  */
 package org.b3log.solo.service;
 
-import org.apache.commons.lang.StringUtils;
-import org.b3log.latke.Keys;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.ioc.Inject;
 import org.b3log.latke.logging.Level;
 import org.b3log.latke.logging.Logger;
 import org.b3log.latke.mail.MailService;
 import org.b3log.latke.mail.MailServiceFactory;
-import org.b3log.latke.model.User;
-import org.b3log.latke.repository.Query;
 import org.b3log.latke.repository.Transaction;
 import org.b3log.latke.repository.jdbc.util.Connections;
 import org.b3log.latke.service.LangPropsService;
@@ -34,29 +30,25 @@ import org.b3log.latke.service.annotation.Service;
 import org.b3log.solo.SoloServletListener;
 import org.b3log.solo.cache.ArticleCache;
 import org.b3log.solo.cache.CommentCache;
-import org.b3log.solo.model.Article;
-import org.b3log.solo.model.Comment;
 import org.b3log.solo.model.Option;
-import org.b3log.solo.model.UserExt;
-import org.b3log.solo.repository.ArticleRepository;
-import org.b3log.solo.repository.CommentRepository;
-import org.b3log.solo.repository.OptionRepository;
-import org.b3log.solo.repository.UserRepository;
+import org.b3log.solo.repository.*;
 import org.b3log.solo.util.Solos;
-import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.sql.Connection;
 import java.sql.Statement;
-import java.util.Date;
-import java.util.List;
+import java.util.*;
 
 /**
  * Upgrade service.
+ * <p>
+ * Data migrations of an upgrade are run by {@link MigrationService} in checkpointed chunks, blocking ones before the
+ * version is upgraded and background ones after startup.
+ * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
  * @author <a href="mailto:dongxu.wang@acm.org">Dongxu Wang</a>
- * @version 1.2.0.31, Nov 15, 2018
+ * @version 1.3.0.3, Nov 21, 2018
  * @since 1.2.0
  */
 @Service
@@ -67,11 +59,6 @@ public class UpgradeService {
      */
     private static final Logger LOGGER = Logger.getLogger(UpgradeService.class);
 
-    /**
-     * Step for article updating.
-     */
-    private static final int STEP = 50;
-
     /**
      * Mail Service.
      */
@@ -111,6 +98,12 @@ public class UpgradeService {
     @Inject
     private OptionRepository optionRepository;
 
+    /**
+     * Migration service.
+     */
+    @Inject
+    private MigrationService migrationService;
+
     /**
      * Preference Query Service.
      */
@@ -153,11 +146,15 @@ public class UpgradeService {
 
             final String currentVer = preference.getString(Option.ID_C_VERSION);
             if (SoloServletListener.VERSION.equals(currentVer)) {
+                createTables();
+                migrationService.resume(getMigrations());
+
                 return;
             }
 
             if (FROM_VER.equals(currentVer)) {
                 perform();
+                migrationService.resume(getMigrations());
 
                 return;
             }
@@ -186,6 +183,16 @@ public class UpgradeService {
         LOGGER.log(Level.INFO, "Upgrading from version [{0}] to version [{1}]....", FROM_VER, TO_VER);
 
         try {
+            createTables();
+
+            for (final AbstractMigration migration : getMigrations()) {
+                if (migration.isBackground()) {
+                    migrationService.schedule(migration);
+                } else {
+                    migrationService.migrate(migration);
+                }
+            }
+
             final Transaction transaction = optionRepository.beginTransaction();
             final JSONObject versionOpt = optionRepository.get(Option.ID_C_VERSION);
             versionOpt.put(Option.OPTION_VALUE, TO_VER);
@@ -201,6 +208,57 @@ public class UpgradeService {
         LOGGER.log(Level.INFO, "Upgraded from version [{0}] to version [{1}] successfully :-)", FROM_VER, TO_VER);
     }
 
+    /**
+     * Creates the tables added by this version if not exists, a blog may be at this version without them (such as
+     * one upgraded by a snapshot build).
+     *
+     * @throws Exception exception
+     */
+    private void createTables() throws Exception {
+        createMailTable();
+        createSyncTable();
+    }
+
+    /**
+     * Creates the outbound mail table if not exists.
+     *
+     * @throws Exception exception
+     */
+    private void createMailTable() throws Exception {
+        final Connection connection = Connections.getConnection();
+        final Statement statement = connection.createStatement();
+
+        final String tablePrefix = Latkes.getLocalProperty("jdbc.tablePrefix") + "_";
+        statement.executeUpdate("CREATE TABLE IF NOT EXISTS `" + tablePrefix + "mail` ("
+                + "`oId` VARCHAR(19) NOT NULL, `mailKey` VARCHAR(64) NOT NULL, `mailFrom` VARCHAR(255) NOT NULL, "
+                + "`mailTo` VARCHAR(1024) NOT NULL, `mailSubject` VARCHAR(512) NOT NULL, `mailBody` MEDIUMTEXT NOT NULL, "
+                + "`mailStatus` INT NOT NULL, `mailRetries` INT NOT NULL, `mailNextTime` BIGINT NOT NULL, "
+                + "`mailCreated` BIGINT NOT NULL, PRIMARY KEY (`oId`))");
+        statement.close();
+        connection.commit();
+        connection.close();
+    }
+
+    /**
+     * Creates the B3 sync table if not exists.
+     *
+     * @throws Exception exception
+     */
+    private void createSyncTable() throws Exception {
+        final Connection connection = Connections.getConnection();
+        final Statement statement = connection.createStatement();
+
+        final String tablePrefix = Latkes.getLocalProperty("jdbc.tablePrefix") + "_";
+        statement.executeUpdate("CREATE TABLE IF NOT EXISTS `" + tablePrefix + "sync` ("
+                + "`oId` VARCHAR(19) NOT NULL, `syncKey` VARCHAR(64) NOT NULL, `syncMethod` VARCHAR(10) NOT NULL, "
+                + "`syncURL` VARCHAR(255) NOT NULL, `syncBody` MEDIUMTEXT NOT NULL, `syncVersion` INT NOT NULL, "
+                + "`syncRetries` INT NOT NULL, "
+                + "`syncNextTime` BIGINT NOT NULL, `syncCreated` BIGINT NOT NULL, PRIMARY KEY (`oId`))");
+        statement.close();
+        connection.commit();
+        connection.close();
+    }
+
     private void alterTables() throws Exception {
         final Connection connection = Connections.getConnection();
         final Statement statement = connection.createStatement();
@@ -244,128 +302,13 @@ public class UpgradeService {
         connection.close();
     }
 
-    private void upgradeUsers() throws Exception {
-        final JSONArray users = userRepository.get(new Query()).getJSONArray(Keys.RESULTS);
-
-        for (int i = 0; i < users.length(); i++) {
-            final JSONObject user = users.getJSONObject(i);
-            final String email = user.optString(User.USER_EMAIL);
-            user.put(UserExt.USER_AVATAR, Solos.getGravatarURL(email, "128"));
-
-            userRepository.update(user.optString(Keys.OBJECT_ID), user);
-            LOGGER.log(Level.INFO, "Updated user[email={0}]", email);
-        }
-    }
-
-    private void upgradeArticles() throws Exception {
-        final List<JSONObject> articles = articleRepository.getList(new Query().
-                addProjection(Keys.OBJECT_ID, String.class).
-                addProjection(Article.ARTICLE_T_CREATE_DATE, Date.class).
-                addProjection(Article.ARTICLE_T_UPDATE_DATE, Date.class).
-                addProjection(Article.ARTICLE_T_AUTHOR_EMAIL, String.class));
-        if (articles.isEmpty()) {
-            LOGGER.log(Level.TRACE, "No articles");
-
-            return;
-        }
-
-        Transaction transaction = null;
-        try {
-            for (int i = 0; i < articles.size(); i++) {
-                if (0 == i % STEP || !transaction.isActive()) {
-                    transaction = userRepository.beginTransaction();
-                }
-
-                final String articleId = articles.get(i).optString(Keys.OBJECT_ID);
-                final JSONObject article = articleRepository.get(articleId);
-                String authorEmail = article.optString(Article.ARTICLE_T_AUTHOR_EMAIL);
-                if (StringUtils.isBlank(authorEmail)) { // H2
-                    authorEmail = article.optString(Article.ARTICLE_T_AUTHOR_EMAIL.toUpperCase());
-                }
-                JSONObject author = userRepository.getByEmail(authorEmail);
-                if (null == author) {
-                    author = userRepository.getAdmin();
-                }
-                article.put(Article.ARTICLE_AUTHOR_ID, author.optString(Keys.OBJECT_ID));
-
-                Date createDate = (Date) article.opt(Article.ARTICLE_T_CREATE_DATE);
-                if (null == createDate) { // H2
-                    createDate = (Date) article.opt(Article.ARTICLE_T_CREATE_DATE.toUpperCase());
-                }
-                article.put(Article.ARTICLE_CREATED, createDate.getTime());
-
-                Date updateDate = (Date) article.opt(Article.ARTICLE_T_UPDATE_DATE);
-                if (null == updateDate) { // H2
-                    updateDate = (Date) article.opt(Article.ARTICLE_T_UPDATE_DATE.toUpperCase());
-                }
-                article.put(Article.ARTICLE_UPDATED, updateDate.getTime());
-
-                articleRepository.update(articleId, article);
-
-                if (0 == i % STEP) {
-                    transaction.commit();
-                    LOGGER.log(Level.INFO, "Updated some articles [" + i + "]");
-                }
-            }
-
-            if (transaction.isActive()) {
-                transaction.commit();
-            }
-
-            LOGGER.log(Level.INFO, "Updated all articles");
-        } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
-
-            throw e;
-        }
-    }
-
-    private void upgradeComments() throws Exception {
-        final List<JSONObject> comments = commentRepository.getList(new Query());
-        if (comments.isEmpty()) {
-            LOGGER.log(Level.TRACE, "No comments");
-
-            return;
-        }
-
-        Transaction transaction = null;
-        try {
-            for (int i = 0; i < comments.size(); i++) {
-                if (0 == i % STEP || !transaction.isActive()) {
-                    transaction = userRepository.beginTransaction();
-                }
-
-                final JSONObject comment = comments.get(i);
-                final String commentId = comment.optString(Keys.OBJECT_ID);
-
-                Date createDate = (Date) comment.opt(Comment.COMMENT_T_DATE);
-                if (null == createDate) { // H2
-                    createDate = (Date) comment.opt(Comment.COMMENT_T_DATE.toUpperCase());
-                }
-                comment.put(Comment.COMMENT_CREATED, createDate.getTime());
-
-                commentRepository.update(commentId, comment);
-
-                if (0 == i % STEP) {
-                    transaction.commit();
-                    LOGGER.log(Level.INFO, "Updated some comments [" + i + "]");
-                }
-            }
-
-            if (transaction.isActive()) {
-                transaction.commit();
-            }
-
-            LOGGER.log(Level.INFO, "Updated all comments");
-        } catch (final Exception e) {
-            if (transaction.isActive()) {
-                transaction.rollback();
-            }
-
-            throw e;
-        }
+    /**
+     * Gets the data migrations of this upgrade.
+     *
+     * @return data migrations
+     */
+    private List<AbstractMigration> getMigrations() {
+        return new ArrayList<>();
     }
 
     /**
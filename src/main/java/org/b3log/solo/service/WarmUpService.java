@@ -0,0 +1,280 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.service;
+
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.Keys;
+import org.b3log.latke.Latkes;
+import org.b3log.latke.ioc.Inject;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.repository.Query;
+import org.b3log.latke.service.annotation.Service;
+import org.b3log.latke.util.Stopwatchs;
+import org.b3log.latke.util.Strings;
+import org.b3log.solo.SoloServletListener;
+import org.b3log.solo.cache.ArticleCache;
+import org.b3log.solo.model.Option;
+import org.b3log.solo.repository.ArticleRepository;
+import org.b3log.solo.repository.UserRepository;
+import org.b3log.solo.util.Skins;
+import org.json.JSONObject;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Warm up service, preloads caches in parallel at startup so the first visitors are less likely to hit cold caches.
+ * <p>
+ * Stages:
+ * <ul>
+ * <li>Preference, the option cache</li>
+ * <li>Users, the user cache</li>
+ * <li>Skin, FreeMarker templates of the current skin</li>
+ * <li>Articles, the article cache (by ids and permalinks) and rendered HTML of the most viewed articles</li>
+ * </ul>
+ * Configured by "warmUp", "warmUpTimeout" and "warmUpArticleCount" in latke.properties. Startup waits for the stages
+ * until the timeout, the stages not finished by then go on in background. The stopwatch of every stage is logged at
+ * INFO level when it finishes.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@Service
+public class WarmUpService {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(WarmUpService.class);
+
+    /**
+     * Default timeout of waiting for warm up in milliseconds.
+     */
+    private static final long DEFAULT_TIMEOUT = 10000;
+
+    /**
+     * Default count of the most viewed articles to warm up.
+     */
+    private static final int DEFAULT_ARTICLE_COUNT = 32;
+
+    /**
+     * Preference query service.
+     */
+    @Inject
+    private PreferenceQueryService preferenceQueryService;
+
+    /**
+     * Article query service.
+     */
+    @Inject
+    private ArticleQueryService articleQueryService;
+
+    /**
+     * Article repository.
+     */
+    @Inject
+    private ArticleRepository articleRepository;
+
+    /**
+     * User repository.
+     */
+    @Inject
+    private UserRepository userRepository;
+
+    /**
+     * Article cache.
+     */
+    @Inject
+    private ArticleCache articleCache;
+
+    /**
+     * Warms up if enabled, waits for the stages until the timeout, the unfinished stages go on in background.
+     */
+    public void warmUp() {
+        if (!Boolean.valueOf(Latkes.getLatkeProperty("warmUp"))) {
+            return;
+        }
+
+        final Map<String, Callable<?>> stages = new LinkedHashMap<>();
+        stages.put("Preference", this::warmUpPreference);
+        stages.put("Users", this::warmUpUsers);
+        stages.put("Skin", this::warmUpSkin);
+        stages.put("Articles", this::warmUpArticles);
+
+        final long timeout = getTimeout();
+        Stopwatchs.start("Warm Up");
+        final ExecutorService pool = Executors.newFixedThreadPool(stages.size(), r -> {
+            final Thread ret = new Thread(r, "warm-up");
+            ret.setDaemon(true);
+
+            return ret;
+        });
+        final long start = System.currentTimeMillis();
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (final Map.Entry<String, Callable<?>> stage : stages.entrySet()) {
+                futures.add(pool.submit(() -> runStage(stage.getKey(), stage.getValue())));
+            }
+
+            final long deadline = start + timeout;
+            for (final Future<?> future : futures) {
+                try {
+                    future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                } catch (final TimeoutException e) {
+                    LOGGER.log(Level.WARN, "Warm up timeout [" + timeout + "ms], goes on starting and warming up in background");
+
+                    return;
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+
+                    return;
+                } catch (final ExecutionException e) {
+                    LOGGER.log(Level.WARN, "Warms up failed", e);
+                }
+            }
+            LOGGER.log(Level.INFO, "Warmed up in [{0}ms]", System.currentTimeMillis() - start);
+        } finally {
+            pool.shutdown();
+            Stopwatchs.end();
+        }
+    }
+
+    /**
+     * Runs a warm up stage specified by the given name and stage, logs its timing at INFO level.
+     *
+     * @param name  the given name
+     * @param stage the given stage
+     */
+    private static void runStage(final String name, final Callable<?> stage) {
+        Stopwatchs.start("Warm Up " + name);
+        try {
+            stage.call();
+        } catch (final Exception e) {
+            LOGGER.log(Level.WARN, "Warms up [" + name + "] failed", e);
+        } finally {
+            Stopwatchs.end();
+        }
+
+        try {
+            LOGGER.log(Level.INFO, "Warm up stopwatch: {0}{1}", Strings.LINE_SEPARATOR, Stopwatchs.getTimingStat());
+        } finally {
+            Stopwatchs.release();
+        }
+    }
+
+    /**
+     * Gets the timeout of waiting for warm up, configured by "warmUpTimeout" in latke.properties.
+     *
+     * @return timeout in milliseconds
+     */
+    private static long getTimeout() {
+        final String timeoutConf = Latkes.getLatkeProperty("warmUpTimeout");
+        if (StringUtils.isNumeric(timeoutConf) && StringUtils.isNotBlank(timeoutConf)) {
+            return Long.parseLong(timeoutConf);
+        }
+
+        return DEFAULT_TIMEOUT;
+    }
+
+    /**
+     * Warms up the preference.
+     *
+     * @return preference
+     * @throws Exception exception
+     */
+    private JSONObject warmUpPreference() throws Exception {
+        return preferenceQueryService.getPreference();
+    }
+
+    /**
+     * Warms up all users.
+     *
+     * @return count of users
+     * @throws Exception exception
+     */
+    private int warmUpUsers() throws Exception {
+        userRepository.getAdmin();
+
+        final List<String> ids = new ArrayList<>();
+        final Query query = new Query().setPageCount(1).addProjection(Keys.OBJECT_ID, String.class);
+        for (final JSONObject user : userRepository.getList(query)) {
+            ids.add(user.optString(Keys.OBJECT_ID));
+        }
+
+        return userRepository.getByIds(ids).size();
+    }
+
+    /**
+     * Warms up templates of the current skin.
+     *
+     * @return count of templates
+     * @throws Exception exception
+     */
+    private int warmUpSkin() throws Exception {
+        final JSONObject preference = preferenceQueryService.getPreference();
+        final String skinDirName = null == preference ? Option.DefaultPreference.DEFAULT_SKIN_DIR_NAME
+                : preference.optString(Option.ID_C_SKIN_DIR_NAME, Option.DefaultPreference.DEFAULT_SKIN_DIR_NAME);
+
+        int ret = 0;
+        final Set<String> paths = SoloServletListener.getServletContext().getResourcePaths("/skins/" + skinDirName + "/");
+        if (null == paths) {
+            return ret;
+        }
+
+        for (final String path : paths) {
+            if (!StringUtils.endsWith(path, ".ftl")) {
+                continue;
+            }
+
+            Skins.TEMPLATE_CFG.getTemplate(StringUtils.removeStart(path, "/"));
+            ret++;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Warms up the most viewed articles.
+     *
+     * @return count of articles
+     * @throws Exception exception
+     */
+    private int warmUpArticles() throws Exception {
+        int count = DEFAULT_ARTICLE_COUNT;
+        final String countConf = Latkes.getLatkeProperty("warmUpArticleCount");
+        if (StringUtils.isNumeric(countConf) && StringUtils.isNotBlank(countConf)) {
+            count = Integer.parseInt(countConf);
+        }
+        if (1 > count) {
+            return 0;
+        }
+
+        final List<JSONObject> articles = articleRepository.getMostViewCountArticles(count);
+        final List<JSONObject> renderings = new ArrayList<>();
+        for (final JSONObject article : articles) {
+            articleCache.putArticle(article);
+            renderings.add(new JSONObject(article.toString()));
+        }
+        articleQueryService.markdowns(renderings);
+
+        return articles.size();
+    }
+}
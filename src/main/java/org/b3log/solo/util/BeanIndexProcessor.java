@@ -0,0 +1,172 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Bean index annotation processor, lists classes annotated with {@code @Service}, {@code @Repository},
+ * {@code @RequestProcessor} and {@code @Singleton} into {@link #INDEX} at compile time, one binary class name per line.
+ * <p>
+ * Annotations are matched by name, so this processor does not depend on Latke. It is configured in the Maven build,
+ * see the {@code maven-compiler-plugin} executions in pom.xml.
+ * </p>
+ * <p>
+ * An incremental build compiles only some of the classes, so the index left by the previous build is merged in, and
+ * its entries are kept only if they are still annotated beans.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@SupportedAnnotationTypes("*") // Runs even if no bean is compiled, to drop beans no longer annotated
+public class BeanIndexProcessor extends AbstractProcessor {
+
+    /**
+     * Bean index resource name.
+     */
+    public static final String INDEX = "META-INF/solo-beans.idx";
+
+    /**
+     * Bean annotation names.
+     */
+    public static final Set<String> BEAN_ANNOTATIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "org.b3log.latke.service.annotation.Service",
+            "org.b3log.latke.repository.annotation.Repository",
+            "org.b3log.latke.servlet.annotation.RequestProcessor",
+            "org.b3log.latke.ioc.Singleton")));
+
+    /**
+     * Indexed bean class names.
+     */
+    private final Set<String> beans = new TreeSet<>();
+
+    /**
+     * Whether the index left by the previous build has been merged.
+     */
+    private boolean merged;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        if (!merged) {
+            merged = true;
+            mergeIndex();
+        }
+
+        for (final TypeElement annotation : annotations) {
+            if (!BEAN_ANNOTATIONS.contains(annotation.getQualifiedName().toString())) {
+                continue;
+            }
+
+            for (final Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (ElementKind.CLASS != element.getKind()) {
+                    continue;
+                }
+
+                beans.add(processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString());
+            }
+        }
+
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+
+        return false;
+    }
+
+    /**
+     * Merges the bean class names of the index left by the previous build, skips classes which are removed or no
+     * longer annotated.
+     */
+    private void mergeIndex() {
+        final List<String> previous = new ArrayList<>();
+        try {
+            final FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (final BufferedReader reader = new BufferedReader(new InputStreamReader(index.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while (null != (line = reader.readLine())) {
+                    previous.add(line);
+                }
+            }
+        } catch (final IOException e) { // Not found, a clean build
+            return;
+        }
+
+        for (final String bean : previous) {
+            final TypeElement element = processingEnv.getElementUtils().getTypeElement(bean.trim().replace('$', '.'));
+            if (null == element) {
+                continue;
+            }
+
+            for (final AnnotationMirror annotation : element.getAnnotationMirrors()) {
+                final TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+                if (BEAN_ANNOTATIONS.contains(annotationType.getQualifiedName().toString())) {
+                    beans.add(bean.trim());
+
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the indexed bean class names into {@link #INDEX}.
+     */
+    private void writeIndex() {
+        try {
+            final FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (final Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (final String bean : beans) {
+                    writer.write(bean);
+                    writer.write('\n');
+                }
+            }
+        } catch (final IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Writes bean index failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.util.Strings;
+import org.patchca.color.GradientColorFactory;
+import org.patchca.color.RandomColorFactory;
+import org.patchca.filter.predefined.CurvesRippleFilterFactory;
+import org.patchca.font.RandomFontFactory;
+import org.patchca.service.Captcha;
+import org.patchca.service.ConfigurableCaptchaService;
+import org.patchca.word.RandomWordFactory;
+
+import javax.imageio.ImageIO;
+import javax.swing.JLabel;
+import java.awt.Font;
+import java.awt.GraphicsEnvironment;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Captcha utilities.
+ * <p>
+ * Keeps a pool of pre-rendered PNG captchas refilled in background, and a bounded store of issued challenges per
+ * client, every challenge can be verified once before it expires.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.1.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class Captchas {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Captchas.class);
+
+    /**
+     * Captcha length.
+     */
+    public static final int CAPTCHA_LENGTH = 4;
+
+    /**
+     * Captcha chars.
+     */
+    private static final String CHARS = "acdefhijklmnprstuvwxy234578";
+
+    /**
+     * Pool size.
+     */
+    private static final int POOL_SIZE = 64;
+
+    /**
+     * Time to live of an issued challenge in milliseconds.
+     */
+    private static final long CHALLENGE_TTL = 1000 * 60 * 30;
+
+    /**
+     * Max count of clients holding issued challenges.
+     */
+    private static final int MAX_CLIENTS = 4096;
+
+    /**
+     * Max count of issued challenges per client.
+     */
+    static final int MAX_CLIENT_CHALLENGES = 8;
+
+    /**
+     * Pre-rendered captchas.
+     */
+    private static final BlockingQueue<Image> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    /**
+     * Issued challenges, &lt;client, &lt;challenge, expiresAt&gt;&gt;, the least recently active client evicted, the
+     * challenges of a client are in issue order.
+     */
+    private static final Map<String, Map<String, Long>> CHALLENGES = Collections.synchronizedMap(new LinkedHashMap<String, Map<String, Long>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Map<String, Long>> eldest) {
+            return size() > MAX_CLIENTS;
+        }
+    });
+
+    /**
+     * Whether the pool is being refilled.
+     */
+    private static final AtomicBoolean REFILLING = new AtomicBoolean();
+
+    /**
+     * Refill worker.
+     */
+    private static final ThreadPoolExecutor REFILLER;
+
+    static {
+        REFILLER = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            final Thread ret = new Thread(r, "captcha-refiller");
+            ret.setDaemon(true);
+
+            return ret;
+        });
+        REFILLER.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Private constructor.
+     */
+    private Captchas() {
+    }
+
+    /**
+     * Takes a captcha from the pool, renders one if the pool is empty. Triggers a background refill if the pool is
+     * running low.
+     *
+     * @return captcha image
+     * @throws IOException io exception
+     */
+    public static Image take() throws IOException {
+        Image ret = POOL.poll();
+        if (null == ret) {
+            ret = render(newCaptchaService());
+        }
+
+        if (POOL.size() < POOL_SIZE / 2) {
+            refill();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Issues the specified challenge to the specified client.
+     * <p>
+     * A client holds at most {@link #MAX_CLIENT_CHALLENGES} challenges, its oldest one is evicted first, so a client
+     * requesting captchas in a loop only evicts its own challenges.
+     * </p>
+     *
+     * @param client    the specified client, for example the remote address
+     * @param challenge the specified challenge
+     */
+    public static void issue(final String client, final String challenge) {
+        final long now = System.currentTimeMillis();
+        synchronized (CHALLENGES) {
+            final Map<String, Long> challenges = CHALLENGES.computeIfAbsent(StringUtils.defaultString(client), key -> new LinkedHashMap<>());
+            challenges.values().removeIf(expiresAt -> expiresAt <= now);
+
+            final Iterator<String> oldest = challenges.keySet().iterator();
+            while (challenges.size() >= MAX_CLIENT_CHALLENGES && oldest.hasNext()) {
+                oldest.next();
+                oldest.remove();
+            }
+
+            challenges.put(challenge, now + CHALLENGE_TTL);
+        }
+    }
+
+    /**
+     * Verifies the specified challenge issued to the specified client. A challenge can be verified only once.
+     *
+     * @param client    the specified client
+     * @param challenge the specified challenge
+     * @return {@code true} if the challenge has been issued to the client and not expired, returns {@code false}
+     * otherwise
+     */
+    public static boolean verify(final String client, final String challenge) {
+        if (StringUtils.isBlank(challenge)) {
+            return false;
+        }
+
+        final Long expiresAt;
+        synchronized (CHALLENGES) {
+            final String key = StringUtils.defaultString(client);
+            final Map<String, Long> challenges = CHALLENGES.get(key);
+            if (null == challenges) {
+                return false;
+            }
+
+            expiresAt = challenges.remove(challenge);
+            if (challenges.isEmpty()) {
+                CHALLENGES.remove(key);
+            }
+        }
+
+        return null != expiresAt && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Refills the pool in background.
+     */
+    private static void refill() {
+        if (!REFILLING.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            REFILLER.execute(() -> {
+                try {
+                    final ConfigurableCaptchaService captchaService = newCaptchaService();
+                    while (POOL.remainingCapacity() > 0) {
+                        if (!POOL.offer(render(captchaService))) {
+                            break;
+                        }
+                    }
+                } catch (final Exception e) {
+                    LOGGER.log(Level.ERROR, "Refills captcha pool failed", e);
+                } finally {
+                    REFILLING.set(false);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            REFILLING.set(false);
+        }
+    }
+
+    /**
+     * Renders a captcha with the specified captcha service.
+     *
+     * @param captchaService the specified captcha service
+     * @return captcha image
+     * @throws IOException io exception
+     */
+    private static Image render(final ConfigurableCaptchaService captchaService) throws IOException {
+        if (0.5 < Math.random()) {
+            captchaService.setColorFactory(new GradientColorFactory());
+        } else {
+            captchaService.setColorFactory(new RandomColorFactory());
+        }
+        captchaService.setFilterFactory(new CurvesRippleFilterFactory(captchaService.getColorFactory()));
+
+        final Captcha captcha = captchaService.getCaptcha();
+        try (final ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            ImageIO.write(captcha.getImage(), "png", baos);
+
+            return new Image(captcha.getChallenge(), baos.toByteArray());
+        }
+    }
+
+    /**
+     * Creates a captcha service. A captcha service is not thread-safe, uses it in one thread only.
+     *
+     * @return captcha service
+     */
+    private static ConfigurableCaptchaService newCaptchaService() {
+        final ConfigurableCaptchaService ret = new ConfigurableCaptchaService();
+        final RandomWordFactory randomWordFactory = new RandomWordFactory();
+        randomWordFactory.setCharacters(CHARS);
+        randomWordFactory.setMinLength(CAPTCHA_LENGTH);
+        randomWordFactory.setMaxLength(CAPTCHA_LENGTH);
+        ret.setWordFactory(randomWordFactory);
+        ret.setFontFactory(new RandomFontFactory(FontsHolder.FONTS));
+
+        return ret;
+    }
+
+    /**
+     * Holds the available font names, resolves them once on first use.
+     */
+    private static final class FontsHolder {
+
+        /**
+         * Available font names.
+         */
+        private static final List<String> FONTS = getAvailableFonts();
+
+        /**
+         * Gets the available font names.
+         *
+         * @return font names
+         */
+        private static List<String> getAvailableFonts() {
+            final List<String> ret = new ArrayList<>();
+
+            final GraphicsEnvironment e = GraphicsEnvironment.getLocalGraphicsEnvironment();
+            final Font[] fonts = e.getAllFonts();
+            for (final Font f : fonts) {
+                if (Strings.contains(f.getFontName(), new String[]{"Verdana", "DejaVu Sans Mono", "Tahoma"})) {
+                    ret.add(f.getFontName());
+                }
+            }
+
+            final String defaultFontName = new JLabel().getFont().getFontName();
+            ret.add(defaultFontName);
+
+            return ret;
+        }
+    }
+
+    /**
+     * Pre-rendered captcha image.
+     */
+    public static final class Image {
+
+        /**
+         * Challenge.
+         */
+        private final String challenge;
+
+        /**
+         * PNG bytes.
+         */
+        private final byte[] png;
+
+        /**
+         * Constructs a captcha image with the specified challenge and PNG bytes.
+         *
+         * @param challenge the specified challenge
+         * @param png       the specified PNG bytes
+         */
+        private Image(final String challenge, final byte[] png) {
+            this.challenge = challenge;
+            this.png = png;
+        }
+
+        /**
+         * Gets the challenge.
+         *
+         * @return challenge
+         */
+        public String getChallenge() {
+            return challenge;
+        }
+
+        /**
+         * Gets the PNG bytes.
+         *
+         * @return PNG bytes
+         */
+        public byte[] getPNG() {
+            return png;
+        }
+    }
+}
@@ -20,13 +20,16 @@ package org.b3log.solo.util;
 import com.vdurmont.emoji.EmojiParser;
 import org.b3log.latke.Latkes;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.regex.Pattern;
 
 /**
  * Emotions utilities.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.0, May 10, 2016
+ * @version 1.1.0.0, Nov 21, 2018
  * @since 1.4.0
  */
 public final class Emotions {
@@ -923,6 +926,24 @@ public final class Emotions {
             "zzz"
     };
 
+    /**
+     * Max length of emoji codes.
+     */
+    private static final int MAX_EMOJI_CODE_LENGTH;
+
+    static {
+        int max = 0;
+        for (final String emojiCode : EMOJIS) {
+            max = Math.max(max, emojiCode.length());
+        }
+        MAX_EMOJI_CODE_LENGTH = max;
+    }
+
+    /**
+     * Emoji image table, built lazily since it depends on the static serve path.
+     */
+    private static volatile EmojiImgs EMOJI_IMGS;
+
     /**
      * Replaces the emoji's unicode occurrences by one of their alias (between 2 ':'). Example: "😄" gives ":smile:".
      *
@@ -939,27 +960,133 @@ public final class Emotions {
      * <ol>
      * <li>Emoji: http://www.emoji-cheat-sheet.com</li>
      * </ol>
+     * The content is scanned once, every {@code :code:} token is looked up in a precomputed code to image table.
+     * </p>
      *
      * @param content the specified content
      * @return converted content
      */
     public static String convert(final String content) {
-        final String staticServePath = Latkes.getStaticServePath();
+        int colon = content.indexOf(':');
+        if (0 > colon) {
+            return content;
+        }
 
-        String ret = content;
+        final Map<String, String> imgs = getEmojiImgs();
+        StringBuilder ret = null;
+        int copied = 0;
+        while (0 <= colon) {
+            final int end = findCodeEnd(content, colon + 1);
+            if (0 > end) {
+                colon = content.indexOf(':', colon + 1);
 
-        if (!EMOJI_PATTERN.matcher(ret).find()) {
-            return ret;
+                continue;
+            }
+
+            final String img = imgs.get(content.substring(colon + 1, end));
+            if (null == img) { // The closing colon may open the next token
+                colon = end;
+
+                continue;
+            }
+
+            if (null == ret) {
+                ret = new StringBuilder(content.length() + 256);
+            }
+            ret.append(content, copied, colon).append(img);
+            copied = end + 1;
+            colon = content.indexOf(':', copied);
         }
 
+        if (null == ret) {
+            return content;
+        }
+
+        return ret.append(content, copied, content.length()).toString();
+    }
+
+    /**
+     * Finds the closing colon of an emoji code starts at the specified index.
+     *
+     * @param content the specified content
+     * @param start   the specified index, right after the opening colon
+     * @return index of the closing colon, returns {@code -1} if not found
+     */
+    private static int findCodeEnd(final String content, final int start) {
+        final int max = Math.min(content.length(), start + MAX_EMOJI_CODE_LENGTH + 1);
+        for (int i = start; i < max; i++) {
+            final char c = content.charAt(i);
+            if (':' == c) {
+                return i > start ? i : -1;
+            }
+
+            if (!isEmojiCodeChar(c)) {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Checks whether the specified char may be used in an emoji code.
+     *
+     * @param c the specified char
+     * @return {@code true} if it may be used, returns {@code false} otherwise
+     */
+    private static boolean isEmojiCodeChar(final char c) {
+        return ('a' <= c && c <= 'z') || ('0' <= c && c <= '9') || '_' == c || '+' == c || '-' == c;
+    }
+
+    /**
+     * Gets the emoji code to image HTML table of the current static serve path.
+     *
+     * @return emoji image table
+     */
+    private static Map<String, String> getEmojiImgs() {
+        final String staticServePath = Latkes.getStaticServePath();
+        final EmojiImgs emojiImgs = EMOJI_IMGS;
+        if (null != emojiImgs && Objects.equals(emojiImgs.staticServePath, staticServePath)) {
+            return emojiImgs.imgs;
+        }
+
+        final Map<String, String> imgs = new HashMap<>(EMOJIS.length * 2);
         for (final String emojiCode : EMOJIS) {
             final String emoji = ":" + emojiCode + ":";
-            ret = ret.replace(emoji, "<img align=\"absmiddle\" alt=\"" + emoji + "\" class=\"emoji\" src=\""
+            imgs.put(emojiCode, "<img align=\"absmiddle\" alt=\"" + emoji + "\" class=\"emoji\" src=\""
                     + staticServePath + "/js/lib/emojify.js-1.1.0/images/basic/" + emojiCode
                     + ".png\" title=\"" + emoji + "\" width=\"20px\" height=\"20px\"></img>");
         }
+        EMOJI_IMGS = new EmojiImgs(staticServePath, imgs);
 
-        return ret;
+        return imgs;
+    }
+
+    /**
+     * Emoji image table of a static serve path.
+     */
+    private static final class EmojiImgs {
+
+        /**
+         * Static serve path.
+         */
+        private final String staticServePath;
+
+        /**
+         * Emoji images, &lt;emojiCode, imgHTML&gt;.
+         */
+        private final Map<String, String> imgs;
+
+        /**
+         * Constructs an emoji image table with the specified static serve path and images.
+         *
+         * @param staticServePath the specified static serve path
+         * @param imgs            the specified images
+         */
+        private EmojiImgs(final String staticServePath, final Map<String, String> imgs) {
+            this.staticServePath = staticServePath;
+            this.imgs = imgs;
+        }
     }
 
     /**
@@ -0,0 +1,312 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <a href="https://gravatar.com">Gravatar</a> resolver.
+ * <p>
+ * Never blocks the caller: a lookup is answered from a bounded LRU cache of verification results (keyed by email
+ * hash), a missed or expired one is verified by a background worker and answered with the stale result (or as
+ * not found) in the meantime. Existing avatars are remembered for the TTL, missing or unreachable ones for a shorter
+ * TTL so they get another chance soon.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class GravatarResolver {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(GravatarResolver.class);
+
+    /**
+     * Connect timeout in milliseconds.
+     */
+    private static final int CONNECT_TIMEOUT = 3000;
+
+    /**
+     * Read timeout in milliseconds.
+     */
+    private static final int READ_TIMEOUT = 5000;
+
+    /**
+     * Max verifications waiting for a worker, lookups over it are verified next time.
+     */
+    private static final int MAX_PENDING = 256;
+
+    /**
+     * Gravatar address, for example https://secure.gravatar.com/avatar/.
+     */
+    private final String gravatar;
+
+    /**
+     * Time to live of an existing avatar in milliseconds.
+     */
+    private final long ttl;
+
+    /**
+     * Time to live of a missing or unreachable avatar in milliseconds.
+     */
+    private final long missTTL;
+
+    /**
+     * Verification results, &lt;emailHash, result&gt;.
+     */
+    private final Map<String, Result> results;
+
+    /**
+     * Email hashes being verified.
+     */
+    private final Set<String> verifying = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Verification workers.
+     */
+    private final ThreadPoolExecutor workers;
+
+    /**
+     * Constructs a Gravatar resolver with the specified Gravatar address, TTLs and max cache size.
+     *
+     * @param gravatar the specified Gravatar address, for example https://secure.gravatar.com/avatar/
+     * @param ttl      the specified time to live of an existing avatar in milliseconds
+     * @param missTTL  the specified time to live of a missing or unreachable avatar in milliseconds
+     * @param maxSize  the specified max cache size
+     */
+    public GravatarResolver(final String gravatar, final long ttl, final long missTTL, final int maxSize) {
+        this.gravatar = gravatar;
+        this.ttl = ttl;
+        this.missTTL = missTTL;
+        results = Collections.synchronizedMap(new LinkedHashMap<String, Result>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Result> eldest) {
+                return size() > maxSize;
+            }
+        });
+        workers = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAX_PENDING), r -> {
+            final Thread ret = new Thread(r, "gravatar-resolver");
+            ret.setDaemon(true);
+
+            return ret;
+        });
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Gets the Gravatar URL for the specified email with the specified size.
+     *
+     * @param email the specified email
+     * @param size  the specified size
+     * @return the Gravatar URL, returns {@code null} if the avatar does not exist or has not been verified yet
+     */
+    public String getAvatarURL(final String email, final String size) {
+        final Result result = lookup(email, size);
+        if (null == result || !result.exists) {
+            return null;
+        }
+
+        return getURL(getHash(email), size);
+    }
+
+    /**
+     * Gets the Gravatar URL for the specified email with the specified size, falls back to the specified default URL.
+     * <p>
+     * The returned URL is suitable to be persisted: an avatar not verified yet is answered with a Gravatar URL
+     * carrying the default URL as its "d" parameter, so Gravatar serves the real avatar once it exists and redirects
+     * to the default one otherwise.
+     * </p>
+     *
+     * @param email      the specified email
+     * @param size       the specified size
+     * @param defaultURL the specified default URL
+     * @return the Gravatar URL, returns the specified default URL if the avatar does not exist
+     */
+    public String getAvatarURL(final String email, final String size, final String defaultURL) {
+        final Result result = lookup(email, size);
+        if (null != result && !result.exists) {
+            return defaultURL;
+        }
+
+        final String ret = getURL(getHash(email), size);
+        if (null != result) {
+            return ret;
+        }
+
+        try {
+            return ret + "&d=" + URLEncoder.encode(defaultURL, "UTF-8");
+        } catch (final UnsupportedEncodingException e) {
+            return defaultURL;
+        }
+    }
+
+    /**
+     * Clears all verification results.
+     */
+    public void clear() {
+        results.clear();
+    }
+
+    /**
+     * Looks up the verification result of the specified email, verifies it in background if it is missed or expired.
+     *
+     * @param email the specified email
+     * @param size  the specified size
+     * @return verification result, returns {@code null} if the email is blank or has not been verified yet
+     */
+    private Result lookup(final String email, final String size) {
+        if (StringUtils.isBlank(email)) {
+            return null;
+        }
+
+        final String hash = getHash(email);
+        final Result ret = results.get(hash);
+        if (null == ret || ret.expiresAt <= System.currentTimeMillis()) {
+            verifyAsync(hash, size);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the Gravatar hash of the specified email, the same as {@link Solos#getGravatarURL(String, String)} of the
+     * lower-cased email.
+     *
+     * @param email the specified email
+     * @return hash
+     */
+    private static String getHash(final String email) {
+        return DigestUtils.md5Hex(email.toLowerCase());
+    }
+
+    /**
+     * Verifies the avatar specified by the given email hash and size in background if it is not being verified.
+     *
+     * @param hash the specified email hash
+     * @param size the specified size
+     */
+    private void verifyAsync(final String hash, final String size) {
+        if (!verifying.add(hash)) {
+            return;
+        }
+
+        try {
+            workers.execute(() -> {
+                try {
+                    verify(hash, size);
+                } finally {
+                    verifying.remove(hash);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            verifying.remove(hash);
+            LOGGER.log(Level.DEBUG, "Too many Gravatar verifications pending, skips [hash={0}]", hash);
+        }
+    }
+
+    /**
+     * Verifies the avatar specified by the given email hash and size, and remembers the result.
+     *
+     * @param hash the specified email hash
+     * @param size the specified size
+     */
+    private void verify(final String hash, final String size) {
+        boolean exists = false;
+        try {
+            final HttpURLConnection conn = (HttpURLConnection) new URL(getURL(hash, size)).openConnection();
+            conn.setConnectTimeout(CONNECT_TIMEOUT);
+            conn.setReadTimeout(READ_TIMEOUT);
+            conn.setRequestProperty("User-Agent", Solos.USER_AGENT);
+
+            final int statusCode = conn.getResponseCode();
+            exists = HttpURLConnection.HTTP_OK == statusCode;
+            final InputStream stream = exists ? conn.getInputStream() : conn.getErrorStream();
+            if (null != stream) { // Drains it to keep the connection reusable
+                try (final InputStream inputStream = stream) {
+                    IOUtils.toByteArray(inputStream);
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.log(Level.DEBUG, "Can not fetch thumbnail from Gravatar [hash={0}]", hash);
+        }
+
+        final long now = System.currentTimeMillis();
+        results.put(hash, new Result(exists, now + (exists ? ttl : missTTL)));
+    }
+
+    /**
+     * Gets the Gravatar URL for the specified email hash with the specified size.
+     *
+     * @param hash the specified email hash
+     * @param size the specified size
+     * @return the Gravatar URL
+     */
+    private String getURL(final String hash, final String size) {
+        return gravatar + hash + "?s=" + size;
+    }
+
+    /**
+     * Verification result.
+     */
+    private static final class Result {
+
+        /**
+         * Whether the avatar exists.
+         */
+        private final boolean exists;
+
+        /**
+         * Expiration time.
+         */
+        private final long expiresAt;
+
+        /**
+         * Constructs a result with the specified existence and expiration time.
+         *
+         * @param exists    the specified existence
+         * @param expiresAt the specified expiration time
+         */
+        private Result(final boolean exists, final long expiresAt) {
+            this.exists = exists;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
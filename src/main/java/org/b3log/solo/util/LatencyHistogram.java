@@ -0,0 +1,184 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with log-linear buckets in microseconds.
+ * <p>
+ * Values less than {@value #LINEAR_BUCKETS} are counted exactly, larger values are counted in
+ * {@value #SUB_BUCKETS} linear sub-buckets per power of two, so a reported quantile is at most 12.5% higher than the
+ * recorded value (HdrHistogram with one significant digit). Recording is lock-free and allocates nothing.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Bits of sub-buckets.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /**
+     * Count of sub-buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Count of exact buckets.
+     */
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;
+
+    /**
+     * Max power of two, values larger than 2^41 microseconds (about 25 days) are counted in the last bucket.
+     */
+    private static final int MAX_MAGNITUDE = 40;
+
+    /**
+     * Count of buckets.
+     */
+    private static final int BUCKETS = LINEAR_BUCKETS + (MAX_MAGNITUDE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * Bucket counts.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Count of recorded values.
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Sum of recorded values.
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Max recorded value.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records the specified value.
+     *
+     * @param micros the specified value in microseconds
+     */
+    public void record(final long micros) {
+        final long value = Math.max(micros, 0);
+        counts.incrementAndGet(getIndex(value));
+        count.increment();
+        sum.add(value);
+
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Gets the count of recorded values.
+     *
+     * @return count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of recorded values.
+     *
+     * @return sum in microseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Gets the value at the specified quantile.
+     *
+     * @param quantile the specified quantile, [0, 1]
+     * @return value in microseconds, the upper bound of the bucket holding the quantile, returns {@code 0} if nothing
+     * recorded
+     */
+    public long getValueAtQuantile(final double quantile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (0 == total) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(quantile, 0), 1) * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(getUpperBound(i), max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    /**
+     * Gets the bucket index of the specified value.
+     *
+     * @param value the specified value
+     * @return bucket index
+     */
+    static int getIndex(final long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+
+        final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+
+        final int subBucket = (int) ((value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+
+        return LINEAR_BUCKETS + (magnitude - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the upper bound (inclusive) of the specified bucket.
+     *
+     * @param index the specified bucket index
+     * @return upper bound
+     */
+    static long getUpperBound(final int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+
+        final int magnitude = (index - LINEAR_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        final int subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+        final int shift = magnitude - SUB_BUCKET_BITS;
+
+        return ((long) (SUB_BUCKETS + subBucket) << shift) + (1L << shift) - 1;
+    }
+}
@@ -17,12 +17,20 @@
  */
 package org.b3log.solo.util;
 
+import com.vladsch.flexmark.ast.AutoLink;
+import com.vladsch.flexmark.ast.Link;
+import com.vladsch.flexmark.ast.LinkRef;
+import com.vladsch.flexmark.ast.MailLink;
+import com.vladsch.flexmark.html.AttributeProvider;
 import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.html.IndependentAttributeProviderFactory;
+import com.vladsch.flexmark.html.renderer.AttributablePart;
+import com.vladsch.flexmark.html.renderer.NodeRendererContext;
 import com.vladsch.flexmark.profiles.pegdown.Extensions;
 import com.vladsch.flexmark.profiles.pegdown.PegdownOptionsAdapter;
+import com.vladsch.flexmark.util.html.Attributes;
 import com.vladsch.flexmark.util.options.DataHolder;
 import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.ioc.BeanManager;
@@ -33,12 +41,10 @@ import org.b3log.latke.util.Callstacks;
 import org.b3log.latke.util.Stopwatchs;
 import org.json.JSONObject;
 import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import org.jsoup.safety.Whitelist;
 
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
@@ -51,7 +57,7 @@ import java.util.concurrent.*;
  * </p>
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 2.3.1.2, Oct 14, 2018
+ * @version 2.6.5.0, Nov 21, 2018
  * @since 0.4.5
  */
 public final class Markdowns {
@@ -66,10 +72,18 @@ public final class Markdowns {
      */
     private static final Map<String, JSONObject> MD_CACHE = new ConcurrentHashMap<>();
 
+    /**
+     * Block-level tags, an HTML having none of them is wrapped with a paragraph.
+     */
+    private static final Set<String> BLOCK_TAGS = new HashSet<>(Arrays.asList(
+            "address", "article", "aside", "blockquote", "details", "dialog", "dd", "div", "dl", "dt", "fieldset",
+            "figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hr", "li", "main",
+            "nav", "ol", "p", "pre", "section", "table", "tbody", "td", "tfoot", "th", "thead", "tr", "ul"));
+
     /**
      * Markdown to HTML timeout.
      */
-    private static final int MD_TIMEOUT = 10000;
+    public static final int MD_TIMEOUT = 10000;
 
     /**
      * Built-in MD engine options.
@@ -88,7 +102,19 @@ public final class Markdowns {
     /**
      * Built-in MD engine HTML renderer.
      */
-    private static final HtmlRenderer RENDERER = HtmlRenderer.builder(OPTIONS).build();
+    private static final HtmlRenderer RENDERER = HtmlRenderer.builder(OPTIONS).
+            attributeProviderFactory(new IndependentAttributeProviderFactory() {
+                @Override
+                public AttributeProvider create(final NodeRendererContext context) {
+                    return new LinkTargetAttributeProvider();
+                }
+            }).build();
+
+    /**
+     * Extra plain text length collected by {@link #toPlainText(java.lang.String, int)} beyond the required length,
+     * covers whitespace normalization at the tail of a partial rendering.
+     */
+    private static final int PLAIN_TEXT_MARGIN = 32;
 
     /**
      * Marked engine serve path.
@@ -96,38 +122,24 @@ public final class Markdowns {
     private static final String MARKED_ENGINE_URL = "http://localhost:8250";
 
     /**
-     * Whether marked is available.
+     * Marked engine health check period in milliseconds.
      */
-    public static boolean MARKED_AVAILABLE;
+    private static final long MARKED_HEALTH_CHECK_PERIOD = 30 * 1000;
 
-    static {
-        try {
-            final URL url = new URL(MARKED_ENGINE_URL);
-            final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setDoOutput(true);
-
-            try (final OutputStream outputStream = conn.getOutputStream()) {
-                IOUtils.write("Solo 大法好", outputStream, "UTF-8");
-            }
-
-            String html;
-            try (final InputStream inputStream = conn.getInputStream()) {
-                html = IOUtils.toString(inputStream, "UTF-8");
-            }
-
-            conn.disconnect();
-
-            MARKED_AVAILABLE = StringUtils.contains(html, "<p>Solo 大法好</p>");
+    /**
+     * Marked engine client.
+     */
+    private static final MarkedEngine MARKED = new MarkedEngine(MARKED_ENGINE_URL);
 
-            if (MARKED_AVAILABLE) {
-                LOGGER.log(Level.DEBUG, "[marked] is available, uses it for markdown processing");
-            } else {
-                LOGGER.log(Level.DEBUG, "[marked] is not available, uses built-in [flexmark] for markdown processing");
-            }
-        } catch (final Exception e) {
+    static {
+        if (MARKED.checkHealth()) {
+            LOGGER.log(Level.DEBUG, "[marked] is available, uses it for markdown processing");
+        } else {
             LOGGER.log(Level.INFO, "[marked] is not available, uses built-in [flexmark] for markdown processing. " +
                     "Please read FAQ section in user guide (https://hacpai.com/article/1492881378588) for more details.");
         }
+
+        MARKED.startHealthChecker(MARKED_HEALTH_CHECK_PERIOD);
     }
 
     /**
@@ -136,6 +148,13 @@ public final class Markdowns {
     private Markdowns() {
     }
 
+    /**
+     * Shuts down, stops the marked engine health checker.
+     */
+    public static void shutdown() {
+        MARKED.stopHealthChecker();
+    }
+
     /**
      * Converts the specified markdown text to HTML.
      *
@@ -153,60 +172,132 @@ public final class Markdowns {
             return cachedHTML;
         }
 
-        final LangPropsService langPropsService = BeanManager.getInstance().getReference(LangPropsService.class);
+        final String ret = render("Md to HTML", markdownText, () -> renderHTML(markdownText));
+        if (null == ret) {
+            final LangPropsService langPropsService = BeanManager.getInstance().getReference(LangPropsService.class);
 
-        final ExecutorService pool = Executors.newSingleThreadExecutor();
-        final long[] threadId = new long[1];
+            return langPropsService.get("contentRenderFailedLabel");
+        }
 
-        final Callable<String> call = () -> {
-            threadId[0] = Thread.currentThread().getId();
+        return ret;
+    }
 
-            String html = langPropsService.get("contentRenderFailedLabel");
+    /**
+     * Gets the plain text of the specified markdown text, stops rendering once the collected text is longer than the
+     * specified length.
+     * <p>
+     * Walks the top-level blocks of the flexmark AST and renders them one by one, so a long article only pays for the
+     * blocks of its head. The first {@code length} chars of the returned text are the same as
+     * {@code Jsoup.clean(toHTML(markdownText), Whitelist.none())}, and the whole text is the same if it is not longer
+     * than the specified length. Rendering is limited by the same timeout as {@link #toHTML(java.lang.String)}.
+     * </p>
+     *
+     * @param markdownText the specified markdown text
+     * @param length       the specified length
+     * @return plain text, returns an empty string "" if the specified markdown text is "" or {@code null}, returns
+     * the plain text of 'contentRenderFailedLabel' if timeout
+     */
+    public static String toPlainText(final String markdownText, final int length) {
+        if (StringUtils.isBlank(markdownText)) {
+            return "";
+        }
 
-            if (MARKED_AVAILABLE) {
-                try {
-                    html = toHtmlByMarked(markdownText);
-                    if (!StringUtils.startsWith(html, "<p>")) {
-                        html = "<p>" + html + "</p>";
-                    }
-                } catch (final Exception e) {
-                    LOGGER.log(Level.WARN, "Failed to use [marked] for markdown [md=" + StringUtils.substring(markdownText, 0, 256) + "]: " + e.getMessage());
+        final String ret = render("Md to plain text", markdownText, () -> {
+            try {
+                return renderPlainText(markdownText, length + PLAIN_TEXT_MARGIN);
+            } catch (final Exception e) {
+                LOGGER.log(Level.WARN, "Streaming plain text failed, renders the whole markdown instead: " + e.getMessage());
 
-                    com.vladsch.flexmark.ast.Node document = PARSER.parse(markdownText);
-                    html = RENDERER.render(document);
-                    if (!StringUtils.startsWith(html, "<p>")) {
-                        html = "<p>" + html + "</p>";
-                    }
-                }
-            } else {
-                com.vladsch.flexmark.ast.Node document = PARSER.parse(markdownText);
-                html = RENDERER.render(document);
-                if (!StringUtils.startsWith(html, "<p>")) {
-                    html = "<p>" + html + "</p>";
-                }
+                return Jsoup.clean(renderHTML(markdownText), Whitelist.none());
             }
+        });
+        if (null == ret) {
+            final LangPropsService langPropsService = BeanManager.getInstance().getReference(LangPropsService.class);
 
-            final Document doc = Jsoup.parse(html);
-            doc.select("a").forEach(a -> {
-                final String src = a.attr("href");
-                if (!StringUtils.startsWithIgnoreCase(src, Latkes.getServePath())) {
-                    a.attr("target", "_blank");
+            return Jsoup.clean(langPropsService.get("contentRenderFailedLabel"), Whitelist.none());
+        }
+
+        return ret;
+    }
+
+    /**
+     * Renders the plain text of the specified markdown text block by block, stops once the collected text is longer
+     * than the specified required length.
+     *
+     * @param markdownText the specified markdown text
+     * @param required     the specified required length
+     * @return plain text
+     */
+    private static String renderPlainText(final String markdownText, final int required) {
+        final com.vladsch.flexmark.ast.Node document = PARSER.parse(markdownText);
+        final StringBuilder htmlBuilder = new StringBuilder();
+        int sourceLength = 0;
+        int checkpoint = required;
+        com.vladsch.flexmark.ast.Node block = document.getFirstChild();
+        while (null != block) {
+            RENDERER.render(block, htmlBuilder);
+            sourceLength += block.getChars().length();
+            block = block.getNext();
+
+            // Plain text is mostly shorter than its source, cleans only when the source could be long enough
+            if (null != block && sourceLength >= checkpoint) {
+                final String ret = Jsoup.clean(htmlBuilder.toString(), Whitelist.none());
+                if (ret.length() > required) {
+                    return ret;
                 }
-            });
-            doc.outputSettings().prettyPrint(false);
 
-            String ret = doc.select("body").html();
-            ret = StringUtils.trim(ret);
+                checkpoint = sourceLength * 2;
+            }
+        }
+
+        return Jsoup.clean(htmlBuilder.toString(), Whitelist.none());
+    }
+
+    /**
+     * Converts the specified markdown text to HTML with marked if it is available, or with the built-in flexmark
+     * otherwise.
+     *
+     * @param markdownText the specified markdown text
+     * @return HTML
+     */
+    private static String renderHTML(final String markdownText) {
+        String html = null;
+        if (MARKED.allowRequest()) {
+            try {
+                html = MARKED.toHTML(markdownText);
+            } catch (final Exception e) {
+                LOGGER.log(Level.WARN, "Failed to use [marked] for markdown [md=" + StringUtils.substring(markdownText, 0, 256) + "]: " + e.getMessage());
+            }
+        }
+
+        if (null == html) {
+            return postProcess(markdownText, toHtmlByFlexmark(markdownText), false);
+        }
 
-            // cache it
-            putHTML(markdownText, ret);
+        return postProcess(markdownText, html, true);
+    }
 
-            return ret;
-        };
+    /**
+     * Runs the specified rendering of the specified markdown text in a new thread, stops the thread if it does not
+     * finish in {@link #MD_TIMEOUT} milliseconds.
+     *
+     * @param section      the specified section name for stopwatch and metrics
+     * @param markdownText the specified markdown text
+     * @param call         the specified rendering
+     * @return rendered result, returns {@code null} if timeout or failed
+     */
+    private static String render(final String section, final String markdownText, final Callable<String> call) {
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final long[] threadId = new long[1];
 
-        Stopwatchs.start("Md to HTML");
+        final long start = System.nanoTime();
+        Stopwatchs.start(section);
         try {
-            final Future<String> future = pool.submit(call);
+            final Future<String> future = pool.submit(() -> {
+                threadId[0] = Thread.currentThread().getId();
+
+                return call.call();
+            });
 
             return future.get(MD_TIMEOUT, TimeUnit.MILLISECONDS);
         } catch (final TimeoutException e) {
@@ -227,26 +318,226 @@ public final class Markdowns {
             pool.shutdownNow();
 
             Stopwatchs.end();
+            Metrics.recordSection(section, start);
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds {@code target="_blank"} to external anchors (href not starts with the serve path) of the specified HTML.
+     * <p>
+     * Scans the start tags in a single pass, anchors which have a target already are kept as they are.
+     * </p>
+     *
+     * @param html the specified HTML
+     * @return HTML
+     */
+    static String addLinkTargets(final String html) {
+        StringBuilder ret = null;
+        int copied = 0;
+        int from = 0;
+        while (true) {
+            final int start = StringUtils.indexOfIgnoreCase(html, "<a", from);
+            if (0 > start) {
+                break;
+            }
+
+            from = start + 2;
+            if (from >= html.length()) {
+                break;
+            }
+
+            final char next = html.charAt(from);
+            if ('>' != next && '/' != next && !Character.isWhitespace(next)) { // <abbr>, <article>, <aside>...
+                continue;
+            }
+
+            final int end = findTagEnd(html, from);
+            if (0 > end) {
+                break;
+            }
+
+            final String tag = html.substring(start, end);
+            from = end + 1;
+            if (null != getAttr(tag, "target")) {
+                continue;
+            }
+
+            final String href = getAttr(tag, "href");
+            if (StringUtils.startsWithIgnoreCase(href, Latkes.getServePath())) {
+                continue;
+            }
+
+            if (null == ret) {
+                ret = new StringBuilder(html.length() + 64);
+            }
+            final char beforeSlash = html.charAt(end - 2);
+            final boolean selfClosing = '/' == html.charAt(end - 1)
+                    && (Character.isWhitespace(beforeSlash) || '"' == beforeSlash || '\'' == beforeSlash);
+            final int insert = selfClosing ? end - 1 : end;
+            ret.append(html, copied, insert).append(" target=\"_blank\"");
+            copied = insert;
+        }
+
+        if (null == ret) {
+            return html;
         }
 
-        return langPropsService.get("contentRenderFailedLabel");
+        return ret.append(html, copied, html.length()).toString();
     }
 
-    private static String toHtmlByMarked(final String markdownText) throws Exception {
-        final URL url = new URL(MARKED_ENGINE_URL);
-        final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setDoOutput(true);
+    /**
+     * Checks whether the specified HTML is purely inline, that is it is not blank and has no block-level tag.
+     *
+     * @param html the specified HTML
+     * @return {@code true} if it is purely inline, returns {@code false} otherwise
+     */
+    static boolean isInline(final String html) {
+        if (StringUtils.isBlank(html)) {
+            return false;
+        }
 
-        try (final OutputStream outputStream = conn.getOutputStream()) {
-            IOUtils.write(markdownText, outputStream, "UTF-8");
+        int from = 0;
+        while (true) {
+            final int start = html.indexOf('<', from);
+            if (0 > start) {
+                return true;
+            }
+
+            int i = start + 1;
+            if (i < html.length() && '/' == html.charAt(i)) {
+                i++;
+            }
+            final int nameStart = i;
+            while (i < html.length() && Character.isLetterOrDigit(html.charAt(i))) {
+                i++;
+            }
+            if (BLOCK_TAGS.contains(html.substring(nameStart, i).toLowerCase())) {
+                return false;
+            }
+
+            from = Math.max(i, start + 1);
         }
+    }
 
-        String ret;
-        try (final InputStream inputStream = conn.getInputStream()) {
-            ret = IOUtils.toString(inputStream, "UTF-8");
+    /**
+     * Finds the closing {@code >} of a start tag from the specified index, skips quoted attribute values.
+     *
+     * @param html the specified HTML
+     * @param from the specified index
+     * @return index of the closing {@code >}, returns {@code -1} if not found
+     */
+    private static int findTagEnd(final String html, final int from) {
+        char quote = 0;
+        for (int i = from; i < html.length(); i++) {
+            final char c = html.charAt(i);
+            if (0 != quote) {
+                if (quote == c) {
+                    quote = 0;
+                }
+            } else if ('"' == c || '\'' == c) {
+                quote = c;
+            } else if ('>' == c) {
+                return i;
+            }
         }
 
-        //conn.disconnect();
+        return -1;
+    }
+
+    /**
+     * Gets value of an attribute specified by the given name from the specified start tag.
+     *
+     * @param tag  the specified start tag, for example {@code <a href="https://b3log.org"}
+     * @param name the specified attribute name, lower case
+     * @return attribute value, returns {@code null} if not found
+     */
+    private static String getAttr(final String tag, final String name) {
+        int i = 2;
+        final int len = tag.length();
+        while (i < len) {
+            while (i < len && (Character.isWhitespace(tag.charAt(i)) || '/' == tag.charAt(i))) {
+                i++;
+            }
+            final int nameStart = i;
+            while (i < len && '=' != tag.charAt(i) && '/' != tag.charAt(i) && !Character.isWhitespace(tag.charAt(i))) {
+                i++;
+            }
+            final String attrName = tag.substring(nameStart, i);
+            while (i < len && Character.isWhitespace(tag.charAt(i))) {
+                i++;
+            }
+
+            String value = "";
+            if (i < len && '=' == tag.charAt(i)) {
+                i++;
+                while (i < len && Character.isWhitespace(tag.charAt(i))) {
+                    i++;
+                }
+                if (i < len && ('"' == tag.charAt(i) || '\'' == tag.charAt(i))) {
+                    final char quote = tag.charAt(i);
+                    final int valueEnd = tag.indexOf(quote, i + 1);
+                    final int valueStop = 0 > valueEnd ? len : valueEnd;
+                    value = tag.substring(i + 1, valueStop);
+                    i = valueStop + 1;
+                } else {
+                    final int valueStart = i;
+                    while (i < len && !Character.isWhitespace(tag.charAt(i))) {
+                        i++;
+                    }
+                    value = tag.substring(valueStart, i);
+                }
+            }
+
+            if (name.equalsIgnoreCase(attrName)) {
+                return value;
+            }
+
+            if (nameStart == i) { // Guards against a stray char
+                i++;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Converts the specified markdown text to HTML with the built-in flexmark engine.
+     *
+     * @param markdownText the specified markdown text
+     * @return HTML
+     */
+    private static String toHtmlByFlexmark(final String markdownText) {
+        final com.vladsch.flexmark.ast.Node document = PARSER.parse(markdownText);
+
+        return RENDERER.render(document);
+    }
+
+    /**
+     * Post-processes the specified HTML rendered from the specified markdown text, wraps it with a paragraph if it is
+     * purely inline (such as a raw HTML snippet), adds link targets and caches the result.
+     *
+     * @param markdownText     the specified markdown text
+     * @param html             the specified HTML
+     * @param renderedByMarked whether the HTML is rendered by marked
+     * @return HTML
+     */
+    private static String postProcess(final String markdownText, final String html, final boolean renderedByMarked) {
+        String ret = html;
+        if (isInline(ret)) {
+            ret = "<p>" + StringUtils.trim(ret) + "</p>";
+        }
+
+        // Links rendered by flexmark have got their targets already, only raw HTML anchors need a scan
+        if (renderedByMarked || StringUtils.containsIgnoreCase(markdownText, "<a")) {
+            ret = addLinkTargets(ret);
+        }
+
+        ret = StringUtils.trim(ret);
+
+        // cache it
+        putHTML(markdownText, ret);
 
         return ret;
     }
@@ -279,4 +570,25 @@ public final class Markdowns {
         value.put("data", html);
         MD_CACHE.put(hash, value);
     }
+
+    /**
+     * Adds {@code target="_blank"} to external links while flexmark renders them.
+     */
+    private static final class LinkTargetAttributeProvider implements AttributeProvider {
+
+        @Override
+        public void setAttributes(final com.vladsch.flexmark.ast.Node node, final AttributablePart part, final Attributes attributes) {
+            if (AttributablePart.LINK != part) {
+                return;
+            }
+
+            if (!(node instanceof Link || node instanceof LinkRef || node instanceof AutoLink || node instanceof MailLink)) {
+                return;
+            }
+
+            if (!StringUtils.startsWithIgnoreCase(attributes.getValue("href"), Latkes.getServePath())) {
+                attributes.replaceValue("target", "_blank");
+            }
+        }
+    }
 }
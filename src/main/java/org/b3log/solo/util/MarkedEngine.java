@@ -0,0 +1,284 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <a href="https://github.com/chjj/marked">marked</a> engine client.
+ * <ul>
+ * <li>Keeps connections alive: every response is read to the end and closed without disconnecting, so the JDK
+ * keep-alive cache reuses the connections (sized by system property {@code http.maxConnections})</li>
+ * <li>Circuit breaker: opens after {@link #FAILURE_THRESHOLD} consecutive failures, then rejects requests (callers fall
+ * back to flexmark) until a health check or a trial request after {@link #OPEN_MILLIS} succeeds</li>
+ * <li>Health checker: a daemon thread probes the engine periodically</li>
+ * </ul>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.1.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class MarkedEngine {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(MarkedEngine.class);
+
+    /**
+     * Consecutive failures to open the circuit.
+     */
+    static final int FAILURE_THRESHOLD = 3;
+
+    /**
+     * Open duration of the circuit in milliseconds, a trial request is allowed after it.
+     */
+    static final long OPEN_MILLIS = 30 * 1000;
+
+    /**
+     * Connect timeout in milliseconds.
+     */
+    private static final int CONNECT_TIMEOUT = 1000;
+
+    /**
+     * Read timeout in milliseconds.
+     */
+    private static final int READ_TIMEOUT = 10000;
+
+    /**
+     * Health check markdown text.
+     */
+    private static final String HEALTH_CHECK_MD = "Solo 大法好";
+
+    /**
+     * Engine serve path.
+     */
+    private final String servePath;
+
+    /**
+     * Consecutive failure count.
+     */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Whether the circuit is open.
+     */
+    private volatile boolean open = true;
+
+    /**
+     * Time the circuit opened at.
+     */
+    private volatile long openedAt;
+
+    /**
+     * Whether a trial request is in flight, only one is allowed while the circuit is open.
+     */
+    private final AtomicBoolean trying = new AtomicBoolean();
+
+    /**
+     * Health checker.
+     */
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * Constructs a marked engine client with the specified serve path, the circuit is open until the first successful
+     * health check or request.
+     *
+     * @param servePath the specified serve path, for example http://localhost:8250
+     */
+    public MarkedEngine(final String servePath) {
+        this.servePath = servePath;
+    }
+
+    /**
+     * Checks whether the engine is available, that is the circuit is closed.
+     *
+     * @return {@code true} if it is available, returns {@code false} otherwise
+     */
+    public boolean isAvailable() {
+        return !open;
+    }
+
+    /**
+     * Checks whether a request is allowed by the circuit, takes the trial slot if the circuit is open and the open
+     * duration elapsed.
+     *
+     * @return {@code true} if allowed, returns {@code false} otherwise
+     */
+    public boolean allowRequest() {
+        if (!open) {
+            return true;
+        }
+
+        return System.currentTimeMillis() - openedAt >= OPEN_MILLIS && trying.compareAndSet(false, true);
+    }
+
+    /**
+     * Converts the specified markdown text to HTML.
+     *
+     * @param markdownText the specified markdown text
+     * @return HTML
+     * @throws IOException io exception, the failure is recorded by the circuit
+     */
+    public String toHTML(final String markdownText) throws IOException {
+        try {
+            final String ret = post(servePath, "text/plain;charset=UTF-8", markdownText);
+            onSuccess();
+
+            return ret;
+        } catch (final IOException e) {
+            onFailure();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Checks the health of the engine, closes the circuit if it is healthy, records a failure otherwise.
+     *
+     * @return {@code true} if healthy, returns {@code false} otherwise
+     */
+    public boolean checkHealth() {
+        try {
+            final String html = post(servePath, "text/plain;charset=UTF-8", HEALTH_CHECK_MD);
+            if (StringUtils.contains(html, "<p>" + HEALTH_CHECK_MD + "</p>")) {
+                onSuccess();
+
+                return true;
+            }
+
+            LOGGER.log(Level.WARN, "[marked] health check got unexpected response [" + StringUtils.substring(html, 0, 64) + "]");
+        } catch (final IOException e) {
+            LOGGER.log(Level.DEBUG, "[marked] health check failed: " + e.getMessage());
+        }
+
+        onFailure();
+
+        return false;
+    }
+
+    /**
+     * Starts the health checker with the specified period.
+     *
+     * @param periodMillis the specified period in milliseconds
+     */
+    public synchronized void startHealthChecker(final long periodMillis) {
+        if (null != healthChecker) {
+            return;
+        }
+
+        healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread ret = new Thread(r, "marked-health-checker");
+            ret.setDaemon(true);
+
+            return ret;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the health checker.
+     */
+    public synchronized void stopHealthChecker() {
+        if (null == healthChecker) {
+            return;
+        }
+
+        healthChecker.shutdownNow();
+        healthChecker = null;
+    }
+
+    /**
+     * Records a success, closes the circuit.
+     */
+    private void onSuccess() {
+        failures.set(0);
+        if (open) {
+            open = false;
+            LOGGER.log(Level.INFO, "[marked] is available, uses it for markdown processing");
+        }
+        trying.set(false);
+    }
+
+    /**
+     * Records a failure, opens the circuit if the failures reach the threshold or a trial request failed.
+     */
+    private void onFailure() {
+        final int count = failures.incrementAndGet();
+        if (open) {
+            openedAt = System.currentTimeMillis();
+        } else if (FAILURE_THRESHOLD <= count) {
+            openedAt = System.currentTimeMillis();
+            open = true;
+            LOGGER.log(Level.WARN, "[marked] failed [" + count + "] times in a row, uses built-in [flexmark] for markdown processing");
+        }
+        trying.set(false);
+    }
+
+    /**
+     * Posts the specified body to the specified URL.
+     *
+     * @param url         the specified URL
+     * @param contentType the specified content type
+     * @param body        the specified body
+     * @return response body
+     * @throws IOException io exception
+     */
+    private static String post(final String url, final String contentType, final String body) throws IOException {
+        final HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(CONNECT_TIMEOUT);
+        conn.setReadTimeout(READ_TIMEOUT);
+        conn.setDoOutput(true);
+        conn.setRequestMethod("POST");
+        conn.setRequestProperty("Content-Type", contentType);
+
+        try (final OutputStream outputStream = conn.getOutputStream()) {
+            IOUtils.write(body, outputStream, "UTF-8");
+        }
+
+        final int statusCode = conn.getResponseCode();
+        if (HttpURLConnection.HTTP_OK != statusCode) {
+            final InputStream errorStream = conn.getErrorStream();
+            if (null != errorStream) { // Drains it to keep the connection reusable
+                try (final InputStream inputStream = errorStream) {
+                    IOUtils.toByteArray(inputStream);
+                }
+            }
+
+            throw new IOException("[marked] responded [" + statusCode + "] for [" + url + "]");
+        }
+
+        try (final InputStream inputStream = conn.getInputStream()) {
+            return IOUtils.toString(inputStream, "UTF-8");
+        }
+    }
+}
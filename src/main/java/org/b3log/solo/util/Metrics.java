@@ -0,0 +1,441 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.b3log.latke.Keys;
+import org.b3log.latke.Latkes;
+import org.b3log.latke.ioc.Bean;
+import org.b3log.latke.ioc.BeanManager;
+import org.b3log.latke.logging.Level;
+import org.b3log.latke.logging.Logger;
+import org.b3log.latke.servlet.URIPatternMode;
+import org.b3log.latke.servlet.annotation.RequestProcessing;
+import org.b3log.latke.servlet.annotation.RequestProcessor;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Latency metrics, always-on histograms of routes, named sections and repository loads.
+ * <p>
+ * A request is attributed to the {@link RequestProcessing} pattern matching its URI, routes are resolved from the
+ * request processors registered in the bean manager. Recording allocates nothing once a series exists.
+ * </p>
+ * <p>
+ * Repository loads ({@code solo_repository_load_duration_seconds}) are the queries sent by
+ * {@link org.b3log.solo.repository.RequestLoader} on cache misses: articles and users by id or ids, options by id or
+ * category. Other repository queries (lists, counts, writes) are not timed here, they are covered by the sections and
+ * routes running them.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.2.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class Metrics {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Metrics.class);
+
+    /**
+     * Route of requests matching no request processor, static resources for example.
+     */
+    public static final String OTHER_ROUTE = "other";
+
+    /**
+     * Exported quantiles.
+     */
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * Max count of resolved request URIs to cache.
+     */
+    private static final int MAX_RESOLVED_URIS = 1024;
+
+    /**
+     * Route histograms, &lt;route, &lt;method, histogram&gt;&gt;.
+     */
+    private static final Map<String, Map<String, LatencyHistogram>> ROUTES = new ConcurrentHashMap<>();
+
+    /**
+     * Section histograms, &lt;section, histogram&gt;.
+     */
+    private static final Map<String, LatencyHistogram> SECTIONS = new ConcurrentHashMap<>();
+
+    /**
+     * Repository load histograms, &lt;table, histogram&gt;.
+     */
+    private static final Map<String, LatencyHistogram> LOADS = new ConcurrentHashMap<>();
+
+    /**
+     * Resolved request URIs, &lt;requestURI, route&gt;, least recently used evicted.
+     */
+    private static final Map<String, String> RESOLVED_URIS = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+            return size() > MAX_RESOLVED_URIS;
+        }
+    });
+
+    /**
+     * Request start time (nanoseconds) of the current thread.
+     */
+    private static final ThreadLocal<long[]> REQUEST_START = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Private constructor.
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Starts timing the request of the current thread.
+     */
+    public static void startRequest() {
+        REQUEST_START.get()[0] = System.nanoTime();
+    }
+
+    /**
+     * Ends timing the specified request, records the latency to its route.
+     *
+     * @param request the specified request
+     */
+    public static void endRequest(final HttpServletRequest request) {
+        final long[] start = REQUEST_START.get();
+        if (0 == start[0]) {
+            return;
+        }
+
+        final long elapsed = System.nanoTime() - start[0];
+        start[0] = 0;
+
+        final String route = resolveRoute(getRequestURI(request));
+        Map<String, LatencyHistogram> methods = ROUTES.get(route);
+        if (null == methods) {
+            methods = ROUTES.computeIfAbsent(route, key -> new ConcurrentHashMap<>());
+        }
+
+        getHistogram(methods, request.getMethod()).record(elapsed / 1000);
+    }
+
+    /**
+     * Records the latency of the specified section.
+     *
+     * @param section the specified section, should be a constant
+     * @param start   the specified start time in nanoseconds, returned by {@link System#nanoTime()}
+     */
+    public static void recordSection(final String section, final long start) {
+        getHistogram(SECTIONS, section).record((System.nanoTime() - start) / 1000);
+    }
+
+    /**
+     * Records the latency of a repository load of the specified table.
+     *
+     * @param table the specified table
+     * @param start the specified start time in nanoseconds, returned by {@link System#nanoTime()}
+     */
+    public static void recordLoad(final String table, final long start) {
+        getHistogram(LOADS, table).record((System.nanoTime() - start) / 1000);
+    }
+
+    /**
+     * Gets the metrics in Prometheus text exposition format.
+     *
+     * @return metrics text
+     */
+    public static String getPrometheusText() {
+        final StringBuilder builder = new StringBuilder();
+
+        appendHeader(builder, "solo_http_request_duration_seconds", "Request latency by route.");
+        for (final Map.Entry<String, Map<String, LatencyHistogram>> route : new TreeMap<>(ROUTES).entrySet()) {
+            for (final Map.Entry<String, LatencyHistogram> method : new TreeMap<>(route.getValue()).entrySet()) {
+                appendSummary(builder, "solo_http_request_duration_seconds",
+                        "route=\"" + escape(route.getKey()) + "\",method=\"" + escape(method.getKey()) + "\"", method.getValue());
+            }
+        }
+
+        appendHeader(builder, "solo_section_duration_seconds", "Latency of named sections.");
+        for (final Map.Entry<String, LatencyHistogram> section : new TreeMap<>(SECTIONS).entrySet()) {
+            appendSummary(builder, "solo_section_duration_seconds",
+                    "section=\"" + escape(section.getKey()) + "\"", section.getValue());
+        }
+
+        appendHeader(builder, "solo_repository_load_duration_seconds", "Latency of request loader queries (records by id or ids, options by category) by table.");
+        for (final Map.Entry<String, LatencyHistogram> load : new TreeMap<>(LOADS).entrySet()) {
+            appendSummary(builder, "solo_repository_load_duration_seconds",
+                    "table=\"" + escape(load.getKey()) + "\"", load.getValue());
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Clears all histograms.
+     */
+    public static void clear() {
+        ROUTES.clear();
+        SECTIONS.clear();
+        LOADS.clear();
+    }
+
+    /**
+     * Resolves the route of the specified request URI.
+     *
+     * @param requestURI the specified request URI, without the context path
+     * @return route, the matched {@link RequestProcessing} pattern, returns {@value #OTHER_ROUTE} if not matched
+     */
+    public static String resolveRoute(final String requestURI) {
+        String ret = RESOLVED_URIS.get(requestURI);
+        if (null != ret) {
+            return ret;
+        }
+
+        ret = OTHER_ROUTE;
+        for (final Route route : RoutesHolder.ROUTES) {
+            if (route.matches(requestURI)) {
+                ret = route.pattern;
+
+                break;
+            }
+        }
+        RESOLVED_URIS.put(requestURI, ret);
+
+        return ret;
+    }
+
+    /**
+     * Gets the request URI of the specified request, the URI dispatched to if the request is forwarded by a filter
+     * (permalinks for example), without the context path.
+     *
+     * @param request the specified request
+     * @return request URI
+     */
+    private static String getRequestURI(final HttpServletRequest request) {
+        String ret = (String) request.getAttribute(Keys.HttpRequest.REQUEST_URI);
+        if (null == ret) {
+            ret = request.getRequestURI();
+        }
+
+        final String contextPath = Latkes.getContextPath();
+        if (StringUtils.isNotEmpty(contextPath) && ret.startsWith(contextPath)) {
+            ret = ret.substring(contextPath.length());
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the histogram specified by the given key from the specified histograms, creates it if not found.
+     *
+     * @param histograms the specified histograms
+     * @param key        the given key
+     * @return histogram
+     */
+    private static LatencyHistogram getHistogram(final Map<String, LatencyHistogram> histograms, final String key) {
+        final LatencyHistogram ret = histograms.get(key);
+        if (null != ret) {
+            return ret;
+        }
+
+        return histograms.computeIfAbsent(key, k -> new LatencyHistogram());
+    }
+
+    /**
+     * Appends the header of the specified metric.
+     *
+     * @param builder the specified builder
+     * @param name    the specified metric name
+     * @param help    the specified help text
+     */
+    private static void appendHeader(final StringBuilder builder, final String name, final String help) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(" summary\n");
+    }
+
+    /**
+     * Appends the specified histogram as a summary.
+     *
+     * @param builder   the specified builder
+     * @param name      the specified metric name
+     * @param labels    the specified labels
+     * @param histogram the specified histogram
+     */
+    private static void appendSummary(final StringBuilder builder, final String name, final String labels,
+                                      final LatencyHistogram histogram) {
+        for (final double quantile : QUANTILES) {
+            builder.append(name).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ").
+                    append(toSeconds(histogram.getValueAtQuantile(quantile))).append('\n');
+        }
+        builder.append(name).append("_sum{").append(labels).append("} ").append(toSeconds(histogram.getSum())).append('\n');
+        builder.append(name).append("_count{").append(labels).append("} ").append(histogram.getCount()).append('\n');
+    }
+
+    /**
+     * Converts the specified microseconds to seconds.
+     *
+     * @param micros the specified microseconds
+     * @return seconds
+     */
+    private static double toSeconds(final long micros) {
+        return micros / 1000000D;
+    }
+
+    /**
+     * Escapes the specified label value.
+     *
+     * @param value the specified label value
+     * @return escaped label value
+     */
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Holds the routes, resolves them once on first use.
+     */
+    private static final class RoutesHolder {
+
+        /**
+         * Routes, exact patterns first, then ant-style patterns, then regular expressions.
+         */
+        private static final List<Route> ROUTES = loadRoutes();
+
+        /**
+         * Loads routes from the request processors registered in the bean manager, the ones the dispatcher serves.
+         *
+         * @return routes
+         */
+        private static List<Route> loadRoutes() {
+            final List<Route> ret = new ArrayList<>();
+            try {
+                for (final Bean<?> bean : BeanManager.getInstance().getBeans()) {
+                    final Class<?> clazz = bean.getBeanClass();
+                    if (!clazz.isAnnotationPresent(RequestProcessor.class)) {
+                        continue;
+                    }
+
+                    for (final Method method : clazz.getDeclaredMethods()) {
+                        final RequestProcessing requestProcessing = method.getAnnotation(RequestProcessing.class);
+                        if (null == requestProcessing) {
+                            continue;
+                        }
+
+                        final boolean regex = URIPatternMode.REGEX == requestProcessing.uriPatternsMode();
+                        for (final String pattern : requestProcessing.value()) {
+                            ret.add(new Route(pattern, regex));
+                        }
+                    }
+                }
+            } catch (final Exception e) {
+                LOGGER.log(Level.ERROR, "Loads routes failed", e);
+            }
+
+            if (ret.isEmpty()) {
+                LOGGER.log(Level.WARN, "Not found any request processor, requests are recorded as route [" + OTHER_ROUTE + "]");
+            }
+
+            ret.sort(Comparator.comparingInt(route -> route.order));
+
+            return ret;
+        }
+    }
+
+    /**
+     * Route.
+     */
+    private static final class Route {
+
+        /**
+         * {@link RequestProcessing} pattern.
+         */
+        private final String pattern;
+
+        /**
+         * Compiled pattern.
+         */
+        private final Pattern compiled;
+
+        /**
+         * Match order, 0 for exact patterns, 1 for ant-style patterns and 2 for regular expressions.
+         */
+        private final int order;
+
+        /**
+         * Constructs a route with the specified pattern.
+         *
+         * @param pattern the specified pattern
+         * @param regex   whether the specified pattern is a regular expression
+         */
+        private Route(final String pattern, final boolean regex) {
+            this.pattern = pattern;
+            if (regex) {
+                compiled = Pattern.compile(pattern);
+                order = 2;
+            } else {
+                compiled = Pattern.compile(antToRegex(pattern));
+                order = StringUtils.containsAny(pattern, "*?{") ? 1 : 0;
+            }
+        }
+
+        /**
+         * Determines whether the specified request URI matches this route.
+         *
+         * @param requestURI the specified request URI
+         * @return {@code true} if matches, returns {@code false} otherwise
+         */
+        private boolean matches(final String requestURI) {
+            return compiled.matcher(requestURI).matches();
+        }
+
+        /**
+         * Converts the specified ant-style pattern to a regular expression, "{var}" matches one path segment.
+         *
+         * @param pattern the specified ant-style pattern
+         * @return regular expression
+         */
+        private static String antToRegex(final String pattern) {
+            final StringBuilder ret = new StringBuilder();
+            for (int i = 0; i < pattern.length(); i++) {
+                final char c = pattern.charAt(i);
+                if ('*' == c) {
+                    if (i + 1 < pattern.length() && '*' == pattern.charAt(i + 1)) {
+                        ret.append(".*");
+                        i++;
+                    } else {
+                        ret.append("[^/]*");
+                    }
+                } else if ('?' == c) {
+                    ret.append("[^/]");
+                } else if ('{' == c && pattern.indexOf('}', i) > i) {
+                    ret.append("[^/]+");
+                    i = pattern.indexOf('}', i);
+                } else {
+                    ret.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+
+            return ret.toString();
+        }
+    }
+}
@@ -40,7 +40,9 @@ import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
@@ -49,7 +51,7 @@ import java.util.ResourceBundle;
  * Solo utilities.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.5.0.1, Oct 16, 2018
+ * @version 1.6.0.0, Nov 21, 2018
  * @since 2.8.0
  */
 public final class Solos {
@@ -104,6 +106,31 @@ public final class Solos {
      */
     private static final int COOKIE_EXPIRY = 60 * 60 * 24 * 30;
 
+    /**
+     * Request attribute name of the memoized current user, {@link JSONObject#NULL} if the request is anonymous.
+     */
+    private static final String CURRENT_USER = Solos.class.getName() + ".currentUser";
+
+    /**
+     * Time to live of a verified token in milliseconds.
+     */
+    private static final long VERIFIED_TOKEN_TTL = 1000 * 60 * 5;
+
+    /**
+     * Max count of verified tokens to cache.
+     */
+    private static final int MAX_VERIFIED_TOKENS = 1024;
+
+    /**
+     * Verified tokens, &lt;cookieValue, verifiedToken&gt;, saves the decryption of the auth cookie.
+     */
+    private static final Map<String, VerifiedToken> VERIFIED_TOKENS = Collections.synchronizedMap(new LinkedHashMap<String, VerifiedToken>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, VerifiedToken> eldest) {
+            return size() > MAX_VERIFIED_TOKENS;
+        }
+    });
+
     /**
      * Cookie name.
      */
@@ -164,12 +191,34 @@ public final class Solos {
 
     /**
      * Gets the current logged-in user.
+     * <p>
+     * The user is resolved once per request and memoized as a request attribute.
+     * </p>
      *
      * @param request  the specified request
      * @param response the specified response
      * @return the current logged-in user, returns {@code null} if not found
      */
     public static JSONObject getCurrentUser(final HttpServletRequest request, final HttpServletResponse response) {
+        final Object memoized = request.getAttribute(CURRENT_USER);
+        if (null != memoized) {
+            return JSONObject.NULL == memoized ? null : (JSONObject) memoized;
+        }
+
+        final JSONObject ret = resolveCurrentUser(request, response);
+        request.setAttribute(CURRENT_USER, null == ret ? JSONObject.NULL : ret);
+
+        return ret;
+    }
+
+    /**
+     * Resolves the current logged-in user from the auth cookie of the specified request.
+     *
+     * @param request  the specified request
+     * @param response the specified response
+     * @return the current logged-in user, returns {@code null} if not found
+     */
+    private static JSONObject resolveCurrentUser(final HttpServletRequest request, final HttpServletResponse response) {
         final Cookie[] cookies = request.getCookies();
         if (null == cookies || 0 == cookies.length) {
             return null;
@@ -184,27 +233,39 @@ public final class Solos {
                     continue;
                 }
 
-                final String value = Crypts.decryptByAES(cookie.getValue(), COOKIE_SECRET);
-                final JSONObject cookieJSONObject = new JSONObject(value);
+                final String cookieValue = cookie.getValue();
+                VerifiedToken verifiedToken = VERIFIED_TOKENS.get(cookieValue);
+                final boolean cached = null != verifiedToken && verifiedToken.expiresAt > System.currentTimeMillis();
+                if (!cached) {
+                    final String value = Crypts.decryptByAES(cookieValue, COOKIE_SECRET);
+                    final JSONObject cookieJSONObject = new JSONObject(value);
+                    final String token = cookieJSONObject.optString(Keys.TOKEN);
+                    verifiedToken = new VerifiedToken(cookieJSONObject.optString(Keys.OBJECT_ID),
+                            StringUtils.substringBeforeLast(token, ":"));
+                }
 
-                final String userId = cookieJSONObject.optString(Keys.OBJECT_ID);
-                if (StringUtils.isBlank(userId)) {
+                if (StringUtils.isBlank(verifiedToken.userId)) {
                     break;
                 }
 
-                JSONObject user = userRepository.get(userId);
+                JSONObject user = userRepository.get(verifiedToken.userId);
                 if (null == user) {
+                    VERIFIED_TOKENS.remove(cookieValue);
+
                     break;
                 }
 
                 final String userPassword = user.optString(User.USER_PASSWORD);
-                final String token = cookieJSONObject.optString(Keys.TOKEN);
-                final String hashPassword = StringUtils.substringBeforeLast(token, ":");
-                if (userPassword.equals(hashPassword)) {
-                    login(user, response);
+                if (userPassword.equals(verifiedToken.hashPassword)) {
+                    if (!cached) { // Renews the cookie once per verification instead of on every request
+                        VERIFIED_TOKENS.put(cookieValue, verifiedToken);
+                        login(user, response);
+                    }
 
                     return user;
                 }
+
+                VERIFIED_TOKENS.remove(cookieValue);
             }
         } catch (final Exception e) {
             LOGGER.log(Level.TRACE, "Parses cookie failed, clears the cookie [name=" + COOKIE_NAME + "]");
@@ -257,6 +318,19 @@ public final class Solos {
      * @return {@code true} if succeed, otherwise returns {@code false}
      */
     public static void logout(final HttpServletRequest request, final HttpServletResponse response) {
+        if (null != request) {
+            request.setAttribute(CURRENT_USER, JSONObject.NULL);
+
+            final Cookie[] cookies = request.getCookies();
+            if (null != cookies) {
+                for (final Cookie cookie : cookies) {
+                    if (COOKIE_NAME.equals(cookie.getName())) {
+                        VERIFIED_TOKENS.remove(cookie.getValue());
+                    }
+                }
+            }
+        }
+
         if (null != response) {
             final Cookie cookie = new Cookie(COOKIE_NAME, null);
             cookie.setMaxAge(0);
@@ -409,4 +483,37 @@ public final class Solos {
      */
     private Solos() {
     }
+
+    /**
+     * Verified token, the decrypted auth cookie.
+     */
+    private static final class VerifiedToken {
+
+        /**
+         * User id.
+         */
+        private final String userId;
+
+        /**
+         * Hashed password.
+         */
+        private final String hashPassword;
+
+        /**
+         * Expiration time in milliseconds.
+         */
+        private final long expiresAt;
+
+        /**
+         * Constructs a verified token with the specified user id and hashed password.
+         *
+         * @param userId       the specified user id
+         * @param hashPassword the specified hashed password
+         */
+        private VerifiedToken(final String userId, final String hashPassword) {
+            this.userId = userId;
+            this.hashPassword = hashPassword;
+            expiresAt = System.currentTimeMillis() + VERIFIED_TOKEN_TTL;
+        }
+    }
 }
@@ -0,0 +1,369 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Weighted compressed (radix) trie for prefix suggestions.
+ * <p>
+ * Every node keeps the max weight of its subtree, so a suggestion walks the matched subtree best-first and stops
+ * as soon as it has collected enough results. Keys are matched case-insensitively.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 20, 2018
+ * @since 2.9.7
+ */
+public final class SuggestionTrie {
+
+    /**
+     * Root node.
+     */
+    private final Node root = new Node("");
+
+    /**
+     * Read-write lock.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds or updates an entry with the specified text, id and weight.
+     *
+     * @param text   the specified text
+     * @param id     the specified id, identifies the entry under the text
+     * @param weight the specified weight
+     */
+    public void put(final String text, final String id, final long weight) {
+        final String key = normalize(text);
+        if (StringUtils.isBlank(key)) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            insert(root, key, id, new Entry(text.trim(), weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an entry by the specified text and id.
+     *
+     * @param text the specified text
+     * @param id   the specified id
+     */
+    public void remove(final String text, final String id) {
+        final String key = normalize(text);
+        if (StringUtils.isBlank(key)) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            remove(root, key, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets suggestions (weight descending) by the specified prefix and fetch size.
+     *
+     * @param prefix    the specified prefix
+     * @param fetchSize the specified fetch size
+     * @return suggestion texts, returns an empty list if not found
+     */
+    public List<String> suggest(final String prefix, final int fetchSize) {
+        final String key = normalize(prefix);
+        if (StringUtils.isBlank(key) || 1 > fetchSize) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            final Node matched = find(key);
+            if (null == matched) {
+                return Collections.emptyList();
+            }
+
+            final Set<String> ret = new LinkedHashSet<>();
+            final PriorityQueue<Object[]> queue = new PriorityQueue<>((o1, o2) -> Long.compare((long) o2[0], (long) o1[0]));
+            queue.add(new Object[]{matched.maxWeight, matched});
+            while (!queue.isEmpty() && ret.size() < fetchSize) {
+                final Object item = queue.poll()[1];
+                if (item instanceof Entry) {
+                    ret.add(((Entry) item).text);
+
+                    continue;
+                }
+
+                final Node node = (Node) item;
+                for (final Entry entry : node.entries.values()) {
+                    queue.add(new Object[]{entry.weight, entry});
+                }
+                for (final Node child : node.children.values()) {
+                    queue.add(new Object[]{child.maxWeight, child});
+                }
+            }
+
+            return new ArrayList<>(ret);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Clears all entries.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.entries.clear();
+            root.maxWeight = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the node whose subtree holds all keys starting with the specified key.
+     *
+     * @param key the specified key
+     * @return node, returns {@code null} if not found
+     */
+    private Node find(final String key) {
+        Node node = root;
+        String remains = key;
+        while (!remains.isEmpty()) {
+            final Node child = node.children.get(remains.charAt(0));
+            if (null == child) {
+                return null;
+            }
+
+            if (child.label.startsWith(remains)) {
+                return child;
+            }
+
+            if (!remains.startsWith(child.label)) {
+                return null;
+            }
+
+            remains = remains.substring(child.label.length());
+            node = child;
+        }
+
+        return node;
+    }
+
+    /**
+     * Inserts the specified entry under the specified node.
+     *
+     * @param node  the specified node
+     * @param key   the specified key relative to the node
+     * @param id    the specified entry id
+     * @param entry the specified entry
+     */
+    private static void insert(final Node node, final String key, final String id, final Entry entry) {
+        if (key.isEmpty()) {
+            node.entries.put(id, entry);
+            node.refresh();
+
+            return;
+        }
+
+        final char first = key.charAt(0);
+        Node child = node.children.get(first);
+        if (null == child) {
+            child = new Node(key);
+            child.entries.put(id, entry);
+            child.refresh();
+            node.children.put(first, child);
+            node.refresh();
+
+            return;
+        }
+
+        final int common = commonPrefixLength(child.label, key);
+        if (common < child.label.length()) { // Splits the edge
+            final Node split = new Node(child.label.substring(0, common));
+            child.label = child.label.substring(common);
+            split.children.put(child.label.charAt(0), child);
+            split.refresh();
+            node.children.put(first, split);
+            child = split;
+        }
+
+        insert(child, key.substring(common), id, entry);
+        node.refresh();
+    }
+
+    /**
+     * Removes an entry specified by the given key and id under the specified node.
+     *
+     * @param node the specified node
+     * @param key  the specified key relative to the node
+     * @param id   the specified entry id
+     * @return {@code true} if removed, returns {@code false} otherwise
+     */
+    private static boolean remove(final Node node, final String key, final String id) {
+        if (key.isEmpty()) {
+            final boolean ret = null != node.entries.remove(id);
+            node.refresh();
+
+            return ret;
+        }
+
+        final char first = key.charAt(0);
+        final Node child = node.children.get(first);
+        if (null == child || !key.startsWith(child.label)) {
+            return false;
+        }
+
+        if (!remove(child, key.substring(child.label.length()), id)) {
+            return false;
+        }
+
+        if (child.entries.isEmpty()) {
+            if (child.children.isEmpty()) {
+                node.children.remove(first);
+            } else if (1 == child.children.size()) { // Merges the edge
+                final Node grandchild = child.children.values().iterator().next();
+                grandchild.label = child.label + grandchild.label;
+                node.children.put(first, grandchild);
+            }
+        }
+        node.refresh();
+
+        return true;
+    }
+
+    /**
+     * Gets the common prefix length of the specified two strings.
+     *
+     * @param s1 the specified string 1
+     * @param s2 the specified string 2
+     * @return common prefix length
+     */
+    private static int commonPrefixLength(final String s1, final String s2) {
+        final int max = Math.min(s1.length(), s2.length());
+        int ret = 0;
+        while (ret < max && s1.charAt(ret) == s2.charAt(ret)) {
+            ret++;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Normalizes the specified text to a trie key.
+     *
+     * @param text the specified text
+     * @return key
+     */
+    private static String normalize(final String text) {
+        if (null == text) {
+            return "";
+        }
+
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Trie node.
+     */
+    private static final class Node {
+
+        /**
+         * Edge label from the parent.
+         */
+        private String label;
+
+        /**
+         * Children, keyed by the first char of their labels.
+         */
+        private final Map<Character, Node> children = new HashMap<>();
+
+        /**
+         * Entries end at this node, keyed by entry id.
+         */
+        private final Map<String, Entry> entries = new HashMap<>();
+
+        /**
+         * Max weight of this subtree.
+         */
+        private long maxWeight;
+
+        /**
+         * Constructs a node with the specified label.
+         *
+         * @param label the specified label
+         */
+        private Node(final String label) {
+            this.label = label;
+        }
+
+        /**
+         * Recomputes the max weight of this subtree.
+         */
+        private void refresh() {
+            long max = Long.MIN_VALUE;
+            for (final Entry entry : entries.values()) {
+                max = Math.max(max, entry.weight);
+            }
+            for (final Node child : children.values()) {
+                max = Math.max(max, child.maxWeight);
+            }
+
+            maxWeight = max;
+        }
+    }
+
+    /**
+     * Trie entry.
+     */
+    private static final class Entry {
+
+        /**
+         * Display text.
+         */
+        private final String text;
+
+        /**
+         * Weight.
+         */
+        private final long weight;
+
+        /**
+         * Constructs an entry with the specified text and weight.
+         *
+         * @param text   the specified text
+         * @param weight the specified weight
+         */
+        private Entry(final String text, final long weight) {
+            this.text = text;
+            this.weight = weight;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.b3log.latke.repository.jdbc.util.Connections;
 import org.b3log.latke.repository.jdbc.util.JdbcRepositories;
 import org.b3log.solo.api.MetaWeblogAPI;
 import org.b3log.solo.cache.*;
+import org.b3log.solo.event.EventDispatcher;
 import org.b3log.solo.repository.*;
 import org.b3log.solo.service.*;
 import org.json.JSONObject;
@@ -40,7 +41,7 @@ import java.util.Locale;
  * Abstract test case.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 2.3.0.11, Sep 25, 2018
+ * @version 2.3.0.18, Nov 21, 2018
  */
 public abstract class AbstractTestCase {
 
@@ -92,6 +93,10 @@ public abstract class AbstractTestCase {
         pageCache.clear();
         final StatisticCache statisticCache = beanManager.getReference(StatisticCache.class);
         statisticCache.clear();
+        final SuggestionCache suggestionCache = beanManager.getReference(SuggestionCache.class);
+        suggestionCache.clear();
+        final TagCache tagCache = beanManager.getReference(TagCache.class);
+        tagCache.clear();
         final UserCache userCache = beanManager.getReference(UserCache.class);
         userCache.clear();
     }
@@ -139,6 +144,24 @@ public abstract class AbstractTestCase {
         return beanManager.getReference(UserRepository.class);
     }
 
+    /**
+     * Gets mail repository.
+     *
+     * @return mail repository
+     */
+    public MailRepository getMailRepository() {
+        return beanManager.getReference(MailRepository.class);
+    }
+
+    /**
+     * Gets sync repository.
+     *
+     * @return sync repository
+     */
+    public SyncRepository getSyncRepository() {
+        return beanManager.getReference(SyncRepository.class);
+    }
+
     /**
      * Gets link repository.
      *
@@ -310,6 +333,60 @@ public abstract class AbstractTestCase {
         return beanManager.getReference(PageQueryService.class);
     }
 
+    /**
+     * Gets mail management service.
+     *
+     * @return mail management service
+     */
+    public MailMgmtService getMailMgmtService() {
+        return beanManager.getReference(MailMgmtService.class);
+    }
+
+    /**
+     * Gets sync management service.
+     *
+     * @return sync management service
+     */
+    public SyncMgmtService getSyncMgmtService() {
+        return beanManager.getReference(SyncMgmtService.class);
+    }
+
+    /**
+     * Gets statistic management service.
+     *
+     * @return statistic management service
+     */
+    public StatisticMgmtService getStatisticMgmtService() {
+        return beanManager.getReference(StatisticMgmtService.class);
+    }
+
+    /**
+     * Gets statistic query service.
+     *
+     * @return statistic query service
+     */
+    public StatisticQueryService getStatisticQueryService() {
+        return beanManager.getReference(StatisticQueryService.class);
+    }
+
+    /**
+     * Gets migration service.
+     *
+     * @return migration service
+     */
+    public MigrationService getMigrationService() {
+        return beanManager.getReference(MigrationService.class);
+    }
+
+    /**
+     * Gets event dispatcher.
+     *
+     * @return event dispatcher
+     */
+    public EventDispatcher getEventDispatcher() {
+        return beanManager.getReference(EventDispatcher.class);
+    }
+
     /**
      * Gets link management service.
      *
@@ -0,0 +1,189 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.event;
+
+import org.b3log.latke.event.AbstractEventListener;
+import org.b3log.latke.event.Event;
+import org.b3log.latke.event.EventManager;
+import org.b3log.latke.ioc.BeanManager;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.solo.AbstractTestCase;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EventDispatcher} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@Test(suiteName = "service")
+public class EventDispatcherTestCase extends AbstractTestCase {
+
+    /**
+     * Test event type.
+     */
+    private static final String TEST_EVENT = "Test Event";
+
+    /**
+     * Sequence numbers received by the registered listener.
+     */
+    private final List<Integer> received = new CopyOnWriteArrayList<>();
+
+    /**
+     * Sequence numbers received by the plugin listener.
+     */
+    private final List<Integer> pluginReceived = new CopyOnWriteArrayList<>();
+
+    /**
+     * Latch counted down on each event received by the plugin listener.
+     */
+    private volatile CountDownLatch latch = new CountDownLatch(0);
+
+    /**
+     * Init.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void init() throws Exception {
+        super.init();
+
+        getEventDispatcher().register(new RecordingListener());
+        BeanManager.getInstance().getReference(EventManager.class).registerListener(new PluginListener());
+    }
+
+    /**
+     * Fire.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "init")
+    public void fire() throws Exception {
+        final EventDispatcher eventDispatcher = getEventDispatcher();
+
+        Transaction transaction = getOptionRepository().beginTransaction();
+        final JSONObject data = new JSONObject().put("seq", 1);
+        eventDispatcher.fire(new Event<>(TEST_EVENT, data), "1");
+        data.put("seq", 2); // Listeners get a snapshot
+        Assert.assertEquals(received, Collections.singletonList(1)); // Handled at once in the transaction
+        Assert.assertEquals(eventDispatcher.getStat().getLong("pending"), 0); // Plugins wait for the commit
+        Assert.assertTrue(pluginReceived.isEmpty());
+        expect(1);
+        eventDispatcher.commit(transaction);
+        await();
+        Assert.assertEquals(pluginReceived, Collections.singletonList(1));
+
+        transaction = getOptionRepository().beginTransaction();
+        eventDispatcher.fire(new Event<>(TEST_EVENT, new JSONObject().put("seq", 3)), "1");
+        eventDispatcher.rollback(transaction);
+
+        // Plugin dispatches of the same aggregate are in order, the rolled back one would be received before this
+        expect(1);
+        eventDispatcher.fire(new Event<>(TEST_EVENT, new JSONObject().put("seq", 4)), "1");
+        await();
+        Assert.assertEquals(received, Arrays.asList(1, 3, 4));
+        Assert.assertEquals(pluginReceived, Arrays.asList(1, 4));
+
+        final JSONObject stat = eventDispatcher.getStat().getJSONObject("listeners").getJSONObject("RecordingListener");
+        Assert.assertEquals(stat.getLong("count"), 3);
+        Assert.assertEquals(stat.getLong("failures"), 0);
+    }
+
+    /**
+     * Plugin dispatches of the same aggregate are in order.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "fire")
+    public void order() throws Exception {
+        pluginReceived.clear();
+        final EventDispatcher eventDispatcher = getEventDispatcher();
+        expect(100);
+        for (int i = 0; i < 100; i++) {
+            eventDispatcher.fire(new Event<>(TEST_EVENT, new JSONObject().put("seq", i)), "1");
+        }
+        await();
+
+        Assert.assertEquals(pluginReceived.size(), 100);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(pluginReceived.get(i), Integer.valueOf(i));
+        }
+    }
+
+    /**
+     * Expects the specified count of plugin events to be received by the following {@link #await()}.
+     *
+     * @param count the specified count
+     */
+    private void expect(final int count) {
+        latch = new CountDownLatch(count);
+    }
+
+    /**
+     * Waits until the expected plugin events received.
+     *
+     * @throws Exception exception
+     */
+    private void await() throws Exception {
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Records sequence numbers of the received events, registered in the event dispatcher.
+     */
+    private final class RecordingListener extends AbstractEventListener<JSONObject> {
+
+        @Override
+        public void action(final Event<JSONObject> event) {
+            received.add(event.getData().optInt("seq"));
+        }
+
+        @Override
+        public String getEventType() {
+            return TEST_EVENT;
+        }
+    }
+
+    /**
+     * Records sequence numbers of the received events and counts down the latch, registered in the event manager as
+     * plugins do.
+     */
+    private final class PluginListener extends AbstractEventListener<JSONObject> {
+
+        @Override
+        public void action(final Event<JSONObject> event) {
+            pluginReceived.add(event.getData().optInt("seq"));
+            latch.countDown();
+        }
+
+        @Override
+        public String getEventType() {
+            return TEST_EVENT;
+        }
+    }
+}
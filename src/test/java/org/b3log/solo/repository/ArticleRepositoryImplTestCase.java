@@ -34,7 +34,7 @@ import java.util.List;
  * {@link ArticleRepository} test case.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.4, Sep 16, 2018
+ * @version 1.0.0.5, Nov 21, 2018
  */
 @Test(suiteName = "repository")
 public final class ArticleRepositoryImplTestCase extends AbstractTestCase {
@@ -253,6 +253,10 @@ public final class ArticleRepositoryImplTestCase extends AbstractTestCase {
 
         List<JSONObject> articles = articleRepository.getRandomly(3);
         Assert.assertNotNull(articles);
+        Assert.assertTrue(articles.size() <= 3);
+        for (final JSONObject article : articles) {
+            Assert.assertTrue(article.optBoolean(Article.ARTICLE_IS_PUBLISHED));
+        }
     }
 
     /**
@@ -0,0 +1,99 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.repository;
+
+import org.b3log.latke.ioc.BeanManager;
+import org.b3log.latke.model.Role;
+import org.b3log.latke.model.User;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.solo.AbstractTestCase;
+import org.b3log.solo.cache.UserCache;
+import org.b3log.solo.model.UserExt;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+/**
+ * {@link RequestLoader} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@Test(suiteName = "repository")
+public final class RequestLoaderTestCase extends AbstractTestCase {
+
+    /**
+     * Tests.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void test() throws Exception {
+        final UserRepository userRepository = getUserRepository();
+
+        final Transaction transaction = userRepository.beginTransaction();
+        final String id1 = userRepository.add(user("loader1"));
+        final String id2 = userRepository.add(user("loader2"));
+        transaction.commit();
+        BeanManager.getInstance().getReference(UserCache.class).clear();
+
+        RequestLoader.start();
+        try {
+            RequestLoader.defer(userRepository.getName(), Arrays.asList(id1, id2, "not found"));
+
+            final JSONObject user1 = userRepository.get(id1);
+            Assert.assertEquals(user1.optString(User.USER_NAME), "loader1");
+            user1.put(User.USER_NAME, "changed");
+
+            Assert.assertEquals(userRepository.get(id1).optString(User.USER_NAME), "loader1");
+            Assert.assertEquals(userRepository.get(id2).optString(User.USER_NAME), "loader2");
+            Assert.assertNull(userRepository.get("not found"));
+        } finally {
+            final JSONObject stat = RequestLoader.end();
+            Assert.assertEquals(stat.optLong("loads"), 4);
+            Assert.assertEquals(stat.optLong("hits"), 3);
+            Assert.assertEquals(stat.optLong("queries"), 1);
+            Assert.assertEquals(stat.optLong("batches"), 1);
+        }
+
+        Assert.assertNull(RequestLoader.end());
+    }
+
+    /**
+     * Creates a user with the specified name.
+     *
+     * @param name the specified name
+     * @return user
+     */
+    private static JSONObject user(final String name) {
+        final JSONObject ret = new JSONObject();
+        ret.put(User.USER_NAME, name);
+        ret.put(User.USER_EMAIL, name + "@b3log.org");
+        ret.put(User.USER_PASSWORD, "pass");
+        ret.put(User.USER_URL, "https://b3log.org");
+        ret.put(User.USER_ROLE, Role.DEFAULT_ROLE);
+        ret.put(UserExt.USER_ARTICLE_COUNT, 0);
+        ret.put(UserExt.USER_PUBLISHED_ARTICLE_COUNT, 0);
+        ret.put(UserExt.USER_AVATAR, "");
+
+        return ret;
+    }
+}
@@ -26,13 +26,15 @@ import org.b3log.solo.model.Tag;
 import org.json.JSONObject;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * {@link TagRepository} test case.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.0, Dec 30, 2011
+ * @version 1.1.0.0, Nov 21, 2018
  */
 @Test(suiteName = "repository")
 public class TagRepositoryImplTestCase extends AbstractTestCase {
@@ -77,6 +79,45 @@ public class TagRepositoryImplTestCase extends AbstractTestCase {
         Assert.assertNull(notFound);
     }
 
+    /**
+     * Get By Titles.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "add")
+    public void getByTitles() throws Exception {
+        final TagRepository tagRepository = getTagRepository();
+
+        final JSONObject tag = new JSONObject();
+        tag.put(Tag.TAG_TITLE, "tag title3");
+        tag.put(Tag.TAG_REFERENCE_COUNT, 1);
+        tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, 1);
+
+        Transaction transaction = tagRepository.beginTransaction();
+        final String tagId = tagRepository.add(tag);
+        transaction.commit();
+
+        Map<String, JSONObject> found = tagRepository.getByTitles(Arrays.asList("tag title1", "tag title3", "not found"));
+        Assert.assertEquals(2, found.size());
+        Assert.assertEquals(tagId, found.get("tag title3").getString(Keys.OBJECT_ID));
+        Assert.assertNull(found.get("not found"));
+
+        tag.put(Tag.TAG_TITLE, "tag title3 renamed");
+        transaction = tagRepository.beginTransaction();
+        tagRepository.update(tagId, tag);
+        transaction.commit();
+
+        found = tagRepository.getByTitles(Arrays.asList("tag title3", "tag title3 renamed"));
+        Assert.assertEquals(1, found.size());
+        Assert.assertEquals(tagId, found.get("tag title3 renamed").getString(Keys.OBJECT_ID));
+
+        transaction = tagRepository.beginTransaction();
+        tagRepository.remove(tagId);
+        transaction.commit();
+
+        Assert.assertNull(tagRepository.getByTitle("tag title3 renamed"));
+    }
+
     /**
      * Get Most Used Tags.
      *
@@ -22,18 +22,18 @@ import org.b3log.latke.util.Requests;
 import org.b3log.solo.AbstractTestCase;
 import org.b3log.solo.model.Article;
 import org.b3log.solo.model.Common;
+import org.b3log.solo.model.Tag;
+import org.b3log.solo.repository.TagRepository;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
-import java.util.List;
-
 /**
  * {@link ArticleMgmtService} test case.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.6, Sep 16, 2018
+ * @version 1.0.0.8, Nov 21, 2018
  */
 @Test(suiteName = "service")
 public class ArticleMgmtServiceTestCase extends AbstractTestCase {
@@ -195,6 +195,62 @@ public class ArticleMgmtServiceTestCase extends AbstractTestCase {
         Assert.assertNull(updated);
     }
 
+    /**
+     * Retag Article.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "init")
+    public void retagArticle() throws Exception {
+        final ArticleMgmtService articleMgmtService = getArticleMgmtService();
+        final TagRepository tagRepository = getTagRepository();
+
+        final JSONObject requestJSONObject = new JSONObject();
+        final JSONObject article = new JSONObject();
+        requestJSONObject.put(Article.ARTICLE, article);
+
+        final JSONObject admin = getUserQueryService().getAdmin();
+        final String userId = admin.optString(Keys.OBJECT_ID);
+
+        article.put(Article.ARTICLE_AUTHOR_ID, userId);
+        article.put(Article.ARTICLE_TITLE, "article4 title");
+        article.put(Article.ARTICLE_ABSTRACT, "article4 abstract");
+        article.put(Article.ARTICLE_CONTENT, "article4 content");
+        article.put(Article.ARTICLE_TAGS_REF, "retag1, retag2");
+        article.put(Article.ARTICLE_PERMALINK, "article4 permalink");
+        article.put(Article.ARTICLE_IS_PUBLISHED, true);
+        article.put(Common.POST_TO_COMMUNITY, true);
+        article.put(Article.ARTICLE_SIGN_ID, "1");
+        article.put(Article.ARTICLE_COMMENTABLE, true);
+        article.put(Article.ARTICLE_VIEW_PWD, "");
+
+        final String articleId = articleMgmtService.addArticle(requestJSONObject);
+        Assert.assertEquals(tagRepository.getByArticleId(articleId).size(), 2);
+        Assert.assertEquals(tagRepository.getByTitle("retag1").getInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT), 1);
+
+        article.put(Keys.OBJECT_ID, articleId);
+        article.put(Article.ARTICLE_TAGS_REF, "retag2, retag3");
+        article.put(Article.ARTICLE_IS_PUBLISHED, false);
+        articleMgmtService.updateArticle(requestJSONObject);
+
+        JSONObject tag = tagRepository.getByTitle("retag1");
+        Assert.assertEquals(tag.getInt(Tag.TAG_REFERENCE_COUNT), 0);
+        Assert.assertEquals(tag.getInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT), 0);
+        tag = tagRepository.getByTitle("retag2");
+        Assert.assertEquals(tag.getInt(Tag.TAG_REFERENCE_COUNT), 1);
+        Assert.assertEquals(tag.getInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT), 0);
+        tag = tagRepository.getByTitle("retag3");
+        Assert.assertEquals(tag.getInt(Tag.TAG_REFERENCE_COUNT), 1);
+        Assert.assertEquals(tag.getInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT), 0);
+        Assert.assertEquals(tagRepository.getByArticleId(articleId).size(), 2);
+
+        articleMgmtService.removeArticle(articleId);
+
+        Assert.assertEquals(tagRepository.getByTitle("retag2").getInt(Tag.TAG_REFERENCE_COUNT), 0);
+        Assert.assertEquals(tagRepository.getByTitle("retag3").getInt(Tag.TAG_REFERENCE_COUNT), 0);
+        Assert.assertTrue(tagRepository.getByArticleId(articleId).isEmpty());
+    }
+
     /**
      * Top Article.
      *
@@ -258,26 +314,4 @@ public class ArticleMgmtServiceTestCase extends AbstractTestCase {
         articles = articleQueryService.getArticles(paginationRequest).optJSONArray(Article.ARTICLES);
         Assert.assertEquals(articles.length(), articleCount - 1);
     }
-
-    /**
-     * Update Articles Random Value.
-     *
-     * @throws Exception exception
-     */
-    @Test(dependsOnMethods = "addArticle")
-    public void updateArticlesRandomValue() throws Exception {
-        final ArticleMgmtService articleMgmtService = getArticleMgmtService();
-        final ArticleQueryService articleQueryService = getArticleQueryService();
-
-        List<JSONObject> articles = articleQueryService.getRecentArticles(10);
-        Assert.assertNotEquals(articles.size(), 0);
-
-        final JSONObject article = articles.get(0);
-        final String articleId = article.getString(Keys.OBJECT_ID);
-        double randomValue = article.getDouble(Article.ARTICLE_RANDOM_DOUBLE);
-        articleMgmtService.updateArticlesRandomValue(Integer.MAX_VALUE);
-
-        //Assert.assertNotEquals(articleQueryService.getArticleById(articleId).
-        //        getDouble(Article.ARTICLE_RANDOM_DOUBLE), randomValue);
-    }
 }
@@ -17,21 +17,25 @@
  */
 package org.b3log.solo.service;
 
+import org.apache.commons.lang.StringUtils;
 import org.b3log.latke.Keys;
+import org.b3log.latke.model.User;
 import org.b3log.solo.AbstractTestCase;
 import org.b3log.solo.model.Article;
 import org.b3log.solo.model.Tag;
+import org.b3log.solo.model.UserExt;
 import org.json.JSONObject;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * {@link ArticleQueryService} test case.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.1.0.1, Oct 15, 2018
+ * @version 1.1.0.2, Nov 21, 2018
  */
 @Test(suiteName = "service")
 public class ArticleQueryServiceTestCase extends AbstractTestCase {
@@ -79,6 +83,28 @@ public class ArticleQueryServiceTestCase extends AbstractTestCase {
         Assert.assertEquals(articles.size(), 1);
     }
 
+    /**
+     * Get Authors.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "getRecentArticles")
+    public void getAuthors() throws Exception {
+        final ArticleQueryService articleQueryService = getArticleQueryService();
+        final List<JSONObject> articles = articleQueryService.getRecentArticles(10);
+        final String authorId = articles.get(0).getString(Article.ARTICLE_AUTHOR_ID);
+
+        final Map<String, JSONObject> authors = articleQueryService.getAuthors(articles);
+        Assert.assertEquals(authors.size(), 1);
+        final JSONObject author = authors.get(authorId);
+        Assert.assertEquals(author.getString(Keys.OBJECT_ID), authorId);
+        Assert.assertEquals(author.getString(User.USER_NAME), articleQueryService.getAuthor(articles.get(0)).getString(User.USER_NAME));
+        Assert.assertTrue(StringUtils.isNotBlank(author.getString(UserExt.USER_AVATAR)));
+
+        // Memoized
+        Assert.assertEquals(articleQueryService.getAuthors(articles).get(authorId).toString(), author.toString());
+    }
+
     /**
      * Get Article.
      *
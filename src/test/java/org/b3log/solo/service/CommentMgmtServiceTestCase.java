@@ -33,7 +33,7 @@ import java.util.List;
  * {@link CommentMgmtService} test case.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.3, Sep 16, 2018
+ * @version 1.0.0.4, Nov 21, 2018
  */
 @Test(suiteName = "service")
 public class CommentMgmtServiceTestCase extends AbstractTestCase {
@@ -72,6 +72,8 @@ public class CommentMgmtServiceTestCase extends AbstractTestCase {
         final JSONObject requestJSONObject = new JSONObject();
 
         final String articleId = articles.get(0).getString(Keys.OBJECT_ID);
+        Assert.assertEquals(commentQueryService.getComments(articleId).size(), 1); // Caches the comment list
+
         requestJSONObject.put(Keys.OBJECT_ID, articleId);
         requestJSONObject.put(Comment.COMMENT_NAME, "comment name");
         requestJSONObject.put(Comment.COMMENT_EMAIL, "comment email");
@@ -84,11 +86,16 @@ public class CommentMgmtServiceTestCase extends AbstractTestCase {
         Assert.assertNotNull(addResult.getString(Comment.COMMENT_T_DATE));
         Assert.assertNotNull(addResult.getString(Comment.COMMENT_THUMBNAIL_URL));
         Assert.assertNotNull(addResult.getString(Comment.COMMENT_SHARP_URL));
+        Assert.assertTrue(addResult.getString(Comment.COMMENT_CONTENT).contains("<p>comment content</p>"));
 
         result = commentQueryService.getComments(paginationRequest);
 
         Assert.assertNotNull(result);
         Assert.assertEquals(result.getJSONArray(Comment.COMMENTS).length(), 2);
+
+        final List<JSONObject> articleComments = commentQueryService.getComments(articleId);
+        Assert.assertEquals(articleComments.size(), 2);
+        Assert.assertEquals(articleComments.get(0).getString(Keys.OBJECT_ID), addResult.getString(Keys.OBJECT_ID));
     }
 
     /**
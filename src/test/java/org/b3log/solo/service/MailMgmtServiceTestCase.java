@@ -0,0 +1,192 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.service;
+
+import org.b3log.latke.Keys;
+import org.b3log.latke.mail.MailService;
+import org.b3log.latke.mail.MailServiceFactory;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.solo.AbstractTestCase;
+import org.b3log.solo.model.Mail;
+import org.b3log.solo.repository.MailRepository;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link MailMgmtService} test case, sends mails with an in-JVM mail service stand-in.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@Test(suiteName = "service")
+public class MailMgmtServiceTestCase extends AbstractTestCase {
+
+    /**
+     * Mail service stand-in.
+     */
+    private final StandInMailService standIn = new StandInMailService();
+
+    /**
+     * Init.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void init() throws Exception {
+        super.init();
+
+        final MailMgmtService mailMgmtService = getMailMgmtService();
+        mailMgmtService.stop(); // Dispatches manually
+        mailMgmtService.setMailService(standIn);
+    }
+
+    /**
+     * Queue and dispatch.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "init")
+    public void queue() throws Exception {
+        final MailMgmtService mailMgmtService = getMailMgmtService();
+        mailMgmtService.queue("comment_1", message("New comment"));
+        mailMgmtService.queue("comment_1", message("New comment")); // Duplicated
+        mailMgmtService.queue("comment_2", message("Another comment"));
+
+        Assert.assertEquals(mailMgmtService.dispatch(), 2);
+        Assert.assertEquals(standIn.sent.size(), 2);
+        Assert.assertEquals(standIn.sent.get(0).getSubject(), "New comment");
+        Assert.assertTrue(standIn.sent.get(0).getRecipients().contains("reader@b3log.org"));
+
+        final JSONObject mail = getMailRepository().getByKey("comment_1");
+        Assert.assertEquals(mail.getInt(Mail.MAIL_STATUS), Mail.MAIL_STATUS_C_SENT);
+
+        Assert.assertEquals(mailMgmtService.dispatch(), 0);
+        Assert.assertEquals(standIn.sent.size(), 2);
+    }
+
+    /**
+     * Retry with backoff.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "queue")
+    public void retry() throws Exception {
+        final MailMgmtService mailMgmtService = getMailMgmtService();
+        final MailRepository mailRepository = getMailRepository();
+        standIn.down = true;
+        mailMgmtService.queue("reply_1", message("New reply"));
+
+        Assert.assertEquals(mailMgmtService.dispatch(), 0);
+        JSONObject mail = mailRepository.getByKey("reply_1");
+        Assert.assertEquals(mail.getInt(Mail.MAIL_STATUS), Mail.MAIL_STATUS_C_PENDING);
+        Assert.assertEquals(mail.getInt(Mail.MAIL_RETRIES), 1);
+        Assert.assertTrue(mail.getLong(Mail.MAIL_NEXT_TIME) > System.currentTimeMillis());
+
+        // Not due yet
+        standIn.down = false;
+        Assert.assertEquals(mailMgmtService.dispatch(), 0);
+
+        // Due
+        mail.put(Mail.MAIL_NEXT_TIME, 0L);
+        update(mail);
+        Assert.assertEquals(mailMgmtService.dispatch(), 1);
+        Assert.assertEquals(mailRepository.getByKey("reply_1").getInt(Mail.MAIL_STATUS), Mail.MAIL_STATUS_C_SENT);
+
+        // Gives up
+        standIn.down = true;
+        mailMgmtService.queue("reply_2", message("Another reply"));
+        for (int i = 0; i < MailMgmtService.MAX_RETRIES; i++) {
+            mail = mailRepository.getByKey("reply_2");
+            mail.put(Mail.MAIL_NEXT_TIME, 0L);
+            update(mail);
+            mailMgmtService.dispatch();
+        }
+        mail = mailRepository.getByKey("reply_2");
+        Assert.assertEquals(mail.getInt(Mail.MAIL_STATUS), Mail.MAIL_STATUS_C_FAILED);
+        Assert.assertEquals(mail.getInt(Mail.MAIL_RETRIES), MailMgmtService.MAX_RETRIES);
+    }
+
+    /**
+     * Restores the mail service.
+     */
+    @AfterClass
+    public void restoreMailService() {
+        getMailMgmtService().setMailService(MailServiceFactory.getMailService());
+    }
+
+    /**
+     * Updates the specified mail.
+     *
+     * @param mail the specified mail
+     * @throws Exception exception
+     */
+    private void update(final JSONObject mail) throws Exception {
+        final MailRepository mailRepository = getMailRepository();
+        final Transaction transaction = mailRepository.beginTransaction();
+        mailRepository.update(mail.getString(Keys.OBJECT_ID), mail);
+        transaction.commit();
+    }
+
+    /**
+     * Builds a message with the specified subject.
+     *
+     * @param subject the specified subject
+     * @return message
+     */
+    private static MailService.Message message(final String subject) {
+        final MailService.Message ret = new MailService.Message();
+        ret.setFrom("admin@b3log.org");
+        ret.addRecipient("reader@b3log.org");
+        ret.setSubject(subject);
+        ret.setHtmlBody("<p>" + subject + "</p>");
+
+        return ret;
+    }
+
+    /**
+     * Mail service stand-in, records sent messages and fails while it is down.
+     */
+    private static final class StandInMailService implements MailService {
+
+        /**
+         * Sent messages.
+         */
+        private final List<Message> sent = new CopyOnWriteArrayList<>();
+
+        /**
+         * Whether it is down.
+         */
+        private volatile boolean down;
+
+        @Override
+        public void send(final Message message) throws IOException {
+            if (down) {
+                throw new IOException("SMTP server is down");
+            }
+
+            sent.add(message);
+        }
+    }
+}
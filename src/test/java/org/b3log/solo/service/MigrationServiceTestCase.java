@@ -0,0 +1,115 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.service;
+
+import org.b3log.latke.Keys;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.latke.service.ServiceException;
+import org.b3log.solo.AbstractTestCase;
+import org.b3log.solo.model.Tag;
+import org.b3log.solo.repository.TagRepository;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * {@link MigrationService} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@Test(suiteName = "service")
+public class MigrationServiceTestCase extends AbstractTestCase {
+
+    /**
+     * Init.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void init() throws Exception {
+        super.init();
+    }
+
+    /**
+     * Migrate.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "init")
+    public void migrate() throws Exception {
+        final MigrationService migrationService = getMigrationService();
+        final TagRepository tagRepository = getTagRepository();
+
+        final Transaction transaction = tagRepository.beginTransaction();
+        for (int i = 0; i < 3; i++) {
+            final JSONObject tag = new JSONObject();
+            tag.put(Tag.TAG_TITLE, "migration tag" + i);
+            tag.put(Tag.TAG_REFERENCE_COUNT, 0);
+            tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, 0);
+            tagRepository.add(tag);
+        }
+        transaction.commit();
+
+        final List<String> migrated = new ArrayList<>();
+        final boolean[] failing = {true};
+        final AbstractMigration migration = new AbstractMigration("test-tags", tagRepository.getName(), true) {
+            @Override
+            public int getChunkSize() {
+                return 1;
+            }
+
+            @Override
+            public String[] getColumns() {
+                return new String[]{Tag.TAG_TITLE};
+            }
+
+            @Override
+            public void migrate(final Connection connection, final List<JSONObject> rows) {
+                if (failing[0] && 1 == migrated.size()) {
+                    throw new IllegalStateException("Interrupted");
+                }
+
+                migrated.add(rows.get(0).optString(Keys.OBJECT_ID));
+                Assert.assertFalse(rows.get(0).optString(Tag.TAG_TITLE).isEmpty());
+            }
+        };
+
+        migrationService.schedule(migration);
+        Assert.assertEquals(migrationService.getCheckpoint("test-tags"), "");
+
+        try {
+            migrationService.migrate(migration);
+            Assert.fail("Migration should be interrupted");
+        } catch (final ServiceException e) {
+            Assert.assertEquals(migrationService.getCheckpoint("test-tags"), migrated.get(0));
+        }
+
+        failing[0] = false;
+        Assert.assertEquals(migrationService.migrate(migration), tagRepository.count() - 1);
+        Assert.assertNull(migrationService.getCheckpoint("test-tags"));
+        Assert.assertEquals(migrated.size(), tagRepository.count());
+        Assert.assertEquals(new HashSet<>(migrated).size(), migrated.size());
+    }
+}
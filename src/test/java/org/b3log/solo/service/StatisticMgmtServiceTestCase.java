@@ -0,0 +1,123 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.service;
+
+import org.b3log.latke.repository.Transaction;
+import org.b3log.solo.AbstractTestCase;
+import org.b3log.solo.model.Option;
+import org.b3log.solo.repository.OptionRepository;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link StatisticMgmtService} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.2.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@Test(suiteName = "service")
+public class StatisticMgmtServiceTestCase extends AbstractTestCase {
+
+    /**
+     * Init.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void init() throws Exception {
+        super.init();
+    }
+
+    /**
+     * Commit.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "init")
+    public void commit() throws Exception {
+        final StatisticMgmtService statisticMgmtService = getStatisticMgmtService();
+        final StatisticQueryService statisticQueryService = getStatisticQueryService();
+        final OptionRepository optionRepository = getOptionRepository();
+        final int articleCnt = statisticQueryService.getBlogArticleCount();
+        final int commentCnt = statisticQueryService.getBlogCommentCount();
+
+        final Transaction transaction = optionRepository.beginTransaction();
+        statisticMgmtService.incBlogArticleCount();
+        statisticMgmtService.incBlogArticleCount();
+        statisticMgmtService.addBlogCommentCount(5);
+        statisticMgmtService.decBlogCommentCount();
+        Assert.assertEquals(statisticQueryService.getBlogArticleCount(), articleCnt + 2); // Reads its own changes
+        Assert.assertEquals(optionRepository.get(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT).optInt(Option.OPTION_VALUE), articleCnt);
+
+        statisticMgmtService.commit(transaction);
+
+        Assert.assertEquals(statisticQueryService.getBlogArticleCount(), articleCnt + 2);
+        Assert.assertEquals(statisticQueryService.getBlogCommentCount(), commentCnt + 4);
+        Assert.assertEquals(optionRepository.get(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT).optInt(Option.OPTION_VALUE), articleCnt + 2);
+        Assert.assertEquals(optionRepository.get(Option.ID_C_STATISTIC_BLOG_COMMENT_COUNT).optInt(Option.OPTION_VALUE), commentCnt + 4);
+        Assert.assertEquals(statisticQueryService.getStatistic().optInt(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT), articleCnt + 2);
+    }
+
+    /**
+     * Rollback.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "commit")
+    public void rollback() throws Exception {
+        final StatisticMgmtService statisticMgmtService = getStatisticMgmtService();
+        final StatisticQueryService statisticQueryService = getStatisticQueryService();
+        final int articleCnt = statisticQueryService.getBlogArticleCount();
+
+        final Transaction transaction = getOptionRepository().beginTransaction();
+        statisticMgmtService.incBlogArticleCount();
+        statisticMgmtService.rollback(transaction);
+
+        Assert.assertFalse(transaction.isActive());
+        Assert.assertEquals(statisticQueryService.getBlogArticleCount(), articleCnt);
+    }
+
+    /**
+     * Rollback after the statistic written, the persisted and cached counts stay.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "rollback")
+    public void rollbackAfterWrite() throws Exception {
+        final StatisticMgmtService statisticMgmtService = getStatisticMgmtService();
+        final StatisticQueryService statisticQueryService = getStatisticQueryService();
+        final OptionRepository optionRepository = getOptionRepository();
+        final int articleCnt = statisticQueryService.getBlogArticleCount();
+
+        final Transaction transaction = optionRepository.beginTransaction();
+        Assert.assertEquals(optionRepository.addValue(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT, 3), articleCnt + 3);
+        statisticMgmtService.rollback(transaction);
+
+        Assert.assertEquals(statisticQueryService.getBlogArticleCount(), articleCnt);
+        Assert.assertEquals(optionRepository.get(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT).optInt(Option.OPTION_VALUE), articleCnt);
+
+        // Later changes are added on top of the committed count
+        final Transaction transaction2 = optionRepository.beginTransaction();
+        statisticMgmtService.incBlogArticleCount();
+        statisticMgmtService.commit(transaction2);
+
+        Assert.assertEquals(statisticQueryService.getBlogArticleCount(), articleCnt + 1);
+        Assert.assertEquals(optionRepository.get(Option.ID_C_STATISTIC_BLOG_ARTICLE_COUNT).optInt(Option.OPTION_VALUE), articleCnt + 1);
+    }
+}
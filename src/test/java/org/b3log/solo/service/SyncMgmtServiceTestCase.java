@@ -0,0 +1,204 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.b3log.latke.Keys;
+import org.b3log.latke.repository.Transaction;
+import org.b3log.solo.AbstractTestCase;
+import org.b3log.solo.model.Sync;
+import org.b3log.solo.repository.SyncRepository;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link SyncMgmtService} test case, pushes to a local fake Rhythm endpoint.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@Test(suiteName = "service")
+public class SyncMgmtServiceTestCase extends AbstractTestCase {
+
+    /**
+     * Fake Rhythm server.
+     */
+    private HttpServer server;
+
+    /**
+     * Received requests, "method body".
+     */
+    private final List<String> received = new CopyOnWriteArrayList<>();
+
+    /**
+     * Task the fake Rhythm runs while handling a request, {@code null} for nothing.
+     */
+    private volatile Runnable onReceive;
+
+    /**
+     * Status code the fake Rhythm responds.
+     */
+    private volatile int statusCode = 200;
+
+    /**
+     * Fake article URL.
+     */
+    private String articleURL;
+
+    /**
+     * Init.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void init() throws Exception {
+        super.init();
+
+        getSyncMgmtService().stop(); // Dispatches manually
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/article", exchange -> {
+            received.add(exchange.getRequestMethod() + " " + IOUtils.toString(exchange.getRequestBody(), "UTF-8"));
+            final Runnable task = onReceive;
+            onReceive = null;
+            if (null != task) {
+                task.run();
+            }
+            exchange.sendResponseHeaders(statusCode, -1);
+            exchange.close();
+        });
+        server.start();
+        articleURL = "http://127.0.0.1:" + server.getAddress().getPort() + "/article";
+    }
+
+    /**
+     * Stops the fake Rhythm server.
+     */
+    @AfterClass
+    public void stopServer() {
+        if (null != server) {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Queue, coalesce and dispatch.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "init")
+    public void queue() throws Exception {
+        final SyncMgmtService syncMgmtService = getSyncMgmtService();
+        syncMgmtService.queue("article_1", "POST", articleURL, new JSONObject().put("title", "v1"));
+        syncMgmtService.queue("article_1", "PUT", articleURL, new JSONObject().put("title", "v2")); // Coalesced
+        syncMgmtService.queue("article_2", "PUT", articleURL, new JSONObject().put("title", "v1"));
+        syncMgmtService.queue("article_2", "PUT", articleURL, new JSONObject().put("title", "v2")); // Coalesced
+
+        JSONObject stat = syncMgmtService.getStat();
+        Assert.assertEquals(stat.getLong("pending"), 2);
+        Assert.assertEquals(stat.getLong("coalesced"), 2);
+
+        Assert.assertEquals(syncMgmtService.dispatch(), 2);
+        Assert.assertEquals(received.size(), 2);
+        Assert.assertTrue(received.contains("POST {\"title\":\"v2\"}"));
+        Assert.assertTrue(received.contains("PUT {\"title\":\"v2\"}"));
+
+        stat = syncMgmtService.getStat();
+        Assert.assertEquals(stat.getLong("pending"), 0);
+        Assert.assertEquals(stat.getLong("sent"), 2);
+    }
+
+    /**
+     * Retry with backoff and drop.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "queue")
+    public void retry() throws Exception {
+        final SyncMgmtService syncMgmtService = getSyncMgmtService();
+        final SyncRepository syncRepository = getSyncRepository();
+        received.clear();
+        statusCode = 503;
+        syncMgmtService.queue("article_3", "POST", articleURL, new JSONObject().put("title", "v1"));
+
+        Assert.assertEquals(syncMgmtService.dispatch(), 0);
+        final JSONObject sync = syncRepository.getByKey("article_3");
+        Assert.assertEquals(sync.getInt(Sync.SYNC_RETRIES), 1);
+        Assert.assertTrue(sync.getLong(Sync.SYNC_NEXT_TIME) > System.currentTimeMillis());
+
+        // Not due yet
+        statusCode = 200;
+        Assert.assertEquals(syncMgmtService.dispatch(), 0);
+        Assert.assertEquals(received.size(), 1);
+
+        // Due
+        sync.put(Sync.SYNC_NEXT_TIME, 0L);
+        final Transaction transaction = syncRepository.beginTransaction();
+        syncRepository.update(sync.getString(Keys.OBJECT_ID), sync);
+        transaction.commit();
+        Assert.assertEquals(syncMgmtService.dispatch(), 1);
+        Assert.assertNull(syncRepository.getByKey("article_3"));
+
+        // Rejected
+        statusCode = 400;
+        syncMgmtService.queue("article_4", "POST", articleURL, new JSONObject().put("title", "v1"));
+        Assert.assertEquals(syncMgmtService.dispatch(), 0);
+        Assert.assertNull(syncRepository.getByKey("article_4"));
+        Assert.assertEquals(syncMgmtService.getStat().getLong("dropped"), 1);
+    }
+
+    /**
+     * A push coalesced while being sent is kept.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "retry")
+    public void coalesceWhileSending() throws Exception {
+        final SyncMgmtService syncMgmtService = getSyncMgmtService();
+        final SyncRepository syncRepository = getSyncRepository();
+        received.clear();
+        statusCode = 200;
+        syncMgmtService.queue("article_5", "POST", articleURL, new JSONObject().put("title", "v1"));
+        onReceive = () -> {
+            try {
+                syncMgmtService.queue("article_5", "PUT", articleURL, new JSONObject().put("title", "v2"));
+            } catch (final Exception e) {
+                throw new RuntimeException(e);
+            }
+        };
+
+        Assert.assertEquals(syncMgmtService.dispatch(), 1);
+        final JSONObject sync = syncRepository.getByKey("article_5");
+        Assert.assertNotNull(sync);
+        Assert.assertEquals(sync.getString(Sync.SYNC_METHOD), "PUT"); // The add has been sent
+
+        Assert.assertEquals(syncMgmtService.dispatch(), 1);
+        Assert.assertEquals(received.size(), 2);
+        Assert.assertEquals(received.get(0), "POST {\"title\":\"v1\"}");
+        Assert.assertEquals(received.get(1), "PUT {\"title\":\"v2\"}");
+        Assert.assertNull(syncRepository.getByKey("article_5"));
+    }
+}
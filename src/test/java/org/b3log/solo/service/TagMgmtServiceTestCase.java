@@ -17,14 +17,22 @@
  */
 package org.b3log.solo.service;
 
+import org.b3log.latke.Keys;
+import org.b3log.latke.repository.Transaction;
 import org.b3log.solo.AbstractTestCase;
+import org.b3log.solo.model.Article;
+import org.b3log.solo.model.Common;
+import org.b3log.solo.model.Tag;
+import org.b3log.solo.repository.TagRepository;
+import org.json.JSONObject;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
 /**
  * {@link TagMgmtService} test case.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.0.1, Sep 11, 2012
+ * @version 1.1.0.0, Nov 21, 2018
  */
 @Test(suiteName = "service")
 public class TagMgmtServiceTestCase extends AbstractTestCase {
@@ -50,4 +58,51 @@ public class TagMgmtServiceTestCase extends AbstractTestCase {
 
         tagMgmtService.removeUnusedTags();
     }
+
+    /**
+     * Repair Tag Article Counter.
+     *
+     * @throws Exception exception
+     */
+    @Test(dependsOnMethods = "init")
+    public void repairTagArticleCounter() throws Exception {
+        final TagMgmtService tagMgmtService = getTagMgmtService();
+        final TagRepository tagRepository = getTagRepository();
+
+        final JSONObject requestJSONObject = new JSONObject();
+        final JSONObject article = new JSONObject();
+        requestJSONObject.put(Article.ARTICLE, article);
+        article.put(Article.ARTICLE_AUTHOR_ID, getUserQueryService().getAdmin().optString(Keys.OBJECT_ID));
+        article.put(Article.ARTICLE_TITLE, "repair title");
+        article.put(Article.ARTICLE_ABSTRACT, "repair abstract");
+        article.put(Article.ARTICLE_CONTENT, "repair content");
+        article.put(Article.ARTICLE_TAGS_REF, "repair1");
+        article.put(Article.ARTICLE_PERMALINK, "repair permalink");
+        article.put(Article.ARTICLE_IS_PUBLISHED, true);
+        article.put(Common.POST_TO_COMMUNITY, false);
+        article.put(Article.ARTICLE_SIGN_ID, "1");
+        article.put(Article.ARTICLE_COMMENTABLE, true);
+        article.put(Article.ARTICLE_VIEW_PWD, "");
+        getArticleMgmtService().addArticle(requestJSONObject);
+
+        final JSONObject tag = tagRepository.getByTitle("repair1");
+        final String tagId = tag.optString(Keys.OBJECT_ID);
+        tag.put(Tag.TAG_REFERENCE_COUNT, 5);
+        tag.put(Tag.TAG_PUBLISHED_REFERENCE_COUNT, 3);
+        final Transaction transaction = tagRepository.beginTransaction();
+        tagRepository.update(tagId, tag);
+        transaction.commit();
+
+        Assert.assertTrue(tagMgmtService.repairTagArticleCounter());
+
+        final JSONObject repaired = tagRepository.get(tagId);
+        Assert.assertEquals(repaired.optInt(Tag.TAG_REFERENCE_COUNT), 1);
+        Assert.assertEquals(repaired.optInt(Tag.TAG_PUBLISHED_REFERENCE_COUNT), 1);
+
+        final JSONObject progress = tagMgmtService.getTagArticleCounterRepairProgress();
+        Assert.assertFalse(progress.optBoolean("running"));
+        Assert.assertEquals(progress.optString("phase"), "done");
+        Assert.assertEquals(progress.optInt("percent"), 100);
+        Assert.assertTrue(1 <= progress.optInt("repairedTags"));
+    }
 }
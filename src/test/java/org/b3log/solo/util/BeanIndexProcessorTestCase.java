@@ -0,0 +1,114 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link org.b3log.solo.util.BeanIndexProcessor} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class BeanIndexProcessorTestCase {
+
+    /**
+     * Test method for {@linkplain BeanIndexProcessor#process(java.util.Set, javax.annotation.processing.RoundEnvironment)}.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void process() throws Exception {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (null == compiler) { // Running on a JRE
+            return;
+        }
+
+        final File dir = Files.createTempDirectory("solo-bean-index").toFile();
+        try {
+            final File source = new File(dir, "org/b3log/solo/test/Beans.java");
+            FileUtils.writeStringToFile(source, "package org.b3log.solo.test;\n"
+                    + "@org.b3log.latke.service.annotation.Service public class Beans {\n"
+                    + "    @org.b3log.latke.ioc.Singleton public static class Cache {}\n"
+                    + "    public static class Model {}\n"
+                    + "}\n", "UTF-8");
+
+            final int result = compiler.run(null, null, null,
+                    "-proc:only", "-processor", BeanIndexProcessor.class.getName(),
+                    "-classpath", System.getProperty("java.class.path"), "-d", dir.getPath(), source.getPath());
+            Assert.assertEquals(result, 0);
+
+            final List<String> beans = FileUtils.readLines(new File(dir, BeanIndexProcessor.INDEX), "UTF-8");
+            Assert.assertEquals(beans, Arrays.asList("org.b3log.solo.test.Beans", "org.b3log.solo.test.Beans$Cache"));
+        } finally {
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+
+    /**
+     * Test method for {@linkplain BeanIndexProcessor#process(java.util.Set, javax.annotation.processing.RoundEnvironment)}
+     * of incremental builds.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void processIncrementally() throws Exception {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (null == compiler) { // Running on a JRE
+            return;
+        }
+
+        final File dir = Files.createTempDirectory("solo-bean-index").toFile();
+        try {
+            final String classpath = System.getProperty("java.class.path") + File.pathSeparator + dir.getPath();
+            final File beans = new File(dir, "org/b3log/solo/test/Beans.java");
+            FileUtils.writeStringToFile(beans, "package org.b3log.solo.test;\n"
+                    + "@org.b3log.latke.service.annotation.Service public class Beans {}\n", "UTF-8");
+            Assert.assertEquals(compiler.run(null, null, null, "-processor", BeanIndexProcessor.class.getName(),
+                    "-classpath", classpath, "-d", dir.getPath(), beans.getPath()), 0);
+
+            // Compiles another bean only, keeps the beans indexed by the previous build
+            final File cache = new File(dir, "org/b3log/solo/test/Cache.java");
+            FileUtils.writeStringToFile(cache, "package org.b3log.solo.test;\n"
+                    + "@org.b3log.latke.ioc.Singleton public class Cache {}\n", "UTF-8");
+            Assert.assertEquals(compiler.run(null, null, null, "-processor", BeanIndexProcessor.class.getName(),
+                    "-classpath", classpath, "-d", dir.getPath(), cache.getPath()), 0);
+            Assert.assertEquals(FileUtils.readLines(new File(dir, BeanIndexProcessor.INDEX), "UTF-8"),
+                    Arrays.asList("org.b3log.solo.test.Beans", "org.b3log.solo.test.Cache"));
+
+            // Drops a class no longer annotated
+            FileUtils.writeStringToFile(beans, "package org.b3log.solo.test;\npublic class Beans {}\n", "UTF-8");
+            Assert.assertEquals(compiler.run(null, null, null, "-processor", BeanIndexProcessor.class.getName(),
+                    "-classpath", classpath, "-d", dir.getPath(), beans.getPath()), 0);
+            Assert.assertEquals(FileUtils.readLines(new File(dir, BeanIndexProcessor.INDEX), "UTF-8"),
+                    Arrays.asList("org.b3log.solo.test.Cache"));
+        } finally {
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+}
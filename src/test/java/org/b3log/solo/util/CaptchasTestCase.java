@@ -0,0 +1,73 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link org.b3log.solo.util.Captchas} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.1.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class CaptchasTestCase {
+
+    /**
+     * Test method for {@linkplain Captchas#take()}.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void take() throws Exception {
+        final Captchas.Image captcha = Captchas.take();
+        Assert.assertEquals(captcha.getChallenge().length(), Captchas.CAPTCHA_LENGTH);
+        Assert.assertTrue(0 < captcha.getPNG().length);
+    }
+
+    /**
+     * Test method for {@linkplain Captchas#verify(String, String)}.
+     */
+    @Test
+    public void verify() {
+        Captchas.issue("127.0.0.1", "abcd");
+
+        Assert.assertFalse(Captchas.verify("127.0.0.2", "abcd"));
+        Assert.assertFalse(Captchas.verify("127.0.0.1", "abce"));
+        Assert.assertTrue(Captchas.verify("127.0.0.1", "abcd"));
+        Assert.assertFalse(Captchas.verify("127.0.0.1", "abcd"));
+    }
+
+    /**
+     * Test method for {@linkplain Captchas#issue(String, String)}, a client evicts its own oldest challenge.
+     */
+    @Test
+    public void issue() {
+        Captchas.issue("127.0.0.3", "abcd");
+        for (int i = 0; i < Captchas.MAX_CLIENT_CHALLENGES; i++) {
+            Captchas.issue("127.0.0.4", "a" + i);
+        }
+        Captchas.issue("127.0.0.4", "b");
+
+        Assert.assertFalse(Captchas.verify("127.0.0.4", "a0"));
+        Assert.assertTrue(Captchas.verify("127.0.0.4", "a1"));
+        Assert.assertTrue(Captchas.verify("127.0.0.4", "b"));
+        Assert.assertTrue(Captchas.verify("127.0.0.3", "abcd"));
+    }
+}
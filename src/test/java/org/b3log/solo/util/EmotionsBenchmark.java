@@ -0,0 +1,131 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import org.b3log.latke.Latkes;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Emotions#convert(String)} benchmark, compares the single-pass converter with the former replace loop.
+ * <p>
+ * Runs with {@code mvn test-compile exec:java -Dexec.mainClass=org.b3log.solo.util.EmotionsBenchmark
+ * -Dexec.classpathScope=test} or from the IDE.
+ * </p>
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmotionsBenchmark {
+
+    /**
+     * A typical comment body, a few emojis and some colons which are not emojis.
+     */
+    private static final String COMMENT = "Nice post :smile: I agree with the point at 10:30, the rest is "
+            + "a bit long but still worth reading :+1: thanks!";
+
+    /**
+     * Comment count of the content.
+     */
+    @Param({"1", "20"})
+    public int repeat;
+
+    /**
+     * Content.
+     */
+    private String content;
+
+    /**
+     * Emoji codes.
+     */
+    private String[] emojis;
+
+    /**
+     * Prepares the content and emoji codes.
+     *
+     * @throws Exception exception
+     */
+    @Setup
+    public void setup() throws Exception {
+        Latkes.init();
+
+        final StringBuilder contentBuilder = new StringBuilder();
+        for (int i = 0; i < repeat; i++) {
+            contentBuilder.append(COMMENT).append('\n');
+        }
+        content = contentBuilder.toString();
+
+        final Field field = Emotions.class.getDeclaredField("EMOJIS");
+        field.setAccessible(true);
+        emojis = (String[]) field.get(null);
+    }
+
+    /**
+     * Single-pass converter.
+     *
+     * @return converted content
+     */
+    @Benchmark
+    public String singlePass() {
+        return Emotions.convert(content);
+    }
+
+    /**
+     * Former converter, one {@link String#replace(CharSequence, CharSequence)} per emoji code.
+     *
+     * @return converted content
+     */
+    @Benchmark
+    public String replaceLoop() {
+        final String staticServePath = Latkes.getStaticServePath();
+        String ret = content;
+        if (!Emotions.EMOJI_PATTERN.matcher(ret).find()) {
+            return ret;
+        }
+
+        for (final String emojiCode : emojis) {
+            final String emoji = ":" + emojiCode + ":";
+            ret = ret.replace(emoji, "<img align=\"absmiddle\" alt=\"" + emoji + "\" class=\"emoji\" src=\""
+                    + staticServePath + "/js/lib/emojify.js-1.1.0/images/basic/" + emojiCode
+                    + ".png\" title=\"" + emoji + "\" width=\"20px\" height=\"20px\"></img>");
+        }
+
+        return ret;
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the specified arguments
+     * @throws Exception exception
+     */
+    public static void main(final String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(EmotionsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import org.b3log.latke.Latkes;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * {@link Emotions} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class EmotionsTestCase {
+
+    @BeforeClass
+    public void beforeClass() {
+        Latkes.init();
+    }
+
+    /**
+     * Test method for {@linkplain Emotions#convert(String)}.
+     */
+    @Test
+    public void convert() {
+        Assert.assertEquals(Emotions.convert(""), "");
+        Assert.assertEquals(Emotions.convert("no emoji"), "no emoji");
+        Assert.assertEquals(Emotions.convert("at 10:30, 12:00:00 :not_an_emoji: :smile"),
+                "at 10:30, 12:00:00 :not_an_emoji: :smile");
+
+        final String smile = img("smile");
+        Assert.assertEquals(Emotions.convert(":smile:"), smile);
+        Assert.assertEquals(Emotions.convert("hi :smile: :+1::-1: bye"), "hi " + smile + " " + img("+1") + img("-1") + " bye");
+        Assert.assertEquals(Emotions.convert("::smile:"), ":" + smile);
+        Assert.assertEquals(Emotions.convert(":foo:smile:"), ":foo" + smile);
+    }
+
+    /**
+     * Gets the image HTML of the specified emoji code.
+     *
+     * @param emojiCode the specified emoji code
+     * @return image HTML
+     */
+    private static String img(final String emojiCode) {
+        final String emoji = ":" + emojiCode + ":";
+
+        return "<img align=\"absmiddle\" alt=\"" + emoji + "\" class=\"emoji\" src=\"" + Latkes.getStaticServePath()
+                + "/js/lib/emojify.js-1.1.0/images/basic/" + emojiCode + ".png\" title=\"" + emoji
+                + "\" width=\"20px\" height=\"20px\"></img>";
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link GravatarResolver} test case, runs against a local stub server.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.1.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class GravatarResolverTestCase {
+
+    /**
+     * Email which has an avatar on the stub server.
+     */
+    private static final String FOUND_EMAIL = "found@b3log.org";
+
+    /**
+     * Stub server.
+     */
+    private HttpServer server;
+
+    /**
+     * Request count of the stub server.
+     */
+    private final AtomicInteger requests = new AtomicInteger();
+
+    /**
+     * Stops the stub server.
+     */
+    @AfterMethod
+    public void afterMethod() {
+        if (null != server) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    /**
+     * Test method for {@linkplain GravatarResolver#getAvatarURL(String, String)}.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void getAvatarURL() throws Exception {
+        final String gravatar = startServer(0);
+        final GravatarResolver resolver = new GravatarResolver(gravatar, 60 * 1000, 60 * 1000, 16);
+
+        Assert.assertNull(resolver.getAvatarURL(FOUND_EMAIL, "128")); // Not verified yet
+        final String avatarURL = await(resolver, FOUND_EMAIL);
+        Assert.assertEquals(avatarURL, gravatar + DigestUtils.md5Hex(FOUND_EMAIL) + "?s=128");
+        Assert.assertEquals(resolver.getAvatarURL("Found@B3log.org", "64"), gravatar + DigestUtils.md5Hex(FOUND_EMAIL) + "?s=64");
+
+        Assert.assertNull(resolver.getAvatarURL("missing@b3log.org", "128"));
+        Thread.sleep(500);
+        Assert.assertNull(resolver.getAvatarURL("missing@b3log.org", "128"));
+
+        Assert.assertEquals(requests.get(), 2); // Cached
+    }
+
+    /**
+     * Test method for {@linkplain GravatarResolver#getAvatarURL(String, String, String)}.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void getAvatarURLWithDefault() throws Exception {
+        final String gravatar = startServer(0);
+        final GravatarResolver resolver = new GravatarResolver(gravatar, 60 * 1000, 60 * 1000, 16);
+        final String defaultURL = "http://localhost/images/default-user-thumbnail.png";
+
+        // Not verified yet, lets Gravatar fall back to the default
+        Assert.assertEquals(resolver.getAvatarURL(FOUND_EMAIL, "128", defaultURL), gravatar + DigestUtils.md5Hex(FOUND_EMAIL)
+                + "?s=128&d=http%3A%2F%2Flocalhost%2Fimages%2Fdefault-user-thumbnail.png");
+        Assert.assertNotNull(await(resolver, FOUND_EMAIL));
+        Assert.assertEquals(resolver.getAvatarURL(FOUND_EMAIL, "128", defaultURL), gravatar + DigestUtils.md5Hex(FOUND_EMAIL) + "?s=128");
+
+        resolver.getAvatarURL("missing@b3log.org", "128", defaultURL);
+        Thread.sleep(500);
+        Assert.assertEquals(resolver.getAvatarURL("missing@b3log.org", "128", defaultURL), defaultURL);
+    }
+
+    /**
+     * Test method for {@linkplain GravatarResolver#getAvatarURL(String, String)} with a slow Gravatar.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void slowGravatar() throws Exception {
+        final GravatarResolver resolver = new GravatarResolver(startServer(2000), 60 * 1000, 60 * 1000, 16);
+
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            Assert.assertNull(resolver.getAvatarURL(FOUND_EMAIL, "128"));
+        }
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+
+        Assert.assertNotNull(await(resolver, FOUND_EMAIL));
+        Assert.assertEquals(requests.get(), 1); // Verifies once only
+    }
+
+    /**
+     * Test method for expiration and eviction.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void expireAndEvict() throws Exception {
+        final GravatarResolver resolver = new GravatarResolver(startServer(0), 200, 200, 1);
+        Assert.assertNotNull(await(resolver, FOUND_EMAIL));
+        Assert.assertEquals(requests.get(), 1);
+
+        Thread.sleep(300);
+        Assert.assertNotNull(resolver.getAvatarURL(FOUND_EMAIL, "128")); // Stale result, verifies again
+        Thread.sleep(300);
+        Assert.assertEquals(requests.get(), 2);
+
+        resolver.getAvatarURL("missing@b3log.org", "128");
+        Thread.sleep(300);
+        Assert.assertNull(resolver.getAvatarURL(FOUND_EMAIL, "128")); // Evicted
+    }
+
+    /**
+     * Waits for the avatar URL of the specified email to be verified.
+     *
+     * @param resolver the specified resolver
+     * @param email    the specified email
+     * @return avatar URL, returns {@code null} if timeout
+     * @throws InterruptedException interrupted exception
+     */
+    private static String await(final GravatarResolver resolver, final String email) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            final String ret = resolver.getAvatarURL(email, "128");
+            if (null != ret) {
+                return ret;
+            }
+
+            Thread.sleep(50);
+        }
+
+        return null;
+    }
+
+    /**
+     * Starts a stub Gravatar server on a random port.
+     *
+     * @param delay the specified response delay in milliseconds
+     * @return Gravatar address of the stub server
+     * @throws IOException io exception
+     */
+    private String startServer(final long delay) throws IOException {
+        requests.set(0);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/avatar/", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(delay);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            final String path = exchange.getRequestURI().getPath();
+            final int statusCode = path.endsWith(DigestUtils.md5Hex(FOUND_EMAIL)) ? 200 : 404;
+            exchange.sendResponseHeaders(statusCode, -1);
+            exchange.close();
+        });
+        server.start();
+
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/avatar/";
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link org.b3log.solo.util.LatencyHistogram} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class LatencyHistogramTestCase {
+
+    /**
+     * Test method for {@linkplain LatencyHistogram#getValueAtQuantile(double)}.
+     */
+    @Test
+    public void getValueAtQuantile() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(histogram.getValueAtQuantile(0.5), 0);
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        Assert.assertEquals(histogram.getCount(), 1000);
+        Assert.assertEquals(histogram.getSum(), 500500000);
+
+        final long p50 = histogram.getValueAtQuantile(0.5);
+        Assert.assertTrue(p50 >= 500000 && p50 <= 500000 * 1.125, String.valueOf(p50));
+        Assert.assertEquals(histogram.getValueAtQuantile(0.99), 1000000);
+        Assert.assertEquals(histogram.getValueAtQuantile(1), 1000000);
+    }
+
+    /**
+     * Test method for {@linkplain LatencyHistogram#getIndex(long)}.
+     */
+    @Test
+    public void getIndex() {
+        for (long value = 0; value < 1000000; value++) {
+            final int index = LatencyHistogram.getIndex(value);
+            Assert.assertTrue(value <= LatencyHistogram.getUpperBound(index));
+            if (0 < index) {
+                Assert.assertTrue(value > LatencyHistogram.getUpperBound(index - 1));
+            }
+        }
+    }
+}
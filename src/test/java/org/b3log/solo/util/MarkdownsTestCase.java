@@ -21,6 +21,8 @@ import org.apache.commons.io.IOUtils;
 import org.b3log.latke.Latkes;
 import org.b3log.latke.util.Stopwatchs;
 import org.b3log.latke.util.Strings;
+import org.jsoup.Jsoup;
+import org.jsoup.safety.Whitelist;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -35,7 +37,7 @@ import java.util.Locale;
  * {@link org.b3log.solo.util.Markdowns} test case.
  *
  * @author <a href="http://88250.b3log.org">Liang Ding</a>
- * @version 1.0.1.4, Dec 16, 2017
+ * @version 1.0.4.0, Nov 21, 2018
  * @since 0.4.5
  */
 public final class MarkdownsTestCase {
@@ -60,6 +62,7 @@ public final class MarkdownsTestCase {
 
         markdownText = "# Solo Markdown Editor";
         html = Markdowns.toHTML(markdownText);
+        Assert.assertTrue(html.startsWith("<h1")); // Block output is not wrapped with a paragraph
 
         final URL testFile = MarkdownsTestCase.class.getResource("/markdown_syntax.text");
         final String path = URLDecoder.decode(testFile.getPath(), "UTF-8");
@@ -88,6 +91,82 @@ public final class MarkdownsTestCase {
         markdownText = "The first: &#39; <br/> The second: &AElig;";
         html = Markdowns.toHTML(markdownText);
 
-        Assert.assertEquals(html, "<p>The first: ' <br> The second: Æ</p>");
+        Assert.assertEquals(html, "<p>The first: ' <br/> The second: Æ</p>");
+
+        // Link target
+        markdownText = "[Solo](https://github.com/b3log/solo) [Home](" + Latkes.getServePath() + ") <a href=\"https://b3log.org\">B3log</a>";
+        html = Markdowns.toHTML(markdownText);
+
+        Assert.assertTrue(html.contains("<a href=\"https://github.com/b3log/solo\" target=\"_blank\">Solo</a>"));
+        Assert.assertTrue(html.contains("<a href=\"" + Latkes.getServePath() + "\">Home</a>"));
+        Assert.assertTrue(html.contains("<a href=\"https://b3log.org\" target=\"_blank\">B3log</a>"));
+    }
+
+    /**
+     * Test method for {@linkplain Markdowns#isInline(String)}.
+     */
+    @Test
+    public void isInline() {
+        Assert.assertTrue(Markdowns.isInline("Solo <em>Markdown</em>"));
+        Assert.assertTrue(Markdowns.isInline("<a href=\"https://b3log.org\">B3log</a>"));
+        Assert.assertFalse(Markdowns.isInline("<h2>Solo</h2>"));
+        Assert.assertFalse(Markdowns.isInline("<div>Solo</div>\n"));
+        Assert.assertFalse(Markdowns.isInline("Solo<p>Markdown</p>"));
+        Assert.assertFalse(Markdowns.isInline(" "));
+    }
+
+    /**
+     * Test method for {@linkplain Markdowns#toPlainText(java.lang.String, int)}.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void toPlainText() throws Exception {
+        Assert.assertEquals(Markdowns.toPlainText("", 500), "");
+
+        final URL testFile = MarkdownsTestCase.class.getResource("/markdown_syntax.text");
+        final String path = URLDecoder.decode(testFile.getPath(), "UTF-8");
+        final String syntax = IOUtils.toString(new FileInputStream(path), "UTF-8");
+        final StringBuilder longBuilder = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            longBuilder.append(syntax).append(Strings.LINE_SEPARATOR);
+        }
+
+        final String[] markdownTexts = new String[]{
+                "# Solo Markdown Editor",
+                "The first: &#39; <br/> The second: &AElig;",
+                "[Solo](https://github.com/b3log/solo) <a href=\"https://b3log.org\">B3log</a> 1 < 2 & 3 > 2",
+                "* item 1\n* item 2\n\n```java\nint i = 0;\n```\n\n> quote",
+                syntax,
+                longBuilder.toString()};
+        for (final String markdownText : markdownTexts) {
+            final String expected = Jsoup.clean(Markdowns.toHTML(markdownText), Whitelist.none());
+            for (final int length : new int[]{10, 500}) {
+                final String plainText = Markdowns.toPlainText(markdownText, length);
+                if (expected.length() > length) {
+                    Assert.assertTrue(plainText.length() > length);
+                    Assert.assertEquals(plainText.substring(0, length), expected.substring(0, length));
+                } else {
+                    Assert.assertEquals(plainText, expected);
+                }
+            }
+        }
+
+        // Stops at the head of a long article
+        Assert.assertTrue(Markdowns.toPlainText(longBuilder.toString(), 500).length() < syntax.length());
+    }
+
+    /**
+     * Test method for {@linkplain Markdowns#addLinkTargets(java.lang.String)}.
+     */
+    @Test
+    public void addLinkTargets() {
+        Assert.assertEquals(Markdowns.addLinkTargets("no links"), "no links");
+        Assert.assertEquals(Markdowns.addLinkTargets("<abbr>a</abbr><a href='https://b3log.org' title=\"a>b\">b</a>"),
+                "<abbr>a</abbr><a href='https://b3log.org' title=\"a>b\" target=\"_blank\">b</a>");
+        Assert.assertEquals(Markdowns.addLinkTargets("<A HREF=\"" + Latkes.getServePath() + "/tags\">tags</A>"),
+                "<A HREF=\"" + Latkes.getServePath() + "/tags\">tags</A>");
+        Assert.assertEquals(Markdowns.addLinkTargets("<a href=\"https://b3log.org\" target=\"_self\">b</a>"),
+                "<a href=\"https://b3log.org\" target=\"_self\">b</a>");
     }
 }
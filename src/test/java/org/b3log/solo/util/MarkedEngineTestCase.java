@@ -0,0 +1,132 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+/**
+ * {@link MarkedEngine} test case, runs against a local stub server.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.1.0, Nov 21, 2018
+ * @since 2.9.7
+ */
+public final class MarkedEngineTestCase {
+
+    /**
+     * Stub server.
+     */
+    private HttpServer server;
+
+    /**
+     * Stops the stub server.
+     */
+    @AfterMethod
+    public void afterMethod() {
+        if (null != server) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    /**
+     * Test method for {@linkplain MarkedEngine#checkHealth()} and {@linkplain MarkedEngine#toHTML(String)}.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void toHTML() throws Exception {
+        final MarkedEngine engine = new MarkedEngine(startServer());
+        Assert.assertFalse(engine.isAvailable());
+
+        Assert.assertTrue(engine.checkHealth());
+        Assert.assertTrue(engine.isAvailable());
+        Assert.assertTrue(engine.allowRequest());
+        Assert.assertEquals(engine.toHTML("Solo"), "<p>Solo</p>");
+    }
+
+    /**
+     * Test method for the circuit breaker.
+     *
+     * @throws Exception exception
+     */
+    @Test
+    public void circuitBreaker() throws Exception {
+        final String servePath = startServer();
+        final MarkedEngine engine = new MarkedEngine(servePath);
+        Assert.assertTrue(engine.checkHealth());
+
+        server.stop(0);
+        server = null;
+        for (int i = 0; i < MarkedEngine.FAILURE_THRESHOLD; i++) {
+            Assert.assertTrue(engine.allowRequest());
+            try {
+                engine.toHTML("Solo");
+                Assert.fail();
+            } catch (final IOException e) {
+                // expected
+            }
+        }
+
+        Assert.assertFalse(engine.isAvailable());
+        Assert.assertFalse(engine.allowRequest());
+        Assert.assertFalse(engine.checkHealth());
+    }
+
+    /**
+     * Starts a stub marked server on a random port.
+     *
+     * @return serve path of the stub server
+     * @throws IOException io exception
+     */
+    private String startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            final String body = IOUtils.toString(exchange.getRequestBody(), "UTF-8");
+            respond(exchange, 200, "<p>" + body + "</p>");
+        });
+        server.start();
+
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Responds the specified exchange with the specified status code and body.
+     *
+     * @param exchange   the specified exchange
+     * @param statusCode the specified status code
+     * @param body       the specified body
+     * @throws IOException io exception
+     */
+    private static void respond(final HttpExchange exchange, final int statusCode, final String body) throws IOException {
+        final byte[] bytes = body.getBytes("UTF-8");
+        exchange.sendResponseHeaders(statusCode, 0 == bytes.length ? -1 : bytes.length);
+        try (final OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
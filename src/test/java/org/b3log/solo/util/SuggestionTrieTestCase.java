@@ -0,0 +1,79 @@
+/*
+ * Solo - A small and beautiful blogging system written in Java.
+ * Copyright (c) 2010-2018, b3log.org & hacpai.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.b3log.solo.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link org.b3log.solo.util.SuggestionTrie} test case.
+ *
+ * @author <a href="http://88250.b3log.org">Liang Ding</a>
+ * @version 1.0.0.0, Nov 20, 2018
+ * @since 2.9.7
+ */
+public final class SuggestionTrieTestCase {
+
+    /**
+     * Test method for {@linkplain SuggestionTrie#suggest(String, int)}.
+     */
+    @Test
+    public void suggest() {
+        final SuggestionTrie trie = new SuggestionTrie();
+        trie.put("Hello World", "1", 5);
+        trie.put("Help", "2", 10);
+        trie.put("hello", "3", 1);
+        trie.put("Java", "4", 100);
+
+        List<String> suggestions = trie.suggest("HE", 10);
+        Assert.assertEquals(suggestions, Arrays.asList("Help", "Hello World", "hello"));
+
+        suggestions = trie.suggest("hello w", 10);
+        Assert.assertEquals(suggestions, Arrays.asList("Hello World"));
+
+        suggestions = trie.suggest("he", 1);
+        Assert.assertEquals(suggestions, Arrays.asList("Help"));
+
+        Assert.assertTrue(trie.suggest("x", 10).isEmpty());
+        Assert.assertTrue(trie.suggest("", 10).isEmpty());
+    }
+
+    /**
+     * Test method for {@linkplain SuggestionTrie#remove(String, String)}.
+     */
+    @Test
+    public void remove() {
+        final SuggestionTrie trie = new SuggestionTrie();
+        trie.put("Hello World", "1", 5);
+        trie.put("Help", "2", 10);
+
+        trie.remove("Help", "2");
+        Assert.assertEquals(trie.suggest("hel", 10), Arrays.asList("Hello World"));
+
+        trie.put("Help", "2", 1);
+        trie.put("Help", "2", 50);
+        Assert.assertEquals(trie.suggest("hel", 10), Arrays.asList("Help", "Hello World"));
+
+        trie.remove("Hello World", "1");
+        trie.remove("Help", "2");
+        Assert.assertTrue(trie.suggest("h", 10).isEmpty());
+    }
+}